@@ -20,6 +20,8 @@ import org.kocakosm.pitaya.util.Parameters;
 
 import java.util.AbstractMap;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,6 +35,14 @@ import java.util.Set;
  * are stored, so, if one of these {@code Map}s gets updated, those changes will
  * also be reflected in the {@code ChainMap}. Not thread safe.
  *
+ * <p>Lookups through {@link #get(Object)} probe each underlying {@code Map}
+ * once, unless the key is mapped to {@code null}. The number of lookups that
+ * have been resolved by each underlying {@code Map} is recorded and can be
+ * retrieved through {@link #getHitCount(int)} and {@link #getMissCount()}.
+ * When the chain is looked up much more often than it is updated,
+ * {@link #flatView()} provides a view in which all the {@code Map}s have
+ * been merged together.</p>
+ *
  * @param <K> the type of the {@code Map}'s keys.
  * @param <V> the type of the {@code Map}'s values.
  *
@@ -40,7 +50,11 @@ import java.util.Set;
  */
 public final class ChainMap<K, V> extends AbstractMap<K, V>
 {
-	private final List<Map<K, V>> maps;
+	private final Map<K, V>[] maps;
+	private final long[] hits;
+	private long misses;
+	private int modCount;
+	private FlatView flatView;
 
 	/**
 	 * Creates a new {@code ChainMap} from the given {@code Map}s.
@@ -53,11 +67,7 @@ public final class ChainMap<K, V> extends AbstractMap<K, V>
 	 */
 	public ChainMap(Map<K, V>... maps)
 	{
-		Parameters.checkCondition(maps.length > 0);
-		this.maps = ImmutableList.copyOf(maps);
-		for (Map<K, V> map : this.maps) {
-			Parameters.checkNotNull(map);
-		}
+		this(ImmutableList.copyOf(maps));
 	}
 
 	/**
@@ -71,17 +81,101 @@ public final class ChainMap<K, V> extends AbstractMap<K, V>
 	 */
 	public ChainMap(Iterable<? extends Map<K, V>> maps)
 	{
-		this.maps = ImmutableList.copyOf(maps);
-		for (Map<K, V> map : this.maps) {
+		List<Map<K, V>> list = Iterables.toList(maps);
+		for (Map<K, V> map : list) {
 			Parameters.checkNotNull(map);
 		}
-		Parameters.checkCondition(!this.maps.isEmpty());
+		Parameters.checkCondition(!list.isEmpty());
+		/* Generic arrays can't be created, the array only holds maps. */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Map<K, V>[] array = list.toArray(new Map[list.size()]);
+		this.maps = array;
+		this.hits = new long[this.maps.length];
+	}
+
+	/**
+	 * Returns the number of lookups ({@link #get(Object)} and
+	 * {@link #containsKey(Object)} calls) that have been resolved by the
+	 * underlying {@code Map} at the given position so far.
+	 *
+	 * @param index the index of the underlying {@code Map}, in the order
+	 *	in which the {@code Map}s were given at construction time.
+	 *
+	 * @return the number of lookups resolved by the specified {@code Map}.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public long getHitCount(int index)
+	{
+		return hits[index];
+	}
+
+	/**
+	 * Returns the number of lookups ({@link #get(Object)} and
+	 * {@link #containsKey(Object)} calls) that couldn't be resolved by
+	 * any of the underlying {@code Map}s so far.
+	 *
+	 * @return the number of unsuccessful lookups.
+	 */
+	public long getMissCount()
+	{
+		return misses;
+	}
+
+	/** Sets all the hit and miss counters to 0. */
+	public void resetCounts()
+	{
+		for (int i = 0; i < hits.length; i++) {
+			hits[i] = 0;
+		}
+		misses = 0;
+	}
+
+	/**
+	 * Returns a read-only view of this {@code ChainMap} in which all the
+	 * underlying {@code Map}s have been merged together. Lookups on the
+	 * returned view cost a single probe whatever the number of underlying
+	 * {@code Map}s, and its size and key set are computed only once. The
+	 * merged content is cached until this {@code ChainMap} is modified,
+	 * at which point it is lazily recomputed. Note that modifications
+	 * made directly on the underlying {@code Map}s can't be detected:
+	 * in that case, use {@link #invalidate()} to discard the cache.
+	 *
+	 * @return a flattened view of this {@code ChainMap}.
+	 *
+	 * @since 0.5
+	 */
+	public Map<K, V> flatView()
+	{
+		if (flatView == null) {
+			flatView = new FlatView();
+		}
+		return flatView;
+	}
+
+	/**
+	 * Signals that one of the underlying {@code Map}s has been modified
+	 * directly, which discards the content cached by {@link #flatView()}.
+	 *
+	 * @since 0.5
+	 */
+	public void invalidate()
+	{
+		modCount++;
 	}
 
 	@Override
 	public int size()
 	{
-		return keySet().size();
+		int size = maps[0].size();
+		for (int i = 1; i < maps.length; i++) {
+			for (K key : maps[i].keySet()) {
+				if (indexOf(key, i) < 0) {
+					size++;
+				}
+			}
+		}
+		return size;
 	}
 
 	@Override
@@ -98,12 +192,13 @@ public final class ChainMap<K, V> extends AbstractMap<K, V>
 	@Override
 	public boolean containsKey(Object key)
 	{
-		for (Map<K, V> map : maps) {
-			if (map.containsKey(key)) {
-				return true;
-			}
+		int index = indexOf(key, maps.length);
+		if (index < 0) {
+			misses++;
+			return false;
 		}
-		return false;
+		hits[index]++;
+		return true;
 	}
 
 	@Override
@@ -120,25 +215,35 @@ public final class ChainMap<K, V> extends AbstractMap<K, V>
 	@Override
 	public V get(Object key)
 	{
-		for (Map<K, V> map : maps) {
-			if (map.containsKey(key)) {
-				return map.get(key);
+		for (int i = 0; i < maps.length; i++) {
+			V value = maps[i].get(key);
+			if (value != null || maps[i].containsKey(key)) {
+				hits[i]++;
+				return value;
 			}
 		}
+		misses++;
 		return null;
 	}
 
 	@Override
 	public V put(K key, V value)
 	{
-		return maps.get(0).put(key, value);
+		modCount++;
+		return maps[0].put(key, value);
 	}
 
 	@Override
 	public V remove(Object key)
 	{
-		V value = get(key);
+		modCount++;
+		V value = null;
+		boolean found = false;
 		for (Map<K, V> map : maps) {
+			if (!found) {
+				value = map.get(key);
+				found = value != null || map.containsKey(key);
+			}
 			map.remove(key);
 		}
 		return value;
@@ -147,12 +252,14 @@ public final class ChainMap<K, V> extends AbstractMap<K, V>
 	@Override
 	public void putAll(Map<? extends K, ? extends V> m)
 	{
-		maps.get(0).putAll(m);
+		modCount++;
+		maps[0].putAll(m);
 	}
 
 	@Override
 	public void clear()
 	{
+		modCount++;
 		for (Map<K, V> map : maps) {
 			map.clear();
 		}
@@ -171,11 +278,7 @@ public final class ChainMap<K, V> extends AbstractMap<K, V>
 	@Override
 	public Collection<V> values()
 	{
-		ImmutableList.Builder<V> values = new ImmutableList.Builder<V>();
-		for (K key : keySet()) {
-			values.add(get(key));
-		}
-		return values.build();
+		return ImmutableList.copyOf(mergeLayers().values());
 	}
 
 	@Override
@@ -183,9 +286,71 @@ public final class ChainMap<K, V> extends AbstractMap<K, V>
 	{
 		ImmutableSet.Builder<Entry<K, V>> entries =
 			new ImmutableSet.Builder<Entry<K, V>>();
-		for (K key : keySet()) {
-			entries.add(new SimpleEntry<K, V>(key, get(key)));
+		for (Entry<K, V> e : mergeLayers().entrySet()) {
+			entries.add(new SimpleEntry<K, V>(e));
 		}
 		return entries.build();
 	}
+
+	private int indexOf(Object key, int end)
+	{
+		for (int i = 0; i < end; i++) {
+			if (maps[i].containsKey(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private Map<K, V> mergeLayers()
+	{
+		Map<K, V> merged = new LinkedHashMap<K, V>();
+		for (Map<K, V> map : maps) {
+			for (Entry<K, V> e : map.entrySet()) {
+				if (!merged.containsKey(e.getKey())) {
+					merged.put(e.getKey(), e.getValue());
+				}
+			}
+		}
+		return merged;
+	}
+
+	private final class FlatView extends AbstractMap<K, V>
+	{
+		private Map<K, V> merged;
+		private int expectedModCount;
+
+		@Override
+		public int size()
+		{
+			return merged().size();
+		}
+
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return merged().containsKey(key);
+		}
+
+		@Override
+		public V get(Object key)
+		{
+			return merged().get(key);
+		}
+
+		@Override
+		public Set<Entry<K, V>> entrySet()
+		{
+			return merged().entrySet();
+		}
+
+		private Map<K, V> merged()
+		{
+			if (merged == null || expectedModCount != modCount) {
+				merged = Collections.unmodifiableMap(mergeLayers());
+				expectedModCount = modCount;
+			}
+			return merged;
+		}
+	}
 }
@@ -0,0 +1,43 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+/**
+ * A function, that is, a transformation from one object to another.
+ *
+ * @param <F> the type of the function's input.
+ * @param <T> the type of the function's output.
+ *
+ * @see Iterators#transform(java.util.Iterator, Function)
+ * @see Iterables#transform(Iterable, Function)
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public interface Function<F, T>
+{
+	/**
+	 * Applies this function to the given input.
+	 *
+	 * @param input the input.
+	 *
+	 * @return the result of the function's application.
+	 */
+	T apply(F input);
+}
@@ -16,9 +16,14 @@
 
 package org.kocakosm.pitaya.collection;
 
+import org.kocakosm.pitaya.util.XArrays;
+import org.kocakosm.pitaya.util.XObjects;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.reflect.Array;
 import java.util.AbstractList;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -26,6 +31,7 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.RandomAccess;
 
@@ -49,7 +55,8 @@ public final class ImmutableList<E>
 	 */
 	public static final class Builder<E>
 	{
-		private final List<E> inner = new ArrayList<E>();
+		private Object[] elements = new Object[10];
+		private int size;
 
 		/**
 		 * Adds the given values to the {@code List} being built.
@@ -62,7 +69,9 @@ public final class ImmutableList<E>
 		 */
 		public Builder<E> add(E... values)
 		{
-			inner.addAll(Arrays.asList(values));
+			ensureCapacity(size + values.length);
+			System.arraycopy(values, 0, elements, size, values.length);
+			size += values.length;
 			return this;
 		}
 
@@ -79,7 +88,7 @@ public final class ImmutableList<E>
 		public Builder<E> add(Iterable<? extends E> values)
 		{
 			for (E value : values) {
-				inner.add(value);
+				append(value);
 			}
 			return this;
 		}
@@ -97,7 +106,7 @@ public final class ImmutableList<E>
 		public Builder<E> add(Iterator<? extends E> values)
 		{
 			while (values.hasNext()) {
-				inner.add(values.next());
+				append(values.next());
 			}
 			return this;
 		}
@@ -118,9 +127,8 @@ public final class ImmutableList<E>
 		 */
 		public Builder<E> sort()
 		{
-			E[] values = (E[]) inner.toArray();
-			Arrays.sort(values);
-			return new Builder<E>().add(values);
+			Arrays.sort(elements, 0, size);
+			return this;
 		}
 
 		/**
@@ -140,7 +148,54 @@ public final class ImmutableList<E>
 		 */
 		public Builder<E> sort(Comparator<? super E> c)
 		{
-			Collections.sort(inner, c);
+			Arrays.sort(elements, 0, size, (Comparator<Object>) c);
+			return this;
+		}
+
+		/**
+		 * Sorts the elements currently in the {@code List} being built
+		 * into ascending order, according to the natural ordering of
+		 * its elements (all elements in this builder must implement the
+		 * {@link Comparable} interface). The sort is stable and is
+		 * performed in parallel if this builder contains at least
+		 * {@value XArrays#PARALLEL_SORT_THRESHOLD} elements.
+		 *
+		 * @return this object.
+		 *
+		 * @throws ClassCastException if this builder contains elements
+		 *	that are not mutually comparable.
+		 *
+		 * @see XArrays#parallelSort(Object[])
+		 */
+		public Builder<E> parallelSort()
+		{
+			XArrays.parallelSort(trim());
+			return this;
+		}
+
+		/**
+		 * Sorts the elements currently in the {@code List} being built
+		 * into ascending order, according to the order induced by the
+		 * given {@code Comparator}. The sort is stable and is performed
+		 * in parallel if this builder contains at least
+		 * {@value XArrays#PARALLEL_SORT_THRESHOLD} elements, in which
+		 * case the {@code Comparator} may be called concurrently from
+		 * several threads.
+		 *
+		 * @param c the {@code Comparator} to use.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code c} is {@code null}.
+		 * @throws ClassCastException if this builder contains elements
+		 *	that are not mutually comparable using the specified
+		 *	{@code Comparator}.
+		 *
+		 * @see XArrays#parallelSort(Object[], Comparator)
+		 */
+		public Builder<E> parallelSort(Comparator<? super E> c)
+		{
+			XArrays.parallelSort(trim(), (Comparator<Object>) c);
 			return this;
 		}
 
@@ -152,7 +207,7 @@ public final class ImmutableList<E>
 		 */
 		public Builder<E> reverse()
 		{
-			Collections.reverse(inner);
+			Collections.reverse(view());
 			return this;
 		}
 
@@ -166,7 +221,7 @@ public final class ImmutableList<E>
 		 */
 		public Builder<E> rotate(int n)
 		{
-			Collections.rotate(inner, n);
+			Collections.rotate(view(), n);
 			return this;
 		}
 
@@ -179,7 +234,7 @@ public final class ImmutableList<E>
 		 */
 		public Builder<E> shuffle()
 		{
-			Collections.shuffle(inner);
+			Collections.shuffle(view());
 			return this;
 		}
 
@@ -197,7 +252,7 @@ public final class ImmutableList<E>
 		 */
 		public Builder<E> shuffle(Random random)
 		{
-			Collections.shuffle(inner, random);
+			Collections.shuffle(view(), random);
 			return this;
 		}
 
@@ -208,7 +263,34 @@ public final class ImmutableList<E>
 		 */
 		public List<E> build()
 		{
-			return new ImmutableList<E>(inner);
+			return new ImmutableList<E>(Arrays.copyOf(elements, size));
+		}
+
+		private void append(E value)
+		{
+			ensureCapacity(size + 1);
+			elements[size++] = value;
+		}
+
+		private void ensureCapacity(int capacity)
+		{
+			if (capacity > elements.length) {
+				int length = Math.max(capacity, elements.length * 3 / 2 + 1);
+				elements = Arrays.copyOf(elements, length);
+			}
+		}
+
+		private Object[] trim()
+		{
+			if (elements.length != size) {
+				elements = Arrays.copyOf(elements, size);
+			}
+			return elements;
+		}
+
+		private List<Object> view()
+		{
+			return Arrays.asList(elements).subList(0, size);
 		}
 	}
 
@@ -224,7 +306,12 @@ public final class ImmutableList<E>
 	 */
 	public static <E> List<E> copyOf(Collection<? extends E> c)
 	{
-		return new ImmutableList<E>(new ArrayList<E>(c));
+		/*
+		 * toArray() may return a more specific array type, or the
+		 * collection's own array: always copy it into a new Object[].
+		 */
+		Object[] a = c.toArray();
+		return new ImmutableList<E>(Arrays.copyOf(a, a.length, Object[].class));
 	}
 
 	/**
@@ -239,7 +326,7 @@ public final class ImmutableList<E>
 	 */
 	public static <E> List<E> copyOf(Iterable<? extends E> i)
 	{
-		return new ImmutableList<E>(Iterables.toList(i));
+		return new ImmutableList<E>(Iterables.toList(i).toArray());
 	}
 
 	/**
@@ -254,7 +341,7 @@ public final class ImmutableList<E>
 	 */
 	public static <E> List<E> copyOf(Iterator<? extends E> i)
 	{
-		return new ImmutableList<E>(Iterators.toList(i));
+		return new ImmutableList<E>(Iterators.toList(i).toArray());
 	}
 
 	/**
@@ -269,7 +356,7 @@ public final class ImmutableList<E>
 	 */
 	public static <E> List<E> copyOf(E[] values)
 	{
-		return new ImmutableList<E>(Arrays.asList(values));
+		return new ImmutableList<E>(Arrays.copyOf(values, values.length, Object[].class));
 	}
 
 	/**
@@ -284,50 +371,92 @@ public final class ImmutableList<E>
 	 */
 	public static <E> List<E> of(E... values)
 	{
-		return new ImmutableList<E>(Arrays.asList(values));
+		return new ImmutableList<E>(Arrays.copyOf(values, values.length, Object[].class));
+	}
+
+	private final Object[] array;
+	private final int offset;
+	private final int size;
+
+	/**
+	 * Creates a new {@code ImmutableList} backed by the given array, which
+	 * must not be modified afterwards.
+	 *
+	 * @param array the backing array.
+	 */
+	ImmutableList(Object[] array)
+	{
+		this(array, 0, array.length);
 	}
 
-	private final List<E> inner;
+	private ImmutableList(Object[] array, int offset, int size)
+	{
+		this.array = array;
+		this.offset = offset;
+		this.size = size;
+	}
 
-	private ImmutableList(List<E> inner)
+	/**
+	 * Returns the array backing this list. Must not be modified.
+	 *
+	 * @return the array backing this list.
+	 */
+	Object[] array()
 	{
-		this.inner = inner;
+		return array;
+	}
+
+	/**
+	 * Returns the index, in the array backing this list, of this list's
+	 * first element.
+	 *
+	 * @return the offset of this list in its backing array.
+	 */
+	int offset()
+	{
+		return offset;
 	}
 
 	@Override
 	public int size()
 	{
-		return inner.size();
+		return size;
 	}
 
 	@Override
 	public boolean isEmpty()
 	{
-		return inner.isEmpty();
+		return size == 0;
 	}
 
 	@Override
 	public boolean contains(Object o)
 	{
-		return inner.contains(o);
+		return indexOf(o) >= 0;
 	}
 
 	@Override
 	public Iterator<E> iterator()
 	{
-		return new UnmodifiableListIterator<E>(inner.listIterator());
+		return new Itr(0);
 	}
 
 	@Override
 	public Object[] toArray()
 	{
-		return inner.toArray();
+		return Arrays.copyOfRange(array, offset, offset + size);
 	}
 
 	@Override
-	public <E> E[] toArray(E[] a)
+	public <T> T[] toArray(T[] a)
 	{
-		return inner.toArray(a);
+		T[] out = a.length >= size ? a : (T[]) Array.newInstance(
+			a.getClass().getComponentType(), size);
+		System.arraycopy(array, offset, out, 0, size);
+		if (out.length > size) {
+			out[size] = null;
+		}
+		return out;
 	}
 
 	@Override
@@ -342,12 +471,6 @@ public final class ImmutableList<E>
 		throw new UnsupportedOperationException();
 	}
 
-	@Override
-	public boolean containsAll(Collection<?> c)
-	{
-		return inner.containsAll(c);
-	}
-
 	@Override
 	public boolean addAll(Collection<? extends E> c)
 	{
@@ -381,7 +504,8 @@ public final class ImmutableList<E>
 	@Override
 	public E get(int index)
 	{
-		return inner.get(index);
+		checkIndex(index, size - 1);
+		return (E) array[offset + index];
 	}
 
 	@Override
@@ -405,76 +529,135 @@ public final class ImmutableList<E>
 	@Override
 	public int indexOf(Object o)
 	{
-		return inner.indexOf(o);
+		for (int i = 0; i < size; i++) {
+			if (XObjects.equal(o, array[offset + i])) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	@Override
 	public int lastIndexOf(Object o)
 	{
-		return inner.lastIndexOf(o);
+		for (int i = size - 1; i >= 0; i--) {
+			if (XObjects.equal(o, array[offset + i])) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	@Override
 	public ListIterator<E> listIterator()
 	{
-		return new UnmodifiableListIterator<E>(inner.listIterator());
+		return new Itr(0);
 	}
 
 	@Override
 	public ListIterator<E> listIterator(int index)
 	{
-		return new UnmodifiableListIterator<E>(inner.listIterator(index));
+		checkIndex(index, size);
+		return new Itr(index);
 	}
 
 	@Override
 	public List<E> subList(int fromIndex, int toIndex)
 	{
-		return new ImmutableList<E>(inner.subList(fromIndex, toIndex));
+		checkIndex(fromIndex, toIndex);
+		checkIndex(toIndex, size);
+		return new ImmutableList<E>(array, offset + fromIndex,
+			toIndex - fromIndex);
 	}
 
-	private static final class UnmodifiableListIterator<E> implements ListIterator<E>
+	/**
+	 * Serializes a copy of this list's elements rather than its backing
+	 * array, which may be shared with a larger list.
+	 */
+	private Object writeReplace()
 	{
-		private final ListIterator<E> inner;
+		return new SerializedForm(toArray());
+	}
+
+	private void readObject(ObjectInputStream in)
+		throws InvalidObjectException
+	{
+		throw new InvalidObjectException("Proxy required");
+	}
 
-		UnmodifiableListIterator(ListIterator<E> iterator)
+	private static final class SerializedForm implements Serializable
+	{
+		private static final long serialVersionUID = 8412583076329751906L;
+
+		private final Object[] elements;
+
+		SerializedForm(Object[] elements)
 		{
-			this.inner = iterator;
+			this.elements = elements;
+		}
+
+		private Object readResolve()
+		{
+			return new ImmutableList<Object>(elements);
+		}
+	}
+
+	private static void checkIndex(int index, int max)
+	{
+		if (index < 0 || index > max) {
+			throw new IndexOutOfBoundsException("Index: " + index);
+		}
+	}
+
+	private final class Itr implements ListIterator<E>
+	{
+		private int cursor;
+
+		Itr(int cursor)
+		{
+			this.cursor = cursor;
 		}
 
 		@Override
 		public boolean hasNext()
 		{
-			return inner.hasNext();
+			return cursor < size;
 		}
 
 		@Override
 		public E next()
 		{
-			return inner.next();
+			if (cursor >= size) {
+				throw new NoSuchElementException();
+			}
+			return (E) array[offset + cursor++];
 		}
 
 		@Override
 		public boolean hasPrevious()
 		{
-			return inner.hasPrevious();
+			return cursor > 0;
 		}
 
 		@Override
 		public E previous()
 		{
-			return inner.previous();
+			if (cursor <= 0) {
+				throw new NoSuchElementException();
+			}
+			return (E) array[offset + --cursor];
 		}
 
 		@Override
 		public int nextIndex()
 		{
-			return inner.nextIndex();
+			return cursor;
 		}
 
 		@Override
 		public int previousIndex()
 		{
-			return inner.previousIndex();
+			return cursor - 1;
 		}
 
 		@Override
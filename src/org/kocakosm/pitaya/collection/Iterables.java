@@ -186,6 +186,190 @@ public final class Iterables
 		return new SkipIterable<T>(iterable, n);
 	}
 
+	/**
+	 * Returns an {@code Iterable} view of the given {@code Iterable} in
+	 * which the given function has been applied to each element. Nothing
+	 * is computed until the returned view is iterated. Successive
+	 * {@code transform} and {@link #filter(Iterable, Predicate) filter}
+	 * views are fused, so that each element goes through a single
+	 * {@code Iterator} whatever the number of stages. The returned view's
+	 * {@code Iterator} supports {@link Iterator#remove()} if the original
+	 * {@code Iterator} does and if no filter has been applied to it.
+	 *
+	 * @param <F> the type of the source {@code Iterable}'s elements.
+	 * @param <T> the type of the returned {@code Iterable}'s elements.
+	 * @param iterable the source {@code Iterable}.
+	 * @param function the function to apply.
+	 *
+	 * @return the transformed {@code Iterable}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <F, T> Iterable<T> transform(Iterable<? extends F> iterable,
+		Function<? super F, ? extends T> function)
+	{
+		Parameters.checkNotNull(iterable);
+		Parameters.checkNotNull(function);
+		Pipeline pipeline = Pipeline.of(iterable);
+		if (pipeline != null) {
+			return pipeline.map(function).iterable(Pipeline.sourceOf(iterable));
+		}
+		return new Pipeline(function).iterable(iterable);
+	}
+
+	/**
+	 * Returns an {@code Iterable} view of the given {@code Iterable} that
+	 * only contains the elements that satisfy the given predicate. Nothing
+	 * is computed until the returned view is iterated. Successive
+	 * {@link #transform(Iterable, Function) transform} and {@code filter}
+	 * views are fused, so that each element goes through a single
+	 * {@code Iterator} whatever the number of stages. The returned view's
+	 * {@code Iterator} doesn't support {@link Iterator#remove()}.
+	 *
+	 * @param <T> the type of the {@code Iterable}'s elements.
+	 * @param iterable the source {@code Iterable}.
+	 * @param predicate the predicate to satisfy.
+	 *
+	 * @return the filtered {@code Iterable}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterable<T> filter(Iterable<? extends T> iterable,
+		Predicate<? super T> predicate)
+	{
+		Parameters.checkNotNull(iterable);
+		Parameters.checkNotNull(predicate);
+		Pipeline pipeline = Pipeline.of(iterable);
+		if (pipeline != null) {
+			return pipeline.filter(predicate).iterable(Pipeline.sourceOf(iterable));
+		}
+		return new Pipeline(predicate).iterable(iterable);
+	}
+
+	/**
+	 * Returns an {@code Iterable} view of the concatenation of the
+	 * {@code Iterable}s obtained by applying the given function to each
+	 * element of the given {@code Iterable}. Nothing is computed until the
+	 * returned view is iterated. The returned view's {@code Iterator}
+	 * supports {@link Iterator#remove()} when the corresponding resulting
+	 * {@code Iterator} supports it.
+	 *
+	 * @param <F> the type of the source {@code Iterable}'s elements.
+	 * @param <T> the type of the returned {@code Iterable}'s elements.
+	 * @param iterable the source {@code Iterable}.
+	 * @param function the function to apply.
+	 *
+	 * @return the flattened {@code Iterable}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <F, T> Iterable<T> flatMap(Iterable<? extends F> iterable,
+		Function<? super F, ? extends Iterable<? extends T>> function)
+	{
+		return new FlatMapIterable<F, T>(iterable, function);
+	}
+
+	/**
+	 * Returns an {@code Iterable} view of the given {@code Iterable} made
+	 * of its consecutive, non-overlapping sublists, each of the given size
+	 * (the last one may be smaller). Nothing is computed until the
+	 * returned view is iterated. The returned {@code List}s are
+	 * unmodifiable.
+	 *
+	 * @param <T> the type of the source {@code Iterable}'s elements.
+	 * @param iterable the source {@code Iterable}.
+	 * @param size the size of the partitions.
+	 *
+	 * @return an {@code Iterable} over the partitions.
+	 *
+	 * @throws NullPointerException if {@code iterable} is {@code null}.
+	 * @throws IllegalArgumentException if {@code size} is not positive.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterable<List<T>> partition(Iterable<? extends T> iterable,
+		final int size)
+	{
+		Parameters.checkNotNull(iterable);
+		Parameters.checkCondition(size > 0);
+		return new ViewIterable<T, List<T>>(iterable)
+		{
+			@Override
+			Iterator<List<T>> iterator(Iterator<? extends T> iterator)
+			{
+				return Iterators.partition(iterator, size);
+			}
+		};
+	}
+
+	/**
+	 * Returns an {@code Iterable} view of the sliding windows of the given
+	 * size over the given {@code Iterable} (see
+	 * {@link Iterators#window(Iterator, int)}). Nothing is computed until
+	 * the returned view is iterated. The returned {@code List}s are
+	 * unmodifiable.
+	 *
+	 * @param <T> the type of the source {@code Iterable}'s elements.
+	 * @param iterable the source {@code Iterable}.
+	 * @param size the size of the windows.
+	 *
+	 * @return an {@code Iterable} over the windows.
+	 *
+	 * @throws NullPointerException if {@code iterable} is {@code null}.
+	 * @throws IllegalArgumentException if {@code size} is not positive.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterable<List<T>> window(Iterable<? extends T> iterable,
+		final int size)
+	{
+		Parameters.checkNotNull(iterable);
+		Parameters.checkCondition(size > 0);
+		return new ViewIterable<T, List<T>>(iterable)
+		{
+			@Override
+			Iterator<List<T>> iterator(Iterator<? extends T> iterator)
+			{
+				return Iterators.window(iterator, size);
+			}
+		};
+	}
+
+	/**
+	 * Returns an {@code Iterable} view of the given {@code Iterable} in
+	 * which duplicate elements have been omitted. Nothing is computed until
+	 * the returned view is iterated. Note that the distinct elements are
+	 * retained in memory while iterating. The returned view's
+	 * {@code Iterator} doesn't support {@link Iterator#remove()}.
+	 *
+	 * @param <T> the type of the {@code Iterable}'s elements.
+	 * @param iterable the source {@code Iterable}.
+	 *
+	 * @return an {@code Iterable} over the distinct elements.
+	 *
+	 * @throws NullPointerException if {@code iterable} is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterable<T> distinct(Iterable<? extends T> iterable)
+	{
+		Parameters.checkNotNull(iterable);
+		return new ViewIterable<T, T>(iterable)
+		{
+			@Override
+			Iterator<T> iterator(Iterator<? extends T> iterator)
+			{
+				return Iterators.distinct(iterator);
+			}
+		};
+	}
+
 	/**
 	 * Returns a {@code List} containing all the given {@code Iterable}'s
 	 * elements.
@@ -351,6 +535,53 @@ public final class Iterables
 		}
 	}
 
+	private static final class FlatMapIterable<F, T> implements Iterable<T>
+	{
+		private final Iterable<? extends F> iterable;
+		private final Function<? super F, ? extends Iterable<? extends T>> function;
+
+		FlatMapIterable(Iterable<? extends F> iterable,
+			Function<? super F, ? extends Iterable<? extends T>> function)
+		{
+			Parameters.checkNotNull(iterable);
+			Parameters.checkNotNull(function);
+			this.iterable = iterable;
+			this.function = function;
+		}
+
+		@Override
+		public Iterator<T> iterator()
+		{
+			return Iterators.flatMap(iterable.iterator(),
+				new Function<F, Iterator<? extends T>>()
+				{
+					@Override
+					public Iterator<? extends T> apply(F input)
+					{
+						return function.apply(input).iterator();
+					}
+				});
+		}
+	}
+
+	private abstract static class ViewIterable<F, T> implements Iterable<T>
+	{
+		private final Iterable<? extends F> iterable;
+
+		ViewIterable(Iterable<? extends F> iterable)
+		{
+			this.iterable = iterable;
+		}
+
+		@Override
+		public Iterator<T> iterator()
+		{
+			return iterator(iterable.iterator());
+		}
+
+		abstract Iterator<T> iterator(Iterator<? extends F> iterator);
+	}
+
 	private Iterables()
 	{
 		/* ... */
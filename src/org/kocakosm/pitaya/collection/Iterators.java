@@ -21,6 +21,8 @@ import org.kocakosm.pitaya.util.XObjects;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -192,6 +194,178 @@ public final class Iterators
 		return skipped;
 	}
 
+	/**
+	 * Returns an {@code Iterator} that applies the given function to each
+	 * element of the given source {@code Iterator}. The source is not
+	 * polled until necessary. Successive {@code transform} and
+	 * {@link #filter(Iterator, Predicate) filter} operations on a fresh
+	 * {@code Iterator} are fused, so that each element goes through a
+	 * single {@code Iterator} whatever the number of stages. The returned
+	 * {@code Iterator} supports {@link Iterator#remove()} if the source
+	 * {@code Iterator} does and if no filter has been applied to it.
+	 *
+	 * @param <F> the type of the source {@code Iterator}'s elements.
+	 * @param <T> the type of the returned {@code Iterator}'s elements.
+	 * @param iterator the source {@code Iterator}.
+	 * @param function the function to apply.
+	 *
+	 * @return the transformed {@code Iterator}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <F, T> Iterator<T> transform(Iterator<? extends F> iterator,
+		Function<? super F, ? extends T> function)
+	{
+		Parameters.checkNotNull(iterator);
+		Parameters.checkNotNull(function);
+		Pipeline pipeline = Pipeline.of(iterator);
+		if (pipeline != null) {
+			return pipeline.map(function).iterator(Pipeline.sourceOf(iterator));
+		}
+		return new Pipeline(function).iterator(iterator);
+	}
+
+	/**
+	 * Returns an {@code Iterator} that only returns the elements of the
+	 * given source {@code Iterator} that satisfy the given predicate. The
+	 * source is not polled until necessary. Successive
+	 * {@link #transform(Iterator, Function) transform} and {@code filter}
+	 * operations on a fresh {@code Iterator} are fused, so that each
+	 * element goes through a single {@code Iterator} whatever the number of
+	 * stages. The returned {@code Iterator} doesn't support
+	 * {@link Iterator#remove()}.
+	 *
+	 * @param <T> the type of the {@code Iterator}'s elements.
+	 * @param iterator the source {@code Iterator}.
+	 * @param predicate the predicate to satisfy.
+	 *
+	 * @return the filtered {@code Iterator}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterator<T> filter(Iterator<? extends T> iterator,
+		Predicate<? super T> predicate)
+	{
+		Parameters.checkNotNull(iterator);
+		Parameters.checkNotNull(predicate);
+		Pipeline pipeline = Pipeline.of(iterator);
+		if (pipeline != null) {
+			return pipeline.filter(predicate).iterator(Pipeline.sourceOf(iterator));
+		}
+		return new Pipeline(predicate).iterator(iterator);
+	}
+
+	/**
+	 * Returns an {@code Iterator} that applies the given function to each
+	 * element of the given source {@code Iterator} and returns, in order,
+	 * the content of each of the resulting {@code Iterator}s. Neither the
+	 * source nor the resulting {@code Iterator}s are polled until
+	 * necessary. The returned {@code Iterator} supports
+	 * {@link Iterator#remove()} when the corresponding resulting
+	 * {@code Iterator} supports it.
+	 *
+	 * @param <F> the type of the source {@code Iterator}'s elements.
+	 * @param <T> the type of the returned {@code Iterator}'s elements.
+	 * @param iterator the source {@code Iterator}.
+	 * @param function the function to apply.
+	 *
+	 * @return the flattened {@code Iterator}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <F, T> Iterator<T> flatMap(Iterator<? extends F> iterator,
+		Function<? super F, ? extends Iterator<? extends T>> function)
+	{
+		return new FlatMapIterator<F, T>(iterator, function);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over consecutive, non-overlapping
+	 * sublists of the given source {@code Iterator}, each of the given
+	 * size (the last one may be smaller). The source is not polled until
+	 * necessary. The returned {@code List}s are unmodifiable. The returned
+	 * {@code Iterator} doesn't support {@link Iterator#remove()}.
+	 *
+	 * @param <T> the type of the source {@code Iterator}'s elements.
+	 * @param iterator the source {@code Iterator}.
+	 * @param size the size of the partitions.
+	 *
+	 * @return an {@code Iterator} over the partitions.
+	 *
+	 * @throws NullPointerException if {@code iterator} is {@code null}.
+	 * @throws IllegalArgumentException if {@code size} is not positive.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterator<List<T>> partition(Iterator<? extends T> iterator,
+		int size)
+	{
+		return new PartitionIterator<T>(iterator, size);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the sliding windows of the given
+	 * size over the given source {@code Iterator}, that is, over the
+	 * sublists made of the source's elements at positions [0, size),
+	 * [1, size + 1), [2, size + 2) and so on. Nothing is returned if the
+	 * source has less than {@code size} elements. The source is not polled
+	 * until necessary. The returned {@code List}s are unmodifiable. The
+	 * returned {@code Iterator} doesn't support {@link Iterator#remove()}.
+	 *
+	 * @param <T> the type of the source {@code Iterator}'s elements.
+	 * @param iterator the source {@code Iterator}.
+	 * @param size the size of the windows.
+	 *
+	 * @return an {@code Iterator} over the windows.
+	 *
+	 * @throws NullPointerException if {@code iterator} is {@code null}.
+	 * @throws IllegalArgumentException if {@code size} is not positive.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterator<List<T>> window(Iterator<? extends T> iterator,
+		int size)
+	{
+		return new WindowIterator<T>(iterator, size);
+	}
+
+	/**
+	 * Returns an {@code Iterator} that returns the elements of the given
+	 * source {@code Iterator} omitting those that have already been seen.
+	 * The source is not polled until necessary. Note that all the distinct
+	 * elements are retained in memory until the returned {@code Iterator}
+	 * is discarded. The returned {@code Iterator} doesn't support
+	 * {@link Iterator#remove()}.
+	 *
+	 * @param <T> the type of the {@code Iterator}'s elements.
+	 * @param iterator the source {@code Iterator}.
+	 *
+	 * @return an {@code Iterator} over the distinct elements.
+	 *
+	 * @throws NullPointerException if {@code iterator} is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> Iterator<T> distinct(Iterator<? extends T> iterator)
+	{
+		return filter(iterator, new Predicate<T>()
+		{
+			private final Set<T> seen = new HashSet<T>();
+
+			@Override
+			public boolean apply(T input)
+			{
+				return seen.add(input);
+			}
+		});
+	}
+
 	/**
 	 * Returns a {@code List} containing all the given {@code Iterator}'s
 	 * elements. This method consumes entirely the input {@code Iterator}.
@@ -471,6 +645,134 @@ public final class Iterators
 		}
 	}
 
+	private static final class FlatMapIterator<F, T> implements Iterator<T>
+	{
+		private final Iterator<? extends F> iterator;
+		private final Function<? super F, ? extends Iterator<? extends T>> function;
+		private Iterator<? extends T> current;
+
+		FlatMapIterator(Iterator<? extends F> iterator,
+			Function<? super F, ? extends Iterator<? extends T>> function)
+		{
+			Parameters.checkNotNull(iterator);
+			Parameters.checkNotNull(function);
+			this.iterator = iterator;
+			this.function = function;
+			this.current = emptyIterator();
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (!current.hasNext() && iterator.hasNext()) {
+				current = function.apply(iterator.next());
+			}
+			return current.hasNext();
+		}
+
+		@Override
+		public T next()
+		{
+			if (hasNext()) {
+				return current.next();
+			}
+			throw new NoSuchElementException();
+		}
+
+		@Override
+		public void remove()
+		{
+			current.remove();
+		}
+	}
+
+	private static final class PartitionIterator<T> implements Iterator<List<T>>
+	{
+		private final Iterator<? extends T> iterator;
+		private final int size;
+
+		PartitionIterator(Iterator<? extends T> iterator, int size)
+		{
+			Parameters.checkNotNull(iterator);
+			Parameters.checkCondition(size > 0);
+			this.iterator = iterator;
+			this.size = size;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return iterator.hasNext();
+		}
+
+		@Override
+		public List<T> next()
+		{
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			List<T> partition = new ArrayList<T>(size);
+			while (partition.size() < size && iterator.hasNext()) {
+				partition.add(iterator.next());
+			}
+			return Collections.unmodifiableList(partition);
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static final class WindowIterator<T> implements Iterator<List<T>>
+	{
+		private final Iterator<? extends T> iterator;
+		private final Object[] window;
+		private int count;
+
+		WindowIterator(Iterator<? extends T> iterator, int size)
+		{
+			Parameters.checkNotNull(iterator);
+			Parameters.checkCondition(size > 0);
+			this.iterator = iterator;
+			this.window = new Object[size];
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (count < window.length - 1 && iterator.hasNext()) {
+				window[count++] = iterator.next();
+			}
+			return count >= window.length - 1 && iterator.hasNext();
+		}
+
+		@Override
+		public List<T> next()
+		{
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			int size = window.length;
+			window[count++ % size] = iterator.next();
+			Object[] values = new Object[size];
+			int start = count % size;
+			System.arraycopy(window, start, values, 0, size - start);
+			System.arraycopy(window, 0, values, size - start, start);
+			if (count >= 2 * size) {
+				count -= size;
+			}
+			return (List<T>) Collections.unmodifiableList(Arrays.asList(values));
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
 	private Iterators()
 	{
 		/* ... */
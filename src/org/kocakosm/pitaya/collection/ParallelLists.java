@@ -0,0 +1,352 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import org.kocakosm.pitaya.util.Comparators;
+import org.kocakosm.pitaya.util.ParallelTasks;
+import org.kocakosm.pitaya.util.Parameters;
+import org.kocakosm.pitaya.util.XArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Static utility methods that process {@link List}s in parallel. Lists are
+ * split in contiguous chunks that are processed concurrently by the tasks of
+ * an {@link ExecutorService}, the calling thread waiting for their completion;
+ * the calling thread must thus not be one of the {@code ExecutorService}'s
+ * threads if it is bounded (see {@link ParallelTasks}). Lists having less
+ * than {@value #THRESHOLD} elements are processed sequentially in the calling
+ * thread. When given an {@link ImmutableList}, these methods work directly on
+ * its backing array.
+ * Unless otherwise specified, methods that don't take an
+ * {@code ExecutorService} use a shared pool of daemon threads whose size is
+ * the number of available processors.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ParallelLists
+{
+	/** The minimum number of elements processed by a single task. */
+	public static final int THRESHOLD = 8192;
+
+	private static final int PARALLELISM = ParallelTasks.PARALLELISM;
+
+	/**
+	 * Returns an {@code ImmutableList} containing the results of applying
+	 * the given function to each element of the given {@code List}. The
+	 * function may be called concurrently from several threads.
+	 *
+	 * @param <E> the type of the source {@code List}'s elements.
+	 * @param <T> the type of the returned {@code List}'s elements.
+	 * @param list the source {@code List}.
+	 * @param function the function to apply.
+	 *
+	 * @return the resulting {@code List}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public static <E, T> List<T> map(List<? extends E> list,
+		Function<? super E, ? extends T> function)
+	{
+		return map(list, function, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Returns an {@code ImmutableList} containing the results of applying
+	 * the given function to each element of the given {@code List}, using
+	 * the given {@code ExecutorService}. The function may be called
+	 * concurrently from several threads.
+	 *
+	 * @param <E> the type of the source {@code List}'s elements.
+	 * @param <T> the type of the returned {@code List}'s elements.
+	 * @param list the source {@code List}.
+	 * @param function the function to apply.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @return the resulting {@code List}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public static <E, T> List<T> map(List<? extends E> list,
+		final Function<? super E, ? extends T> function,
+		ExecutorService executor)
+	{
+		Parameters.checkNotNull(function);
+		Parameters.checkNotNull(executor);
+		final Object[] in = array(list);
+		final int offset = offset(list);
+		final Object[] out = new Object[list.size()];
+		final int[] bounds = split(out.length);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < bounds.length - 1; i++) {
+			final int from = bounds[i];
+			final int to = bounds[i + 1];
+			tasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					for (int j = from; j < to; j++) {
+						out[j] = function.apply((E) in[offset + j]);
+					}
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(executor, tasks);
+		return new ImmutableList<T>(out);
+	}
+
+	/**
+	 * Performs the given operation on each element of the given
+	 * {@code List}. The operation may be called concurrently from several
+	 * threads, and elements are not processed in the list's order.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param list the {@code List} to process.
+	 * @param consumer the operation to perform.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public static <E> void forEach(List<? extends E> list,
+		Consumer<? super E> consumer)
+	{
+		forEach(list, consumer, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Performs the given operation on each element of the given
+	 * {@code List}, using the given {@code ExecutorService}. The operation
+	 * may be called concurrently from several threads, and elements are
+	 * not processed in the list's order.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param list the {@code List} to process.
+	 * @param consumer the operation to perform.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public static <E> void forEach(List<? extends E> list,
+		final Consumer<? super E> consumer, ExecutorService executor)
+	{
+		Parameters.checkNotNull(consumer);
+		Parameters.checkNotNull(executor);
+		final Object[] in = array(list);
+		final int offset = offset(list);
+		final int[] bounds = split(list.size());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < bounds.length - 1; i++) {
+			final int from = bounds[i];
+			final int to = bounds[i + 1];
+			tasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					for (int j = from; j < to; j++) {
+						consumer.accept((E) in[offset + j]);
+					}
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(executor, tasks);
+	}
+
+	/**
+	 * Performs a reduction on the elements of the given {@code List}, using
+	 * the given identity value and associative operator. The operator may
+	 * be called concurrently from several threads, and the identity value
+	 * is used once per chunk.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param list the {@code List} to reduce.
+	 * @param identity the identity value for the operator.
+	 * @param operator an associative operator.
+	 *
+	 * @return the result of the reduction.
+	 *
+	 * @throws NullPointerException if {@code list} or {@code operator} is
+	 *	{@code null}.
+	 */
+	public static <E> E reduce(List<? extends E> list, E identity,
+		BinaryOperator<E> operator)
+	{
+		return reduce(list, identity, operator, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Performs a reduction on the elements of the given {@code List}, using
+	 * the given identity value and associative operator, and the given
+	 * {@code ExecutorService}. The operator may be called concurrently
+	 * from several threads, and the identity value is used once per chunk.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param list the {@code List} to reduce.
+	 * @param identity the identity value for the operator.
+	 * @param operator an associative operator.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @return the result of the reduction.
+	 *
+	 * @throws NullPointerException if {@code list}, {@code operator} or
+	 *	{@code executor} is {@code null}.
+	 */
+	public static <E> E reduce(List<? extends E> list, final E identity,
+		final BinaryOperator<E> operator, ExecutorService executor)
+	{
+		Parameters.checkNotNull(operator);
+		Parameters.checkNotNull(executor);
+		final Object[] in = array(list);
+		final int offset = offset(list);
+		final int[] bounds = split(list.size());
+		final Object[] partials = new Object[bounds.length - 1];
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < partials.length; i++) {
+			final int index = i;
+			tasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					E result = identity;
+					for (int j = bounds[index]; j < bounds[index + 1]; j++) {
+						result = operator.apply(result, (E) in[offset + j]);
+					}
+					partials[index] = result;
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(executor, tasks);
+		E result = identity;
+		for (Object partial : partials) {
+			result = operator.apply(result, (E) partial);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an {@code ImmutableList} containing the elements of the given
+	 * {@code List} sorted into ascending order, according to their natural
+	 * ordering. The sort is stable.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param list the {@code List} to sort.
+	 *
+	 * @return the sorted {@code List}.
+	 *
+	 * @throws NullPointerException if {@code list} is {@code null} or if
+	 *	it contains a {@code null} reference.
+	 * @throws ClassCastException if the list contains elements that are
+	 *	not mutually comparable.
+	 */
+	public static <E extends Comparable<? super E>> List<E> sort(List<? extends E> list)
+	{
+		return sort(list, Comparators.<E>naturalOrder());
+	}
+
+	/**
+	 * Returns an {@code ImmutableList} containing the elements of the given
+	 * {@code List} sorted according to the given {@code Comparator}. The
+	 * sort is stable. The {@code Comparator} may be called concurrently
+	 * from several threads.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param list the {@code List} to sort.
+	 * @param comparator the {@code Comparator} to use.
+	 *
+	 * @return the sorted {@code List}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws ClassCastException if the list contains elements that are
+	 *	not mutually comparable using the given {@code Comparator}.
+	 */
+	public static <E> List<E> sort(List<? extends E> list,
+		Comparator<? super E> comparator)
+	{
+		return sort(list, comparator, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Returns an {@code ImmutableList} containing the elements of the given
+	 * {@code List} sorted according to the given {@code Comparator}, using
+	 * the given {@code ExecutorService}. The sort is stable: chunks are
+	 * sorted concurrently and then merged pairwise, each round of merges
+	 * being also performed concurrently. The {@code Comparator} may be
+	 * called concurrently from several threads.
+	 *
+	 * @see XArrays#parallelSort(Object[], Comparator, ExecutorService)
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param list the {@code List} to sort.
+	 * @param comparator the {@code Comparator} to use.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @return the sorted {@code List}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws ClassCastException if the list contains elements that are
+	 *	not mutually comparable using the given {@code Comparator}.
+	 */
+	public static <E> List<E> sort(List<? extends E> list,
+		Comparator<? super E> comparator, ExecutorService executor)
+	{
+		Parameters.checkNotNull(comparator);
+		Parameters.checkNotNull(executor);
+		int offset = offset(list);
+		Object[] a = Arrays.copyOfRange(array(list), offset,
+			offset + list.size());
+		XArrays.parallelSort(a, (Comparator<Object>) comparator, executor);
+		return new ImmutableList<E>(a);
+	}
+
+	private static Object[] array(List<?> list)
+	{
+		if (list instanceof ImmutableList) {
+			return ((ImmutableList<?>) list).array();
+		}
+		return list.toArray();
+	}
+
+	private static int offset(List<?> list)
+	{
+		if (list instanceof ImmutableList) {
+			return ((ImmutableList<?>) list).offset();
+		}
+		return 0;
+	}
+
+	private static int[] split(int size)
+	{
+		return ParallelTasks.split(size, THRESHOLD, 4 * PARALLELISM);
+	}
+
+	private ParallelLists()
+	{
+		/* ... */
+	}
+}
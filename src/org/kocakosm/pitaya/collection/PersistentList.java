@@ -0,0 +1,598 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Persistent random access {@link List} implementation. Instances of this
+ * class are immutable, but provide update operations ({@link #plus(Object)},
+ * {@link #with(int, Object)}, {@link #without(int)}) that return a new
+ * {@code PersistentList} sharing most of its structure with the original one.
+ * Elements are stored in a 32-way branching trie, hence access and update
+ * operations run in O(log32 n) time and memory. Bulk updates should be made
+ * through a {@link Builder} which performs them in place. Accepts {@code null}
+ * values.
+ *
+ * @param <E> the type of the {@code List}'s elements.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class PersistentList<E>
+	extends AbstractList<E> implements RandomAccess, Serializable
+{
+	private static final long serialVersionUID = 3826154102854236547L;
+
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final Node EMPTY_NODE = new Node(null, new Object[WIDTH]);
+	private static final PersistentList EMPTY = new PersistentList(
+		0, BITS, EMPTY_NODE, new Object[0]);
+
+	/**
+	 * {@code PersistentList} builder. Shares its initial structure with the
+	 * {@code PersistentList} it has been created from (if any), and copies
+	 * trie nodes only once, the first time they are updated. Not thread
+	 * safe.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 */
+	public static final class Builder<E>
+	{
+		private Object edit;
+		private int size;
+		private int shift;
+		private Node root;
+		private Object[] tail;
+
+		/** Creates a new {@code Builder}, initially empty. */
+		public Builder()
+		{
+			this(PersistentList.<E>empty());
+		}
+
+		private Builder(PersistentList<E> list)
+		{
+			this.edit = new Object();
+			this.size = list.size;
+			this.shift = list.shift;
+			this.root = list.root;
+			this.tail = Arrays.copyOf(list.tail, WIDTH);
+		}
+
+		/**
+		 * Adds the given values to the {@code List} being built.
+		 *
+		 * @param values the values to add.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code values} is {@code null}.
+		 */
+		public Builder<E> add(E... values)
+		{
+			for (E value : values) {
+				append(value);
+			}
+			return this;
+		}
+
+		/**
+		 * Adds all the values contained in the given {@code Iterable}
+		 * to the {@code List} being built.
+		 *
+		 * @param values the values to add.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code values} is {@code null}.
+		 */
+		public Builder<E> add(Iterable<? extends E> values)
+		{
+			for (E value : values) {
+				append(value);
+			}
+			return this;
+		}
+
+		/**
+		 * Adds all the values contained in the given {@code Iterator}
+		 * to the {@code List} being built.
+		 *
+		 * @param values the values to add.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code values} is {@code null}.
+		 */
+		public Builder<E> add(Iterator<? extends E> values)
+		{
+			while (values.hasNext()) {
+				append(values.next());
+			}
+			return this;
+		}
+
+		/**
+		 * Replaces the element at the specified position in the
+		 * {@code List} being built with the specified value.
+		 *
+		 * @param index the index of the element to replace.
+		 * @param value the new value.
+		 *
+		 * @return this object.
+		 *
+		 * @throws IndexOutOfBoundsException if {@code index} is out of
+		 *	range ({@code index < 0 || index >= size}).
+		 */
+		public Builder<E> set(int index, E value)
+		{
+			checkIndex(index, size);
+			if (index >= tailOffset(size)) {
+				tail[index & MASK] = value;
+			} else {
+				root = assoc(edit, shift, root, index, value);
+			}
+			return this;
+		}
+
+		/**
+		 * Finalizes the creation of the {@code PersistentList}. This
+		 * builder remains usable afterwards, subsequent updates won't
+		 * affect the returned {@code List}.
+		 *
+		 * @return an instance of {@code PersistentList}.
+		 */
+		public PersistentList<E> build()
+		{
+			if (size == 0) {
+				return empty();
+			}
+			edit = new Object();
+			Object[] t = Arrays.copyOf(tail, size - tailOffset(size));
+			return new PersistentList<E>(size, shift, root, t);
+		}
+
+		private void append(E value)
+		{
+			if (size - tailOffset(size) < WIDTH) {
+				tail[size & MASK] = value;
+			} else {
+				Node node = new Node(edit, tail);
+				tail = new Object[WIDTH];
+				tail[0] = value;
+				if ((size >>> BITS) > (1 << shift)) {
+					root = grow(edit, shift, root, node);
+					shift += BITS;
+				} else {
+					root = pushTail(edit, size, shift, root, node);
+				}
+			}
+			size++;
+		}
+	}
+
+	/**
+	 * Returns the empty {@code PersistentList}.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 *
+	 * @return the empty {@code PersistentList}.
+	 */
+	public static <E> PersistentList<E> empty()
+	{
+		return (PersistentList<E>) EMPTY;
+	}
+
+	/**
+	 * Creates a new {@code PersistentList} from the given {@code Iterable}.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param i the source {@code Iterable}.
+	 *
+	 * @return the created {@code PersistentList}.
+	 *
+	 * @throws NullPointerException if {@code i} is {@code null}.
+	 */
+	public static <E> PersistentList<E> copyOf(Iterable<? extends E> i)
+	{
+		if (i instanceof PersistentList) {
+			return (PersistentList<E>) i;
+		}
+		return new Builder<E>().add(i).build();
+	}
+
+	/**
+	 * Creates a new {@code PersistentList} from the given {@code Iterator}.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param i the source {@code Iterator}.
+	 *
+	 * @return the created {@code PersistentList}.
+	 *
+	 * @throws NullPointerException if {@code i} is {@code null}.
+	 */
+	public static <E> PersistentList<E> copyOf(Iterator<? extends E> i)
+	{
+		return new Builder<E>().add(i).build();
+	}
+
+	/**
+	 * Creates a new {@code PersistentList} containing the given elements.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param values the {@code List}'s elements.
+	 *
+	 * @return the created {@code PersistentList}.
+	 *
+	 * @throws NullPointerException if {@code values} is {@code null}.
+	 */
+	public static <E> PersistentList<E> copyOf(E[] values)
+	{
+		return new Builder<E>().add(values).build();
+	}
+
+	/**
+	 * Creates a new {@code PersistentList} containing the given elements.
+	 *
+	 * @param <E> the type of the {@code List}'s elements.
+	 * @param values the {@code List}'s elements.
+	 *
+	 * @return the created {@code PersistentList}.
+	 *
+	 * @throws NullPointerException if {@code values} is {@code null}.
+	 */
+	public static <E> PersistentList<E> of(E... values)
+	{
+		return new Builder<E>().add(values).build();
+	}
+
+	private final int size;
+	private final int shift;
+	private final Node root;
+	private final Object[] tail;
+
+	private PersistentList(int size, int shift, Node root, Object[] tail)
+	{
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	/**
+	 * Returns a new {@code PersistentList} made of this list's elements
+	 * followed by the given value. This list is not modified.
+	 *
+	 * @param value the value to append.
+	 *
+	 * @return the resulting {@code PersistentList}.
+	 */
+	public PersistentList<E> plus(E value)
+	{
+		if (size - tailOffset(size) < WIDTH) {
+			Object[] t = Arrays.copyOf(tail, tail.length + 1);
+			t[tail.length] = value;
+			return new PersistentList<E>(size + 1, shift, root, t);
+		}
+		Node node = new Node(null, tail);
+		Object[] t = new Object[] {value};
+		if ((size >>> BITS) > (1 << shift)) {
+			Node r = grow(null, shift, root, node);
+			return new PersistentList<E>(size + 1, shift + BITS, r, t);
+		}
+		Node r = pushTail(null, size, shift, root, node);
+		return new PersistentList<E>(size + 1, shift, r, t);
+	}
+
+	/**
+	 * Returns a new {@code PersistentList} made of this list's elements
+	 * followed by all the values contained in the given {@code Iterable}.
+	 * This list is not modified.
+	 *
+	 * @param values the values to append.
+	 *
+	 * @return the resulting {@code PersistentList}.
+	 *
+	 * @throws NullPointerException if {@code values} is {@code null}.
+	 */
+	public PersistentList<E> plus(Iterable<? extends E> values)
+	{
+		return toBuilder().add(values).build();
+	}
+
+	/**
+	 * Returns a new {@code PersistentList} in which the element at the
+	 * specified position is replaced with the given value. This list is
+	 * not modified.
+	 *
+	 * @param index the index of the element to replace.
+	 * @param value the new value.
+	 *
+	 * @return the resulting {@code PersistentList}.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range
+	 *	({@code index < 0 || index >= size()}).
+	 */
+	public PersistentList<E> with(int index, E value)
+	{
+		checkIndex(index, size);
+		if (index >= tailOffset(size)) {
+			Object[] t = tail.clone();
+			t[index & MASK] = value;
+			return new PersistentList<E>(size, shift, root, t);
+		}
+		Node r = assoc(null, shift, root, index, value);
+		return new PersistentList<E>(size, shift, r, tail);
+	}
+
+	/**
+	 * Returns a new {@code PersistentList} in which the element at the
+	 * specified position has been removed. This list is not modified.
+	 * Removing the last element runs in O(log32 n) time, removing any
+	 * other element requires to rebuild the subsequent part of the list
+	 * and thus runs in linear time.
+	 *
+	 * @param index the index of the element to remove.
+	 *
+	 * @return the resulting {@code PersistentList}.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range
+	 *	({@code index < 0 || index >= size()}).
+	 */
+	public PersistentList<E> without(int index)
+	{
+		checkIndex(index, size);
+		if (index == size - 1) {
+			return pop();
+		}
+		Builder<E> builder = new Builder<E>();
+		for (int i = 0; i < size; i++) {
+			if (i != index) {
+				builder.append(get(i));
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns a {@code Builder} initialized with this list's elements.
+	 * The returned {@code Builder} shares its structure with this list,
+	 * which won't be affected by any update made through the builder.
+	 *
+	 * @return a new {@code Builder}.
+	 */
+	public Builder<E> toBuilder()
+	{
+		return new Builder<E>(this);
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	@Override
+	public E get(int index)
+	{
+		checkIndex(index, size);
+		return (E) leaf(index)[index & MASK];
+	}
+
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new Itr();
+	}
+
+	@Override
+	public Object[] toArray()
+	{
+		Object[] a = new Object[size];
+		int tailOffset = tailOffset(size);
+		for (int i = 0; i < tailOffset; i += WIDTH) {
+			System.arraycopy(leaf(i), 0, a, i, WIDTH);
+		}
+		System.arraycopy(tail, 0, a, tailOffset, size - tailOffset);
+		return a;
+	}
+
+	private PersistentList<E> pop()
+	{
+		if (size == 1) {
+			return empty();
+		}
+		if (size - tailOffset(size) > 1) {
+			Object[] t = Arrays.copyOf(tail, tail.length - 1);
+			return new PersistentList<E>(size - 1, shift, root, t);
+		}
+		Object[] t = leaf(size - 2);
+		Node r = popTail(size, shift, root);
+		int s = shift;
+		if (r == null) {
+			r = EMPTY_NODE;
+		}
+		if (shift > BITS && r.array[1] == null) {
+			r = (Node) r.array[0];
+			s -= BITS;
+		}
+		return new PersistentList<E>(size - 1, s, r, t);
+	}
+
+	private Object[] leaf(int index)
+	{
+		if (index >= tailOffset(size)) {
+			return tail;
+		}
+		Node node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Node) node.array[(index >>> level) & MASK];
+		}
+		return node.array;
+	}
+
+	private static int tailOffset(int size)
+	{
+		return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+	}
+
+	private static void checkIndex(int index, int size)
+	{
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(
+				"Index: " + index + ", Size: " + size);
+		}
+	}
+
+	private static Node editable(Object edit, Node node)
+	{
+		if (edit != null && node.edit == edit) {
+			return node;
+		}
+		return new Node(edit, node.array.clone());
+	}
+
+	private static Node grow(Object edit, int shift, Node root, Node tail)
+	{
+		Node node = new Node(edit, new Object[WIDTH]);
+		node.array[0] = root;
+		node.array[1] = newPath(edit, shift, tail);
+		return node;
+	}
+
+	private static Node newPath(Object edit, int level, Node node)
+	{
+		if (level == 0) {
+			return node;
+		}
+		Node path = new Node(edit, new Object[WIDTH]);
+		path.array[0] = newPath(edit, level - BITS, node);
+		return path;
+	}
+
+	private static Node pushTail(Object edit, int size, int level,
+		Node parent, Node tail)
+	{
+		Node node = editable(edit, parent);
+		int i = ((size - 1) >>> level) & MASK;
+		if (level == BITS) {
+			node.array[i] = tail;
+		} else {
+			Node child = (Node) parent.array[i];
+			node.array[i] = child != null
+				? pushTail(edit, size, level - BITS, child, tail)
+				: newPath(edit, level - BITS, tail);
+		}
+		return node;
+	}
+
+	private static Node popTail(int size, int level, Node parent)
+	{
+		int i = ((size - 2) >>> level) & MASK;
+		if (level > BITS) {
+			Node child = popTail(size, level - BITS, (Node) parent.array[i]);
+			if (child == null && i == 0) {
+				return null;
+			}
+			Node node = editable(null, parent);
+			node.array[i] = child;
+			return node;
+		}
+		if (i == 0) {
+			return null;
+		}
+		Node node = editable(null, parent);
+		node.array[i] = null;
+		return node;
+	}
+
+	private static Node assoc(Object edit, int level, Node parent, int index,
+		Object value)
+	{
+		Node node = editable(edit, parent);
+		if (level == 0) {
+			node.array[index & MASK] = value;
+		} else {
+			int i = (index >>> level) & MASK;
+			Node child = (Node) parent.array[i];
+			node.array[i] = assoc(edit, level - BITS, child, index, value);
+		}
+		return node;
+	}
+
+	private static final class Node implements Serializable
+	{
+		private static final long serialVersionUID = 7186520421349062314L;
+
+		final transient Object edit;
+		final Object[] array;
+
+		Node(Object edit, Object[] array)
+		{
+			this.edit = edit;
+			this.array = array;
+		}
+	}
+
+	private final class Itr implements Iterator<E>
+	{
+		private Object[] leaf;
+		private int index;
+
+		@Override
+		public boolean hasNext()
+		{
+			return index < size;
+		}
+
+		@Override
+		public E next()
+		{
+			if (index >= size) {
+				throw new NoSuchElementException();
+			}
+			if ((index & MASK) == 0) {
+				leaf = leaf(index);
+			}
+			return (E) leaf[index++ & MASK];
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
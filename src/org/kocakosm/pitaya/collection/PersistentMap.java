@@ -0,0 +1,765 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Persistent {@link Map} implementation. Instances of this class are immutable,
+ * but provide update operations ({@link #with(Object, Object)},
+ * {@link #without(Object)}, {@link #plus(Map)}) that return a new
+ * {@code PersistentMap} sharing most of its structure with the original one.
+ * Mappings are stored in a hash array mapped trie, hence lookups and updates
+ * run in O(log32 n) time and memory. Bulk updates should be made through a
+ * {@link Builder} which performs them in place. Iteration order is not
+ * specified. Accepts {@code null} values and the {@code null} key.
+ *
+ * @param <K> the type of the {@code Map}'s keys.
+ * @param <V> the type of the {@code Map}'s values.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V>
+	implements Serializable
+{
+	private static final long serialVersionUID = 6271936648204387532L;
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	private static final Object NOT_FOUND = new Object();
+
+	private static final PersistentMap EMPTY = new PersistentMap(
+		0, null, false, null);
+
+	/**
+	 * {@code PersistentMap} builder. Shares its initial structure with the
+	 * {@code PersistentMap} it has been created from (if any), and copies
+	 * trie nodes only once, the first time they are updated. Not thread
+	 * safe.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 */
+	public static final class Builder<K, V>
+	{
+		private final Change change = new Change();
+		private Object edit;
+		private int size;
+		private Node root;
+		private boolean hasNull;
+		private V nullValue;
+
+		/** Creates a new {@code Builder}, initially empty. */
+		public Builder()
+		{
+			this(PersistentMap.<K, V>empty());
+		}
+
+		private Builder(PersistentMap<K, V> map)
+		{
+			this.edit = new Object();
+			this.size = map.size;
+			this.root = map.root;
+			this.hasNull = map.hasNull;
+			this.nullValue = map.nullValue;
+		}
+
+		/**
+		 * Associates the specified value with the specified key in the
+		 * {@code Map} being built.
+		 *
+		 * @param key the key.
+		 * @param value the value.
+		 *
+		 * @return this object.
+		 */
+		public Builder<K, V> put(K key, V value)
+		{
+			if (key == null) {
+				size += hasNull ? 0 : 1;
+				hasNull = true;
+				nullValue = value;
+				return this;
+			}
+			change.reset();
+			Node node = root == null ? BitmapNode.EMPTY : root;
+			root = node.assoc(edit, 0, hash(key), key, value, change);
+			size += change.added ? 1 : 0;
+			return this;
+		}
+
+		/**
+		 * Copies all of the mappings from the specified {@code Map} to
+		 * the {@code Map} being built.
+		 *
+		 * @param map mappings to be copied.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code map} is {@code null}.
+		 */
+		public Builder<K, V> put(Map<? extends K, ? extends V> map)
+		{
+			for (Entry<? extends K, ? extends V> e : map.entrySet()) {
+				put(e.getKey(), e.getValue());
+			}
+			return this;
+		}
+
+		/**
+		 * Removes the mapping for the given key from the {@code Map}
+		 * being built, if present.
+		 *
+		 * @param key the key.
+		 *
+		 * @return this object.
+		 */
+		public Builder<K, V> remove(Object key)
+		{
+			if (key == null) {
+				size -= hasNull ? 1 : 0;
+				hasNull = false;
+				nullValue = null;
+				return this;
+			}
+			if (root != null) {
+				change.reset();
+				root = root.without(edit, 0, hash(key), key, change);
+				size -= change.removed ? 1 : 0;
+			}
+			return this;
+		}
+
+		/**
+		 * Finalizes the creation of the {@code PersistentMap}. This
+		 * builder remains usable afterwards, subsequent updates won't
+		 * affect the returned {@code Map}.
+		 *
+		 * @return an instance of {@code PersistentMap}.
+		 */
+		public PersistentMap<K, V> build()
+		{
+			if (size == 0) {
+				return empty();
+			}
+			edit = new Object();
+			return new PersistentMap<K, V>(size, root, hasNull, nullValue);
+		}
+	}
+
+	/**
+	 * Returns the empty {@code PersistentMap}.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 *
+	 * @return the empty {@code PersistentMap}.
+	 */
+	public static <K, V> PersistentMap<K, V> empty()
+	{
+		return (PersistentMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * Creates a new {@code PersistentMap} from the given {@code Map}.
+	 *
+	 * @param <K> the type of the {@code Map}'s keys.
+	 * @param <V> the type of the {@code Map}'s values.
+	 * @param map the source {@code Map}.
+	 *
+	 * @return the created {@code PersistentMap}.
+	 *
+	 * @throws NullPointerException if {@code map} is {@code null}.
+	 */
+	public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map)
+	{
+		if (map instanceof PersistentMap) {
+			return (PersistentMap<K, V>) map;
+		}
+		return new Builder<K, V>().put(map).build();
+	}
+
+	private final int size;
+	private final Node root;
+	private final boolean hasNull;
+	private final V nullValue;
+
+	private PersistentMap(int size, Node root, boolean hasNull, V nullValue)
+	{
+		this.size = size;
+		this.root = root;
+		this.hasNull = hasNull;
+		this.nullValue = nullValue;
+	}
+
+	/**
+	 * Returns a new {@code PersistentMap} in which the given key is
+	 * associated with the given value. This map is not modified.
+	 *
+	 * @param key the key.
+	 * @param value the value.
+	 *
+	 * @return the resulting {@code PersistentMap}.
+	 */
+	public PersistentMap<K, V> with(K key, V value)
+	{
+		if (key == null) {
+			if (hasNull && nullValue == value) {
+				return this;
+			}
+			int n = hasNull ? size : size + 1;
+			return new PersistentMap<K, V>(n, root, true, value);
+		}
+		Change change = new Change();
+		Node node = root == null ? BitmapNode.EMPTY : root;
+		Node r = node.assoc(null, 0, hash(key), key, value, change);
+		if (r == root) {
+			return this;
+		}
+		int n = change.added ? size + 1 : size;
+		return new PersistentMap<K, V>(n, r, hasNull, nullValue);
+	}
+
+	/**
+	 * Returns a new {@code PersistentMap} in which the given key is not
+	 * mapped to any value. This map is not modified.
+	 *
+	 * @param key the key.
+	 *
+	 * @return the resulting {@code PersistentMap}.
+	 */
+	public PersistentMap<K, V> without(Object key)
+	{
+		if (key == null) {
+			if (!hasNull) {
+				return this;
+			}
+			return size == 1 ? PersistentMap.<K, V>empty()
+				: new PersistentMap<K, V>(size - 1, root, false, null);
+		}
+		if (root == null) {
+			return this;
+		}
+		Change change = new Change();
+		Node r = root.without(null, 0, hash(key), key, change);
+		if (!change.removed) {
+			return this;
+		}
+		return size == 1 ? PersistentMap.<K, V>empty()
+			: new PersistentMap<K, V>(size - 1, r, hasNull, nullValue);
+	}
+
+	/**
+	 * Returns a new {@code PersistentMap} containing this map's mappings
+	 * updated with all the mappings of the given {@code Map}. This map is
+	 * not modified.
+	 *
+	 * @param map the mappings to add.
+	 *
+	 * @return the resulting {@code PersistentMap}.
+	 *
+	 * @throws NullPointerException if {@code map} is {@code null}.
+	 */
+	public PersistentMap<K, V> plus(Map<? extends K, ? extends V> map)
+	{
+		return toBuilder().put(map).build();
+	}
+
+	/**
+	 * Returns a {@code Builder} initialized with this map's mappings. The
+	 * returned {@code Builder} shares its structure with this map, which
+	 * won't be affected by any update made through the builder.
+	 *
+	 * @return a new {@code Builder}.
+	 */
+	public Builder<K, V> toBuilder()
+	{
+		return new Builder<K, V>(this);
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		if (key == null) {
+			return hasNull;
+		}
+		return root != null
+			&& root.find(0, hash(key), key, NOT_FOUND) != NOT_FOUND;
+	}
+
+	@Override
+	public V get(Object key)
+	{
+		if (key == null) {
+			return nullValue;
+		}
+		return root == null ? null : (V) root.find(0, hash(key), key, null);
+	}
+
+	@Override
+	public V put(K key, V value)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public V remove(Object key)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void clear()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet()
+	{
+		return new AbstractSet<Entry<K, V>>()
+		{
+			@Override
+			public int size()
+			{
+				return size;
+			}
+
+			@Override
+			public Iterator<Entry<K, V>> iterator()
+			{
+				return new Itr<Entry<K, V>>(root, hasNull, nullValue)
+				{
+					@Override
+					Entry<K, V> output(Object key, Object value)
+					{
+						return new SimpleImmutableEntry<K, V>(
+							(K) key, (V) value);
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Returns an {@code Iterator} over this map's keys. Unlike the one
+	 * returned by {@code keySet().iterator()}, it doesn't allocate an
+	 * entry for each key.
+	 *
+	 * @return an {@code Iterator} over this map's keys.
+	 */
+	Iterator<K> keyIterator()
+	{
+		return new Itr<K>(root, hasNull, nullValue)
+		{
+			@Override
+			K output(Object key, Object value)
+			{
+				return (K) key;
+			}
+		};
+	}
+
+	private static int hash(Object key)
+	{
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static int bit(int hash, int shift)
+	{
+		return 1 << ((hash >>> shift) & MASK);
+	}
+
+	private static final class Change
+	{
+		boolean added;
+		boolean removed;
+
+		void reset()
+		{
+			added = false;
+			removed = false;
+		}
+	}
+
+	/*
+	 * Trie node. Key/value pairs are stored in a flat array, a null key
+	 * denoting a sub-node stored in place of the value. Nodes are updated in
+	 * place only when their edit token matches the given (non-null) one,
+	 * otherwise they are copied.
+	 */
+	private abstract static class Node implements Serializable
+	{
+		private static final long serialVersionUID = 2402638564327953715L;
+
+		transient Object edit;
+		Object[] array;
+
+		Node(Object edit, Object[] array)
+		{
+			this.edit = edit;
+			this.array = array;
+		}
+
+		final boolean isEditable(Object edit)
+		{
+			return edit != null && this.edit == edit;
+		}
+
+		abstract Object find(int shift, int hash, Object key,
+			Object notFound);
+
+		abstract Node assoc(Object edit, int shift, int hash, Object key,
+			Object value, Change change);
+
+		abstract Node without(Object edit, int shift, int hash,
+			Object key, Change change);
+	}
+
+	private static final class BitmapNode extends Node
+	{
+		private static final long serialVersionUID = 8620935846571625401L;
+
+		static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+		private int bitmap;
+
+		BitmapNode(Object edit, int bitmap, Object[] array)
+		{
+			super(edit, array);
+			this.bitmap = bitmap;
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key, Object notFound)
+		{
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) {
+				return notFound;
+			}
+			int i = index(bit);
+			Object k = array[2 * i];
+			Object v = array[2 * i + 1];
+			if (k == null) {
+				return ((Node) v).find(shift + BITS, hash, key, notFound);
+			}
+			return key.equals(k) ? v : notFound;
+		}
+
+		@Override
+		Node assoc(Object edit, int shift, int hash, Object key,
+			Object value, Change change)
+		{
+			int bit = bit(hash, shift);
+			int i = index(bit);
+			if ((bitmap & bit) == 0) {
+				int n = Integer.bitCount(bitmap);
+				Object[] a = new Object[2 * (n + 1)];
+				System.arraycopy(array, 0, a, 0, 2 * i);
+				a[2 * i] = key;
+				a[2 * i + 1] = value;
+				System.arraycopy(array, 2 * i, a, 2 * (i + 1), 2 * (n - i));
+				change.added = true;
+				if (isEditable(edit)) {
+					this.array = a;
+					this.bitmap |= bit;
+					return this;
+				}
+				return new BitmapNode(edit, bitmap | bit, a);
+			}
+			Object k = array[2 * i];
+			Object v = array[2 * i + 1];
+			if (k == null) {
+				Node child = (Node) v;
+				Node node = child.assoc(edit, shift + BITS, hash, key,
+					value, change);
+				return node == child ? this : set(edit, 2 * i + 1, node);
+			}
+			if (key.equals(k)) {
+				return v == value ? this : set(edit, 2 * i + 1, value);
+			}
+			change.added = true;
+			BitmapNode node = editable(edit);
+			node.array[2 * i] = null;
+			node.array[2 * i + 1] = create(edit, shift + BITS, k, v,
+				hash, key, value);
+			return node;
+		}
+
+		@Override
+		Node without(Object edit, int shift, int hash, Object key,
+			Change change)
+		{
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) {
+				return this;
+			}
+			int i = index(bit);
+			Object k = array[2 * i];
+			Object v = array[2 * i + 1];
+			if (k == null) {
+				Node child = (Node) v;
+				Node node = child.without(edit, shift + BITS, hash, key,
+					change);
+				if (node == child) {
+					return this;
+				}
+				if (node != null) {
+					return set(edit, 2 * i + 1, node);
+				}
+				return remove(edit, bit, i);
+			}
+			if (key.equals(k)) {
+				change.removed = true;
+				return remove(edit, bit, i);
+			}
+			return this;
+		}
+
+		private BitmapNode set(Object edit, int i, Object o)
+		{
+			BitmapNode node = editable(edit);
+			node.array[i] = o;
+			return node;
+		}
+
+		private BitmapNode editable(Object edit)
+		{
+			if (isEditable(edit)) {
+				return this;
+			}
+			return new BitmapNode(edit, bitmap, array.clone());
+		}
+
+		private BitmapNode remove(Object edit, int bit, int i)
+		{
+			if (bitmap == bit) {
+				return null;
+			}
+			Object[] a = new Object[array.length - 2];
+			System.arraycopy(array, 0, a, 0, 2 * i);
+			System.arraycopy(array, 2 * (i + 1), a, 2 * i, a.length - 2 * i);
+			if (isEditable(edit)) {
+				this.array = a;
+				this.bitmap ^= bit;
+				return this;
+			}
+			return new BitmapNode(edit, bitmap ^ bit, a);
+		}
+
+		private int index(int bit)
+		{
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		private static Node create(Object edit, int shift, Object k1,
+			Object v1, int h2, Object k2, Object v2)
+		{
+			int h1 = hash(k1);
+			if (h1 == h2) {
+				return new CollisionNode(edit, h1,
+					new Object[] {k1, v1, k2, v2});
+			}
+			Change change = new Change();
+			return EMPTY.assoc(edit, shift, h1, k1, v1, change)
+				.assoc(edit, shift, h2, k2, v2, change);
+		}
+	}
+
+	private static final class CollisionNode extends Node
+	{
+		private static final long serialVersionUID = 5370528463105729634L;
+
+		private final int hash;
+
+		CollisionNode(Object edit, int hash, Object[] array)
+		{
+			super(edit, array);
+			this.hash = hash;
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key, Object notFound)
+		{
+			int i = indexOf(key);
+			return hash == this.hash && i >= 0 ? array[i + 1] : notFound;
+		}
+
+		@Override
+		Node assoc(Object edit, int shift, int hash, Object key,
+			Object value, Change change)
+		{
+			if (hash != this.hash) {
+				Object[] a = new Object[] {null, this};
+				return new BitmapNode(edit, bit(this.hash, shift), a)
+					.assoc(edit, shift, hash, key, value, change);
+			}
+			int i = indexOf(key);
+			if (i >= 0) {
+				if (array[i + 1] == value) {
+					return this;
+				}
+				CollisionNode node = isEditable(edit) ? this
+					: new CollisionNode(edit, hash, array.clone());
+				node.array[i + 1] = value;
+				return node;
+			}
+			Object[] a = new Object[array.length + 2];
+			System.arraycopy(array, 0, a, 0, array.length);
+			a[array.length] = key;
+			a[array.length + 1] = value;
+			change.added = true;
+			if (isEditable(edit)) {
+				this.array = a;
+				return this;
+			}
+			return new CollisionNode(edit, hash, a);
+		}
+
+		@Override
+		Node without(Object edit, int shift, int hash, Object key,
+			Change change)
+		{
+			int i = hash == this.hash ? indexOf(key) : -1;
+			if (i < 0) {
+				return this;
+			}
+			change.removed = true;
+			if (array.length == 2) {
+				return null;
+			}
+			Object[] a = new Object[array.length - 2];
+			System.arraycopy(array, 0, a, 0, i);
+			System.arraycopy(array, i + 2, a, i, a.length - i);
+			if (isEditable(edit)) {
+				this.array = a;
+				return this;
+			}
+			return new CollisionNode(edit, hash, a);
+		}
+
+		private int indexOf(Object key)
+		{
+			for (int i = 0; i < array.length; i += 2) {
+				if (key.equals(array[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+
+	private abstract static class Itr<T> implements Iterator<T>
+	{
+		private final Object[][] arrays = new Object[8][];
+		private final int[] indexes = new int[8];
+		private int depth;
+		private boolean hasNull;
+		private Object nullValue;
+		private Object key;
+		private Object value;
+		private boolean ready;
+
+		Itr(Node root, boolean hasNull, Object nullValue)
+		{
+			this.hasNull = hasNull;
+			this.nullValue = nullValue;
+			this.arrays[0] = root == null ? new Object[0] : root.array;
+		}
+
+		abstract T output(Object key, Object value);
+
+		@Override
+		public boolean hasNext()
+		{
+			if (ready) {
+				return true;
+			}
+			if (hasNull) {
+				hasNull = false;
+				key = null;
+				value = nullValue;
+				ready = true;
+				return true;
+			}
+			while (depth >= 0) {
+				Object[] a = arrays[depth];
+				int i = indexes[depth];
+				if (i >= a.length) {
+					depth--;
+					continue;
+				}
+				indexes[depth] = i + 2;
+				if (a[i] == null) {
+					depth++;
+					arrays[depth] = ((Node) a[i + 1]).array;
+					indexes[depth] = 0;
+				} else {
+					key = a[i];
+					value = a[i + 1];
+					ready = true;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public T next()
+		{
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ready = false;
+			return output(key, value);
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Persistent {@link Set} implementation. Instances of this class are immutable,
+ * but provide update operations ({@link #with(Object)}, {@link #without(Object)},
+ * {@link #plus(Iterable)}) that return a new {@code PersistentSet} sharing most
+ * of its structure with the original one. Elements are stored in a hash array
+ * mapped trie (see {@link PersistentMap}), hence lookups and updates run in
+ * O(log32 n) time and memory. Bulk updates should be made through a
+ * {@link Builder} which performs them in place. Iteration order is not
+ * specified. Accepts {@code null} values.
+ *
+ * @param <E> the type of the {@code Set}'s elements.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class PersistentSet<E> extends AbstractSet<E> implements Serializable
+{
+	private static final long serialVersionUID = 1586930741265934870L;
+
+	private static final PersistentSet EMPTY = new PersistentSet(
+		PersistentMap.empty());
+
+	/**
+	 * {@code PersistentSet} builder. Shares its initial structure with the
+	 * {@code PersistentSet} it has been created from (if any), and copies
+	 * trie nodes only once, the first time they are updated. Not thread
+	 * safe.
+	 *
+	 * @param <E> the type of the {@code Set}'s elements.
+	 */
+	public static final class Builder<E>
+	{
+		private final PersistentMap.Builder<E, Boolean> inner;
+
+		/** Creates a new {@code Builder}, initially empty. */
+		public Builder()
+		{
+			this(PersistentSet.<E>empty());
+		}
+
+		private Builder(PersistentSet<E> set)
+		{
+			this.inner = set.map.toBuilder();
+		}
+
+		/**
+		 * Adds the given values to the {@code Set} being built.
+		 *
+		 * @param values the values to add.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code values} is {@code null}.
+		 */
+		public Builder<E> add(E... values)
+		{
+			for (E value : values) {
+				inner.put(value, Boolean.TRUE);
+			}
+			return this;
+		}
+
+		/**
+		 * Adds all the values contained in the given {@code Iterable}
+		 * to the {@code Set} being built.
+		 *
+		 * @param values the values to add.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code values} is {@code null}.
+		 */
+		public Builder<E> add(Iterable<? extends E> values)
+		{
+			for (E value : values) {
+				inner.put(value, Boolean.TRUE);
+			}
+			return this;
+		}
+
+		/**
+		 * Adds all the values contained in the given {@code Iterator}
+		 * to the {@code Set} being built.
+		 *
+		 * @param values the values to add.
+		 *
+		 * @return this object.
+		 *
+		 * @throws NullPointerException if {@code values} is {@code null}.
+		 */
+		public Builder<E> add(Iterator<? extends E> values)
+		{
+			while (values.hasNext()) {
+				inner.put(values.next(), Boolean.TRUE);
+			}
+			return this;
+		}
+
+		/**
+		 * Removes the given value from the {@code Set} being built, if
+		 * present.
+		 *
+		 * @param value the value to remove.
+		 *
+		 * @return this object.
+		 */
+		public Builder<E> remove(Object value)
+		{
+			inner.remove(value);
+			return this;
+		}
+
+		/**
+		 * Finalizes the creation of the {@code PersistentSet}. This
+		 * builder remains usable afterwards, subsequent updates won't
+		 * affect the returned {@code Set}.
+		 *
+		 * @return an instance of {@code PersistentSet}.
+		 */
+		public PersistentSet<E> build()
+		{
+			return new PersistentSet<E>(inner.build());
+		}
+	}
+
+	/**
+	 * Returns the empty {@code PersistentSet}.
+	 *
+	 * @param <E> the type of the {@code Set}'s elements.
+	 *
+	 * @return the empty {@code PersistentSet}.
+	 */
+	public static <E> PersistentSet<E> empty()
+	{
+		return (PersistentSet<E>) EMPTY;
+	}
+
+	/**
+	 * Creates a new {@code PersistentSet} from the given {@code Iterable}.
+	 *
+	 * @param <E> the type of the {@code Set}'s elements.
+	 * @param i the source {@code Iterable}.
+	 *
+	 * @return the created {@code PersistentSet}.
+	 *
+	 * @throws NullPointerException if {@code i} is {@code null}.
+	 */
+	public static <E> PersistentSet<E> copyOf(Iterable<? extends E> i)
+	{
+		if (i instanceof PersistentSet) {
+			return (PersistentSet<E>) i;
+		}
+		return new Builder<E>().add(i).build();
+	}
+
+	/**
+	 * Creates a new {@code PersistentSet} from the given {@code Iterator}.
+	 *
+	 * @param <E> the type of the {@code Set}'s elements.
+	 * @param i the source {@code Iterator}.
+	 *
+	 * @return the created {@code PersistentSet}.
+	 *
+	 * @throws NullPointerException if {@code i} is {@code null}.
+	 */
+	public static <E> PersistentSet<E> copyOf(Iterator<? extends E> i)
+	{
+		return new Builder<E>().add(i).build();
+	}
+
+	/**
+	 * Creates a new {@code PersistentSet} containing the given elements.
+	 *
+	 * @param <E> the type of the {@code Set}'s elements.
+	 * @param values the {@code Set}'s elements.
+	 *
+	 * @return the created {@code PersistentSet}.
+	 *
+	 * @throws NullPointerException if {@code values} is {@code null}.
+	 */
+	public static <E> PersistentSet<E> of(E... values)
+	{
+		return new Builder<E>().add(values).build();
+	}
+
+	private final PersistentMap<E, Boolean> map;
+
+	private PersistentSet(PersistentMap<E, Boolean> map)
+	{
+		this.map = map;
+	}
+
+	/**
+	 * Returns a new {@code PersistentSet} made of this set's elements and
+	 * the given value. This set is not modified.
+	 *
+	 * @param value the value to add.
+	 *
+	 * @return the resulting {@code PersistentSet}.
+	 */
+	public PersistentSet<E> with(E value)
+	{
+		PersistentMap<E, Boolean> m = map.with(value, Boolean.TRUE);
+		return m == map ? this : new PersistentSet<E>(m);
+	}
+
+	/**
+	 * Returns a new {@code PersistentSet} made of this set's elements but
+	 * the given value. This set is not modified.
+	 *
+	 * @param value the value to remove.
+	 *
+	 * @return the resulting {@code PersistentSet}.
+	 */
+	public PersistentSet<E> without(Object value)
+	{
+		PersistentMap<E, Boolean> m = map.without(value);
+		return m == map ? this : new PersistentSet<E>(m);
+	}
+
+	/**
+	 * Returns a new {@code PersistentSet} made of this set's elements and
+	 * all the values contained in the given {@code Iterable}. This set is
+	 * not modified.
+	 *
+	 * @param values the values to add.
+	 *
+	 * @return the resulting {@code PersistentSet}.
+	 *
+	 * @throws NullPointerException if {@code values} is {@code null}.
+	 */
+	public PersistentSet<E> plus(Iterable<? extends E> values)
+	{
+		return toBuilder().add(values).build();
+	}
+
+	/**
+	 * Returns a {@code Builder} initialized with this set's elements. The
+	 * returned {@code Builder} shares its structure with this set, which
+	 * won't be affected by any update made through the builder.
+	 *
+	 * @return a new {@code Builder}.
+	 */
+	public Builder<E> toBuilder()
+	{
+		return new Builder<E>(this);
+	}
+
+	@Override
+	public int size()
+	{
+		return map.size();
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return map.isEmpty();
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return map.containsKey(o);
+	}
+
+	@Override
+	public Iterator<E> iterator()
+	{
+		return map.keyIterator();
+	}
+
+	@Override
+	public boolean add(E e)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void clear()
+	{
+		throw new UnsupportedOperationException();
+	}
+}
@@ -0,0 +1,289 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A sequence of {@link Function}s and {@link Predicate}s applied in a single
+ * pass over a source of elements. Successive {@code transform} and
+ * {@code filter} operations are fused into a single {@code Pipeline} so that
+ * elements are pulled from the source only once, whatever the number of
+ * stages. Instances of this class are immutable.
+ *
+ * @author Osman KOCAK
+ */
+final class Pipeline
+{
+	private static final Object SKIP = new Object();
+
+	private final Object[] stages;
+	private final boolean[] filters;
+	private final boolean filtering;
+
+	/**
+	 * Creates a new {@code Pipeline} made of the given function.
+	 *
+	 * @param function the function.
+	 */
+	Pipeline(Function<?, ?> function)
+	{
+		this(new Object[] {function}, new boolean[] {false});
+	}
+
+	/**
+	 * Creates a new {@code Pipeline} made of the given predicate.
+	 *
+	 * @param predicate the predicate.
+	 */
+	Pipeline(Predicate<?> predicate)
+	{
+		this(new Object[] {predicate}, new boolean[] {true});
+	}
+
+	private Pipeline(Object[] stages, boolean[] filters)
+	{
+		boolean filtering = false;
+		for (boolean filter : filters) {
+			filtering |= filter;
+		}
+		this.stages = stages;
+		this.filters = filters;
+		this.filtering = filtering;
+	}
+
+	/**
+	 * Returns a new {@code Pipeline} made of this pipeline's stages
+	 * followed by the given function.
+	 *
+	 * @param function the function to append.
+	 *
+	 * @return the resulting {@code Pipeline}.
+	 */
+	Pipeline map(Function<?, ?> function)
+	{
+		return then(function, false);
+	}
+
+	/**
+	 * Returns a new {@code Pipeline} made of this pipeline's stages
+	 * followed by the given predicate.
+	 *
+	 * @param predicate the predicate to append.
+	 *
+	 * @return the resulting {@code Pipeline}.
+	 */
+	Pipeline filter(Predicate<?> predicate)
+	{
+		return then(predicate, true);
+	}
+
+	/**
+	 * Returns an {@code Iterator} applying this pipeline on the elements
+	 * returned by the given source {@code Iterator}.
+	 *
+	 * @param <T> the type of the returned {@code Iterator}'s elements.
+	 * @param source the source {@code Iterator}.
+	 *
+	 * @return the resulting {@code Iterator}.
+	 */
+	<T> Iterator<T> iterator(Iterator<?> source)
+	{
+		return new PipelineIterator<T>(source, this);
+	}
+
+	/**
+	 * Returns an {@code Iterable} applying this pipeline on the elements
+	 * of the given source {@code Iterable}.
+	 *
+	 * @param <T> the type of the returned {@code Iterable}'s elements.
+	 * @param source the source {@code Iterable}.
+	 *
+	 * @return the resulting {@code Iterable}.
+	 */
+	<T> Iterable<T> iterable(Iterable<?> source)
+	{
+		return new PipelineIterable<T>(source, this);
+	}
+
+	/**
+	 * Returns the {@code Pipeline} applied by the given {@code Iterator},
+	 * if it is a pipeline {@code Iterator} that has not been polled yet.
+	 *
+	 * @param iterator the {@code Iterator}.
+	 *
+	 * @return the given {@code Iterator}'s pipeline, or {@code null}.
+	 */
+	static Pipeline of(Iterator<?> iterator)
+	{
+		if (iterator instanceof PipelineIterator) {
+			PipelineIterator<?> i = (PipelineIterator<?>) iterator;
+			return i.started ? null : i.pipeline;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the {@code Pipeline} applied by the given {@code Iterable},
+	 * if it is a pipeline {@code Iterable}.
+	 *
+	 * @param iterable the {@code Iterable}.
+	 *
+	 * @return the given {@code Iterable}'s pipeline, or {@code null}.
+	 */
+	static Pipeline of(Iterable<?> iterable)
+	{
+		if (iterable instanceof PipelineIterable) {
+			return ((PipelineIterable<?>) iterable).pipeline;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the source of the given pipeline {@code Iterator}.
+	 *
+	 * @param iterator a pipeline {@code Iterator}.
+	 *
+	 * @return the given {@code Iterator}'s source.
+	 */
+	static Iterator<?> sourceOf(Iterator<?> iterator)
+	{
+		return ((PipelineIterator<?>) iterator).source;
+	}
+
+	/**
+	 * Returns the source of the given pipeline {@code Iterable}.
+	 *
+	 * @param iterable a pipeline {@code Iterable}.
+	 *
+	 * @return the given {@code Iterable}'s source.
+	 */
+	static Iterable<?> sourceOf(Iterable<?> iterable)
+	{
+		return ((PipelineIterable<?>) iterable).source;
+	}
+
+	private Pipeline then(Object stage, boolean filter)
+	{
+		Object[] s = Arrays.copyOf(stages, stages.length + 1);
+		boolean[] f = Arrays.copyOf(filters, filters.length + 1);
+		s[stages.length] = stage;
+		f[filters.length] = filter;
+		return new Pipeline(s, f);
+	}
+
+	/*
+	 * Stages are chained by the typed transform and filter methods of
+	 * Iterators and Iterables, so each one accepts the previous one's
+	 * output.
+	 */
+	@SuppressWarnings("unchecked")
+	private Object apply(Object e)
+	{
+		Object o = e;
+		for (int i = 0; i < stages.length; i++) {
+			if (filters[i]) {
+				if (!((Predicate<Object>) stages[i]).apply(o)) {
+					return SKIP;
+				}
+			} else {
+				o = ((Function<Object, ?>) stages[i]).apply(o);
+			}
+		}
+		return o;
+	}
+
+	private static final class PipelineIterator<T> implements Iterator<T>
+	{
+		private final Iterator<?> source;
+		private final Pipeline pipeline;
+		private boolean started;
+		private boolean ready;
+		private Object next;
+
+		PipelineIterator(Iterator<?> source, Pipeline pipeline)
+		{
+			this.source = source;
+			this.pipeline = pipeline;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			started = true;
+			if (!pipeline.filtering) {
+				return source.hasNext();
+			}
+			while (!ready && source.hasNext()) {
+				Object o = pipeline.apply(source.next());
+				if (o != SKIP) {
+					next = o;
+					ready = true;
+				}
+			}
+			return ready;
+		}
+
+		/* The pipeline's last stage produces elements of type T. */
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next()
+		{
+			started = true;
+			if (!pipeline.filtering) {
+				return (T) pipeline.apply(source.next());
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T e = (T) next;
+			next = null;
+			ready = false;
+			return e;
+		}
+
+		@Override
+		public void remove()
+		{
+			if (pipeline.filtering) {
+				throw new UnsupportedOperationException();
+			}
+			source.remove();
+		}
+	}
+
+	private static final class PipelineIterable<T> implements Iterable<T>
+	{
+		private final Iterable<?> source;
+		private final Pipeline pipeline;
+
+		PipelineIterable(Iterable<?> source, Pipeline pipeline)
+		{
+			this.source = source;
+			this.pipeline = pipeline;
+		}
+
+		@Override
+		public Iterator<T> iterator()
+		{
+			return pipeline.iterator(source.iterator());
+		}
+	}
+}
@@ -0,0 +1,263 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A sink of an asynchronous tee: a bounded ring buffer drained by a dedicated
+ * daemon thread. The buffer is either a {@code byte[]} or a {@code char[]},
+ * both being copied with {@link System#arraycopy}. The thread writes all the
+ * contiguous buffered data at once, so that small writes are batched into
+ * large chunks. Writes longer than the buffer are split into chunks of at
+ * most the buffer's length, to which the overflow policy applies separately.
+ * A flush only waits for the data buffered before it was requested, so that
+ * a producer that keeps writing can't starve it. Errors raised by the
+ * underlying sink stop the thread, and are rethrown by the subsequent calls
+ * to the producer side methods.
+ *
+ * @author Osman KOCAK
+ */
+abstract class AsyncSink implements Runnable
+{
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private final Object buf;
+	private final int capacity;
+	private final OverflowPolicy policy;
+	private int head;
+	private int count;
+	private long dropped;
+	private long written;
+	private long flushTarget;
+	private long flushRequested;
+	private long flushed;
+	private boolean closing;
+	private boolean done;
+	private IOException error;
+
+	/**
+	 * Creates a new {@code AsyncSink}.
+	 *
+	 * @param buf the ring buffer, either a {@code byte[]} or a
+	 *	{@code char[]}.
+	 * @param capacity the buffer's length.
+	 * @param policy the overflow policy.
+	 */
+	AsyncSink(Object buf, int capacity, OverflowPolicy policy)
+	{
+		this.buf = buf;
+		this.capacity = capacity;
+		this.policy = policy;
+	}
+
+	/** Starts the writer thread. */
+	final void start()
+	{
+		Thread thread = new Thread(this,
+			"pitaya-tee-" + THREAD_COUNT.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Writes the given portion of the ring buffer to the underlying sink.
+	 */
+	abstract void write(Object buf, int off, int len) throws IOException;
+
+	/** Flushes the underlying sink. */
+	abstract void flush() throws IOException;
+
+	/** Closes the underlying sink. */
+	abstract void close() throws IOException;
+
+	/** Returns the amount of data buffered but not written yet. */
+	final synchronized long getLag()
+	{
+		return count;
+	}
+
+	/** Returns the amount of data dropped because of overflows. */
+	final synchronized long getDropCount()
+	{
+		return dropped;
+	}
+
+	/**
+	 * Buffers the given data, applying the overflow policy to each chunk
+	 * that doesn't fit. Returns {@code false} if some data has been
+	 * dropped and the policy is {@link OverflowPolicy#FAIL}.
+	 */
+	final synchronized boolean offer(Object src, int off, int len)
+		throws IOException
+	{
+		checkOpen();
+		if (policy != OverflowPolicy.BLOCK) {
+			boolean accepted = true;
+			while (len > 0) {
+				int n = Math.min(len, capacity);
+				if (capacity - count >= n) {
+					put(src, off, n);
+				} else {
+					dropped += n;
+					accepted = false;
+				}
+				off += n;
+				len -= n;
+			}
+			return accepted || policy == OverflowPolicy.DROP;
+		}
+		while (len > 0) {
+			while (count == capacity && !done) {
+				await();
+			}
+			checkOpen();
+			int n = Math.min(len, capacity - count);
+			put(src, off, n);
+			off += n;
+			len -= n;
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until all the data buffered so far has been written and the
+	 * underlying sink has been flushed. Data buffered afterwards isn't
+	 * waited for.
+	 */
+	final synchronized void awaitFlush() throws IOException
+	{
+		checkOpen();
+		long request = ++flushRequested;
+		flushTarget = written + count;
+		notifyAll();
+		while (flushed < request && !done) {
+			await();
+		}
+		checkOpen();
+	}
+
+	/**
+	 * Waits until all the data buffered so far has been written and the
+	 * underlying sink has been closed.
+	 */
+	final synchronized void awaitClose() throws IOException
+	{
+		closing = true;
+		notifyAll();
+		while (!done) {
+			await();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	@Override
+	public final void run()
+	{
+		IOException failure = null;
+		try {
+			drain();
+		} catch (IOException e) {
+			failure = e;
+		} catch (InterruptedException e) {
+			failure = new InterruptedIOException();
+		} finally {
+			try {
+				close();
+			} catch (IOException e) {
+				failure = failure == null ? e : failure;
+			}
+			synchronized (this) {
+				error = failure;
+				done = true;
+				notifyAll();
+			}
+		}
+	}
+
+	private void drain() throws IOException, InterruptedException
+	{
+		while (true) {
+			int off;
+			int len;
+			long request;
+			synchronized (this) {
+				while (count == 0 && !closing
+					&& flushed == flushRequested) {
+					wait();
+				}
+				off = head;
+				len = Math.min(count, capacity - head);
+				request = flushRequested;
+				if (request != flushed && written >= flushTarget) {
+					len = 0;
+				} else if (len == 0) {
+					return;
+				}
+			}
+			if (len > 0) {
+				write(buf, off, len);
+				synchronized (this) {
+					head = (head + len) % capacity;
+					count -= len;
+					written += len;
+					notifyAll();
+				}
+			} else {
+				flush();
+				synchronized (this) {
+					flushed = request;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	private void put(Object src, int off, int len)
+	{
+		int tail = (head + count) % capacity;
+		int n = Math.min(len, capacity - tail);
+		System.arraycopy(src, off, buf, tail, n);
+		System.arraycopy(src, off + n, buf, 0, len - n);
+		count += len;
+		notifyAll();
+	}
+
+	private void await() throws InterruptedIOException
+	{
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	private void checkOpen() throws IOException
+	{
+		if (error != null) {
+			throw new IOException("Sink failure", error);
+		}
+		if (closing || done) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
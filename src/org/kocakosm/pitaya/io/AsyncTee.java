@@ -0,0 +1,121 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The producer side of an asynchronous tee, shared by
+ * {@link AsyncTeeOutputStream} and {@link AsyncTeeWriter}: forwards the data
+ * written to it to each of its {@link AsyncSink}s, and gathers their errors.
+ *
+ * @author Osman KOCAK
+ */
+final class AsyncTee
+{
+	private final List<AsyncSink> sinks;
+
+	/**
+	 * Creates a new {@code AsyncTee}, starting the given sinks' threads.
+	 *
+	 * @param sinks the sinks to write to.
+	 */
+	AsyncTee(List<AsyncSink> sinks)
+	{
+		this.sinks = sinks;
+		for (AsyncSink sink : sinks) {
+			sink.start();
+		}
+	}
+
+	/** Returns the number of sinks. */
+	int getSinkCount()
+	{
+		return sinks.size();
+	}
+
+	/** Returns the amount of data buffered for the given sink. */
+	long getLag(int sink)
+	{
+		return sinks.get(sink).getLag();
+	}
+
+	/** Returns the amount of data dropped for the given sink. */
+	long getDropCount(int sink)
+	{
+		return sinks.get(sink).getDropCount();
+	}
+
+	/**
+	 * Buffers the given portion of the given {@code byte[]} or
+	 * {@code char[]} for each sink, whose bounds must have been checked.
+	 */
+	void write(Object buf, int off, int len) throws IOException
+	{
+		List<Integer> overflows = new ArrayList<Integer>(0);
+		for (int i = 0; i < sinks.size(); i++) {
+			if (!sinks.get(i).offer(buf, off, len)) {
+				overflows.add(i);
+			}
+		}
+		if (!overflows.isEmpty()) {
+			throw new IOException("Buffer overflow: " + overflows);
+		}
+	}
+
+	/** Waits until all the sinks have been flushed. */
+	void flush() throws IOException
+	{
+		List<IOException> errors = new ArrayList<IOException>(0);
+		for (AsyncSink sink : sinks) {
+			try {
+				sink.awaitFlush();
+			} catch (IOException e) {
+				errors.add(e);
+			}
+		}
+		rethrow(errors);
+	}
+
+	/** Waits until all the sinks have been closed. */
+	void close() throws IOException
+	{
+		List<IOException> errors = new ArrayList<IOException>(0);
+		for (AsyncSink sink : sinks) {
+			try {
+				sink.awaitClose();
+			} catch (IOException e) {
+				errors.add(e);
+			}
+		}
+		rethrow(errors);
+	}
+
+	private static void rethrow(List<IOException> errors)
+		throws IOException
+	{
+		if (errors.size() == 1) {
+			throw errors.get(0);
+		}
+		if (!errors.isEmpty()) {
+			throw new CompositeIOException(errors);
+		}
+	}
+}
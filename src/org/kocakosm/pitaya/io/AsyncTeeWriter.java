@@ -0,0 +1,172 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An asynchronous 'tee' {@code Writer}: characters written to it are buffered
+ * in a bounded ring buffer per underlying writer, which is drained by a
+ * dedicated daemon thread, so that a slow writer doesn't slow the caller
+ * down, nor the other writers. Buffered characters are written to the
+ * writers in chunks as large as possible. When a buffer is full, the configured
+ * {@link OverflowPolicy} applies; writes longer than the buffer are split
+ * into chunks of the buffer's size, the policy applying to each of them.
+ * Errors raised by a writer are reported by the subsequent calls to
+ * {@code write}, {@code flush} and {@code close}. {@link #flush()} waits
+ * until the characters buffered before the call have been written and the
+ * writers flushed, and {@link #close()} until all the buffered characters
+ * have been written and the writers closed. The write methods are not
+ * thread-safe, but the counters may be read from any thread.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class AsyncTeeWriter extends Writer
+{
+	private final AsyncTee tee;
+	private final char[] single;
+
+	/**
+	 * Creates a new {@code AsyncTeeWriter}.
+	 *
+	 * @param bufferSize the size of each writer's buffer.
+	 * @param policy what to do when a writer's buffer is full.
+	 * @param writers the writers to write to.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}
+	 *	or if {@code writers} contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code bufferSize} is not
+	 *	strictly positive.
+	 */
+	AsyncTeeWriter(int bufferSize, OverflowPolicy policy,
+		Iterable<? extends Writer> writers)
+	{
+		Parameters.checkCondition(bufferSize > 0);
+		Parameters.checkNotNull(policy);
+		List<AsyncSink> sinks = new ArrayList<AsyncSink>();
+		for (Writer writer : writers) {
+			Parameters.checkNotNull(writer);
+			sinks.add(new Sink(writer, bufferSize, policy));
+		}
+		this.tee = new AsyncTee(sinks);
+		this.single = new char[1];
+	}
+
+	/**
+	 * Returns the number of underlying writers.
+	 *
+	 * @return the number of underlying writers.
+	 */
+	public int getSinkCount()
+	{
+		return tee.getSinkCount();
+	}
+
+	/**
+	 * Returns the number of characters buffered for the given writer that haven't
+	 * been written to it yet.
+	 *
+	 * @param sink the index of the writer, in the order given at creation.
+	 *
+	 * @return the given writer's lag.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code sink} is out of bounds.
+	 */
+	public long getLag(int sink)
+	{
+		return tee.getLag(sink);
+	}
+
+	/**
+	 * Returns the number of characters that haven't been written to the given
+	 * writer because its buffer was full.
+	 *
+	 * @param sink the index of the writer, in the order given at creation.
+	 *
+	 * @return the number of characters dropped for the given writer.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code sink} is out of bounds.
+	 */
+	public long getDropCount(int sink)
+	{
+		return tee.getDropCount(sink);
+	}
+
+	@Override
+	public void write(int i) throws IOException
+	{
+		single[0] = (char) i;
+		write(single, 0, 1);
+	}
+
+	@Override
+	public void write(char[] b, int off, int len) throws IOException
+	{
+		if (off < 0 || len < 0 || off > b.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
+		tee.write(b, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		tee.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		tee.close();
+	}
+
+	private static final class Sink extends AsyncSink
+	{
+		private final Writer writer;
+
+		Sink(Writer writer, int bufferSize, OverflowPolicy policy)
+		{
+			super(new char[bufferSize], bufferSize, policy);
+			this.writer = writer;
+		}
+
+		@Override
+		void write(Object buf, int off, int len) throws IOException
+		{
+			writer.write((char[]) buf, off, len);
+		}
+
+		@Override
+		void flush() throws IOException
+		{
+			writer.flush();
+		}
+
+		@Override
+		void close() throws IOException
+		{
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@code OutputStream} that replaces a file atomically. Bytes are written
+ * to a temporary file, in the target's directory, which is forced to the
+ * storage device and renamed to the target file when the stream is closed.
+ * Readers thus see either the previous content of the target file or its new
+ * content, never a partially written one. If a write fails, or if
+ * {@link #abort()} is called, the temporary file is deleted and the target
+ * file is left untouched. Instances of this class are not thread-safe.
+ *
+ * <p>On platforms where a file can't be renamed over an existing one, the
+ * target file is deleted first, and the replacement is then not atomic. If
+ * the temporary file can't be renamed once the target file has been deleted,
+ * it is kept, and its name is given in the thrown exception, so that the new
+ * content isn't lost.</p>
+ *
+ * @see XFiles#newAtomicOutputStream(File)
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class AtomicFileOutputStream extends OutputStream
+{
+	private final File target;
+	private final File tmp;
+	private final FileOutputStream file;
+	private final OutputStream out;
+	private boolean failed;
+	private boolean closed;
+
+	/**
+	 * Creates a new {@code AtomicFileOutputStream}.
+	 *
+	 * @param target the file to replace.
+	 *
+	 * @throws NullPointerException if {@code target} is {@code null}.
+	 * @throws IOException if the temporary file can't be created.
+	 */
+	AtomicFileOutputStream(File target) throws IOException
+	{
+		Parameters.checkNotNull(target);
+		File dir = target.getAbsoluteFile().getParentFile();
+		this.target = target;
+		this.tmp = File.createTempFile(
+			"." + target.getName() + ".", ".tmp", dir);
+		this.file = new FileOutputStream(tmp);
+		this.out = new BufferedOutputStream(file);
+	}
+
+	/**
+	 * Returns the file replaced by this stream.
+	 *
+	 * @return the target file.
+	 */
+	public File getFile()
+	{
+		return target;
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		ensureOpen();
+		try {
+			out.write(b);
+		} catch (IOException e) {
+			failed = true;
+			throw e;
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		ensureOpen();
+		try {
+			out.write(b, off, len);
+		} catch (IOException e) {
+			failed = true;
+			throw e;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		ensureOpen();
+		try {
+			out.flush();
+		} catch (IOException e) {
+			failed = true;
+			throw e;
+		}
+	}
+
+	/**
+	 * Forces the written bytes to the storage device and replaces the
+	 * target file, unless a previous write failed, in which case the
+	 * temporary file is deleted instead and an {@code IOException} is
+	 * thrown, as the target file hasn't been replaced.
+	 *
+	 * @throws IOException if a previous write failed, if the written bytes
+	 *	can't be forced to the storage device, or if the target file
+	 *	can't be replaced.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (closed) {
+			return;
+		}
+		if (failed) {
+			abort();
+			throw new IOException("Can't replace " + target
+				+ ": a write failed");
+		}
+		closed = true;
+		try {
+			out.flush();
+			file.getChannel().force(true);
+			out.close();
+		} catch (IOException e) {
+			IO.close(out);
+			tmp.delete();
+			throw e;
+		}
+		rename();
+	}
+
+	/**
+	 * Closes this stream without replacing the target file. Does nothing
+	 * if this stream is already closed.
+	 */
+	public void abort()
+	{
+		if (!closed) {
+			closed = true;
+			IO.close(out);
+			tmp.delete();
+		}
+	}
+
+	private void rename() throws IOException
+	{
+		if (tmp.renameTo(target)) {
+			return;
+		}
+		if (!target.delete()) {
+			tmp.delete();
+			throw new IOException("Can't replace " + target);
+		}
+		if (!tmp.renameTo(target)) {
+			throw new IOException("Can't replace " + target
+				+ ", new content left in " + tmp);
+		}
+	}
+
+	private void ensureOpen() throws IOException
+	{
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
@@ -0,0 +1,383 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.charset.Charsets;
+import org.kocakosm.pitaya.collection.ImmutableList;
+import org.kocakosm.pitaya.collection.ImmutableMap;
+import org.kocakosm.pitaya.collection.ImmutableSet;
+import org.kocakosm.pitaya.math.Fraction;
+import org.kocakosm.pitaya.net.MediaType;
+import org.kocakosm.pitaya.net.URN;
+import org.kocakosm.pitaya.time.Duration;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A compact binary {@link Codec} for the common value types. Each value is
+ * written as a one-byte tag followed by its content; integers and lengths
+ * are written as variable-length quantities, so small values take only one
+ * byte. No class descriptor is written. Supports {@code null}, the boxed
+ * primitive types, {@code String}s, {@code byte[]}s, {@code BigInteger}s,
+ * {@code BigDecimal}s, {@code Date}s, {@link Fraction}s, {@link Duration}s,
+ * {@link URN}s, {@link MediaType}s, and {@code List}s, {@code Set}s and
+ * {@code Map}s of supported values, which are decoded as immutable
+ * collections. Subclasses of {@code Date} are not supported, as their state
+ * wouldn't be preserved.
+ *
+ * @author Osman KOCAK
+ */
+final class BinaryCodec implements Codec<Object>
+{
+	private static final int TAG_NULL = 0;
+	private static final int TAG_TRUE = 1;
+	private static final int TAG_FALSE = 2;
+	private static final int TAG_BYTE = 3;
+	private static final int TAG_SHORT = 4;
+	private static final int TAG_CHAR = 5;
+	private static final int TAG_INT = 6;
+	private static final int TAG_LONG = 7;
+	private static final int TAG_FLOAT = 8;
+	private static final int TAG_DOUBLE = 9;
+	private static final int TAG_STRING = 10;
+	private static final int TAG_BYTES = 11;
+	private static final int TAG_BIG_INTEGER = 12;
+	private static final int TAG_BIG_DECIMAL = 13;
+	private static final int TAG_DATE = 14;
+	private static final int TAG_FRACTION = 15;
+	private static final int TAG_DURATION = 16;
+	private static final int TAG_URN = 17;
+	private static final int TAG_MEDIA_TYPE = 18;
+	private static final int TAG_LIST = 19;
+	private static final int TAG_SET = 20;
+	private static final int TAG_MAP = 21;
+
+	@Override
+	public void encode(Object object, OutputStream out) throws IOException
+	{
+		if (object == null) {
+			out.write(TAG_NULL);
+		} else if (object instanceof Boolean) {
+			out.write((Boolean) object ? TAG_TRUE : TAG_FALSE);
+		} else if (object instanceof Byte) {
+			out.write(TAG_BYTE);
+			out.write((Byte) object);
+		} else if (object instanceof Short) {
+			out.write(TAG_SHORT);
+			writeSigned((Short) object, out);
+		} else if (object instanceof Character) {
+			out.write(TAG_CHAR);
+			writeUnsigned((Character) object, out);
+		} else if (object instanceof Integer) {
+			out.write(TAG_INT);
+			writeSigned((Integer) object, out);
+		} else if (object instanceof Long) {
+			out.write(TAG_LONG);
+			writeSigned((Long) object, out);
+		} else if (object instanceof Float) {
+			out.write(TAG_FLOAT);
+			writeFixed(Float.floatToIntBits((Float) object), 4, out);
+		} else if (object instanceof Double) {
+			out.write(TAG_DOUBLE);
+			writeFixed(Double.doubleToLongBits((Double) object), 8, out);
+		} else if (object instanceof String) {
+			out.write(TAG_STRING);
+			writeString((String) object, out);
+		} else if (object instanceof byte[]) {
+			out.write(TAG_BYTES);
+			writeBytes((byte[]) object, out);
+		} else if (object instanceof BigInteger) {
+			out.write(TAG_BIG_INTEGER);
+			writeBytes(((BigInteger) object).toByteArray(), out);
+		} else if (object instanceof BigDecimal) {
+			BigDecimal decimal = (BigDecimal) object;
+			out.write(TAG_BIG_DECIMAL);
+			writeBytes(decimal.unscaledValue().toByteArray(), out);
+			writeSigned(decimal.scale(), out);
+		} else {
+			encodeOther(object, out);
+		}
+	}
+
+	private void encodeOther(Object object, OutputStream out)
+		throws IOException
+	{
+		if (object.getClass() == Date.class) {
+			out.write(TAG_DATE);
+			writeSigned(((Date) object).getTime(), out);
+		} else if (object instanceof Fraction) {
+			Fraction fraction = (Fraction) object;
+			out.write(TAG_FRACTION);
+			writeBytes(fraction.numerator().toByteArray(), out);
+			writeBytes(fraction.denominator().toByteArray(), out);
+		} else if (object instanceof Duration) {
+			out.write(TAG_DURATION);
+			writeSigned(((Duration) object).toMilliseconds(), out);
+		} else if (object instanceof URN) {
+			out.write(TAG_URN);
+			writeString(object.toString(), out);
+		} else if (object instanceof MediaType) {
+			out.write(TAG_MEDIA_TYPE);
+			writeString(object.toString(), out);
+		} else if (object instanceof List || object instanceof Set) {
+			Collection<?> c = (Collection<?>) object;
+			out.write(object instanceof List ? TAG_LIST : TAG_SET);
+			writeUnsigned(c.size(), out);
+			for (Object e : c) {
+				encode(e, out);
+			}
+		} else if (object instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) object;
+			out.write(TAG_MAP);
+			writeUnsigned(map.size(), out);
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				encode(entry.getKey(), out);
+				encode(entry.getValue(), out);
+			}
+		} else {
+			throw new IOException("Unsupported type: " + object.getClass());
+		}
+	}
+
+	@Override
+	public Object decode(InputStream in) throws IOException
+	{
+		try {
+			return decodeValue(in);
+		} catch (IllegalArgumentException e) {
+			/* Invalid BigInteger, Fraction, URN or MediaType content. */
+			IOException corrupted = new StreamCorruptedException(
+				e.getMessage());
+			corrupted.initCause(e);
+			throw corrupted;
+		}
+	}
+
+	private Object decodeValue(InputStream in) throws IOException
+	{
+		int tag = readByte(in);
+		switch (tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_TRUE:
+				return Boolean.TRUE;
+			case TAG_FALSE:
+				return Boolean.FALSE;
+			case TAG_BYTE:
+				return (byte) readByte(in);
+			case TAG_SHORT:
+				return (short) readSigned(in);
+			case TAG_CHAR:
+				return (char) readUnsigned(in);
+			case TAG_INT:
+				return (int) readSigned(in);
+			case TAG_LONG:
+				return readSigned(in);
+			case TAG_FLOAT:
+				return Float.intBitsToFloat((int) readFixed(4, in));
+			case TAG_DOUBLE:
+				return Double.longBitsToDouble(readFixed(8, in));
+			case TAG_STRING:
+				return readString(in);
+			case TAG_BYTES:
+				return readBytes(in);
+			case TAG_BIG_INTEGER:
+				return new BigInteger(readBytes(in));
+			case TAG_BIG_DECIMAL:
+				BigInteger unscaled = new BigInteger(readBytes(in));
+				return new BigDecimal(unscaled, (int) readSigned(in));
+			default:
+				return decodeOther(tag, in);
+		}
+	}
+
+	private Object decodeOther(int tag, InputStream in) throws IOException
+	{
+		switch (tag) {
+			case TAG_DATE:
+				return new Date(readSigned(in));
+			case TAG_FRACTION:
+				BigInteger numerator = new BigInteger(readBytes(in));
+				BigInteger denominator = new BigInteger(readBytes(in));
+				return new Fraction(numerator, denominator);
+			case TAG_DURATION:
+				return Duration.of(readSigned(in), TimeUnit.MILLISECONDS);
+			case TAG_URN:
+				return URN.create(readString(in));
+			case TAG_MEDIA_TYPE:
+				return MediaType.parse(readString(in));
+			case TAG_LIST:
+				return ImmutableList.copyOf(readElements(in));
+			case TAG_SET:
+				return ImmutableSet.copyOf(readElements(in));
+			case TAG_MAP:
+				int size = readLength(in);
+				ImmutableMap.Builder<Object, Object> map =
+					new ImmutableMap.Builder<Object, Object>();
+				for (int i = 0; i < size; i++) {
+					map.put(decodeValue(in), decodeValue(in));
+				}
+				return map.build();
+			default:
+				throw new StreamCorruptedException("Unknown tag: " + tag);
+		}
+	}
+
+	/**
+	 * Reads the elements of a collection. The list's initial capacity is
+	 * bounded by the number of bytes available, as each element takes at
+	 * least one byte, so that a corrupted size can't exhaust the memory.
+	 */
+	private List<Object> readElements(InputStream in) throws IOException
+	{
+		int size = readLength(in);
+		List<Object> elements = new ArrayList<Object>(
+			Math.min(size, in.available()));
+		for (int i = 0; i < size; i++) {
+			elements.add(decodeValue(in));
+		}
+		return elements;
+	}
+
+	private static void writeSigned(long n, OutputStream out)
+		throws IOException
+	{
+		writeUnsigned((n << 1) ^ (n >> 63), out);
+	}
+
+	private static void writeUnsigned(long n, OutputStream out)
+		throws IOException
+	{
+		while ((n & ~0x7FL) != 0) {
+			out.write((int) (n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		out.write((int) n);
+	}
+
+	private static void writeFixed(long n, int size, OutputStream out)
+		throws IOException
+	{
+		for (int i = 0; i < size; i++) {
+			out.write((int) (n >>> (i << 3)));
+		}
+	}
+
+	private static void writeString(String s, OutputStream out)
+		throws IOException
+	{
+		writeBytes(s.getBytes(Charsets.UTF_8), out);
+	}
+
+	private static void writeBytes(byte[] bytes, OutputStream out)
+		throws IOException
+	{
+		writeUnsigned(bytes.length, out);
+		out.write(bytes);
+	}
+
+	private static int readByte(InputStream in) throws IOException
+	{
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException();
+		}
+		return b;
+	}
+
+	private static long readSigned(InputStream in) throws IOException
+	{
+		long n = readUnsigned(in);
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	private static long readUnsigned(InputStream in) throws IOException
+	{
+		long n = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte(in);
+			n |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return n;
+			}
+		}
+		throw new StreamCorruptedException("Malformed variable-length integer");
+	}
+
+	private static long readFixed(int size, InputStream in)
+		throws IOException
+	{
+		long n = 0;
+		for (int i = 0; i < size; i++) {
+			n |= (long) readByte(in) << (i << 3);
+		}
+		return n;
+	}
+
+	private static int readLength(InputStream in) throws IOException
+	{
+		long length = readUnsigned(in);
+		if (length > Integer.MAX_VALUE) {
+			throw new StreamCorruptedException("Invalid length: " + length);
+		}
+		return (int) length;
+	}
+
+	private static String readString(InputStream in) throws IOException
+	{
+		return new String(readBytes(in), Charsets.UTF_8);
+	}
+
+	/**
+	 * Reads a length-prefixed array of bytes. The array is allocated
+	 * according to the number of bytes available, and grown as they are
+	 * read, so that a corrupted length can't exhaust the memory.
+	 */
+	private static byte[] readBytes(InputStream in) throws IOException
+	{
+		int length = readLength(in);
+		int capacity = Math.max(in.available(), 8192);
+		byte[] bytes = new byte[Math.min(length, capacity)];
+		int n = 0;
+		while (n < length) {
+			if (n == bytes.length) {
+				int size = (int) Math.min(length, 2L * n);
+				bytes = Arrays.copyOf(bytes, size);
+			}
+			int len = in.read(bytes, n, bytes.length - n);
+			if (len < 0) {
+				throw new EOFException();
+			}
+			n += len;
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,148 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of reusable {@code byte} and {@code char} buffers of a fixed
+ * size. Buffers are acquired from the pool, or allocated if it is empty, and
+ * should be released once they are no longer used, so that they can be reused
+ * by subsequent operations. Released buffers are dropped if the pool is full.
+ * A buffer must not be used after it has been released. Instances of this
+ * class are thread-safe.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class BufferPool
+{
+	/** The size of the buffers used when copying from files. */
+	public static final int LARGE_BUFFER_SIZE = 65536;
+
+	/** The size of the buffers used when copying from other sources. */
+	public static final int SMALL_BUFFER_SIZE = 8192;
+
+	private static final BufferPool LARGE = new BufferPool(LARGE_BUFFER_SIZE, 8);
+	private static final BufferPool SMALL = new BufferPool(SMALL_BUFFER_SIZE, 32);
+
+	/**
+	 * Returns the shared pool that suits the given source: files are read
+	 * with large buffers, and other sources, such as sockets, whose reads
+	 * usually return small chunks, with smaller ones.
+	 */
+	static BufferPool forSource(Object in)
+	{
+		if (in instanceof FileInputStream || in instanceof FileReader) {
+			return LARGE;
+		}
+		return SMALL;
+	}
+
+	private final int bufferSize;
+	private final BlockingQueue<byte[]> bytes;
+	private final BlockingQueue<char[]> chars;
+
+	/**
+	 * Creates a new {@code BufferPool}.
+	 *
+	 * @param bufferSize the size of the pooled buffers.
+	 * @param capacity the maximum number of buffers of each type that are
+	 *	kept in the pool.
+	 *
+	 * @throws IllegalArgumentException if one of the arguments is not
+	 *	strictly positive.
+	 */
+	public BufferPool(int bufferSize, int capacity)
+	{
+		Parameters.checkCondition(bufferSize > 0);
+		Parameters.checkCondition(capacity > 0);
+		this.bufferSize = bufferSize;
+		this.bytes = new ArrayBlockingQueue<byte[]>(capacity);
+		this.chars = new ArrayBlockingQueue<char[]>(capacity);
+	}
+
+	/**
+	 * Returns the size of the buffers managed by this pool.
+	 *
+	 * @return the size of this pool's buffers.
+	 */
+	public int getBufferSize()
+	{
+		return bufferSize;
+	}
+
+	/**
+	 * Returns a {@code byte} buffer from this pool, or a new one if the
+	 * pool is empty. Its content is undefined.
+	 *
+	 * @return a {@code byte} buffer.
+	 */
+	public byte[] acquireBytes()
+	{
+		byte[] buf = bytes.poll();
+		return buf != null ? buf : new byte[bufferSize];
+	}
+
+	/**
+	 * Returns a {@code char} buffer from this pool, or a new one if the
+	 * pool is empty. Its content is undefined.
+	 *
+	 * @return a {@code char} buffer.
+	 */
+	public char[] acquireChars()
+	{
+		char[] buf = chars.poll();
+		return buf != null ? buf : new char[bufferSize];
+	}
+
+	/**
+	 * Gives the given buffer back to this pool. The buffer is dropped if
+	 * the pool is full or if its size doesn't match this pool's one.
+	 *
+	 * @param buf the buffer to release.
+	 *
+	 * @throws NullPointerException if {@code buf} is {@code null}.
+	 */
+	public void release(byte[] buf)
+	{
+		if (buf.length == bufferSize) {
+			bytes.offer(buf);
+		}
+	}
+
+	/**
+	 * Gives the given buffer back to this pool. The buffer is dropped if
+	 * the pool is full or if its size doesn't match this pool's one.
+	 *
+	 * @param buf the buffer to release.
+	 *
+	 * @throws NullPointerException if {@code buf} is {@code null}.
+	 */
+	public void release(char[] buf)
+	{
+		if (buf.length == bufferSize) {
+			chars.offer(buf);
+		}
+	}
+}
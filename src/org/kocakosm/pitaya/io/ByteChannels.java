@@ -0,0 +1,228 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Byte channels utilities. The decorators returned by this class work on the
+ * caller's {@code ByteBuffer}s, direct ones included, without copying their
+ * content.
+ *
+ * @see ByteStreams
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ByteChannels
+{
+	/**
+	 * Concatenates the given channels into a single one. The given
+	 * channels will be read sequentially, and a single read may fill the
+	 * destination buffers from several of them. Closing the concatenated
+	 * channel will close all the source channels. Note that the returned
+	 * channel is not thread-safe.
+	 *
+	 * @param channels the channels to concatenate.
+	 *
+	 * @return the concatenated channel.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code channels} is empty.
+	 */
+	public static ScatteringByteChannel concat(
+		ReadableByteChannel... channels)
+	{
+		return new ConcatChannel(channels);
+	}
+
+	/**
+	 * Concatenates the given channels into a single one. The given
+	 * channels will be read sequentially, and a single read may fill the
+	 * destination buffers from several of them. Closing the concatenated
+	 * channel will close all the source channels. Note that the returned
+	 * channel is not thread-safe.
+	 *
+	 * @param channels the channels to concatenate.
+	 *
+	 * @return the concatenated channel.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code channels} is empty.
+	 */
+	public static ScatteringByteChannel concat(
+		Iterable<? extends ReadableByteChannel> channels)
+	{
+		return new ConcatChannel(channels);
+	}
+
+	/**
+	 * Copies the remaining content of the given channel into the given
+	 * channel. File channels, and concatenations of file channels, are
+	 * transferred with {@link FileChannel#transferTo}, which lets the
+	 * operating system avoid copying the data in user space, up to their
+	 * reported size; other sources, file channels that aren't seekable
+	 * (pipes, FIFOs...) and the data past a file's reported size (procfs
+	 * files report a size of 0, for instance) are copied using a buffer
+	 * borrowed from a shared {@link BufferPool}.
+	 *
+	 * @param in the channel to read from.
+	 * @param out the channel to write on.
+	 *
+	 * @return the number of bytes copied.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if an I/O error occurs during the process.
+	 */
+	public static long copy(ReadableByteChannel in, WritableByteChannel out)
+		throws IOException
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkNotNull(out);
+		BufferPool pool = BufferPool.forSource(in);
+		byte[] buf = pool.acquireBytes();
+		try {
+			if (in instanceof FileChannel) {
+				return transfer((FileChannel) in, out,
+					ByteBuffer.wrap(buf));
+			}
+			if (in instanceof ConcatChannel) {
+				return ((ConcatChannel) in).transferTo(out,
+					ByteBuffer.wrap(buf));
+			}
+			return copy(in, out, ByteBuffer.wrap(buf));
+		} finally {
+			pool.release(buf);
+		}
+	}
+
+	/**
+	 * Returns a channel that reads at most {@code limit} bytes from the
+	 * given channel. The returned channel is thread-safe.
+	 *
+	 * @param in the source channel.
+	 * @param limit the maximum number of bytes to be read from {@code in}.
+	 *
+	 * @return the length-limited channel.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 * @throws IllegalArgumentException if {@code limit} is negative.
+	 */
+	public static ReadableByteChannel limit(ReadableByteChannel in,
+		long limit)
+	{
+		return new LimitChannel(in, limit);
+	}
+
+	/**
+	 * Returns a channel that writes all bytes written to it to the given
+	 * underlying channels. Named after the Unix 'tee' command. The
+	 * returned instance is not thread-safe.
+	 *
+	 * @param channels the channels to write to.
+	 *
+	 * @return the 'tee' channel.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 */
+	public static GatheringByteChannel tee(WritableByteChannel... channels)
+	{
+		return new TeeChannel(channels);
+	}
+
+	/**
+	 * Returns a channel that writes all bytes written to it to the given
+	 * underlying channels. Named after the Unix 'tee' command. The
+	 * returned instance is not thread-safe.
+	 *
+	 * @param channels the channels to write to.
+	 *
+	 * @return the 'tee' channel.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 */
+	public static GatheringByteChannel tee(
+		Iterable<? extends WritableByteChannel> channels)
+	{
+		return new TeeChannel(channels);
+	}
+
+	/**
+	 * Transfers the remaining content of the given file channel, from its
+	 * current position, and advances its position accordingly. The file's
+	 * reported size is transferred with {@code transferTo}, the rest, if
+	 * any, is copied using the given buffer, as is the whole content of
+	 * channels that aren't seekable.
+	 */
+	static long transfer(FileChannel in, WritableByteChannel out,
+		ByteBuffer buf) throws IOException
+	{
+		long start;
+		long size;
+		try {
+			start = in.position();
+			size = in.size();
+		} catch (IOException e) {
+			/* Not seekable, no byte has been read yet. */
+			return copy(in, out, buf);
+		}
+		long position = start;
+		while (position < size) {
+			long n = in.transferTo(position, size - position, out);
+			if (n <= 0) {
+				break;
+			}
+			position += n;
+		}
+		in.position(position);
+		return position - start + copy(in, out, buf);
+	}
+
+	/** Copies the given channel's content using the given buffer. */
+	static long copy(ReadableByteChannel in, WritableByteChannel out,
+		ByteBuffer buf) throws IOException
+	{
+		long count = 0;
+		buf.clear();
+		while (in.read(buf) >= 0) {
+			buf.flip();
+			while (buf.hasRemaining()) {
+				count += out.write(buf);
+			}
+			buf.clear();
+		}
+		return count;
+	}
+
+	private ByteChannels()
+	{
+		/* ... */
+	}
+}
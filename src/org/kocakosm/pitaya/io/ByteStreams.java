@@ -16,11 +16,18 @@
 
 package org.kocakosm.pitaya.io;
 
-import java.io.BufferedInputStream;
+import org.kocakosm.pitaya.util.LittleEndian;
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
 
 /**
  * Byte streams utilities.
@@ -29,6 +36,8 @@ import java.io.OutputStream;
  */
 public final class ByteStreams
 {
+	private static final int COMPARISON_BLOCK_SIZE = 8192;
+
 	/**
 	 * Concatenates the given {@code InputStream}s into a single one. The
 	 * given streams will be read sequentially. Closing the concatenated
@@ -69,6 +78,29 @@ public final class ByteStreams
 		return new ConcatInputStream(streams);
 	}
 
+	/**
+	 * Concatenates the streams opened by the given suppliers into a single
+	 * {@code InputStream}. The streams are opened lazily, one at a time, when the
+	 * previous one is exhausted, and each of them is closed as soon as it
+	 * has been read entirely. Closing the concatenated stream closes the
+	 * stream currently being read. Note that the returned {@code InputStream} is
+	 * not thread-safe and does not support {@link InputStream#mark(int)} and
+	 * {@link InputStream#reset()}.
+	 *
+	 * @param suppliers the suppliers of the streams to concatenate.
+	 *
+	 * @return the concatenated {@code InputStream}.
+	 *
+	 * @throws NullPointerException if {@code suppliers} is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static InputStream concat(
+		Iterator<? extends StreamSupplier<? extends InputStream>> suppliers)
+	{
+		return new ConcatInputStream(suppliers);
+	}
+
 	/**
 	 * Copies the content of the given {@code InputStream} into the given
 	 * {@code OutputStream}.
@@ -81,17 +113,80 @@ public final class ByteStreams
 	 */
 	public static void copy(InputStream in, OutputStream out) throws IOException
 	{
-		byte[] buf = new byte[4096];
+		copy(in, out, true);
+	}
+
+	/**
+	 * Copies the content of the given {@code InputStream} into the given
+	 * {@code OutputStream}, using a buffer borrowed from a shared
+	 * {@link BufferPool}. Large buffers are used to copy from files, and
+	 * smaller ones to copy from other sources, such as sockets.
+	 *
+	 * @param in the {@code InputStream} to read from.
+	 * @param out the {@code OutputStream} to write on.
+	 * @param flush whether to flush {@code out} once the copy is done.
+	 *
+	 * @return the number of bytes copied.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if an I/O error occurs during the process.
+	 *
+	 * @since 0.5
+	 */
+	public static long copy(InputStream in, OutputStream out, boolean flush)
+		throws IOException
+	{
+		BufferPool pool = BufferPool.forSource(in);
+		byte[] buf = pool.acquireBytes();
+		try {
+			return copy(in, out, buf, flush);
+		} finally {
+			pool.release(buf);
+		}
+	}
+
+	/**
+	 * Copies the content of the given {@code InputStream} into the given
+	 * {@code OutputStream}, using the given buffer.
+	 *
+	 * @param in the {@code InputStream} to read from.
+	 * @param out the {@code OutputStream} to write on.
+	 * @param buf the buffer to use.
+	 * @param flush whether to flush {@code out} once the copy is done.
+	 *
+	 * @return the number of bytes copied.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code buf} is empty.
+	 * @throws IOException if an I/O error occurs during the process.
+	 *
+	 * @since 0.5
+	 */
+	public static long copy(InputStream in, OutputStream out, byte[] buf,
+		boolean flush) throws IOException
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkNotNull(out);
+		Parameters.checkCondition(buf.length > 0);
+		long count = 0;
 		int len = in.read(buf);
 		while (len >= 0) {
 			out.write(buf, 0, len);
+			count += len;
 			len = in.read(buf);
 		}
-		out.flush();
+		if (flush) {
+			out.flush();
+		}
+		return count;
 	}
 
 	/**
-	 * Returns whether the given streams have the same content.
+	 * Returns whether the given streams have the same content. The streams
+	 * are read block by block, and the comparison stops as soon as they are
+	 * known to differ; in particular, nothing is read if both streams are
+	 * {@code ByteArrayInputStream}s or {@code FileInputStream}s of different
+	 * remaining lengths.
 	 *
 	 * @param in1 the first stream.
 	 * @param in2 the second stream.
@@ -109,23 +204,108 @@ public final class ByteStreams
 		if (in1 == null || in2 == null) {
 			return false;
 		}
-		in1 = buffer(in1);
-		in2 = buffer(in2);
-		int b1 = in1.read();
-		int b2 = in2.read();
-		while (b1 != -1 && b2 != -1 && b1 == b2) {
-			b1 = in1.read();
-			b2 = in2.read();
+		long len1 = remainingLength(in1);
+		long len2 = remainingLength(in2);
+		if (len1 >= 0 && len2 >= 0 && len1 != len2) {
+			return false;
 		}
-		return in1.read() == -1 && in2.read() == -1;
+		return mismatch(in1, in2) < 0;
 	}
 
-	private static InputStream buffer(InputStream in)
+	/**
+	 * Returns the offset of the first byte that differs between the given
+	 * streams, or {@code -1} if they have the same content. If one stream is
+	 * a prefix of the other, the returned offset is the length of the
+	 * shortest one. The streams are read until a difference is found.
+	 *
+	 * @param in1 the first stream.
+	 * @param in2 the second stream.
+	 *
+	 * @return the offset of the first mismatch, or {@code -1}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if an I/O error occurs during the process.
+	 *
+	 * @since 0.5
+	 */
+	public static long mismatch(InputStream in1, InputStream in2)
+		throws IOException
+	{
+		Parameters.checkNotNull(in1);
+		Parameters.checkNotNull(in2);
+		if (in1 == in2) {
+			return -1;
+		}
+		byte[] buf1 = new byte[COMPARISON_BLOCK_SIZE];
+		byte[] buf2 = new byte[COMPARISON_BLOCK_SIZE];
+		long offset = 0;
+		while (true) {
+			int n1 = fill(in1, buf1);
+			int n2 = fill(in2, buf2);
+			int n = Math.min(n1, n2);
+			int i = mismatch(buf1, buf2, n);
+			if (i < n || n1 != n2) {
+				return offset + i;
+			}
+			if (n < COMPARISON_BLOCK_SIZE) {
+				return -1;
+			}
+			offset += n;
+		}
+	}
+
+	/**
+	 * Reads from the given stream until the buffer is full or the end of
+	 * the stream is reached, and returns the number of bytes read.
+	 */
+	private static int fill(InputStream in, byte[] buf) throws IOException
+	{
+		int n = 0;
+		while (n < buf.length) {
+			int len = in.read(buf, n, buf.length - n);
+			if (len < 0) {
+				break;
+			}
+			n += len;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the index of the first difference between the first
+	 * {@code len} bytes of the given arrays, or {@code len} if there is
+	 * none. Bytes are compared 8 at a time.
+	 */
+	private static int mismatch(byte[] a, byte[] b, int len)
 	{
-		if (in instanceof BufferedInputStream) {
-			return in;
+		int i = 0;
+		while (i <= len - 8 && LittleEndian.decodeLong(a, i)
+			== LittleEndian.decodeLong(b, i)) {
+			i += 8;
+		}
+		while (i < len && a[i] == b[i]) {
+			i++;
 		}
-		return new BufferedInputStream(in);
+		return i;
+	}
+
+	/**
+	 * Returns the number of bytes remaining in the given stream if it can
+	 * be known without reading it, or {@code -1} otherwise. Empty files are
+	 * treated as of unknown length since pipes and devices report a size of
+	 * zero.
+	 */
+	static long remainingLength(InputStream in) throws IOException
+	{
+		if (in.getClass() == ByteArrayInputStream.class) {
+			return in.available();
+		}
+		if (in instanceof FileInputStream) {
+			FileChannel channel = ((FileInputStream) in).getChannel();
+			long size = channel.size();
+			return size > 0 ? Math.max(size - channel.position(), 0) : -1;
+		}
+		return -1;
 	}
 
 	/**
@@ -197,6 +377,58 @@ public final class ByteStreams
 		return new TeeOutputStream(streams);
 	}
 
+	/**
+	 * Returns an asynchronous 'tee' {@code OutputStream}: bytes written to it are
+	 * buffered per underlying stream, and written to it by a dedicated
+	 * thread, so that a slow stream doesn't stall the caller.
+	 *
+	 * @param bufferSize the size of each stream's buffer.
+	 * @param policy what to do when a stream's buffer is full.
+	 * @param streams the streams to write to.
+	 *
+	 * @return the asynchronous 'tee' {@code OutputStream}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}
+	 *	or if {@code streams} contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code bufferSize} is not
+	 *	strictly positive.
+	 *
+	 * @see AsyncTeeOutputStream
+	 *
+	 * @since 0.5
+	 */
+	public static AsyncTeeOutputStream asyncTee(int bufferSize,
+		OverflowPolicy policy, OutputStream... streams)
+	{
+		return asyncTee(bufferSize, policy, Arrays.asList(streams));
+	}
+
+	/**
+	 * Returns an asynchronous 'tee' {@code OutputStream}: bytes written to it are
+	 * buffered per underlying stream, and written to it by a dedicated
+	 * thread, so that a slow stream doesn't stall the caller.
+	 *
+	 * @param bufferSize the size of each stream's buffer.
+	 * @param policy what to do when a stream's buffer is full.
+	 * @param streams the streams to write to.
+	 *
+	 * @return the asynchronous 'tee' {@code OutputStream}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}
+	 *	or if {@code streams} contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code bufferSize} is not
+	 *	strictly positive.
+	 *
+	 * @see AsyncTeeOutputStream
+	 *
+	 * @since 0.5
+	 */
+	public static AsyncTeeOutputStream asyncTee(int bufferSize,
+		OverflowPolicy policy, Iterable<? extends OutputStream> streams)
+	{
+		return new AsyncTeeOutputStream(bufferSize, policy, streams);
+	}
+
 	private ByteStreams()
 	{
 		/* ... */
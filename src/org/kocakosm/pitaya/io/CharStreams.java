@@ -17,6 +17,7 @@
 package org.kocakosm.pitaya.io;
 
 import org.kocakosm.pitaya.charset.Charsets;
+import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -29,7 +30,9 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -39,6 +42,8 @@ import java.util.List;
  */
 public final class CharStreams
 {
+	private static final int COMPARISON_BLOCK_SIZE = 8192;
+
 	/**
 	 * Concatenates the given {@code Reader}s into a single one. The given
 	 * streams will be read sequentially. Closing the concatenated stream
@@ -79,6 +84,29 @@ public final class CharStreams
 		return new ConcatReader(streams);
 	}
 
+	/**
+	 * Concatenates the streams opened by the given suppliers into a single
+	 * {@code Reader}. The streams are opened lazily, one at a time, when the
+	 * previous one is exhausted, and each of them is closed as soon as it
+	 * has been read entirely. Closing the concatenated stream closes the
+	 * stream currently being read. Note that the returned {@code Reader} is
+	 * not thread-safe and does not support {@link Reader#mark(int)} and
+	 * {@link Reader#reset()}.
+	 *
+	 * @param suppliers the suppliers of the streams to concatenate.
+	 *
+	 * @return the concatenated {@code Reader}.
+	 *
+	 * @throws NullPointerException if {@code suppliers} is {@code null}.
+	 *
+	 * @since 0.5
+	 */
+	public static Reader concat(
+		Iterator<? extends StreamSupplier<? extends Reader>> suppliers)
+	{
+		return new ConcatReader(suppliers);
+	}
+
 	/**
 	 * Copies the content of the given {@code Reader} into the given
 	 * {@code Writer}.
@@ -91,13 +119,72 @@ public final class CharStreams
 	 */
 	public static void copy(Reader in, Writer out) throws IOException
 	{
-		char[] buf = new char[4096];
+		copy(in, out, true);
+	}
+
+	/**
+	 * Copies the content of the given {@code Reader} into the given
+	 * {@code Writer}, using a buffer borrowed from a shared
+	 * {@link BufferPool}. Large buffers are used to copy from files, and
+	 * smaller ones to copy from other sources, such as sockets.
+	 *
+	 * @param in the {@code Reader} to read from.
+	 * @param out the {@code Writer} to write on.
+	 * @param flush whether to flush {@code out} once the copy is done.
+	 *
+	 * @return the number of chars copied.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if an I/O error occurs during the process.
+	 *
+	 * @since 0.5
+	 */
+	public static long copy(Reader in, Writer out, boolean flush)
+		throws IOException
+	{
+		BufferPool pool = BufferPool.forSource(in);
+		char[] buf = pool.acquireChars();
+		try {
+			return copy(in, out, buf, flush);
+		} finally {
+			pool.release(buf);
+		}
+	}
+
+	/**
+	 * Copies the content of the given {@code Reader} into the given
+	 * {@code Writer}, using the given buffer.
+	 *
+	 * @param in the {@code Reader} to read from.
+	 * @param out the {@code Writer} to write on.
+	 * @param buf the buffer to use.
+	 * @param flush whether to flush {@code out} once the copy is done.
+	 *
+	 * @return the number of chars copied.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code buf} is empty.
+	 * @throws IOException if an I/O error occurs during the process.
+	 *
+	 * @since 0.5
+	 */
+	public static long copy(Reader in, Writer out, char[] buf,
+		boolean flush) throws IOException
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkNotNull(out);
+		Parameters.checkCondition(buf.length > 0);
+		long count = 0;
 		int len = in.read(buf);
 		while (len >= 0) {
 			out.write(buf, 0, len);
+			count += len;
 			len = in.read(buf);
 		}
-		out.flush();
+		if (flush) {
+			out.flush();
+		}
+		return count;
 	}
 
 	/**
@@ -165,7 +252,9 @@ public final class CharStreams
 	}
 
 	/**
-	 * Returns whether the given streams have the same content.
+	 * Returns whether the given streams have the same content. The streams
+	 * are read block by block, and the comparison stops as soon as they are
+	 * known to differ.
 	 *
 	 * @param in1 the first stream.
 	 * @param in2 the second stream.
@@ -182,15 +271,68 @@ public final class CharStreams
 		if (in1 == null || in2 == null) {
 			return false;
 		}
-		in1 = buffer(in1);
-		in2 = buffer(in2);
-		int c1 = in1.read();
-		int c2 = in2.read();
-		while (c1 != -1 && c2 != -1 && c1 == c2) {
-			c1 = in1.read();
-			c2 = in2.read();
+		return mismatch(in1, in2) < 0;
+	}
+
+	/**
+	 * Returns the offset of the first character that differs between the
+	 * given streams, or {@code -1} if they have the same content. If one
+	 * stream is a prefix of the other, the returned offset is the length of
+	 * the shortest one. The streams are read until a difference is found.
+	 *
+	 * @param in1 the first stream.
+	 * @param in2 the second stream.
+	 *
+	 * @return the offset of the first mismatch, or {@code -1}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if an I/O error occurs during the process.
+	 *
+	 * @since 0.5
+	 */
+	public static long mismatch(Reader in1, Reader in2) throws IOException
+	{
+		Parameters.checkNotNull(in1);
+		Parameters.checkNotNull(in2);
+		if (in1 == in2) {
+			return -1;
+		}
+		char[] buf1 = new char[COMPARISON_BLOCK_SIZE];
+		char[] buf2 = new char[COMPARISON_BLOCK_SIZE];
+		long offset = 0;
+		while (true) {
+			int n1 = fill(in1, buf1);
+			int n2 = fill(in2, buf2);
+			int n = Math.min(n1, n2);
+			int i = 0;
+			while (i < n && buf1[i] == buf2[i]) {
+				i++;
+			}
+			if (i < n || n1 != n2) {
+				return offset + i;
+			}
+			if (n < COMPARISON_BLOCK_SIZE) {
+				return -1;
+			}
+			offset += n;
+		}
+	}
+
+	/**
+	 * Reads from the given stream until the buffer is full or the end of
+	 * the stream is reached, and returns the number of chars read.
+	 */
+	private static int fill(Reader in, char[] buf) throws IOException
+	{
+		int n = 0;
+		while (n < buf.length) {
+			int len = in.read(buf, n, buf.length - n);
+			if (len < 0) {
+				break;
+			}
+			n += len;
 		}
-		return in1.read() == -1 && in2.read() == -1;
+		return n;
 	}
 
 	private static BufferedReader buffer(Reader in)
@@ -329,6 +471,155 @@ public final class CharStreams
 		return readLines(new InputStreamReader(in, charset));
 	}
 
+	/**
+	 * Returns a {@code LineIterable} that lazily reads the lines of the
+	 * given {@code Reader}. The returned object may only be iterated once.
+	 * The given stream is closed once all its lines have been read, or
+	 * when the returned object is closed.
+	 *
+	 * @param in the stream to read.
+	 *
+	 * @return the stream's lines.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 */
+	public static LineIterable lines(final Reader in)
+	{
+		Parameters.checkNotNull(in);
+		return new LineIterable(new LineIterable.Source()
+		{
+			private boolean opened;
+
+			@Override
+			public Reader open()
+			{
+				if (opened) {
+					throw new IllegalStateException(
+						"Stream already iterated over");
+				}
+				opened = true;
+				return in;
+			}
+
+			@Override
+			public void close() throws IOException
+			{
+				in.close();
+			}
+		});
+	}
+
+	/**
+	 * Returns a {@code LineIterable} that lazily reads the lines of the
+	 * given {@code InputStream} using the system's default charset. The
+	 * returned object may only be iterated once. The given stream is closed
+	 * once all its lines have been read, or when the returned object is
+	 * closed.
+	 *
+	 * @param in the stream to read.
+	 *
+	 * @return the stream's lines.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 */
+	public static LineIterable lines(InputStream in)
+	{
+		return lines(in, Charsets.DEFAULT);
+	}
+
+	/**
+	 * Returns a {@code LineIterable} that lazily reads the lines of the
+	 * given {@code InputStream} using the specified charset. The returned
+	 * object may only be iterated once. The given stream is closed once all
+	 * its lines have been read, or when the returned object is closed.
+	 *
+	 * @param in the stream to read.
+	 * @param charset the charset to use.
+	 *
+	 * @return the stream's lines.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public static LineIterable lines(InputStream in, Charset charset)
+	{
+		return lines(new InputStreamReader(in, charset));
+	}
+
+	/**
+	 * Reads the lines of the given {@code Reader} and passes them to the
+	 * given {@code LineProcessor}, until the stream is exhausted or the
+	 * processor asks to stop. Lines are passed as views over a reusable
+	 * buffer, no {@code String} being allocated. Doesn't close the stream.
+	 *
+	 * @param in the stream to read.
+	 * @param processor the {@code LineProcessor} to call.
+	 *
+	 * @return the number of lines passed to {@code processor}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if the stream cannot be read, or if
+	 *	{@code processor} throws one.
+	 */
+	public static long forEachLine(Reader in, LineProcessor processor)
+		throws IOException
+	{
+		Parameters.checkNotNull(processor);
+		LineIterator lines = new LineIterator(in);
+		long count = 0;
+		CharSequence line = lines.readLine();
+		while (line != null) {
+			count++;
+			if (!processor.process(line)) {
+				break;
+			}
+			line = lines.readLine();
+		}
+		return count;
+	}
+
+	/**
+	 * Reads the lines of the given {@code InputStream} using the system's
+	 * default charset and passes them to the given {@code LineProcessor},
+	 * until the stream is exhausted or the processor asks to stop. Doesn't
+	 * close the stream.
+	 *
+	 * @param in the stream to read.
+	 * @param processor the {@code LineProcessor} to call.
+	 *
+	 * @return the number of lines passed to {@code processor}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if the stream cannot be read, or if
+	 *	{@code processor} throws one.
+	 */
+	public static long forEachLine(InputStream in, LineProcessor processor)
+		throws IOException
+	{
+		return forEachLine(in, Charsets.DEFAULT, processor);
+	}
+
+	/**
+	 * Reads the lines of the given {@code InputStream} using the specified
+	 * charset and passes them to the given {@code LineProcessor}, until the
+	 * stream is exhausted or the processor asks to stop. Doesn't close the
+	 * stream.
+	 *
+	 * @param in the stream to read.
+	 * @param charset the charset to use.
+	 * @param processor the {@code LineProcessor} to call.
+	 *
+	 * @return the number of lines passed to {@code processor}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if the stream cannot be read, or if
+	 *	{@code processor} throws one.
+	 */
+	public static long forEachLine(InputStream in, Charset charset,
+		LineProcessor processor) throws IOException
+	{
+		return forEachLine(new InputStreamReader(in, charset), processor);
+	}
+
 	/**
 	 * Returns a {@code Writer} that writes all characters written to it
 	 * to the given underlying streams. Named after the Unix 'tee' command.
@@ -363,6 +654,58 @@ public final class CharStreams
 		return new TeeWriter(streams);
 	}
 
+	/**
+	 * Returns an asynchronous 'tee' {@code Writer}: characters written to it are
+	 * buffered per underlying stream, and written to it by a dedicated
+	 * thread, so that a slow stream doesn't stall the caller.
+	 *
+	 * @param bufferSize the size of each stream's buffer.
+	 * @param policy what to do when a stream's buffer is full.
+	 * @param streams the streams to write to.
+	 *
+	 * @return the asynchronous 'tee' {@code Writer}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}
+	 *	or if {@code streams} contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code bufferSize} is not
+	 *	strictly positive.
+	 *
+	 * @see AsyncTeeWriter
+	 *
+	 * @since 0.5
+	 */
+	public static AsyncTeeWriter asyncTee(int bufferSize,
+		OverflowPolicy policy, Writer... streams)
+	{
+		return asyncTee(bufferSize, policy, Arrays.asList(streams));
+	}
+
+	/**
+	 * Returns an asynchronous 'tee' {@code Writer}: characters written to it are
+	 * buffered per underlying stream, and written to it by a dedicated
+	 * thread, so that a slow stream doesn't stall the caller.
+	 *
+	 * @param bufferSize the size of each stream's buffer.
+	 * @param policy what to do when a stream's buffer is full.
+	 * @param streams the streams to write to.
+	 *
+	 * @return the asynchronous 'tee' {@code Writer}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}
+	 *	or if {@code streams} contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code bufferSize} is not
+	 *	strictly positive.
+	 *
+	 * @see AsyncTeeWriter
+	 *
+	 * @since 0.5
+	 */
+	public static AsyncTeeWriter asyncTee(int bufferSize,
+		OverflowPolicy policy, Iterable<? extends Writer> streams)
+	{
+		return new AsyncTeeWriter(bufferSize, policy, streams);
+	}
+
 	private CharStreams()
 	{
 		/* ... */
@@ -0,0 +1,60 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes objects into bytes and decodes them back. Implementations must be
+ * thread-safe, and {@code decode} must not read more bytes than necessary
+ * unless they are ignored anyway.
+ *
+ * @param <T> the type of the objects handled by the codec.
+ *
+ * @see ObjectCodec
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public interface Codec<T>
+{
+	/**
+	 * Writes the encoding of the given object on the given stream.
+	 *
+	 * @param object the object to encode.
+	 * @param out the stream to write on.
+	 *
+	 * @throws IOException if the object can't be encoded or if an I/O
+	 *	error occurs.
+	 */
+	void encode(T object, OutputStream out) throws IOException;
+
+	/**
+	 * Reads an object from the given stream.
+	 *
+	 * @param in the stream to read.
+	 *
+	 * @return the decoded object.
+	 *
+	 * @throws IOException if the stream's content isn't a valid encoding
+	 *	or if an I/O error occurs.
+	 */
+	T decode(InputStream in) throws IOException;
+}
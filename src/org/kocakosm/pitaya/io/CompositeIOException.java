@@ -0,0 +1,74 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.collection.ImmutableList;
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An {@code IOException} that aggregates the errors encountered by an
+ * operation that doesn't stop on the first failure. The first error is
+ * used as the cause of this exception.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class CompositeIOException extends IOException
+{
+	private static final long serialVersionUID = 7423066930911736257L;
+
+	private final List<IOException> causes;
+
+	/**
+	 * Creates a new {@code CompositeIOException}.
+	 *
+	 * @param causes the errors that caused this one.
+	 *
+	 * @throws NullPointerException if {@code causes} is {@code null} or if
+	 *	it contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code causes} is empty.
+	 */
+	public CompositeIOException(List<? extends IOException> causes)
+	{
+		super(message(causes), causes.get(0));
+		for (IOException cause : causes) {
+			Parameters.checkNotNull(cause);
+		}
+		this.causes = ImmutableList.<IOException>copyOf(causes);
+	}
+
+	private static String message(List<? extends IOException> causes)
+	{
+		Parameters.checkCondition(!causes.isEmpty());
+		return causes.size() + " I/O error(s), first: " + causes.get(0);
+	}
+
+	/**
+	 * Returns all the errors aggregated by this exception, in the order
+	 * they occurred.
+	 *
+	 * @return the errors aggregated by this exception.
+	 */
+	public List<IOException> getCauses()
+	{
+		return causes;
+	}
+}
@@ -0,0 +1,190 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@code ReadableByteChannel} which reads sequentially from multiple
+ * channels. A read fills the destination buffers from as many members as
+ * needed. Not thread-safe.
+ *
+ * @author Osman KOCAK
+ */
+final class ConcatChannel implements ScatteringByteChannel
+{
+	private final List<ReadableByteChannel> channels;
+	private int index;
+	private boolean closed;
+
+	/**
+	 * Creates a new {@code ConcatChannel}.
+	 *
+	 * @param channels the channels to concatenate.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code channels} is empty.
+	 */
+	ConcatChannel(ReadableByteChannel... channels)
+	{
+		this(Arrays.asList(channels));
+	}
+
+	/**
+	 * Creates a new {@code ConcatChannel}.
+	 *
+	 * @param channels the channels to concatenate.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 * @throws IllegalArgumentException if {@code channels} is empty.
+	 */
+	ConcatChannel(Iterable<? extends ReadableByteChannel> channels)
+	{
+		this.channels = new ArrayList<ReadableByteChannel>();
+		for (ReadableByteChannel channel : channels) {
+			this.channels.add(Parameters.checkNotNull(channel));
+		}
+		Parameters.checkCondition(!this.channels.isEmpty());
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException
+	{
+		ensureOpen();
+		int total = 0;
+		while (dst.hasRemaining() && index < channels.size()) {
+			int n = channels.get(index).read(dst);
+			if (n < 0) {
+				index++;
+			} else if (n == 0) {
+				break;
+			} else {
+				total += n;
+			}
+		}
+		return total == 0 && index >= channels.size() ? -1 : total;
+	}
+
+	@Override
+	public long read(ByteBuffer[] dsts) throws IOException
+	{
+		return read(dsts, 0, dsts.length);
+	}
+
+	@Override
+	public long read(ByteBuffer[] dsts, int offset, int length)
+		throws IOException
+	{
+		if (offset < 0 || length < 0 || offset > dsts.length - length) {
+			throw new IndexOutOfBoundsException();
+		}
+		ensureOpen();
+		long total = 0;
+		int first = offset;
+		int end = offset + length;
+		while (index < channels.size()) {
+			while (first < end && !dsts[first].hasRemaining()) {
+				first++;
+			}
+			if (first == end) {
+				break;
+			}
+			ReadableByteChannel channel = channels.get(index);
+			long n;
+			if (channel instanceof ScatteringByteChannel) {
+				n = ((ScatteringByteChannel) channel)
+					.read(dsts, first, end - first);
+			} else {
+				n = channel.read(dsts[first]);
+			}
+			if (n < 0) {
+				index++;
+			} else if (n == 0) {
+				break;
+			} else {
+				total += n;
+			}
+		}
+		return total == 0 && index >= channels.size() ? -1 : total;
+	}
+
+	/**
+	 * Transfers the remaining content of this channel to the given one.
+	 * Members that are {@code FileChannel}s are transferred using
+	 * {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+	 * which lets the operating system avoid copies, up to their reported
+	 * size.
+	 *
+	 * @param target the channel to write to.
+	 * @param buf the buffer to use for the data that isn't transferred.
+	 *
+	 * @return the number of bytes transferred.
+	 *
+	 * @throws IOException if an I/O error occurs during the process.
+	 */
+	long transferTo(WritableByteChannel target, ByteBuffer buf)
+		throws IOException
+	{
+		ensureOpen();
+		long total = 0;
+		for (; index < channels.size(); index++) {
+			ReadableByteChannel channel = channels.get(index);
+			if (channel instanceof FileChannel) {
+				total += ByteChannels.transfer(
+					(FileChannel) channel, target, buf);
+			} else {
+				total += ByteChannels.copy(channel, target, buf);
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return !closed;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		closed = true;
+		for (ReadableByteChannel channel : channels) {
+			IO.close(channel);
+		}
+	}
+
+	private void ensureOpen() throws ClosedChannelException
+	{
+		if (closed) {
+			throw new ClosedChannelException();
+		}
+	}
+}
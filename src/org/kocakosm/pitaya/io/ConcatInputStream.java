@@ -22,18 +22,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 /**
- * An {@code InputStream} which reads sequentially from multiple sources. Mark
- * and reset are not supported. Not thread safe.
+ * An {@code InputStream} which reads sequentially from multiple sources. The
+ * sources are either given upfront, or opened lazily, one at a time, from an
+ * {@code Iterator} of {@link StreamSupplier}s; in the latter case, each source
+ * is closed as soon as it is exhausted. Reads go on across source boundaries
+ * as long as this can be done without blocking. Mark and reset are not
+ * supported. Not thread safe.
  *
  * @author Osman KOCAK
  */
 final class ConcatInputStream extends InputStream
 {
-	private int index;
 	private final List<InputStream> streams;
+	private final Iterator<? extends StreamSupplier<? extends InputStream>> suppliers;
+	private InputStream current;
+	private int index;
+	private boolean closed;
 
 	/**
 	 * Creates a new {@code ConcatInputStream}.
@@ -65,62 +73,144 @@ final class ConcatInputStream extends InputStream
 			this.streams.add(Parameters.checkNotNull(stream));
 		}
 		Parameters.checkCondition(!this.streams.isEmpty());
+		this.suppliers = null;
 	}
 
-	@Override
-	public int available() throws IOException
+	/**
+	 * Creates a new {@code ConcatInputStream} that opens its sources
+	 * lazily.
+	 *
+	 * @param suppliers the suppliers of the streams to concatenate.
+	 *
+	 * @throws NullPointerException if {@code suppliers} is {@code null}.
+	 */
+	ConcatInputStream(
+		Iterator<? extends StreamSupplier<? extends InputStream>> suppliers)
 	{
-		return finished() ? 0 : current().available();
+		this.suppliers = Parameters.checkNotNull(suppliers);
+		this.streams = null;
 	}
 
 	@Override
-	public void close()
+	public int available() throws IOException
 	{
-		for (InputStream stream : streams) {
-			IO.close(stream);
+		InputStream in = current();
+		if (in == null) {
+			return 0;
+		}
+		long n = in.available();
+		if (streams != null) {
+			for (int i = index; i < streams.size(); i++) {
+				n += streams.get(i).available();
+			}
 		}
+		return (int) Math.min(n, Integer.MAX_VALUE);
 	}
 
 	@Override
-	public int read() throws IOException
+	public void close() throws IOException
 	{
-		int b = finished() ? -1 : current().read();
-		return b != -1 ? b : next() ? read() : -1;
+		closed = true;
+		if (streams != null) {
+			for (InputStream stream : streams) {
+				IO.close(stream);
+			}
+		} else {
+			IO.close(current);
+		}
+		current = null;
 	}
 
 	@Override
-	public int read(byte[] b) throws IOException
+	public int read() throws IOException
 	{
-		int n = finished() ? -1 : current().read(b);
-		return n != -1 ? n : next() ? read(b) : -1;
+		for (InputStream in = current(); in != null; in = next()) {
+			int b = in.read();
+			if (b != -1) {
+				return b;
+			}
+		}
+		return -1;
 	}
 
 	@Override
 	public int read(byte[] b, int off, int len) throws IOException
 	{
-		int n = finished() ? -1 : current().read(b, off, len);
-		return n != -1 ? n : next() ? read(b, off, len) : -1;
+		if (off < 0 || len < 0 || off > b.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		int total = 0;
+		InputStream in = current();
+		while (in != null && total < len) {
+			if (total > 0 && !canRead(in)) {
+				return total;
+			}
+			int n = in.read(b, off + total, len - total);
+			if (n < 0) {
+				in = next();
+			} else if (n == 0) {
+				return total;
+			} else {
+				total += n;
+			}
+		}
+		return total == 0 && in == null ? -1 : total;
 	}
 
 	@Override
 	public long skip(long n) throws IOException
 	{
-		return finished() ? 0L : current().skip(n);
+		long remaining = n;
+		InputStream in = current();
+		while (in != null && remaining > 0) {
+			long skipped = in.skip(remaining);
+			if (skipped > 0) {
+				remaining -= skipped;
+			} else if (in.read() == -1) {
+				in = next();
+			} else {
+				remaining--;
+			}
+		}
+		return n > 0 ? n - remaining : 0;
 	}
 
-	private InputStream current()
+	/**
+	 * Returns whether the given source can be read without blocking, or
+	 * is known to be exhausted.
+	 */
+	private static boolean canRead(InputStream in) throws IOException
 	{
-		return streams.get(index);
+		return ByteStreams.remainingLength(in) >= 0 || in.available() > 0;
 	}
 
-	private boolean finished()
+	private InputStream current() throws IOException
 	{
-		return index >= streams.size();
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (current == null) {
+			if (streams != null) {
+				if (index < streams.size()) {
+					current = streams.get(index++);
+				}
+			} else if (suppliers.hasNext()) {
+				current = Parameters.checkNotNull(suppliers.next().get());
+			}
+		}
+		return current;
 	}
 
-	private boolean next()
+	private InputStream next() throws IOException
 	{
-		index++;
-		return !finished();
+		InputStream exhausted = current;
+		current = null;
+		if (streams == null) {
+			exhausted.close();
+		}
+		return current();
 	}
 }
@@ -22,18 +22,26 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 /**
- * A {@code Reader} which reads sequentially from multiple sources. Does not
- * support {@code mark()} and {@code reset()} operations. Not thread safe.
+ * A {@code Reader} which reads sequentially from multiple sources. The sources
+ * are either given upfront, or opened lazily, one at a time, from an
+ * {@code Iterator} of {@link StreamSupplier}s; in the latter case, each source
+ * is closed as soon as it is exhausted. Reads go on across source boundaries
+ * as long as the sources are ready. Does not support {@code mark()} and
+ * {@code reset()} operations. Not thread safe.
  *
  * @author Osman KOCAK
  */
 final class ConcatReader extends Reader
 {
-	private int index;
 	private final List<Reader> readers;
+	private final Iterator<? extends StreamSupplier<? extends Reader>> suppliers;
+	private Reader current;
+	private int index;
+	private boolean closed;
 
 	/**
 	 * Creates a new {@code ConcatReader}.
@@ -65,33 +73,66 @@ final class ConcatReader extends Reader
 			this.readers.add(Parameters.checkNotNull(reader));
 		}
 		Parameters.checkCondition(!this.readers.isEmpty());
+		this.suppliers = null;
 	}
 
-	@Override
-	public boolean ready() throws IOException
+	/**
+	 * Creates a new {@code ConcatReader} that opens its sources lazily.
+	 *
+	 * @param suppliers the suppliers of the readers to concatenate.
+	 *
+	 * @throws NullPointerException if {@code suppliers} is {@code null}.
+	 */
+	ConcatReader(Iterator<? extends StreamSupplier<? extends Reader>> suppliers)
 	{
-		return current().ready();
+		this.suppliers = Parameters.checkNotNull(suppliers);
+		this.readers = null;
 	}
 
 	@Override
-	public int read() throws IOException
+	public boolean ready() throws IOException
 	{
-		int b = finished() ? -1 : current().read();
-		return b != -1 ? b : next() ? read() : -1;
+		Reader reader = current();
+		return reader != null && reader.ready();
 	}
 
 	@Override
-	public int read(char[] buf) throws IOException
+	public int read() throws IOException
 	{
-		int n = finished() ? -1 : current().read(buf);
-		return n != -1 ? n : next() ? read(buf) : -1;
+		for (Reader reader = current(); reader != null; reader = next()) {
+			int c = reader.read();
+			if (c != -1) {
+				return c;
+			}
+		}
+		return -1;
 	}
 
 	@Override
 	public int read(char[] buf, int off, int len) throws IOException
 	{
-		int n = finished() ? -1 : current().read(buf, off, len);
-		return n != -1 ? n : next() ? read(buf, off, len) : -1;
+		if (off < 0 || len < 0 || off > buf.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		int total = 0;
+		Reader reader = current();
+		while (reader != null && total < len) {
+			if (total > 0 && !reader.ready()) {
+				return total;
+			}
+			int n = reader.read(buf, off + total, len - total);
+			if (n < 0) {
+				reader = next();
+			} else if (n == 0) {
+				return total;
+			} else {
+				total += n;
+			}
+		}
+		return total == 0 && reader == null ? -1 : total;
 	}
 
 	@Override
@@ -117,30 +158,59 @@ final class ConcatReader extends Reader
 	public long skip(long n) throws IOException
 	{
 		Parameters.checkCondition(n >= 0);
-		return finished() ? 0 : current().read(new char[(int) n]);
+		long remaining = n;
+		Reader reader = current();
+		while (reader != null && remaining > 0) {
+			long skipped = reader.skip(remaining);
+			if (skipped > 0) {
+				remaining -= skipped;
+			} else if (reader.read() == -1) {
+				reader = next();
+			} else {
+				remaining--;
+			}
+		}
+		return n - remaining;
 	}
 
 	@Override
-	public void close()
+	public void close() throws IOException
 	{
-		for (Reader reader : readers) {
-			IO.close(reader);
+		closed = true;
+		if (readers != null) {
+			for (Reader reader : readers) {
+				IO.close(reader);
+			}
+		} else {
+			IO.close(current);
 		}
+		current = null;
 	}
 
-	private Reader current()
+	private Reader current() throws IOException
 	{
-		return readers.get(index);
-	}
-
-	private boolean finished()
-	{
-		return index >= readers.size();
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (current == null) {
+			if (readers != null) {
+				if (index < readers.size()) {
+					current = readers.get(index++);
+				}
+			} else if (suppliers.hasNext()) {
+				current = Parameters.checkNotNull(suppliers.next().get());
+			}
+		}
+		return current;
 	}
 
-	private boolean next()
+	private Reader next() throws IOException
 	{
-		index++;
-		return !finished();
+		Reader exhausted = current;
+		current = null;
+		if (readers == null) {
+			exhausted.close();
+		}
+		return current();
 	}
 }
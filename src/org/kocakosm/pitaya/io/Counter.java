@@ -0,0 +1,133 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The counter used by the counting decorators.
+ *
+ * @author Osman KOCAK
+ */
+abstract class Counter
+{
+	/**
+	 * Returns a new {@code Counter} implementing the given mode.
+	 *
+	 * @param mode the counting mode.
+	 *
+	 * @return the created {@code Counter}.
+	 *
+	 * @throws NullPointerException if {@code mode} is {@code null}.
+	 */
+	static Counter create(CountingMode mode)
+	{
+		Parameters.checkNotNull(mode);
+		if (mode == CountingMode.SINGLE_WRITER) {
+			return new SingleWriterCounter();
+		}
+		return new StripedCounter();
+	}
+
+	/** Adds the given (positive) value to the counter. */
+	abstract void add(long n);
+
+	/** Returns the counter's value. */
+	abstract long get();
+
+	/** Sets the counter to 0 and returns its previous value. */
+	abstract long getAndReset();
+
+	private static final class SingleWriterCounter extends Counter
+	{
+		private final AtomicLong published = new AtomicLong();
+		private long value;
+
+		@Override
+		void add(long n)
+		{
+			value += n;
+			published.lazySet(value);
+		}
+
+		@Override
+		long get()
+		{
+			return published.get();
+		}
+
+		@Override
+		long getAndReset()
+		{
+			long v = value;
+			value = 0;
+			published.lazySet(0);
+			return v;
+		}
+	}
+
+	/**
+	 * Each thread adds to one of several stripes, chosen from its id.
+	 * Stripes are spaced by a cache line so that threads updating distinct
+	 * stripes don't share cache lines.
+	 */
+	private static final class StripedCounter extends Counter
+	{
+		private static final int PADDING = 8;
+		private static final int STRIPES = stripes();
+
+		private static int stripes()
+		{
+			int cpus = Runtime.getRuntime().availableProcessors();
+			return Integer.highestOneBit(Math.max(1, 2 * cpus - 1)) << 1;
+		}
+
+		private final AtomicLongArray cells =
+			new AtomicLongArray(STRIPES * PADDING);
+
+		@Override
+		void add(long n)
+		{
+			long id = Thread.currentThread().getId();
+			int h = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+			cells.addAndGet((h & (STRIPES - 1)) * PADDING, n);
+		}
+
+		@Override
+		long get()
+		{
+			long sum = 0;
+			for (int i = 0; i < STRIPES; i++) {
+				sum += cells.get(i * PADDING);
+			}
+			return sum;
+		}
+
+		@Override
+		long getAndReset()
+		{
+			long sum = 0;
+			for (int i = 0; i < STRIPES; i++) {
+				sum += cells.getAndSet(i * PADDING, 0);
+			}
+			return sum;
+		}
+	}
+}
@@ -20,7 +20,6 @@ import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A decorating {@code InputStream} that counts the number of bytes that have
@@ -32,20 +31,34 @@ import java.util.concurrent.atomic.AtomicLong;
 public final class CountingInputStream extends InputStream
 {
 	private final InputStream in;
-	private final AtomicLong counter;
+	private final Counter counter;
 
 	/**
-	 * Creates a new {@code CountingInputStream}.
+	 * Creates a new {@code CountingInputStream}, whose count may be updated
+	 * by several threads concurrently.
 	 *
 	 * @param in the underlying stream.
 	 *
 	 * @throws NullPointerException if {@code in} is {@code null}.
 	 */
 	public CountingInputStream(InputStream in)
+	{
+		this(in, CountingMode.MULTI_WRITER);
+	}
+
+	/**
+	 * Creates a new {@code CountingInputStream}.
+	 *
+	 * @param in the underlying stream.
+	 * @param mode the counting mode.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public CountingInputStream(InputStream in, CountingMode mode)
 	{
 		Parameters.checkNotNull(in);
 		this.in = in;
-		this.counter = new AtomicLong();
+		this.counter = Counter.create(mode);
 	}
 
 	/**
@@ -66,7 +79,7 @@ public final class CountingInputStream extends InputStream
 	 */
 	public long resetCount()
 	{
-		return counter.getAndSet(0);
+		return counter.getAndReset();
 	}
 
 	@Override
@@ -131,8 +144,8 @@ public final class CountingInputStream extends InputStream
 
 	private void count(int n)
 	{
-		if (n != -1) {
-			counter.addAndGet(n);
+		if (n > 0) {
+			counter.add(n);
 		}
 	}
 }
@@ -0,0 +1,47 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+/**
+ * How the counting decorators maintain their counter.
+ *
+ * @see CountingInputStream
+ * @see CountingOutputStream
+ * @see CountingReader
+ * @see CountingWriter
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public enum CountingMode
+{
+	/**
+	 * The stream is read or written by a single thread at a time, which
+	 * updates a plain {@code long} and publishes it with an ordered write.
+	 * The count may be read from any thread, but may then lag slightly
+	 * behind; it must only be reset by the thread using the stream.
+	 */
+	SINGLE_WRITER,
+
+	/**
+	 * The stream may be read or written by several threads concurrently,
+	 * which update distinct stripes of the counter to avoid contention.
+	 * The count is the sum of the stripes.
+	 */
+	MULTI_WRITER;
+}
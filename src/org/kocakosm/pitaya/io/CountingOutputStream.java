@@ -20,7 +20,6 @@ import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A decorating {@code OutputStream} that counts the number of bytes that have
@@ -31,20 +30,34 @@ import java.util.concurrent.atomic.AtomicLong;
 public final class CountingOutputStream extends OutputStream
 {
 	private final OutputStream out;
-	private final AtomicLong counter;
+	private final Counter counter;
 
 	/**
-	 * Creates a new {@code CountingOutputStream}.
+	 * Creates a new {@code CountingOutputStream}, whose count may be updated
+	 * by several threads concurrently.
 	 *
 	 * @param out the underlying stream.
 	 *
 	 * @throws NullPointerException if {@code out} is {@code null}.
 	 */
 	public CountingOutputStream(OutputStream out)
+	{
+		this(out, CountingMode.MULTI_WRITER);
+	}
+
+	/**
+	 * Creates a new {@code CountingOutputStream}.
+	 *
+	 * @param out the underlying stream.
+	 * @param mode the counting mode.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public CountingOutputStream(OutputStream out, CountingMode mode)
 	{
 		Parameters.checkNotNull(out);
 		this.out = out;
-		this.counter = new AtomicLong();
+		this.counter = Counter.create(mode);
 	}
 
 	/**
@@ -65,7 +78,7 @@ public final class CountingOutputStream extends OutputStream
 	 */
 	public long resetCount()
 	{
-		return counter.getAndSet(0);
+		return counter.getAndReset();
 	}
 
 	@Override
@@ -84,20 +97,20 @@ public final class CountingOutputStream extends OutputStream
 	public void write(int i) throws IOException
 	{
 		out.write(i);
-		counter.incrementAndGet();
+		counter.add(1);
 	}
 
 	@Override
 	public void write(byte[] b) throws IOException
 	{
 		out.write(b);
-		counter.addAndGet(b.length);
+		counter.add(b.length);
 	}
 
 	@Override
 	public void write(byte[] b, int off, int len) throws IOException
 	{
 		out.write(b, off, len);
-		counter.addAndGet(Math.min(b.length - off, len));
+		counter.add(len);
 	}
 }
@@ -0,0 +1,109 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A decorating {@code ReadableByteChannel} that counts the number of bytes
+ * that have been read from the underlying channel.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class CountingReadableByteChannel implements ReadableByteChannel
+{
+	private final ReadableByteChannel in;
+	private final Counter counter;
+
+	/**
+	 * Creates a new {@code CountingReadableByteChannel}, whose count may be
+	 * updated by several threads concurrently.
+	 *
+	 * @param in the underlying channel.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 */
+	public CountingReadableByteChannel(ReadableByteChannel in)
+	{
+		this(in, CountingMode.MULTI_WRITER);
+	}
+
+	/**
+	 * Creates a new {@code CountingReadableByteChannel}.
+	 *
+	 * @param in the underlying channel.
+	 * @param mode the counting mode.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public CountingReadableByteChannel(ReadableByteChannel in,
+		CountingMode mode)
+	{
+		Parameters.checkNotNull(in);
+		this.in = in;
+		this.counter = Counter.create(mode);
+	}
+
+	/**
+	 * Returns the number of bytes that have been read from the underlying
+	 * channel so far.
+	 *
+	 * @return the number of bytes that have been read so far.
+	 */
+	public long getCount()
+	{
+		return counter.get();
+	}
+
+	/**
+	 * Sets the counter to 0 and returns its value before resetting it.
+	 *
+	 * @return the number of bytes that have been read so far.
+	 */
+	public long resetCount()
+	{
+		return counter.getAndReset();
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException
+	{
+		int n = in.read(dst);
+		if (n > 0) {
+			counter.add(n);
+		}
+		return n;
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return in.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+}
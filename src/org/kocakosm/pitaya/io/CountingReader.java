@@ -20,7 +20,6 @@ import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A decorating {@code Reader} that counts the number of characters that have
@@ -33,20 +32,34 @@ import java.util.concurrent.atomic.AtomicLong;
 public final class CountingReader extends Reader
 {
 	private final Reader reader;
-	private final AtomicLong counter;
+	private final Counter counter;
 
 	/**
-	 * Creates a new {@code CountingReader}.
+	 * Creates a new {@code CountingReader}, whose count may be updated
+	 * by several threads concurrently.
 	 *
 	 * @param reader the underlying reader.
 	 *
 	 * @throws NullPointerException if {@code reader} is {@code null}.
 	 */
 	public CountingReader(Reader reader)
+	{
+		this(reader, CountingMode.MULTI_WRITER);
+	}
+
+	/**
+	 * Creates a new {@code CountingReader}.
+	 *
+	 * @param reader the underlying reader.
+	 * @param mode the counting mode.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public CountingReader(Reader reader, CountingMode mode)
 	{
 		Parameters.checkNotNull(reader);
 		this.reader = reader;
-		this.counter = new AtomicLong();
+		this.counter = Counter.create(mode);
 	}
 
 	/**
@@ -67,7 +80,7 @@ public final class CountingReader extends Reader
 	 */
 	public long resetCount()
 	{
-		return counter.getAndSet(0);
+		return counter.getAndReset();
 	}
 
 	@Override
@@ -132,8 +145,8 @@ public final class CountingReader extends Reader
 
 	private void count(int n)
 	{
-		if (n != -1) {
-			counter.addAndGet(n);
+		if (n > 0) {
+			counter.add(n);
 		}
 	}
 }
@@ -0,0 +1,109 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A decorating {@code WritableByteChannel} that counts the number of bytes
+ * that have been written to the underlying channel.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class CountingWritableByteChannel implements WritableByteChannel
+{
+	private final WritableByteChannel out;
+	private final Counter counter;
+
+	/**
+	 * Creates a new {@code CountingWritableByteChannel}, whose count may be
+	 * updated by several threads concurrently.
+	 *
+	 * @param out the underlying channel.
+	 *
+	 * @throws NullPointerException if {@code out} is {@code null}.
+	 */
+	public CountingWritableByteChannel(WritableByteChannel out)
+	{
+		this(out, CountingMode.MULTI_WRITER);
+	}
+
+	/**
+	 * Creates a new {@code CountingWritableByteChannel}.
+	 *
+	 * @param out the underlying channel.
+	 * @param mode the counting mode.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public CountingWritableByteChannel(WritableByteChannel out,
+		CountingMode mode)
+	{
+		Parameters.checkNotNull(out);
+		this.out = out;
+		this.counter = Counter.create(mode);
+	}
+
+	/**
+	 * Returns the number of bytes that have been written to the underlying
+	 * channel so far.
+	 *
+	 * @return the number of bytes that have been written so far.
+	 */
+	public long getCount()
+	{
+		return counter.get();
+	}
+
+	/**
+	 * Sets the counter to 0 and returns its value before resetting it.
+	 *
+	 * @return the number of bytes that have been written so far.
+	 */
+	public long resetCount()
+	{
+		return counter.getAndReset();
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException
+	{
+		int n = out.write(src);
+		if (n > 0) {
+			counter.add(n);
+		}
+		return n;
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return out.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
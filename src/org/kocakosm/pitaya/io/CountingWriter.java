@@ -20,7 +20,6 @@ import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A decorating {@code Writer} that counts the number of characters that have
@@ -31,20 +30,34 @@ import java.util.concurrent.atomic.AtomicLong;
 public final class CountingWriter extends Writer
 {
 	private final Writer out;
-	private final AtomicLong counter;
+	private final Counter counter;
 
 	/**
-	 * Creates a new {@code CountingWriter}.
+	 * Creates a new {@code CountingWriter}, whose count may be updated
+	 * by several threads concurrently.
 	 *
 	 * @param out the underlying {@code Writer}.
 	 *
 	 * @throws NullPointerException if {@code out} is {@code null}.
 	 */
 	public CountingWriter(Writer out)
+	{
+		this(out, CountingMode.MULTI_WRITER);
+	}
+
+	/**
+	 * Creates a new {@code CountingWriter}.
+	 *
+	 * @param out the underlying {@code Writer}.
+	 * @param mode the counting mode.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public CountingWriter(Writer out, CountingMode mode)
 	{
 		Parameters.checkNotNull(out);
 		this.out = out;
-		this.counter = new AtomicLong();
+		this.counter = Counter.create(mode);
 	}
 
 	/**
@@ -65,14 +78,14 @@ public final class CountingWriter extends Writer
 	 */
 	public long resetCount()
 	{
-		return counter.getAndSet(0);
+		return counter.getAndReset();
 	}
 
 	@Override
 	public Writer append(char c) throws IOException
 	{
 		out.append(c);
-		counter.incrementAndGet();
+		counter.add(1);
 		return this;
 	}
 
@@ -81,7 +94,7 @@ public final class CountingWriter extends Writer
 	{
 		CharSequence sequence = csq == null ? "null" : csq;
 		out.append(sequence);
-		counter.addAndGet(sequence.length());
+		counter.add(sequence.length());
 		return this;
 	}
 
@@ -91,7 +104,7 @@ public final class CountingWriter extends Writer
 	{
 		CharSequence sequence = csq == null ? "null" : csq;
 		out.append(sequence.subSequence(start, end));
-		counter.addAndGet(sequence.subSequence(start, end).length());
+		counter.add(end - start);
 		return this;
 	}
 
@@ -99,35 +112,35 @@ public final class CountingWriter extends Writer
 	public void write(int c) throws IOException
 	{
 		out.write(c);
-		counter.incrementAndGet();
+		counter.add(1);
 	}
 
 	@Override
 	public void write(char[] cbuf) throws IOException
 	{
 		out.write(cbuf);
-		counter.addAndGet(cbuf.length);
+		counter.add(cbuf.length);
 	}
 
 	@Override
 	public void write(char[] cbuf, int off, int len) throws IOException
 	{
 		out.write(cbuf, off, len);
-		counter.addAndGet(Math.min(cbuf.length - off, len));
+		counter.add(len);
 	}
 
 	@Override
 	public void write(String str) throws IOException
 	{
 		out.write(str);
-		counter.addAndGet(str.length());
+		counter.add(str.length());
 	}
 
 	@Override
 	public void write(String str, int off, int len) throws IOException
 	{
 		out.write(str, off, len);
-		counter.addAndGet(Math.min(str.length() - off, len));
+		counter.add(len);
 	}
 
 	@Override
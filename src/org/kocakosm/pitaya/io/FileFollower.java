@@ -0,0 +1,203 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads the lines appended to a file, like the {@code tail -f} Unix command.
+ * A line is considered to be terminated by any one of a line feed ('\n'), a
+ * carriage return ('\r'), or a carriage return followed immediately by a
+ * line feed; incomplete lines are not returned until they are terminated.
+ * If the file is truncated, it is read again from its beginning. Instances
+ * of this class are thread-safe, and may be closed from another thread to
+ * stop a blocked reader.
+ *
+ * @see TextFiles#follow(File, Charset, long, java.util.concurrent.TimeUnit)
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class FileFollower implements Closeable
+{
+	private final RandomAccessFile file;
+	private final CharsetDecoder decoder;
+	private final long interval;
+	private final ByteBuffer bytes;
+	private final CharBuffer chars;
+	private final StringBuilder pending;
+	private int start;
+	private long position;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new {@code FileFollower} that reads the lines appended to
+	 * the given file after its current end.
+	 *
+	 * @param f the file to follow.
+	 * @param charset the charset to use.
+	 * @param interval the delay between two checks for new content, in
+	 *	milliseconds.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code interval} is negative.
+	 * @throws IOException if {@code f} can't be opened or if its length
+	 *	can't be read.
+	 */
+	FileFollower(File f, Charset charset, long interval) throws IOException
+	{
+		Parameters.checkNotNull(charset);
+		Parameters.checkCondition(interval >= 0);
+		this.decoder = charset.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.interval = interval;
+		this.bytes = ByteBuffer.allocate(8192);
+		this.chars = CharBuffer.allocate(8192);
+		this.pending = new StringBuilder();
+		this.file = new RandomAccessFile(f, "r");
+		this.position = file.length();
+	}
+
+	/**
+	 * Reads the next line appended to the file, waiting until it has been
+	 * completely written. Returns {@code null} if this follower is closed.
+	 *
+	 * @return the next line, or {@code null} if this follower is closed.
+	 *
+	 * @throws InterruptedIOException if the current thread is interrupted
+	 *	while waiting for a new line.
+	 * @throws IOException if the file can't be read.
+	 */
+	public String readLine() throws IOException
+	{
+		String line = poll();
+		while (line == null && !closed) {
+			try {
+				Thread.sleep(interval);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			line = poll();
+		}
+		return line;
+	}
+
+	/**
+	 * Returns the next line appended to the file, or {@code null} if no
+	 * complete line is available yet or if this follower is closed. This
+	 * method never blocks waiting for new content.
+	 *
+	 * @return the next line, or {@code null} if there is none.
+	 *
+	 * @throws IOException if the file can't be read.
+	 */
+	public synchronized String poll() throws IOException
+	{
+		if (closed) {
+			return null;
+		}
+		String line = nextLine();
+		while (line == null && fill()) {
+			line = nextLine();
+		}
+		return line;
+	}
+
+	/**
+	 * Closes this follower. Threads waiting in {@link #readLine()} return
+	 * {@code null}.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		closed = true;
+		synchronized (this) {
+			file.close();
+		}
+	}
+
+	private String nextLine()
+	{
+		for (int i = start; i < pending.length(); i++) {
+			char c = pending.charAt(i);
+			if (c == '\n' || c == '\r') {
+				int end = i + 1;
+				if (c == '\r') {
+					if (end == pending.length()) {
+						return null;
+					}
+					if (pending.charAt(end) == '\n') {
+						end++;
+					}
+				}
+				String line = pending.substring(start, i);
+				start = end;
+				return line;
+			}
+		}
+		return null;
+	}
+
+	private boolean fill() throws IOException
+	{
+		long length = file.length();
+		if (length < position) {
+			position = 0;
+			bytes.clear();
+			decoder.reset();
+			pending.setLength(0);
+			start = 0;
+		}
+		if (length == position) {
+			return false;
+		}
+		file.seek(position);
+		int n = file.read(bytes.array(), bytes.position(), bytes.remaining());
+		if (n <= 0) {
+			return false;
+		}
+		position += n;
+		bytes.position(bytes.position() + n);
+		bytes.flip();
+		pending.delete(0, start);
+		start = 0;
+		CoderResult result = CoderResult.OVERFLOW;
+		while (result.isOverflow()) {
+			result = decoder.decode(bytes, chars, false);
+			chars.flip();
+			pending.append(chars);
+			chars.clear();
+		}
+		bytes.compact();
+		return true;
+	}
+}
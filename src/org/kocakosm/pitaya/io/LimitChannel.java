@@ -0,0 +1,91 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A decorating {@code ReadableByteChannel} that will only supply bytes up to
+ * a certain length. The destination buffers' limits are temporarily lowered
+ * instead of reading into an intermediate buffer. Thread safe.
+ *
+ * @author Osman KOCAK
+ */
+final class LimitChannel implements ReadableByteChannel
+{
+	private final ReadableByteChannel in;
+	private final long limit;
+	private long position;
+
+	/**
+	 * Creates a new {@code LimitChannel}.
+	 *
+	 * @param in the underlying channel.
+	 * @param limit the maximum number of bytes to provide from {@code in}.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 * @throws IllegalArgumentException if {@code limit} is negative.
+	 */
+	LimitChannel(ReadableByteChannel in, long limit)
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkCondition(limit >= 0);
+		this.in = in;
+		this.limit = limit;
+	}
+
+	@Override
+	public synchronized int read(ByteBuffer dst) throws IOException
+	{
+		long left = limit - position;
+		if (left <= 0) {
+			return -1;
+		}
+		int n;
+		if (dst.remaining() > left) {
+			int oldLimit = dst.limit();
+			dst.limit(dst.position() + (int) left);
+			try {
+				n = in.read(dst);
+			} finally {
+				dst.limit(oldLimit);
+			}
+		} else {
+			n = in.read(dst);
+		}
+		if (n > 0) {
+			position += n;
+		}
+		return n;
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return in.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+}
@@ -0,0 +1,601 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * An index of the offsets at which the lines of a text file start, giving
+ * random access to the file's lines by their number. A line is considered
+ * to be terminated by a line feed ('\n') or by a carriage return followed
+ * immediately by a line feed; lone carriage returns are not line separators.
+ * Indexes are built by scanning memory-mapped chunks of the file in
+ * parallel, and may be updated when the file grows, scanning only its new
+ * content. Offsets are stored delta-encoded as variable-length integers,
+ * with an absolute offset every 64 lines, so that an index usually takes
+ * between 1 and 2 bytes per line. An index can be saved into a sidecar file
+ * and loaded back later. Note that an index knows nothing about its file's
+ * content but its length: an index whose file has been modified other than
+ * by appending bytes to it is silently wrong. Instances of this class are
+ * thread-safe.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class LineIndex
+{
+	private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+	private static final int SAMPLING = 64;
+	private static final int MAGIC = 0x4C494458;
+	private static final int VERSION = 1;
+
+	private final File file;
+	private final int parallelism;
+	private Offsets offsets;
+	private long length;
+
+	private LineIndex(File file, int parallelism, Offsets offsets,
+		long length)
+	{
+		this.file = file;
+		this.parallelism = parallelism;
+		this.offsets = offsets;
+		this.length = length;
+	}
+
+	/**
+	 * Builds the index of the given file, using as many threads as there
+	 * are available processors.
+	 *
+	 * @param f the file to index.
+	 *
+	 * @return the index of the given file.
+	 *
+	 * @throws NullPointerException if {@code f} is {@code null}.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read.
+	 */
+	public static LineIndex build(File f) throws IOException
+	{
+		return build(f, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Builds the index of the given file, using at most the given number
+	 * of threads.
+	 *
+	 * @param f the file to index.
+	 * @param parallelism the maximum number of threads to use.
+	 *
+	 * @return the index of the given file.
+	 *
+	 * @throws NullPointerException if {@code f} is {@code null}.
+	 * @throws IllegalArgumentException if {@code parallelism} is not
+	 *	strictly positive.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read.
+	 */
+	public static LineIndex build(File f, int parallelism) throws IOException
+	{
+		Parameters.checkNotNull(f);
+		Parameters.checkCondition(parallelism > 0);
+		Offsets offsets = new Offsets();
+		offsets.add(0);
+		LineIndex index = new LineIndex(f, parallelism, offsets, 0);
+		index.update();
+		return index;
+	}
+
+	/**
+	 * Loads the index of the given file from the given sidecar file,
+	 * previously written by {@link #save(File)}. The returned index isn't
+	 * updated: call {@link #update()} to index the lines that may have
+	 * been appended to {@code f} since the index was saved.
+	 *
+	 * @param f the indexed file.
+	 * @param sidecar the file containing the index.
+	 *
+	 * @return the index of the given file.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if {@code sidecar} can't be read or if it doesn't
+	 *	contain a valid index.
+	 */
+	public static LineIndex load(File f, File sidecar) throws IOException
+	{
+		Parameters.checkNotNull(f);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+			new FileInputStream(sidecar)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Invalid line index: " + sidecar);
+			}
+			long length = in.readLong();
+			Offsets offsets = Offsets.read(in);
+			if (length < 0 || offsets == null
+				|| offsets.last > length) {
+				throw new IOException("Invalid line index: " + sidecar);
+			}
+			return new LineIndex(f, Runtime.getRuntime()
+				.availableProcessors(), offsets, length);
+		} finally {
+			IO.close(in);
+		}
+	}
+
+	/**
+	 * Writes this index into the given sidecar file, replacing atomically
+	 * its previous content, if any.
+	 *
+	 * @param sidecar the file to write.
+	 *
+	 * @throws NullPointerException if {@code sidecar} is {@code null}.
+	 * @throws IOException if {@code sidecar} can't be written.
+	 */
+	public synchronized void save(File sidecar) throws IOException
+	{
+		AtomicFileOutputStream out = XFiles.newAtomicOutputStream(sidecar);
+		try {
+			DataOutputStream data = new DataOutputStream(
+				new BufferedOutputStream(out));
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+			data.writeLong(length);
+			offsets.write(data);
+			data.flush();
+		} catch (IOException e) {
+			out.abort();
+			throw e;
+		} catch (RuntimeException e) {
+			out.abort();
+			throw e;
+		} finally {
+			IO.close(out);
+		}
+	}
+
+	/**
+	 * Indexes the lines that have been appended to the file since it was
+	 * last indexed, scanning only its new content. If the file has shrunk,
+	 * it is indexed again from its beginning.
+	 *
+	 * @return the number of lines in the file.
+	 *
+	 * @throws IOException if the file does not exist anymore, or if it
+	 *	can't be read.
+	 */
+	public synchronized long update() throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if (size < length) {
+				offsets = new Offsets();
+				offsets.add(0);
+				length = 0;
+			}
+			if (size > length) {
+				for (Offsets chunk : scan(channel, length, size)) {
+					offsets.addAll(chunk);
+				}
+				length = size;
+			}
+		} finally {
+			IO.close(raf);
+		}
+		return getLineCount();
+	}
+
+	/**
+	 * Returns the indexed file.
+	 *
+	 * @return the indexed file.
+	 */
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Returns the number of bytes of the file that have been indexed.
+	 *
+	 * @return the indexed length of the file.
+	 */
+	public synchronized long getLength()
+	{
+		return length;
+	}
+
+	/**
+	 * Returns the number of lines in the indexed part of the file. The
+	 * last line may be unterminated.
+	 *
+	 * @return the number of indexed lines.
+	 */
+	public synchronized long getLineCount()
+	{
+		return offsets.last == length ? offsets.count - 1 : offsets.count;
+	}
+
+	/**
+	 * Returns the offset of the first byte of the given line. Line numbers
+	 * start at 0; the offset of the line following the last one is the
+	 * indexed length of the file. The bytes of the lines in the range
+	 * {@code [from, to)}, line terminators included, are then the bytes
+	 * in the range {@code [getOffset(from), getOffset(to))}.
+	 *
+	 * @param line the line's number.
+	 *
+	 * @return the offset of the given line.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code line} is negative or if
+	 *	it is greater than the number of lines.
+	 */
+	public synchronized long getOffset(long line)
+	{
+		checkLine(line);
+		return line < offsets.count ? offsets.get(line) : length;
+	}
+
+	/**
+	 * Reads the given line using the specified charset.
+	 *
+	 * @param line the number of the line to read.
+	 * @param charset the charset to use.
+	 *
+	 * @return the requested line, without its line terminator.
+	 *
+	 * @throws NullPointerException if {@code charset} is {@code null}.
+	 * @throws IllegalArgumentException if {@code charset} doesn't encode
+	 *	line separators as their ASCII byte values.
+	 * @throws IndexOutOfBoundsException if {@code line} is negative or if
+	 *	it isn't less than the number of lines.
+	 * @throws IOException if the file can't be read.
+	 */
+	public String readLine(long line, Charset charset) throws IOException
+	{
+		List<String> lines = readLines(line, 1, charset);
+		if (lines.isEmpty()) {
+			throw new IndexOutOfBoundsException(String.valueOf(line));
+		}
+		return lines.get(0);
+	}
+
+	/**
+	 * Reads (up to) {@code n} lines from the given one using the specified
+	 * charset. Note that the returned {@code List} is immutable.
+	 *
+	 * @param from the number of the first line to read.
+	 * @param n the maximum number of lines to read.
+	 * @param charset the charset to use.
+	 *
+	 * @return the requested lines, without their line terminators.
+	 *
+	 * @throws NullPointerException if {@code charset} is {@code null}.
+	 * @throws IllegalArgumentException if {@code n} is negative, or if
+	 *	{@code charset} doesn't encode line separators as their ASCII
+	 *	byte values.
+	 * @throws IndexOutOfBoundsException if {@code from} is negative or if
+	 *	it is greater than the number of lines.
+	 * @throws IOException if the file can't be read.
+	 */
+	public synchronized List<String> readLines(long from, int n,
+		Charset charset) throws IOException
+	{
+		Parameters.checkCondition(n >= 0);
+		Parameters.checkCondition(TextFiles.hasAsciiLineSeparators(charset));
+		checkLine(from);
+		int count = (int) Math.min(n, getLineCount() - from);
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		long[] bounds = new long[count + 1];
+		int known = (int) Math.min(count + 1, offsets.count - from);
+		offsets.get(from, bounds, known);
+		if (known <= count) {
+			bounds[count] = length;
+		}
+		List<String> lines = new ArrayList<String>(count);
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			raf.seek(bounds[0]);
+			DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Channels.newInputStream(raf.getChannel())));
+			byte[] buf = new byte[128];
+			for (int i = 0; i < count; i++) {
+				int len = (int) (bounds[i + 1] - bounds[i]);
+				if (len > buf.length) {
+					buf = new byte[Math.max(len, 2 * buf.length)];
+				}
+				in.readFully(buf, 0, len);
+				if (len > 0 && buf[len - 1] == '\n') {
+					len--;
+				}
+				if (len > 0 && buf[len - 1] == '\r') {
+					len--;
+				}
+				lines.add(new String(buf, 0, len, charset));
+			}
+		} finally {
+			IO.close(raf);
+		}
+		return Collections.unmodifiableList(lines);
+	}
+
+	private void checkLine(long line)
+	{
+		if (line < 0 || line > getLineCount()) {
+			throw new IndexOutOfBoundsException(String.valueOf(line));
+		}
+	}
+
+	/**
+	 * Scans the given range of the channel for line feeds, in chunks of at
+	 * most {@link #CHUNK_SIZE} bytes, and returns, for each chunk in order,
+	 * the offsets of the lines starting in it.
+	 */
+	private List<Offsets> scan(FileChannel channel, long from, long to)
+		throws IOException
+	{
+		List<Callable<Offsets>> tasks = new ArrayList<Callable<Offsets>>();
+		long chunk = Math.max(1024 * 1024,
+			Math.min(CHUNK_SIZE, (to - from) / parallelism + 1));
+		for (long start = from; start < to; start += chunk) {
+			tasks.add(new Scan(channel, start, Math.min(to, start + chunk)));
+		}
+		List<Offsets> chunks = new ArrayList<Offsets>(tasks.size());
+		if (tasks.size() == 1 || parallelism == 1) {
+			for (Callable<Offsets> task : tasks) {
+				chunks.add(call(task));
+			}
+			return chunks;
+		}
+		ExecutorService executor = ParallelFiles.newExecutor(
+			Math.min(parallelism, tasks.size()));
+		try {
+			for (Future<Offsets> future : executor.invokeAll(tasks)) {
+				chunks.add(future.get());
+			}
+			return chunks;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			throw ioException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Offsets call(Callable<Offsets> task) throws IOException
+	{
+		try {
+			return task.call();
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw ioException(e);
+		}
+	}
+
+	private static IOException ioException(Throwable t)
+	{
+		if (t instanceof IOException) {
+			return (IOException) t;
+		}
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		return new IOException(t);
+	}
+
+	private static final class Scan implements Callable<Offsets>
+	{
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+
+		Scan(FileChannel channel, long start, long end)
+		{
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Offsets call() throws IOException
+		{
+			int len = (int) (end - start);
+			MappedByteBuffer buf = channel.map(
+				FileChannel.MapMode.READ_ONLY, start, len);
+			Offsets offsets = new Offsets();
+			for (int i = 0; i < len; i++) {
+				if (buf.get(i) == '\n') {
+					offsets.add(start + i + 1);
+				}
+			}
+			return offsets;
+		}
+	}
+
+	/**
+	 * A growable sequence of increasing offsets. Every 64th offset is
+	 * stored as is, along with the position of the following deltas, which
+	 * are encoded as variable-length integers of 7 bits per byte.
+	 */
+	private static final class Offsets
+	{
+		byte[] deltas;
+		int size;
+		long[] marks;
+		int[] positions;
+		long count;
+		long last;
+
+		Offsets()
+		{
+			this.deltas = new byte[64];
+			this.marks = new long[16];
+			this.positions = new int[16];
+		}
+
+		void add(long offset)
+		{
+			if (count % SAMPLING == 0) {
+				int mark = (int) (count / SAMPLING);
+				if (mark == marks.length) {
+					marks = Arrays.copyOf(marks, 2 * mark);
+					positions = Arrays.copyOf(positions, 2 * mark);
+				}
+				marks[mark] = offset;
+				positions[mark] = size;
+			} else {
+				if (deltas.length - size < 10) {
+					deltas = Arrays.copyOf(deltas, 2 * deltas.length);
+				}
+				long delta = offset - last;
+				while ((delta & ~0x7FL) != 0) {
+					deltas[size++] = (byte) ((delta & 0x7F) | 0x80);
+					delta >>>= 7;
+				}
+				deltas[size++] = (byte) delta;
+			}
+			last = offset;
+			count++;
+		}
+
+		void addAll(Offsets offsets)
+		{
+			long[] block = new long[SAMPLING];
+			for (long i = 0; i < offsets.count; i += SAMPLING) {
+				int n = (int) Math.min(SAMPLING, offsets.count - i);
+				offsets.get(i, block, n);
+				for (int j = 0; j < n; j++) {
+					add(block[j]);
+				}
+			}
+		}
+
+		long get(long k)
+		{
+			long[] offset = new long[1];
+			get(k, offset, 1);
+			return offset[0];
+		}
+
+		/** Copies the {@code n} offsets starting at index {@code k}. */
+		void get(long k, long[] dst, int n)
+		{
+			int mark = (int) (k / SAMPLING);
+			long i = (long) mark * SAMPLING;
+			long offset = marks[mark];
+			int pos = positions[mark];
+			int copied = 0;
+			while (true) {
+				if (i >= k) {
+					dst[copied++] = offset;
+					if (copied == n) {
+						return;
+					}
+				}
+				if (++i % SAMPLING == 0) {
+					offset = marks[++mark];
+					pos = positions[mark];
+				} else {
+					int shift = 0;
+					byte b;
+					do {
+						b = deltas[pos++];
+						offset += (long) (b & 0x7F) << shift;
+						shift += 7;
+					} while (b < 0);
+				}
+			}
+		}
+
+		void write(DataOutputStream out) throws IOException
+		{
+			out.writeLong(count);
+			out.writeInt(size);
+			out.write(deltas, 0, size);
+			int n = (int) ((count + SAMPLING - 1) / SAMPLING);
+			for (int i = 0; i < n; i++) {
+				out.writeLong(marks[i]);
+				out.writeInt(positions[i]);
+			}
+		}
+
+		/** Returns {@code null} if the read offsets are invalid. */
+		static Offsets read(DataInputStream in) throws IOException
+		{
+			Offsets offsets = new Offsets();
+			long count = in.readLong();
+			int size = in.readInt();
+			if (count < 1 || size < 0
+				|| count > (long) SAMPLING * Integer.MAX_VALUE) {
+				return null;
+			}
+			int n = (int) ((count + SAMPLING - 1) / SAMPLING);
+			offsets.deltas = new byte[size + 10];
+			in.readFully(offsets.deltas, 0, size);
+			offsets.marks = new long[n];
+			offsets.positions = new int[n];
+			for (int i = 0; i < n; i++) {
+				offsets.marks[i] = in.readLong();
+				offsets.positions[i] = in.readInt();
+				if (offsets.positions[i] < 0
+					|| offsets.positions[i] > size) {
+					return null;
+				}
+			}
+			offsets.size = size;
+			offsets.count = count;
+			try {
+				offsets.last = offsets.get(count - 1);
+			} catch (IndexOutOfBoundsException e) {
+				return null;
+			}
+			return offsets;
+		}
+	}
+}
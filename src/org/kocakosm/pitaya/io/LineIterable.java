@@ -0,0 +1,125 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@code Iterable} over the lines of a character source, whose iterators
+ * are {@link LineIterator}s. Lines are read lazily, hence this class can be
+ * used on sources that don't fit in memory, including with the
+ * {@link org.kocakosm.pitaya.collection.Iterables} utilities. Iterables over
+ * files may be iterated several times, the file being opened again by each
+ * new iterator; iterables over streams may only be iterated once. Iterators
+ * close their {@code Reader} as soon as they reach its end, so that a fully
+ * iterated file is not left open. Closing a {@code LineIterable} closes all
+ * the iterators it has returned that are not exhausted yet. Instances of
+ * this class are not thread-safe.
+ *
+ * @see CharStreams#lines(Reader)
+ * @see TextFiles#lines(java.io.File, java.nio.charset.Charset)
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class LineIterable implements Iterable<String>, Closeable
+{
+	/** Provides the {@code Reader}s to iterate over. */
+	interface Source extends Closeable
+	{
+		Reader open() throws IOException;
+	}
+
+	private final Source source;
+	private final List<LineIterator> iterators;
+	private boolean closed;
+
+	LineIterable(Source source)
+	{
+		this.source = Parameters.checkNotNull(source);
+		this.iterators = new ArrayList<LineIterator>();
+	}
+
+	/**
+	 * Returns a new {@code LineIterator} over the source's lines.
+	 *
+	 * @return a new {@code LineIterator}.
+	 *
+	 * @throws IllegalStateException if the source can't be opened, or if
+	 *	it is a stream that has already been iterated over, or if this
+	 *	object has been closed.
+	 */
+	@Override
+	public LineIterator iterator()
+	{
+		if (closed) {
+			throw new IllegalStateException("Closed");
+		}
+		Reader in;
+		try {
+			in = source.open();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		LineIterator iterator = new LineIterator(in, this);
+		iterators.add(iterator);
+		return iterator;
+	}
+
+	/** Forgets the given iterator, which has closed its reader. */
+	void exhausted(LineIterator iterator)
+	{
+		iterators.remove(iterator);
+	}
+
+	/**
+	 * Closes the source and all the iterators returned by this object. No
+	 * more iterators can be created afterwards.
+	 *
+	 * @throws IOException if the source or one of the iterators can't be
+	 *	closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		closed = true;
+		IOException error = null;
+		for (LineIterator iterator : iterators) {
+			try {
+				iterator.close();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+		iterators.clear();
+		try {
+			source.close();
+		} catch (IOException e) {
+			error = e;
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+}
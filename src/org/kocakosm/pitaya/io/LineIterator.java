@@ -0,0 +1,307 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily reads the lines of a {@code Reader}. A line is considered to be
+ * terminated by any one of a line feed ('\n'), a carriage return ('\r'), or
+ * a carriage return followed immediately by a line feed, as in
+ * {@link java.io.BufferedReader#readLine()}. Characters are read in a single
+ * reusable buffer, which only grows if a line is longer than it. Lines can be
+ * returned either as {@code String}s, or as {@code CharSequence} views over
+ * the buffer, which avoid allocating a {@code String} per line. As
+ * {@link Iterator} methods can't throw checked exceptions, I/O errors are
+ * wrapped in {@code IllegalStateException}s. Instances of this class are not
+ * thread-safe.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class LineIterator implements Iterator<String>, Closeable
+{
+	private static final int DEFAULT_BUFFER_SIZE = 65536;
+
+	private final Reader in;
+	private final LineIterable owner;
+	private final Line line;
+	private char[] buf;
+	private int pos;
+	private int limit;
+	private int start;
+	private int end;
+	private boolean eof;
+	private boolean skipLF;
+	private boolean ready;
+	private boolean closed;
+
+	/**
+	 * Creates a new {@code LineIterator} using a buffer of 64K chars.
+	 *
+	 * @param in the {@code Reader} to read.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 */
+	public LineIterator(Reader in)
+	{
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new {@code LineIterator}.
+	 *
+	 * @param in the {@code Reader} to read.
+	 * @param bufferSize the initial size of the buffer.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 * @throws IllegalArgumentException if {@code bufferSize} is not
+	 *	strictly positive.
+	 */
+	public LineIterator(Reader in, int bufferSize)
+	{
+		this(in, bufferSize, null);
+	}
+
+	/**
+	 * Creates a new {@code LineIterator} that closes the given
+	 * {@code Reader} as soon as its end is reached, and then notifies the
+	 * given {@code LineIterable}, if any.
+	 */
+	LineIterator(Reader in, LineIterable owner)
+	{
+		this(in, DEFAULT_BUFFER_SIZE, owner);
+	}
+
+	private LineIterator(Reader in, int bufferSize, LineIterable owner)
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkCondition(bufferSize > 0);
+		this.in = in;
+		this.owner = owner;
+		this.buf = new char[bufferSize];
+		this.line = new Line();
+	}
+
+	/**
+	 * Returns whether there are more lines to read.
+	 *
+	 * @return whether there are more lines to read.
+	 *
+	 * @throws IllegalStateException if an I/O error occurs.
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		if (!ready && !closed) {
+			try {
+				ready = nextLineOrClose();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return ready;
+	}
+
+	/**
+	 * Returns the next line, without its line terminator.
+	 *
+	 * @return the next line.
+	 *
+	 * @throws NoSuchElementException if there are no more lines.
+	 * @throws IllegalStateException if an I/O error occurs.
+	 */
+	@Override
+	public String next()
+	{
+		nextLine();
+		return new String(buf, start, end - start);
+	}
+
+	/**
+	 * Returns the next line, without its line terminator, as a view over
+	 * this iterator's buffer. The returned {@code CharSequence} is only
+	 * valid until the next call to one of this iterator's methods; use its
+	 * {@code toString()} method to keep a copy.
+	 *
+	 * @return a view of the next line.
+	 *
+	 * @throws NoSuchElementException if there are no more lines.
+	 * @throws IllegalStateException if an I/O error occurs.
+	 */
+	public CharSequence nextLine()
+	{
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		ready = false;
+		return line;
+	}
+
+	/**
+	 * Returns a view of the next line, or {@code null} if there are no
+	 * more lines, letting I/O errors propagate.
+	 */
+	CharSequence readLine() throws IOException
+	{
+		if (!ready && !closed) {
+			ready = nextLineOrClose();
+		}
+		if (!ready) {
+			return null;
+		}
+		ready = false;
+		return line;
+	}
+
+	/**
+	 * Operation not supported.
+	 *
+	 * @throws UnsupportedOperationException always.
+	 */
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Closes the underlying {@code Reader}. No more lines are returned
+	 * after this method has been called.
+	 *
+	 * @throws IOException if the {@code Reader} can't be closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		closed = true;
+		ready = false;
+		in.close();
+	}
+
+	private boolean nextLineOrClose() throws IOException
+	{
+		boolean found = findLine();
+		if (!found && owner != null) {
+			closed = true;
+			try {
+				in.close();
+			} finally {
+				owner.exhausted(this);
+			}
+		}
+		return found;
+	}
+
+	private boolean findLine() throws IOException
+	{
+		int i = pos;
+		while (true) {
+			if (skipLF && pos < limit) {
+				skipLF = false;
+				if (buf[pos] == '\n') {
+					pos++;
+					i = pos;
+				}
+			}
+			for (; i < limit; i++) {
+				char c = buf[i];
+				if (c == '\n' || c == '\r') {
+					start = pos;
+					end = i;
+					pos = i + 1;
+					skipLF = c == '\r';
+					return true;
+				}
+			}
+			if (eof) {
+				skipLF = false;
+				if (pos < limit) {
+					start = pos;
+					end = limit;
+					pos = limit;
+					return true;
+				}
+				return false;
+			}
+			i -= fill();
+		}
+	}
+
+	/**
+	 * Moves the unread chars to the beginning of the buffer, growing it
+	 * if it is full, and then reads more chars. Returns the distance the
+	 * unread chars have been moved by.
+	 */
+	private int fill() throws IOException
+	{
+		int shift = pos;
+		if (shift > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+		if (limit == buf.length) {
+			buf = Arrays.copyOf(buf, 2 * buf.length);
+		}
+		int n = in.read(buf, limit, buf.length - limit);
+		if (n < 0) {
+			eof = true;
+		} else {
+			limit += n;
+		}
+		return shift;
+	}
+
+	private final class Line implements CharSequence
+	{
+		@Override
+		public int length()
+		{
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index)
+		{
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			}
+			return buf[start + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to)
+		{
+			return toString().substring(from, to);
+		}
+
+		@Override
+		public String toString()
+		{
+			return new String(buf, start, end - start);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving the lines read by the {@code forEachLine} methods of
+ * {@link CharStreams} and {@link TextFiles}.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public interface LineProcessor
+{
+	/**
+	 * Processes the given line. The given {@code CharSequence} is a view
+	 * over the reader's buffer, which is only valid until this method
+	 * returns; use its {@code toString()} method to keep a copy.
+	 *
+	 * @param line the line to process, without its line terminator.
+	 *
+	 * @return whether the following lines should be processed.
+	 *
+	 * @throws IOException if the line can't be processed.
+	 */
+	boolean process(CharSequence line) throws IOException;
+}
@@ -0,0 +1,141 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a throughput: counts events (typically bytes or characters), and
+ * computes an exponentially-weighted moving average of their rate. The rate
+ * is updated every second, so that the weight of the past measures decreases
+ * by a factor of e every time window. A meter may be shared by several
+ * streams. Instances of this class are thread-safe.
+ *
+ * @see MeteredInputStream
+ * @see MeteredOutputStream
+ * @see MeteredReader
+ * @see MeteredWriter
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class Meter
+{
+	private static final long TICK = TimeUnit.SECONDS.toNanos(1);
+
+	private final double alpha;
+	private long count;
+	private long uncounted;
+	private double rate;
+	private boolean initialized;
+	private long lastTick;
+
+	/** Creates a new {@code Meter} with a time window of 5 seconds. */
+	public Meter()
+	{
+		this(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Creates a new {@code Meter}.
+	 *
+	 * @param window the time window of the moving average.
+	 * @param unit the unit of {@code window}.
+	 *
+	 * @throws NullPointerException if {@code unit} is {@code null}.
+	 * @throws IllegalArgumentException if {@code window} is not strictly
+	 *	positive.
+	 */
+	public Meter(long window, TimeUnit unit)
+	{
+		this(window, unit, System.nanoTime());
+	}
+
+	Meter(long window, TimeUnit unit, long now)
+	{
+		Parameters.checkCondition(window > 0);
+		this.alpha = 1 - Math.exp(-(double) TICK / unit.toNanos(window));
+		this.lastTick = now;
+	}
+
+	/**
+	 * Records the given number of events.
+	 *
+	 * @param n the number of events.
+	 */
+	public void mark(long n)
+	{
+		mark(n, System.nanoTime());
+	}
+
+	synchronized void mark(long n, long now)
+	{
+		tick(now);
+		count += n;
+		uncounted += n;
+	}
+
+	/**
+	 * Returns the total number of events recorded by this meter.
+	 *
+	 * @return the total number of events.
+	 */
+	public synchronized long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the moving average rate of events per second. Returns 0
+	 * until a first full second has elapsed.
+	 *
+	 * @return the number of events per second.
+	 */
+	public double getRate()
+	{
+		return getRate(System.nanoTime());
+	}
+
+	synchronized double getRate(long now)
+	{
+		tick(now);
+		return rate;
+	}
+
+	private void tick(long now)
+	{
+		long ticks = (now - lastTick) / TICK;
+		if (ticks <= 0) {
+			return;
+		}
+		lastTick += ticks * TICK;
+		double instant = uncounted;
+		uncounted = 0;
+		if (initialized) {
+			rate += alpha * (instant - rate);
+		} else {
+			rate = instant;
+			initialized = true;
+		}
+		if (ticks > 1) {
+			rate *= Math.pow(1 - alpha, ticks - 1);
+		}
+	}
+}
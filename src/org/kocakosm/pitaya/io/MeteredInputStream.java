@@ -0,0 +1,131 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A decorating {@code InputStream} that records the bytes read from the
+ * underlying stream in a {@link Meter}, which gives both their total count
+ * and the current throughput. Skipped bytes are not recorded.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class MeteredInputStream extends InputStream
+{
+	private final InputStream in;
+	private final Meter meter;
+
+	/**
+	 * Creates a new {@code MeteredInputStream} with its own {@link Meter}.
+	 *
+	 * @param in the underlying stream.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 */
+	public MeteredInputStream(InputStream in)
+	{
+		this(in, new Meter());
+	}
+
+	/**
+	 * Creates a new {@code MeteredInputStream}.
+	 *
+	 * @param in the underlying stream.
+	 * @param meter the meter to use, which may be shared.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public MeteredInputStream(InputStream in, Meter meter)
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkNotNull(meter);
+		this.in = in;
+		this.meter = meter;
+	}
+
+	/**
+	 * Returns the {@link Meter} in which this stream records its reads.
+	 *
+	 * @return this stream's meter.
+	 */
+	public Meter getMeter()
+	{
+		return meter;
+	}
+
+	@Override
+	public int available() throws IOException
+	{
+		return in.available();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	@Override
+	public void mark(int readLimit)
+	{
+		in.mark(readLimit);
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return in.markSupported();
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		int b = in.read();
+		if (b != -1) {
+			meter.mark(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		int n = in.read(b, off, len);
+		if (n > 0) {
+			meter.mark(n);
+		}
+		return n;
+	}
+
+	@Override
+	public void reset() throws IOException
+	{
+		in.reset();
+	}
+
+	@Override
+	public long skip(long n) throws IOException
+	{
+		return in.skip(n);
+	}
+}
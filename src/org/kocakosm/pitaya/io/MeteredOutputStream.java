@@ -0,0 +1,101 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A decorating {@code OutputStream} that records the bytes written to the
+ * underlying stream in a {@link Meter}, which gives both their total count
+ * and the current throughput.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class MeteredOutputStream extends OutputStream
+{
+	private final OutputStream out;
+	private final Meter meter;
+
+	/**
+	 * Creates a new {@code MeteredOutputStream} with its own {@link Meter}.
+	 *
+	 * @param out the underlying stream.
+	 *
+	 * @throws NullPointerException if {@code out} is {@code null}.
+	 */
+	public MeteredOutputStream(OutputStream out)
+	{
+		this(out, new Meter());
+	}
+
+	/**
+	 * Creates a new {@code MeteredOutputStream}.
+	 *
+	 * @param out the underlying stream.
+	 * @param meter the meter to use, which may be shared.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public MeteredOutputStream(OutputStream out, Meter meter)
+	{
+		Parameters.checkNotNull(out);
+		Parameters.checkNotNull(meter);
+		this.out = out;
+		this.meter = meter;
+	}
+
+	/**
+	 * Returns the {@link Meter} in which this stream records its writes.
+	 *
+	 * @return this stream's meter.
+	 */
+	public Meter getMeter()
+	{
+		return meter;
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		out.write(b);
+		meter.mark(1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		out.write(b, off, len);
+		meter.mark(len);
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
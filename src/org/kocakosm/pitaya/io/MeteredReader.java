@@ -0,0 +1,131 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A decorating {@code Reader} that records the characters read from the
+ * underlying {@code Reader} in a {@link Meter}, which gives both their total
+ * count and the current throughput. Skipped characters are not recorded.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class MeteredReader extends Reader
+{
+	private final Reader reader;
+	private final Meter meter;
+
+	/**
+	 * Creates a new {@code MeteredReader} with its own {@link Meter}.
+	 *
+	 * @param reader the underlying {@code Reader}.
+	 *
+	 * @throws NullPointerException if {@code reader} is {@code null}.
+	 */
+	public MeteredReader(Reader reader)
+	{
+		this(reader, new Meter());
+	}
+
+	/**
+	 * Creates a new {@code MeteredReader}.
+	 *
+	 * @param reader the underlying {@code Reader}.
+	 * @param meter the meter to use, which may be shared.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public MeteredReader(Reader reader, Meter meter)
+	{
+		Parameters.checkNotNull(reader);
+		Parameters.checkNotNull(meter);
+		this.reader = reader;
+		this.meter = meter;
+	}
+
+	/**
+	 * Returns the {@link Meter} in which this reader records its reads.
+	 *
+	 * @return this reader's meter.
+	 */
+	public Meter getMeter()
+	{
+		return meter;
+	}
+
+	@Override
+	public boolean ready() throws IOException
+	{
+		return reader.ready();
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		int c = reader.read();
+		if (c != -1) {
+			meter.mark(1);
+		}
+		return c;
+	}
+
+	@Override
+	public int read(char[] buf, int off, int len) throws IOException
+	{
+		int n = reader.read(buf, off, len);
+		if (n > 0) {
+			meter.mark(n);
+		}
+		return n;
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return reader.markSupported();
+	}
+
+	@Override
+	public void mark(int readLimit) throws IOException
+	{
+		reader.mark(readLimit);
+	}
+
+	@Override
+	public void reset() throws IOException
+	{
+		reader.reset();
+	}
+
+	@Override
+	public long skip(long n) throws IOException
+	{
+		return reader.skip(n);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
@@ -0,0 +1,108 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A decorating {@code Writer} that records the characters written to the
+ * underlying {@code Writer} in a {@link Meter}, which gives both their total
+ * count and the current throughput.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class MeteredWriter extends Writer
+{
+	private final Writer out;
+	private final Meter meter;
+
+	/**
+	 * Creates a new {@code MeteredWriter} with its own {@link Meter}.
+	 *
+	 * @param out the underlying {@code Writer}.
+	 *
+	 * @throws NullPointerException if {@code out} is {@code null}.
+	 */
+	public MeteredWriter(Writer out)
+	{
+		this(out, new Meter());
+	}
+
+	/**
+	 * Creates a new {@code MeteredWriter}.
+	 *
+	 * @param out the underlying {@code Writer}.
+	 * @param meter the meter to use, which may be shared.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public MeteredWriter(Writer out, Meter meter)
+	{
+		Parameters.checkNotNull(out);
+		Parameters.checkNotNull(meter);
+		this.out = out;
+		this.meter = meter;
+	}
+
+	/**
+	 * Returns the {@link Meter} in which this writer records its writes.
+	 *
+	 * @return this writer's meter.
+	 */
+	public Meter getMeter()
+	{
+		return meter;
+	}
+
+	@Override
+	public void write(int c) throws IOException
+	{
+		out.write(c);
+		meter.mark(1);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException
+	{
+		out.write(cbuf, off, len);
+		meter.mark(len);
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException
+	{
+		out.write(str, off, len);
+		meter.mark(len);
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
@@ -21,17 +21,56 @@ import org.kocakosm.pitaya.util.Parameters;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 /**
- * Serialization utilities.
+ * Serialization utilities. Objects are encoded with a {@link Codec}: Java
+ * serialization by default, the compact {@link #BINARY} codec for common
+ * value types, or any user-supplied codec. Encodings are written into a
+ * reusable per-thread buffer, or directly into a caller-supplied
+ * {@code ByteBuffer}, and may be decoded from a slice of an array.
  *
  * @author Osman KOCAK
  */
 public final class ObjectCodec
 {
+	/**
+	 * The Java serialization {@link Codec}.
+	 *
+	 * @since 0.5
+	 */
+	public static final Codec<Serializable> JAVA = new JavaCodec();
+
+	/**
+	 * A compact binary {@link Codec} that writes no class descriptor. It
+	 * supports {@code null}, the boxed primitive types, {@code String}s,
+	 * {@code byte[]}s, {@code BigInteger}s, {@code BigDecimal}s,
+	 * {@code Date}s, {@code Fraction}s, {@code Duration}s, {@code URN}s,
+	 * {@code MediaType}s, and {@code List}s, {@code Set}s and {@code Map}s
+	 * of supported values, which are decoded as immutable collections.
+	 * Encoding an object of another type fails, including subclasses of
+	 * {@code Date}, such as {@code java.sql.Timestamp}, whose state
+	 * wouldn't be preserved.
+	 *
+	 * @since 0.5
+	 */
+	public static final Codec<Object> BINARY = new BinaryCodec();
+
+	private static final int MAX_RETAINED_BUFFER_SIZE = 65536;
+	private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<Buffer>()
+	{
+		@Override
+		protected Buffer initialValue()
+		{
+			return new Buffer();
+		}
+	};
+
 	/**
 	 * Serializes the given {@code Serializable} object into an array of
 	 * {@code byte}s.
@@ -46,17 +85,80 @@ public final class ObjectCodec
 	public static byte[] encode(Serializable object)
 	{
 		Parameters.checkNotNull(object);
-		ObjectOutputStream oos = null;
+		return encode(object, JAVA);
+	}
+
+	/**
+	 * Encodes the given object into an array of {@code byte}s using the
+	 * given {@code Codec}.
+	 *
+	 * @param <T> the object's type.
+	 * @param object the object to encode.
+	 * @param codec the codec to use.
+	 *
+	 * @return the given object's encoding.
+	 *
+	 * @throws NullPointerException if {@code codec} is {@code null}.
+	 * @throws EncodingException if the given object cannot be encoded.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> byte[] encode(T object, Codec<? super T> codec)
+	{
+		Parameters.checkNotNull(codec);
+		Buffer buf = BUFFER.get();
+		if (buf.inUse) {
+			buf = new Buffer();
+		}
+		buf.inUse = true;
 		try {
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			oos = new ObjectOutputStream(out);
-			oos.writeObject(object);
-			oos.flush();
-			return out.toByteArray();
+			codec.encode(object, buf);
+			return buf.toByteArray();
 		} catch (IOException ex) {
 			throw new EncodingException(ex);
 		} finally {
-			IO.close(oos);
+			buf.release();
+		}
+	}
+
+	/**
+	 * Encodes the given object into the given {@code ByteBuffer}, starting
+	 * at its current position, using the given {@code Codec}. On success,
+	 * the buffer's position is advanced past the encoding; otherwise it is
+	 * left unchanged.
+	 *
+	 * @param <T> the object's type.
+	 * @param object the object to encode.
+	 * @param codec the codec to use.
+	 * @param out the buffer to write into.
+	 *
+	 * @return the length of the encoding.
+	 *
+	 * @throws NullPointerException if {@code codec} or {@code out} is
+	 *	{@code null}.
+	 * @throws java.nio.BufferOverflowException if the encoding doesn't fit
+	 *	in the remaining space of {@code out}.
+	 * @throws java.nio.ReadOnlyBufferException if {@code out} is read-only.
+	 * @throws EncodingException if the given object cannot be encoded.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> int encode(T object, Codec<? super T> codec,
+		ByteBuffer out)
+	{
+		Parameters.checkNotNull(codec);
+		int start = out.position();
+		boolean done = false;
+		try {
+			codec.encode(object, new ByteBufferOutputStream(out));
+			done = true;
+			return out.position() - start;
+		} catch (IOException ex) {
+			throw new EncodingException(ex);
+		} finally {
+			if (!done) {
+				out.position(start);
+			}
 		}
 	}
 
@@ -90,20 +192,104 @@ public final class ObjectCodec
 	 *	instance of the expected class.
 	 */
 	public static <T extends Serializable> T decode(byte[] bytes, Class<T> t)
+	{
+		return decode(bytes, 0, bytes.length, t);
+	}
+
+	/**
+	 * Deserializes the given slice of an array of {@code byte}s into an
+	 * object.
+	 *
+	 * @param <T> the object's expected type.
+	 * @param bytes the array containing the object's encoding.
+	 * @param off the offset of the encoding in {@code bytes}.
+	 * @param len the length of the encoding.
+	 * @param t the object's expected type's {@code Class}.
+	 *
+	 * @return the deserialized object.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+	 *	negative or if {@code off + len} is greater than
+	 *	{@code bytes.length}.
+	 * @throws DecodingException if the deserialization fails.
+	 * @throws ClassCastException if the deserialized object is not an
+	 *	instance of the expected class.
+	 *
+	 * @since 0.5
+	 */
+	public static <T extends Serializable> T decode(byte[] bytes, int off,
+		int len, Class<T> t)
 	{
 		Parameters.checkNotNull(t);
-		Parameters.checkNotNull(bytes);
-		ObjectInputStream ois = null;
-		ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+		return Parameters.checkType(decode(bytes, off, len, JAVA), t);
+	}
+
+	/**
+	 * Decodes the given slice of an array of {@code byte}s into an object
+	 * using the given {@code Codec}.
+	 *
+	 * @param <T> the object's type.
+	 * @param bytes the array containing the object's encoding.
+	 * @param off the offset of the encoding in {@code bytes}.
+	 * @param len the length of the encoding.
+	 * @param codec the codec to use.
+	 *
+	 * @return the decoded object.
+	 *
+	 * @throws NullPointerException if {@code bytes} or {@code codec} is
+	 *	{@code null}.
+	 * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+	 *	negative or if {@code off + len} is greater than
+	 *	{@code bytes.length}.
+	 * @throws DecodingException if the decoding fails.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> T decode(byte[] bytes, int off, int len,
+		Codec<? extends T> codec)
+	{
+		Parameters.checkNotNull(codec);
+		if (off < 0 || len < 0 || off > bytes.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
 		try {
-			ois = new ObjectInputStream(in);
-			return Parameters.checkType(ois.readObject(), t);
+			return codec.decode(new ByteArrayInputStream(bytes, off, len));
 		} catch (IOException ex) {
 			throw new DecodingException(ex);
-		} catch (ClassNotFoundException ex) {
+		} catch (RuntimeException ex) {
+			/* Codecs may fail on invalid content with any exception. */
+			throw new DecodingException(ex);
+		}
+	}
+
+	/**
+	 * Decodes an object from the given {@code ByteBuffer}, starting at its
+	 * current position, using the given {@code Codec}. The buffer's
+	 * position is advanced past the bytes read by the codec.
+	 *
+	 * @param <T> the object's type.
+	 * @param in the buffer containing the object's encoding.
+	 * @param codec the codec to use.
+	 *
+	 * @return the decoded object.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws DecodingException if the decoding fails.
+	 *
+	 * @since 0.5
+	 */
+	public static <T> T decode(ByteBuffer in, Codec<? extends T> codec)
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkNotNull(codec);
+		try {
+			return codec.decode(new ByteBufferInputStream(in));
+		} catch (IOException ex) {
+			throw new DecodingException(ex);
+		} catch (RuntimeException ex) {
+			/* Codecs may fail on invalid content with any exception. */
 			throw new DecodingException(ex);
-		} finally {
-			IO.close(ois);
 		}
 	}
 
@@ -129,6 +315,110 @@ public final class ObjectCodec
 		}
 	}
 
+	private static final class JavaCodec implements Codec<Serializable>
+	{
+		@Override
+		public void encode(Serializable object, OutputStream out)
+			throws IOException
+		{
+			ObjectOutputStream oos = new ObjectOutputStream(out);
+			oos.writeObject(object);
+			oos.flush();
+		}
+
+		@Override
+		public Serializable decode(InputStream in) throws IOException
+		{
+			ObjectInputStream ois = new ObjectInputStream(in);
+			try {
+				return (Serializable) ois.readObject();
+			} catch (ClassNotFoundException ex) {
+				throw new IOException(ex.getMessage(), ex);
+			}
+		}
+	}
+
+	/** A reusable {@code ByteArrayOutputStream}. */
+	private static final class Buffer extends ByteArrayOutputStream
+	{
+		boolean inUse;
+
+		Buffer()
+		{
+			super(256);
+		}
+
+		void release()
+		{
+			reset();
+			if (buf.length > MAX_RETAINED_BUFFER_SIZE) {
+				buf = new byte[256];
+			}
+			inUse = false;
+		}
+	}
+
+	private static final class ByteBufferOutputStream extends OutputStream
+	{
+		private final ByteBuffer buf;
+
+		ByteBufferOutputStream(ByteBuffer buf)
+		{
+			this.buf = buf;
+		}
+
+		@Override
+		public void write(int b)
+		{
+			buf.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			buf.put(b, off, len);
+		}
+	}
+
+	private static final class ByteBufferInputStream extends InputStream
+	{
+		private final ByteBuffer buf;
+
+		ByteBufferInputStream(ByteBuffer buf)
+		{
+			this.buf = buf;
+		}
+
+		@Override
+		public int read()
+		{
+			return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len)
+		{
+			if (off < 0 || len < 0 || off > b.length - len) {
+				throw new IndexOutOfBoundsException();
+			}
+			if (len == 0) {
+				return 0;
+			}
+			if (!buf.hasRemaining()) {
+				return -1;
+			}
+			int n = Math.min(len, buf.remaining());
+			buf.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available()
+		{
+			return buf.remaining();
+		}
+	}
+
 	private ObjectCodec()
 	{
 		/* ... */
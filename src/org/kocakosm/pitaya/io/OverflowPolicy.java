@@ -0,0 +1,42 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+/**
+ * What an asynchronous tee does when the buffer of one of its sinks is full.
+ *
+ * @see AsyncTeeOutputStream
+ * @see AsyncTeeWriter
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public enum OverflowPolicy
+{
+	/** Wait until the sink's writer thread has freed enough space. */
+	BLOCK,
+
+	/** Silently drop the data that doesn't fit in the sink's buffer. */
+	DROP,
+
+	/**
+	 * Drop the data that doesn't fit in the sink's buffer and throw an
+	 * {@code IOException}.
+	 */
+	FAIL;
+}
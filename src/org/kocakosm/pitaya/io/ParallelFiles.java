@@ -0,0 +1,549 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.ParallelTasks;
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel versions of the {@link XFiles} methods that walk directory trees.
+ * Each directory listing and each regular file is processed by its own task,
+ * tasks being taken from a shared queue by a bounded number of threads, so
+ * that idle threads always pick up the next pending file. These methods
+ * don't stop on the first error: all the errors encountered are reported
+ * together, through a {@link CompositeIOException}, once the whole tree has
+ * been processed. Their progress can be followed from another thread through
+ * a {@link Progress} instance.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ParallelFiles
+{
+	/**
+	 * Progress counters of a parallel operation. Instances of this class
+	 * are thread-safe, and may be polled while the operation runs.
+	 */
+	public static final class Progress
+	{
+		private final AtomicLong files = new AtomicLong();
+		private final AtomicLong bytes = new AtomicLong();
+
+		/**
+		 * Returns the number of regular files processed so far.
+		 *
+		 * @return the number of regular files processed so far.
+		 */
+		public long getFileCount()
+		{
+			return files.get();
+		}
+
+		/**
+		 * Returns the number of bytes contained in the regular files
+		 * processed so far.
+		 *
+		 * @return the number of bytes processed so far.
+		 */
+		public long getByteCount()
+		{
+			return bytes.get();
+		}
+
+		void done(long length)
+		{
+			files.incrementAndGet();
+			bytes.addAndGet(length);
+		}
+	}
+
+	/**
+	 * Copies the contents of {@code src} to {@code dst}, using up to
+	 * {@code parallelism} threads. Follows the semantics of
+	 * {@link XFiles#cp(File, File)}.
+	 *
+	 * @param src the source {@code File}.
+	 * @param dst the target {@code File}.
+	 * @param parallelism the maximum number of threads to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code parallelism} is not
+	 *	strictly positive, or if {@code src} is a directory and
+	 *	{@code dst} is a regular file.
+	 * @throws IOException if {@code src} doesn't exist, or if one or more
+	 *	I/O errors occur during the process.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code src} or write access to {@code dst}.
+	 */
+	public static void cp(File src, File dst, int parallelism)
+		throws IOException
+	{
+		cp(src, dst, parallelism, new Progress());
+	}
+
+	/**
+	 * Copies the contents of {@code src} to {@code dst}, using up to
+	 * {@code parallelism} threads and reporting progress to the given
+	 * {@code Progress} instance. Follows the semantics of
+	 * {@link XFiles#cp(File, File)}.
+	 *
+	 * @param src the source {@code File}.
+	 * @param dst the target {@code File}.
+	 * @param parallelism the maximum number of threads to use.
+	 * @param progress the progress counters to update.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code parallelism} is not
+	 *	strictly positive, or if {@code src} is a directory and
+	 *	{@code dst} is a regular file.
+	 * @throws IOException if {@code src} doesn't exist, or if one or more
+	 *	I/O errors occur during the process.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code src} or write access to {@code dst}.
+	 */
+	public static void cp(File src, File dst, int parallelism,
+		Progress progress) throws IOException
+	{
+		Parameters.checkNotNull(progress);
+		Parameters.checkCondition(parallelism > 0);
+		if (!src.exists()) {
+			throw new FileNotFoundException(src + " doesn't exist");
+		}
+		Parameters.checkCondition((!dst.exists() || dst.isDirectory())
+			|| (src.isFile() && dst.isFile()));
+		File target = dst.isDirectory() ? new File(dst, src.getName()) : dst;
+		Scheduler scheduler = new Scheduler(parallelism);
+		scheduler.submit(new Copy(scheduler, progress, src, target));
+		scheduler.await();
+	}
+
+	/**
+	 * Deletes the given {@code File}, using up to {@code parallelism}
+	 * threads. If it is a directory, all its content is recursively
+	 * deleted. Does nothing if {@code f} doesn't exist.
+	 *
+	 * @param f the {@code File} to delete.
+	 * @param parallelism the maximum number of threads to use.
+	 *
+	 * @throws NullPointerException if {@code f} is {@code null}.
+	 * @throws IllegalArgumentException if {@code parallelism} is not
+	 *	strictly positive.
+	 * @throws IOException if one or more {@code File}s can't be deleted.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read/write access to {@code f} or its children.
+	 */
+	public static void rm(File f, int parallelism) throws IOException
+	{
+		rm(f, parallelism, new Progress());
+	}
+
+	/**
+	 * Deletes the given {@code File}, using up to {@code parallelism}
+	 * threads and reporting progress to the given {@code Progress}
+	 * instance. If it is a directory, all its content is recursively
+	 * deleted; directories are not counted as processed files. Does
+	 * nothing if {@code f} doesn't exist.
+	 *
+	 * @param f the {@code File} to delete.
+	 * @param parallelism the maximum number of threads to use.
+	 * @param progress the progress counters to update.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code parallelism} is not
+	 *	strictly positive.
+	 * @throws IOException if one or more {@code File}s can't be deleted.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read/write access to {@code f} or its children.
+	 */
+	public static void rm(File f, int parallelism, Progress progress)
+		throws IOException
+	{
+		Parameters.checkNotNull(progress);
+		Scheduler scheduler = new Scheduler(parallelism);
+		if (f.exists()) {
+			scheduler.submit(new Delete(scheduler, progress,
+				new Node(f, null)));
+		}
+		scheduler.await();
+	}
+
+	/**
+	 * Returns whether the given {@code File}s have the same content, using
+	 * up to {@code parallelism} threads. Follows the semantics of
+	 * {@link XFiles#equal(File, File)}.
+	 *
+	 * @param f1 the first {@code File}.
+	 * @param f2 the second {@code File}.
+	 * @param parallelism the maximum number of threads to use.
+	 *
+	 * @return whether the given {@code File}s have the same content.
+	 *
+	 * @throws IllegalArgumentException if {@code parallelism} is not
+	 *	strictly positive.
+	 * @throws IOException if the content of the {@code File}s can't be
+	 *	read and no difference has been found.
+	 */
+	public static boolean equal(File f1, File f2, int parallelism)
+		throws IOException
+	{
+		return equal(f1, f2, parallelism, new Progress());
+	}
+
+	/**
+	 * Returns whether the given {@code File}s have the same content, using
+	 * up to {@code parallelism} threads and reporting progress to the
+	 * given {@code Progress} instance. Follows the semantics of
+	 * {@link XFiles#equal(File, File)}. The comparison stops as soon as a
+	 * difference is found.
+	 *
+	 * @param f1 the first {@code File}.
+	 * @param f2 the second {@code File}.
+	 * @param parallelism the maximum number of threads to use.
+	 * @param progress the progress counters to update.
+	 *
+	 * @return whether the given {@code File}s have the same content.
+	 *
+	 * @throws NullPointerException if {@code progress} is {@code null}.
+	 * @throws IllegalArgumentException if {@code parallelism} is not
+	 *	strictly positive.
+	 * @throws IOException if the content of the {@code File}s can't be
+	 *	read and no difference has been found.
+	 */
+	public static boolean equal(File f1, File f2, int parallelism,
+		Progress progress) throws IOException
+	{
+		Parameters.checkNotNull(progress);
+		Parameters.checkCondition(parallelism > 0);
+		if (f1 == f2) {
+			return true;
+		}
+		if (f1 == null || f2 == null || !haveSameType(f1, f2)) {
+			return false;
+		}
+		if (f1.equals(f2)) {
+			return true;
+		}
+		Scheduler scheduler = new Scheduler(parallelism);
+		AtomicBoolean different = new AtomicBoolean();
+		scheduler.submit(new Compare(scheduler, progress, different, f1, f2));
+		try {
+			scheduler.await();
+		} catch (CompositeIOException e) {
+			if (!different.get()) {
+				throw e;
+			}
+		}
+		return !different.get();
+	}
+
+	private static boolean haveSameType(File f1, File f2)
+	{
+		return f1.isFile() == f2.isFile()
+			&& f1.isDirectory() == f2.isDirectory();
+	}
+
+	private static File[] list(File dir) throws IOException
+	{
+		File[] files = dir.listFiles();
+		if (files == null) {
+			throw new IOException("Can't list " + dir);
+		}
+		return files;
+	}
+
+	/** Returns a new fixed-size thread pool made of daemon threads. */
+	static ExecutorService newExecutor(int parallelism)
+	{
+		Parameters.checkCondition(parallelism > 0);
+		return Executors.newFixedThreadPool(parallelism,
+			ParallelTasks.newThreadFactory("pitaya-files-"));
+	}
+
+	/** A unit of work, that may schedule other units of work. */
+	private interface Job
+	{
+		void run() throws IOException;
+	}
+
+	/**
+	 * Runs jobs on a private thread pool and waits until all of them,
+	 * including the ones they scheduled, are done, collecting their errors.
+	 */
+	private static final class Scheduler
+	{
+		private final ExecutorService executor;
+		private final AtomicInteger pending;
+		private final CountDownLatch done;
+		private final List<IOException> errors;
+
+		Scheduler(int parallelism)
+		{
+			this.executor = newExecutor(parallelism);
+			this.pending = new AtomicInteger();
+			this.done = new CountDownLatch(1);
+			this.errors = new ArrayList<IOException>();
+		}
+
+		void submit(final Job job)
+		{
+			pending.incrementAndGet();
+			executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try {
+						job.run();
+					} catch (IOException e) {
+						error(e);
+					} catch (RuntimeException e) {
+						error(new IOException(e));
+					} finally {
+						if (pending.decrementAndGet() == 0) {
+							done.countDown();
+						}
+					}
+				}
+			});
+		}
+
+		void error(IOException e)
+		{
+			synchronized (errors) {
+				errors.add(e);
+			}
+		}
+
+		void await() throws IOException
+		{
+			try {
+				if (pending.get() > 0) {
+					done.await();
+				}
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			executor.shutdown();
+			synchronized (errors) {
+				if (!errors.isEmpty()) {
+					throw new CompositeIOException(errors);
+				}
+			}
+		}
+	}
+
+	private static final class Copy implements Job
+	{
+		private final Scheduler scheduler;
+		private final Progress progress;
+		private final File src;
+		private final File dst;
+
+		Copy(Scheduler scheduler, Progress progress, File src, File dst)
+		{
+			this.scheduler = scheduler;
+			this.progress = progress;
+			this.src = src;
+			this.dst = dst;
+		}
+
+		@Override
+		public void run() throws IOException
+		{
+			if (src.isDirectory()) {
+				XFiles.mkdir(dst);
+				for (File f : list(src)) {
+					scheduler.submit(new Copy(scheduler, progress,
+						f, new File(dst, f.getName())));
+				}
+			} else if (src.isFile()) {
+				XFiles.cp(src, dst);
+				progress.done(src.length());
+			} else {
+				throw new IOException(src
+					+ " is neither a directory nor a regular file");
+			}
+		}
+	}
+
+	/**
+	 * A {@code File} to delete. Directories are deleted by the job that
+	 * deletes their last child.
+	 */
+	private static final class Node
+	{
+		final File file;
+		final Node parent;
+		final AtomicInteger children;
+		volatile boolean failed;
+
+		Node(File file, Node parent)
+		{
+			this.file = file;
+			this.parent = parent;
+			this.children = new AtomicInteger();
+		}
+	}
+
+	private static final class Delete implements Job
+	{
+		private final Scheduler scheduler;
+		private final Progress progress;
+		private final Node node;
+
+		Delete(Scheduler scheduler, Progress progress, Node node)
+		{
+			this.scheduler = scheduler;
+			this.progress = progress;
+			this.node = node;
+		}
+
+		@Override
+		public void run()
+		{
+			if (node.file.isDirectory()) {
+				File[] files;
+				try {
+					files = list(node.file);
+				} catch (IOException e) {
+					scheduler.error(e);
+					delete(complete(node, false));
+					return;
+				}
+				if (files.length > 0) {
+					node.children.set(files.length);
+					for (File f : files) {
+						scheduler.submit(new Delete(scheduler,
+							progress, new Node(f, node)));
+					}
+					return;
+				}
+			}
+			delete(node);
+		}
+
+		/**
+		 * Deletes the given node, and then its ancestors as long as the
+		 * deleted node was the last child of its parent.
+		 */
+		private void delete(Node n)
+		{
+			Node current = n;
+			while (current != null) {
+				boolean success = !current.failed;
+				if (success) {
+					boolean dir = current.file.isDirectory();
+					long length = dir ? 0 : current.file.length();
+					success = current.file.delete();
+					if (!success) {
+						scheduler.error(new IOException(
+							"Can't delete " + current.file));
+					} else if (!dir) {
+						progress.done(length);
+					}
+				}
+				current = complete(current, success);
+			}
+		}
+
+		/**
+		 * Signals the parent of the given node that one of its children
+		 * has been processed, and returns the parent if it is ready to
+		 * be deleted.
+		 */
+		private Node complete(Node n, boolean success)
+		{
+			Node parent = n.parent;
+			if (parent == null) {
+				return null;
+			}
+			if (!success) {
+				parent.failed = true;
+			}
+			return parent.children.decrementAndGet() == 0 ? parent : null;
+		}
+	}
+
+	private static final class Compare implements Job
+	{
+		private final Scheduler scheduler;
+		private final Progress progress;
+		private final AtomicBoolean different;
+		private final File f1;
+		private final File f2;
+
+		Compare(Scheduler scheduler, Progress progress,
+			AtomicBoolean different, File f1, File f2)
+		{
+			this.scheduler = scheduler;
+			this.progress = progress;
+			this.different = different;
+			this.f1 = f1;
+			this.f2 = f2;
+		}
+
+		@Override
+		public void run() throws IOException
+		{
+			if (different.get()) {
+				return;
+			}
+			if (f1.isFile()) {
+				if (!XFiles.equal(f1, f2)) {
+					different.set(true);
+				}
+				progress.done(f1.length());
+				return;
+			}
+			File[] files = list(f1);
+			if (files.length != list(f2).length) {
+				different.set(true);
+				return;
+			}
+			for (File f : files) {
+				File g = new File(f2, f.getName());
+				if (!haveSameType(f, g)) {
+					different.set(true);
+					return;
+				}
+				scheduler.submit(new Compare(scheduler, progress,
+					different, f, g));
+			}
+		}
+	}
+
+	private ParallelFiles()
+	{
+		/* ... */
+	}
+}
@@ -16,6 +16,7 @@
 
 package org.kocakosm.pitaya.io;
 
+import org.kocakosm.pitaya.util.LittleEndian;
 import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.InputStream;
@@ -25,19 +26,69 @@ import java.util.Random;
  * {@code InputStream} that reads data from a (pseudo) random number generator.
  * This stream has no end of file. Closing a {@code RandomInputStream} has no
  * effect. Never throws {@code IOException}s. Thread safe.
+ * <p>
+ * Unless a {@code Random} instance is given at construction, the data is
+ * generated with a SplitMix64 generator owned by the stream and written
+ * directly into the caller's buffers. Such a stream reads the infinite byte
+ * sequence determined by its seed, each byte depending only on the seed and
+ * on its offset in the sequence: streams created with the same seed return
+ * the same data, however it is read, and streams created with the same seed
+ * and different start offsets return different parts of the same sequence,
+ * which allows to generate large payloads in parallel. Skipping bytes
+ * costs nothing. This generator is not suitable for cryptographic purposes.
  *
  * @author Osman KOCAK
  */
 public final class RandomInputStream extends InputStream
 {
-	private static final Random PRNG = new Random();
+	private static final int SCRATCH_SIZE = 8192;
 
 	private final Random prng;
+	private final long seed;
+	private long position;
+	private byte[] scratch;
+	private int available;
 
-	/** Creates a new {@code RandomInputStream}. */
+	/**
+	 * Creates a new {@code RandomInputStream} that reads the sequence
+	 * determined by a seed distinct from the ones of the previously created
+	 * streams.
+	 */
 	public RandomInputStream()
 	{
-		this(PRNG);
+		this(SplitMix.newSeed());
+	}
+
+	/**
+	 * Creates a new {@code RandomInputStream} that reads the sequence
+	 * determined by the given seed from its beginning.
+	 *
+	 * @param seed the seed.
+	 *
+	 * @since 0.5
+	 */
+	public RandomInputStream(long seed)
+	{
+		this(seed, 0);
+	}
+
+	/**
+	 * Creates a new {@code RandomInputStream} that reads the sequence
+	 * determined by the given seed from the given offset.
+	 *
+	 * @param seed the seed.
+	 * @param offset the offset of the first byte to read.
+	 *
+	 * @throws IllegalArgumentException if {@code offset} is negative.
+	 *
+	 * @since 0.5
+	 */
+	public RandomInputStream(long seed, long offset)
+	{
+		Parameters.checkCondition(offset >= 0);
+		this.prng = null;
+		this.seed = seed;
+		this.position = offset;
 	}
 
 	/**
@@ -51,30 +102,93 @@ public final class RandomInputStream extends InputStream
 	{
 		Parameters.checkNotNull(prng);
 		this.prng = prng;
+		this.seed = 0;
 	}
 
 	@Override
-	public int read()
+	public synchronized int read()
 	{
-		return prng.nextInt(256);
+		if (prng != null) {
+			return prng.nextInt(256);
+		}
+		return byteAt(position++) & 0xFF;
 	}
 
 	@Override
 	public int read(byte[] b)
 	{
-		prng.nextBytes(b);
-		return b.length;
+		return read(b, 0, b.length);
 	}
 
 	@Override
-	public int read(byte[] b, int off, int len)
+	public synchronized int read(byte[] b, int off, int len)
 	{
-		if (off < 0 || len < 0 || off + len > b.length) {
+		if (off < 0 || len < 0 || off > b.length - len) {
 			throw new IndexOutOfBoundsException();
 		}
-		byte[] tmp = new byte[len];
-		prng.nextBytes(tmp);
-		System.arraycopy(tmp, 0, b, off, len);
+		if (prng == null) {
+			fill(b, off, len);
+		} else if (off == 0 && len == b.length) {
+			prng.nextBytes(b);
+		} else {
+			fillFromPRNG(b, off, len);
+		}
 		return len;
 	}
+
+	@Override
+	public synchronized long skip(long n)
+	{
+		if (n <= 0) {
+			return 0;
+		}
+		position += n;
+		return n;
+	}
+
+	private void fill(byte[] b, int off, int len)
+	{
+		int end = off + len;
+		int i = off;
+		while (i < end && (position & 7) != 0) {
+			b[i++] = byteAt(position++);
+		}
+		while (end - i >= 8) {
+			LittleEndian.encode(SplitMix.word(seed, position >>> 3), b, i);
+			position += 8;
+			i += 8;
+		}
+		while (i < end) {
+			b[i++] = byteAt(position++);
+		}
+	}
+
+	private byte byteAt(long offset)
+	{
+		long word = SplitMix.word(seed, offset >>> 3);
+		return (byte) (word >>> ((offset & 7) << 3));
+	}
+
+	/**
+	 * Fills the given range from the scratch buffer, refilling it from the
+	 * PRNG whenever it is exhausted; its unused bytes are kept for the
+	 * next reads.
+	 */
+	private void fillFromPRNG(byte[] b, int off, int len)
+	{
+		if (scratch == null) {
+			scratch = new byte[SCRATCH_SIZE];
+		}
+		while (len > 0) {
+			if (available == 0) {
+				prng.nextBytes(scratch);
+				available = SCRATCH_SIZE;
+			}
+			int n = Math.min(len, available);
+			System.arraycopy(scratch, SCRATCH_SIZE - available, b, off, n);
+			available -= n;
+			off += n;
+			len -= n;
+		}
+	}
 }
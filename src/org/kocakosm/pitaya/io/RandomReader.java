@@ -26,18 +26,28 @@ import java.util.Random;
  * {@code Reader} that (pseudo) randomly returns characters from a specified
  * alphabet. This stream has no end of file. Closing a {@code RandomReader} has
  * no effect. Never throws {@code IOException}s. Thread safe.
+ * <p>
+ * Unless a {@code Random} instance is given at construction, characters are
+ * picked with a SplitMix64 generator owned by the reader. Such a reader reads
+ * the infinite character sequence determined by its seed and alphabet, each
+ * character depending only on them and on its offset in the sequence: readers
+ * created with the same seed and alphabet return the same characters, however
+ * they are read, and readers created with different start offsets return
+ * different parts of the same sequence. Skipping characters costs nothing.
+ * This generator is not suitable for cryptographic purposes.
  *
  * @author Osman KOCAK
  */
 public final class RandomReader extends Reader
 {
-	private static final Random PRNG = new Random();
-
 	private final Random prng;
+	private final long seed;
 	private final char[] alphabet;
+	private long position;
 
 	/**
-	 * Creates a new {@code RandomReader}.
+	 * Creates a new {@code RandomReader} that reads the sequence determined
+	 * by a seed distinct from the ones of the previously created readers.
 	 *
 	 * @param alphabet the source alphabet to use.
 	 *
@@ -46,7 +56,31 @@ public final class RandomReader extends Reader
 	 */
 	public RandomReader(char... alphabet)
 	{
-		this(PRNG, alphabet);
+		this(SplitMix.newSeed(), 0, alphabet);
+	}
+
+	/**
+	 * Creates a new {@code RandomReader} that reads the sequence determined
+	 * by the given seed from the given offset.
+	 *
+	 * @param seed the seed.
+	 * @param offset the offset of the first character to read.
+	 * @param alphabet the source alphabet to use.
+	 *
+	 * @throws NullPointerException if {@code alphabet} is {@code null}.
+	 * @throws IllegalArgumentException if {@code offset} is negative or if
+	 *	{@code alphabet} is empty.
+	 *
+	 * @since 0.5
+	 */
+	public RandomReader(long seed, long offset, char... alphabet)
+	{
+		Parameters.checkCondition(offset >= 0);
+		Parameters.checkCondition(alphabet.length > 0);
+		this.prng = null;
+		this.seed = seed;
+		this.position = offset;
+		this.alphabet = Arrays.copyOf(alphabet, alphabet.length);
 	}
 
 	/**
@@ -63,39 +97,78 @@ public final class RandomReader extends Reader
 		Parameters.checkNotNull(prng);
 		Parameters.checkCondition(alphabet.length > 0);
 		this.prng = prng;
+		this.seed = 0;
 		this.alphabet = Arrays.copyOf(alphabet, alphabet.length);
 	}
 
 	@Override
-	public int read()
+	public synchronized int read()
 	{
-		return alphabet[prng.nextInt(alphabet.length)];
+		if (prng != null) {
+			return alphabet[prng.nextInt(alphabet.length)];
+		}
+		return charAt(position++);
 	}
 
 	@Override
 	public int read(char[] cbuf)
 	{
-		for (int i = 0; i < cbuf.length; i++) {
-			cbuf[i] = (char) read();
-		}
-		return cbuf.length;
+		return read(cbuf, 0, cbuf.length);
 	}
 
 	@Override
-	public int read(char[] cbuf, int off, int len)
+	public synchronized int read(char[] cbuf, int off, int len)
 	{
-		if (off < 0 || len < 0 || off + len > cbuf.length) {
+		if (off < 0 || len < 0 || off > cbuf.length - len) {
 			throw new IndexOutOfBoundsException();
 		}
-		for (int i = 0; i < len; i++) {
-			cbuf[off + i] = (char) read();
+		int end = off + len;
+		if (prng != null) {
+			for (int i = off; i < end; i++) {
+				cbuf[i] = alphabet[prng.nextInt(alphabet.length)];
+			}
+			return len;
+		}
+		int i = off;
+		if (i < end && (position & 1) != 0) {
+			cbuf[i++] = charAt(position++);
+		}
+		for (; end - i >= 2; i += 2) {
+			long word = SplitMix.word(seed, position >>> 1);
+			cbuf[i] = pick((int) word);
+			cbuf[i + 1] = pick((int) (word >>> 32));
+			position += 2;
+		}
+		if (i < end) {
+			cbuf[i] = charAt(position++);
 		}
 		return len;
 	}
 
+	@Override
+	public synchronized long skip(long n)
+	{
+		Parameters.checkCondition(n >= 0);
+		position += n;
+		return n;
+	}
+
 	@Override
 	public void close()
 	{
 		/* ... */
 	}
+
+	private char charAt(long offset)
+	{
+		long word = SplitMix.word(seed, offset >>> 1);
+		return pick((int) (word >>> ((offset & 1) << 5)));
+	}
+
+	/** Maps 32 random bits to a character of the alphabet. */
+	private char pick(int bits)
+	{
+		long index = ((bits & 0xFFFFFFFFL) * alphabet.length) >>> 32;
+		return alphabet[(int) index];
+	}
 }
@@ -0,0 +1,571 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of binary records, stored in a directory as a sequence
+ * of preallocated, memory-mapped segment files. Each record is written with
+ * its length and a CRC-32 checksum of both, and is identified by its address,
+ * a byte offset in the whole log, which can be used to read it back directly.
+ *
+ * <p>Appenders claim the space of their records with a single atomic
+ * increment, and then write them concurrently. When a segment is full, a new
+ * one is created; the oldest segments are deleted once their count exceeds
+ * the configured maximum. {@link #flush()} waits for the appends in progress
+ * to complete, so that the records appended before it was called are durable
+ * once it has returned. Likewise, a replay covers the records appended before
+ * it started.</p>
+ *
+ * <p>When an existing log is opened, its records are kept, but appends go to
+ * a new segment. A record that is missing or whose checksum is invalid, as
+ * left by a crash in the middle of a write, is skipped: the following records
+ * are found again by scanning the segment 8 bytes at a time.</p>
+ *
+ * <p>Instances of this class are thread-safe. Note that segment files stay
+ * mapped until their buffers are garbage collected, even after the log has
+ * been closed or the files deleted.</p>
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class RecordLog implements Closeable
+{
+	/** The default size of the segment files (64 MB). */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private static final int HEADER_SIZE = 8;
+	private static final int CHUNK_SIZE = 8192;
+	private static final String SUFFIX = ".log";
+
+	private final File dir;
+	private final int segmentSize;
+	private final int maxSegments;
+	private final List<Segment> segments;
+	private final List<Segment> dirty;
+	private final ReadWriteLock appends;
+	private volatile Segment active;
+	private volatile boolean closed;
+
+	/**
+	 * Opens or creates the log stored in the given directory, with 64 MB
+	 * segments and no retention limit.
+	 *
+	 * @param dir the log's directory.
+	 *
+	 * @throws NullPointerException if {@code dir} is {@code null}.
+	 * @throws IOException if the log can't be opened.
+	 */
+	public RecordLog(File dir) throws IOException
+	{
+		this(dir, DEFAULT_SEGMENT_SIZE, 0);
+	}
+
+	/**
+	 * Opens or creates the log stored in the given directory.
+	 *
+	 * @param dir the log's directory.
+	 * @param segmentSize the size of the segment files, rounded down to a
+	 *	multiple of 8; this is also the maximum size of a record along
+	 *	with its 8-byte header.
+	 * @param maxSegments the maximum number of segments to keep, or
+	 *	{@code 0} to keep them all.
+	 *
+	 * @throws NullPointerException if {@code dir} is {@code null}.
+	 * @throws IllegalArgumentException if {@code segmentSize} is lower
+	 *	than 16 or if {@code maxSegments} is negative.
+	 * @throws IOException if the log can't be opened.
+	 */
+	public RecordLog(File dir, int segmentSize, int maxSegments)
+		throws IOException
+	{
+		Parameters.checkNotNull(dir);
+		Parameters.checkCondition(segmentSize >= 2 * HEADER_SIZE);
+		Parameters.checkCondition(maxSegments >= 0);
+		this.dir = dir;
+		this.segmentSize = segmentSize & ~7;
+		this.maxSegments = maxSegments;
+		this.segments = new ArrayList<Segment>();
+		this.dirty = new ArrayList<Segment>();
+		this.appends = new ReentrantReadWriteLock();
+		XFiles.mkdir(dir);
+		long next = 0;
+		for (File f : listSegments(dir)) {
+			Segment segment = Segment.open(f);
+			if (segment.capacity > 0) {
+				segments.add(segment);
+			}
+			next = segment.base + segment.capacity;
+		}
+		if (!segments.isEmpty()) {
+			Segment last = segments.get(segments.size() - 1);
+			if (!hasRecords(last)) {
+				segments.remove(segments.size() - 1);
+				last.file.delete();
+			}
+		}
+		this.active = Segment.create(dir, next, this.segmentSize);
+		segments.add(active);
+		retain();
+	}
+
+	/**
+	 * Appends the given record to this log.
+	 *
+	 * @param record the record to append.
+	 *
+	 * @return the record's address.
+	 *
+	 * @throws NullPointerException if {@code record} is {@code null}.
+	 * @throws IllegalArgumentException if {@code record} doesn't fit in a
+	 *	segment.
+	 * @throws IOException if this log is closed or if a new segment can't
+	 *	be created.
+	 */
+	public long append(byte[] record) throws IOException
+	{
+		return append(record, 0, record.length);
+	}
+
+	/**
+	 * Appends the given record to this log.
+	 *
+	 * @param record the array containing the record to append.
+	 * @param off the record's offset in {@code record}.
+	 * @param len the record's length.
+	 *
+	 * @return the record's address.
+	 *
+	 * @throws NullPointerException if {@code record} is {@code null}.
+	 * @throws IndexOutOfBoundsException if {@code off} or {@code len} are
+	 *	out of bounds.
+	 * @throws IllegalArgumentException if the record doesn't fit in a
+	 *	segment.
+	 * @throws IOException if this log is closed or if a new segment can't
+	 *	be created.
+	 */
+	public long append(byte[] record, int off, int len) throws IOException
+	{
+		if (off < 0 || len < 0 || off > record.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
+		int size = align(HEADER_SIZE + (long) len);
+		Parameters.checkCondition(size > 0 && size <= segmentSize);
+		CRC32 crc = checksum(len);
+		crc.update(record, off, len);
+		while (true) {
+			Segment segment;
+			appends.readLock().lock();
+			try {
+				ensureOpen();
+				segment = active;
+				long position = segment.tail.getAndAdd(size);
+				if (position + size <= segment.capacity) {
+					int pos = (int) position;
+					ByteBuffer buf = segment.buffer.duplicate();
+					buf.position(pos + HEADER_SIZE);
+					buf.put(record, off, len);
+					buf.putInt(pos + 4, (int) crc.getValue());
+					buf.putInt(pos, len);
+					return segment.base + pos;
+				}
+			} finally {
+				appends.readLock().unlock();
+			}
+			roll(segment);
+		}
+	}
+
+	/**
+	 * Reads the record at the given address.
+	 *
+	 * @param address the record's address.
+	 *
+	 * @return a read-only view of the record, or {@code null} if there is
+	 *	no valid record at the given address.
+	 *
+	 * @throws IOException if this log is closed.
+	 */
+	public ByteBuffer read(long address) throws IOException
+	{
+		ensureOpen();
+		Segment segment = find(address);
+		if (segment == null || (address & 7) != 0) {
+			return null;
+		}
+		int pos = (int) (address - segment.base);
+		int len = check(segment, pos, new byte[CHUNK_SIZE]);
+		return len < 0 ? null : view(segment, pos, len);
+	}
+
+	/**
+	 * Replays all the records of this log, in the order of their
+	 * addresses, until the given processor returns {@code false}.
+	 *
+	 * @param processor the record processor.
+	 *
+	 * @return the number of processed records.
+	 *
+	 * @throws NullPointerException if {@code processor} is {@code null}.
+	 * @throws IOException if this log is closed, or if the processor
+	 *	throws an {@code IOException}.
+	 */
+	public long replay(RecordProcessor processor) throws IOException
+	{
+		return replay(getStartAddress(), processor);
+	}
+
+	/**
+	 * Replays the records of this log whose address is greater than or
+	 * equal to the given one, in the order of their addresses, until the
+	 * given processor returns {@code false}. If the given address is the
+	 * address of a record, the replay starts from that record without
+	 * scanning the preceding ones. Addresses of deleted segments are
+	 * replayed from the start of the log.
+	 *
+	 * @param address the address to start from, typically the address
+	 *	of a record.
+	 * @param processor the record processor.
+	 *
+	 * @return the number of processed records.
+	 *
+	 * @throws NullPointerException if {@code processor} is {@code null}.
+	 * @throws IOException if this log is closed, or if the processor
+	 *	throws an {@code IOException}.
+	 */
+	public long replay(long address, RecordProcessor processor)
+		throws IOException
+	{
+		Parameters.checkNotNull(processor);
+		ensureOpen();
+		List<Segment> snapshot;
+		long[] limits;
+		appends.writeLock().lock();
+		try {
+			synchronized (this) {
+				snapshot = new ArrayList<Segment>(segments);
+			}
+			limits = new long[snapshot.size()];
+			for (int i = 0; i < limits.length; i++) {
+				limits[i] = snapshot.get(i).tail.get();
+			}
+		} finally {
+			appends.writeLock().unlock();
+		}
+		byte[] scratch = new byte[CHUNK_SIZE];
+		long count = 0;
+		for (int i = 0; i < limits.length; i++) {
+			Segment segment = snapshot.get(i);
+			if (segment.base + segment.capacity <= address) {
+				continue;
+			}
+			long limit = Math.min(limits[i], segment.capacity);
+			int pos = address <= segment.base
+				? 0 : align(address - segment.base);
+			while (pos + HEADER_SIZE <= limit) {
+				int len = check(segment, pos, scratch);
+				if (len < 0) {
+					pos += 8;
+					continue;
+				}
+				count++;
+				if (!processor.process(segment.base + pos,
+					view(segment, pos, len))) {
+					return count;
+				}
+				pos += align(HEADER_SIZE + (long) len);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the address of the first byte of the oldest segment of this
+	 * log. Records appended later have greater addresses.
+	 *
+	 * @return the start address of this log.
+	 */
+	public synchronized long getStartAddress()
+	{
+		return segments.get(0).base;
+	}
+
+	/**
+	 * Returns the number of segments of this log.
+	 *
+	 * @return the number of segments.
+	 */
+	public synchronized int getSegmentCount()
+	{
+		return segments.size();
+	}
+
+	/**
+	 * Forces the records appended so far to the storage device.
+	 *
+	 * @throws IOException if this log is closed.
+	 */
+	public void flush() throws IOException
+	{
+		ensureOpen();
+		force();
+	}
+
+	/**
+	 * Closes this log, forcing the appended records to the storage device.
+	 * Does nothing if this log is already closed.
+	 */
+	@Override
+	public void close()
+	{
+		if (!closed) {
+			closed = true;
+			force();
+		}
+	}
+
+	private void force()
+	{
+		List<Segment> toForce;
+		appends.writeLock().lock();
+		try {
+			synchronized (this) {
+				toForce = new ArrayList<Segment>(dirty);
+				dirty.clear();
+			}
+			toForce.add(active);
+		} finally {
+			appends.writeLock().unlock();
+		}
+		for (Segment segment : toForce) {
+			segment.buffer.force();
+		}
+	}
+
+	private synchronized void roll(Segment full) throws IOException
+	{
+		if (active != full) {
+			return;
+		}
+		ensureOpen();
+		Segment next = Segment.create(dir, full.base + full.capacity,
+			segmentSize);
+		segments.add(next);
+		dirty.add(full);
+		active = next;
+		retain();
+	}
+
+	private void retain()
+	{
+		while (maxSegments > 0 && segments.size() > maxSegments) {
+			Segment oldest = segments.remove(0);
+			dirty.remove(oldest);
+			oldest.file.delete();
+		}
+	}
+
+	private synchronized Segment find(long address)
+	{
+		for (int i = segments.size() - 1; i >= 0; i--) {
+			Segment segment = segments.get(i);
+			if (address >= segment.base) {
+				return address < segment.base + segment.capacity
+					? segment : null;
+			}
+		}
+		return null;
+	}
+
+	/** Returns whether the given segment contains a valid record. */
+	private static boolean hasRecords(Segment segment)
+	{
+		byte[] scratch = new byte[CHUNK_SIZE];
+		for (int pos = 0; pos + HEADER_SIZE <= segment.capacity; pos += 8) {
+			if (check(segment, pos, scratch) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the length of the record at the given position, or -1 if
+	 * there is no valid record at this position.
+	 */
+	private static int check(Segment segment, int pos, byte[] scratch)
+	{
+		if (pos + HEADER_SIZE > segment.capacity) {
+			return -1;
+		}
+		ByteBuffer buf = segment.buffer.duplicate();
+		int len = buf.getInt(pos);
+		if (len < 0 || len > segment.capacity - pos - HEADER_SIZE) {
+			return -1;
+		}
+		if (len == 0 && buf.getInt(pos + 4) == 0) {
+			/* Unwritten space: an empty record's checksum isn't 0. */
+			return -1;
+		}
+		CRC32 crc = checksum(len);
+		buf.position(pos + HEADER_SIZE);
+		int remaining = len;
+		while (remaining > 0) {
+			int n = Math.min(remaining, scratch.length);
+			buf.get(scratch, 0, n);
+			crc.update(scratch, 0, n);
+			remaining -= n;
+		}
+		return buf.getInt(pos + 4) == (int) crc.getValue() ? len : -1;
+	}
+
+	/**
+	 * Returns a new checksum, covering the given record length, so that
+	 * empty records can be told from unwritten space.
+	 */
+	private static CRC32 checksum(int len)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(len >>> 24);
+		crc.update(len >>> 16);
+		crc.update(len >>> 8);
+		crc.update(len);
+		return crc;
+	}
+
+	private static ByteBuffer view(Segment segment, int pos, int len)
+	{
+		ByteBuffer buf = segment.buffer.asReadOnlyBuffer();
+		buf.limit(pos + HEADER_SIZE + len);
+		buf.position(pos + HEADER_SIZE);
+		return buf.slice();
+	}
+
+	private static int align(long n)
+	{
+		return (int) ((n + 7) & ~7L);
+	}
+
+	private static File[] listSegments(File dir) throws IOException
+	{
+		File[] files = dir.listFiles(new FileFilter()
+		{
+			@Override
+			public boolean accept(File f)
+			{
+				String name = f.getName();
+				return f.isFile() && name.endsWith(SUFFIX)
+					&& name.length() == 20 + SUFFIX.length();
+			}
+		});
+		if (files == null) {
+			throw new IOException("Can't list " + dir);
+		}
+		Arrays.sort(files, new Comparator<File>()
+		{
+			@Override
+			public int compare(File f1, File f2)
+			{
+				return f1.getName().compareTo(f2.getName());
+			}
+		});
+		return files;
+	}
+
+	private void ensureOpen() throws IOException
+	{
+		if (closed) {
+			throw new IOException("Log closed");
+		}
+	}
+
+	private static final class Segment
+	{
+		final long base;
+		final int capacity;
+		final File file;
+		final MappedByteBuffer buffer;
+		final AtomicLong tail;
+
+		static Segment create(File dir, long base, int size)
+			throws IOException
+		{
+			File f = new File(dir, String.format("%020d", base) + SUFFIX);
+			RandomAccessFile file = new RandomAccessFile(f, "rw");
+			try {
+				file.setLength(size);
+				FileChannel channel = file.getChannel();
+				MappedByteBuffer buffer = channel.map(READ_WRITE, 0, size);
+				return new Segment(base, f, buffer, 0);
+			} finally {
+				IO.close(file);
+			}
+		}
+
+		static Segment open(File f) throws IOException
+		{
+			String name = f.getName();
+			long base;
+			try {
+				base = Long.parseLong(name.substring(0, 20));
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid segment name: " + f, e);
+			}
+			RandomAccessFile file = new RandomAccessFile(f, "r");
+			try {
+				FileChannel channel = file.getChannel();
+				long size = Math.min(channel.size(), Integer.MAX_VALUE) & ~7;
+				MappedByteBuffer buffer = channel.map(READ_ONLY, 0, size);
+				return new Segment(base, f, buffer, size);
+			} finally {
+				IO.close(file);
+			}
+		}
+
+		private Segment(long base, File file, MappedByteBuffer buffer,
+			long tail)
+		{
+			this.base = base;
+			this.capacity = buffer.capacity();
+			this.file = file;
+			this.buffer = buffer;
+			this.tail = new AtomicLong(tail);
+		}
+	}
+}
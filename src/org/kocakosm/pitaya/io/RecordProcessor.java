@@ -0,0 +1,44 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Callback receiving the records replayed by a {@link RecordLog}.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public interface RecordProcessor
+{
+	/**
+	 * Processes the given record. The given {@code ByteBuffer} is a
+	 * read-only view over the log's memory-mapped segment, which is only
+	 * valid while the log is open.
+	 *
+	 * @param address the record's address in the log.
+	 * @param record the record's content.
+	 *
+	 * @return whether the following records should be processed.
+	 *
+	 * @throws IOException if the record can't be processed.
+	 */
+	boolean process(long address, ByteBuffer record) throws IOException;
+}
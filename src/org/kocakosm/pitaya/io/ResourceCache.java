@@ -0,0 +1,429 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+import org.kocakosm.pitaya.util.Parameters;
+import org.kocakosm.pitaya.util.XObjects;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A cache of {@link Resource} lookups and contents. Contents are kept in a
+ * size-bounded cache, the least recently used ones being evicted first, and
+ * are keyed by resource and charset. The contents of {@code file:} resources
+ * and of {@code jar:file:} entries are reloaded when the last-modified time of
+ * the file, or of the JAR file, changes; other resources are assumed not to
+ * change. Raw contents of {@code file:} resources are memory-mapped, raw
+ * contents of other resources, including JAR entries, are cached in memory.
+ * Instances of this class are thread-safe.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ResourceCache
+{
+	private static final int MAX_LOOKUPS = 1024;
+	private static final int BYTES = 0;
+	private static final int STRING = 1;
+	private static final int LINES = 2;
+
+	private final long capacity;
+	private final Map<Key, Entry> entries;
+	private final Map<ClassLoader, Map<String, Resource>> lookups;
+	private long size;
+
+	/**
+	 * Creates a new {@code ResourceCache}.
+	 *
+	 * @param capacity the maximum size of the cached contents, in bytes
+	 *	(each cached character counts for 2 bytes).
+	 *
+	 * @throws IllegalArgumentException if {@code capacity} is negative.
+	 */
+	public ResourceCache(long capacity)
+	{
+		Parameters.checkCondition(capacity >= 0);
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+		this.lookups = new WeakHashMap<ClassLoader, Map<String, Resource>>();
+	}
+
+	/**
+	 * Finds and returns the resource having the given name using the
+	 * {@linkplain Thread#getContextClassLoader() context class loader},
+	 * like {@link Resource#find(String)}. Successful lookups are cached.
+	 *
+	 * @param name the resource's name.
+	 *
+	 * @return the requested resource.
+	 *
+	 * @throws NullPointerException if {@code name} is {@code null}.
+	 * @throws Resource.NotFoundException if the resource can't be found.
+	 */
+	public Resource find(String name)
+	{
+		Parameters.checkNotNull(name);
+		ClassLoader loader = XObjects.firstNonNull(
+			Thread.currentThread().getContextClassLoader(),
+			Resource.class.getClassLoader());
+		Resource resource = lookup(loader, name);
+		if (resource == null) {
+			resource = Resource.find(name);
+			cache(loader, name, resource);
+		}
+		return resource;
+	}
+
+	/**
+	 * Finds and returns the resource having the given name (relative to
+	 * the specified class), like {@link Resource#find(String, Class)}.
+	 * Successful lookups are cached.
+	 *
+	 * @param name the resource's name.
+	 * @param contextClass the context class.
+	 *
+	 * @return the requested resource.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws Resource.NotFoundException if the resource can't be found.
+	 */
+	public Resource find(String name, Class<?> contextClass)
+	{
+		Parameters.checkNotNull(name);
+		ClassLoader loader = contextClass.getClassLoader();
+		String key = contextClass.getName() + ':' + name;
+		Resource resource = lookup(loader, key);
+		if (resource == null) {
+			resource = Resource.find(name, contextClass);
+			cache(loader, key, resource);
+		}
+		return resource;
+	}
+
+	/**
+	 * Returns a read-only view of the given resource's content. The view
+	 * is memory-mapped for {@code file:} resources, in which case it may
+	 * reflect changes made to the file while it is used. In particular,
+	 * if the file is truncated after it has been mapped, reading the view
+	 * may fail with an {@code InternalError}, or a JVM-specific error,
+	 * instead of an {@code IOException}. Use {@link #read(Resource)} for
+	 * files that may be truncated while in use.
+	 *
+	 * @param resource the resource to read.
+	 *
+	 * @return the resource's content.
+	 *
+	 * @throws NullPointerException if {@code resource} is {@code null}.
+	 * @throws IOException if the resource can't be read.
+	 */
+	public ByteBuffer bytes(Resource resource) throws IOException
+	{
+		ByteBuffer content = (ByteBuffer) get(resource, null, BYTES);
+		return content.duplicate();
+	}
+
+	/**
+	 * Returns a copy of the given resource's content.
+	 *
+	 * @param resource the resource to read.
+	 *
+	 * @return the resource's content.
+	 *
+	 * @throws NullPointerException if {@code resource} is {@code null}.
+	 * @throws IOException if the resource can't be read.
+	 */
+	public byte[] read(Resource resource) throws IOException
+	{
+		ByteBuffer content = bytes(resource);
+		byte[] copy = new byte[content.remaining()];
+		content.get(copy);
+		return copy;
+	}
+
+	/**
+	 * Returns the given resource's content as a {@code String}.
+	 *
+	 * @param resource the resource to read.
+	 * @param charset the charset to use.
+	 *
+	 * @return the resource's content.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if the resource can't be read.
+	 */
+	public String read(Resource resource, Charset charset) throws IOException
+	{
+		Parameters.checkNotNull(charset);
+		return (String) get(resource, charset, STRING);
+	}
+
+	/**
+	 * Returns all the given resource's lines. Note that the returned
+	 * {@code List} is immutable.
+	 *
+	 * @param resource the resource to read.
+	 * @param charset the charset to use.
+	 *
+	 * @return the resource's lines.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if the resource can't be read.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<String> readLines(Resource resource, Charset charset)
+		throws IOException
+	{
+		Parameters.checkNotNull(charset);
+		return (List<String>) get(resource, charset, LINES);
+	}
+
+	/**
+	 * Removes the given resource's contents from this cache.
+	 *
+	 * @param resource the resource to remove.
+	 *
+	 * @throws NullPointerException if {@code resource} is {@code null}.
+	 */
+	public synchronized void invalidate(Resource resource)
+	{
+		String url = resource.getURL().toExternalForm();
+		Iterator<Map.Entry<Key, Entry>> i = entries.entrySet().iterator();
+		while (i.hasNext()) {
+			Map.Entry<Key, Entry> e = i.next();
+			if (e.getKey().url.equals(url)) {
+				size -= e.getValue().weight;
+				i.remove();
+			}
+		}
+	}
+
+	/** Removes all the cached lookups and contents. */
+	public synchronized void clear()
+	{
+		entries.clear();
+		lookups.clear();
+		size = 0;
+	}
+
+	/**
+	 * Returns the current size of the cached contents, in bytes.
+	 *
+	 * @return the current size of this cache.
+	 */
+	public synchronized long size()
+	{
+		return size;
+	}
+
+	private synchronized Resource lookup(ClassLoader loader, String name)
+	{
+		Map<String, Resource> resources = lookups.get(loader);
+		return resources == null ? null : resources.get(name);
+	}
+
+	private synchronized void cache(ClassLoader loader, String name,
+		Resource resource)
+	{
+		Map<String, Resource> resources = lookups.get(loader);
+		if (resources == null) {
+			resources = new LinkedHashMap<String, Resource>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+					Map.Entry<String, Resource> eldest)
+				{
+					return size() > MAX_LOOKUPS;
+				}
+			};
+			lookups.put(loader, resources);
+		}
+		resources.put(name, resource);
+	}
+
+	private Object get(Resource resource, Charset charset, int type)
+		throws IOException
+	{
+		URL url = resource.getURL();
+		Key key = new Key(url.toExternalForm(), charset, type);
+		File file = file(url);
+		long stamp = file != null ? file.lastModified() : 0;
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.stamp == stamp) {
+				return entry.value;
+			}
+		}
+		Entry entry = load(url, charset, type, stamp);
+		synchronized (this) {
+			Entry old = entries.put(key, entry);
+			size += entry.weight - (old != null ? old.weight : 0);
+			evict();
+		}
+		return entry.value;
+	}
+
+	private void evict()
+	{
+		Iterator<Entry> i = entries.values().iterator();
+		while (size > capacity && i.hasNext()) {
+			size -= i.next().weight;
+			i.remove();
+		}
+	}
+
+	private static Entry load(URL url, Charset charset, int type,
+		long stamp) throws IOException
+	{
+		if (type == BYTES && "file".equals(url.getProtocol())) {
+			ByteBuffer content = map(file(url));
+			return new Entry(content, content.capacity(), stamp);
+		}
+		/*
+		 * The JVM caches the JarFile behind jar: URLs, which wouldn't see
+		 * a rewritten JAR file: caches must be bypassed to reload.
+		 */
+		URLConnection connection = url.openConnection();
+		connection.setUseCaches(false);
+		InputStream in = connection.getInputStream();
+		try {
+			if (type == BYTES) {
+				byte[] content = ByteStreams.read(in);
+				ByteBuffer view = ByteBuffer.wrap(content).asReadOnlyBuffer();
+				return new Entry(view, content.length, stamp);
+			}
+			if (type == STRING) {
+				String content = CharStreams.read(in, charset);
+				return new Entry(content, 2L * content.length(), stamp);
+			}
+			List<String> lines = CharStreams.readLines(in, charset);
+			long weight = 0;
+			for (String line : lines) {
+				weight += 2L * line.length() + 16;
+			}
+			return new Entry(lines, weight, stamp);
+		} finally {
+			IO.close(in);
+		}
+	}
+
+	private static ByteBuffer map(File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			long size = raf.length();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("File too large: " + file);
+			}
+			return raf.getChannel().map(READ_ONLY, 0, size);
+		} finally {
+			IO.close(raf);
+		}
+	}
+
+	/**
+	 * Returns the file that backs the given {@code file:} or
+	 * {@code jar:file:} URL, or {@code null} if there is none.
+	 */
+	private static File file(URL url)
+	{
+		if ("jar".equals(url.getProtocol())) {
+			String path = url.getPath();
+			int separator = path.indexOf("!/");
+			if (separator < 0) {
+				return null;
+			}
+			try {
+				return file(new URL(path.substring(0, separator)));
+			} catch (IOException e) {
+				return null;
+			}
+		}
+		if (!"file".equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			return new File(url.toURI());
+		} catch (URISyntaxException e) {
+			return new File(url.getPath());
+		} catch (IllegalArgumentException e) {
+			return new File(url.getPath());
+		}
+	}
+
+	private static final class Key
+	{
+		final String url;
+		final Charset charset;
+		final int type;
+
+		Key(String url, Charset charset, int type)
+		{
+			this.url = url;
+			this.charset = charset;
+			this.type = type;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return XObjects.hashCode(url, charset, type);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			final Key k = (Key) o;
+			return url.equals(k.url) && type == k.type
+				&& XObjects.equal(charset, k.charset);
+		}
+	}
+
+	private static final class Entry
+	{
+		final Object value;
+		final long weight;
+		final long stamp;
+
+		Entry(Object value, long weight, long stamp)
+		{
+			this.value = value;
+			this.weight = weight;
+			this.stamp = stamp;
+		}
+	}
+}
@@ -18,23 +18,36 @@ package org.kocakosm.pitaya.io;
 
 import org.kocakosm.pitaya.charset.Charsets;
 import org.kocakosm.pitaya.util.Booleans;
+import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
 
 /**
- * Very simple utility class to easily read from the standard input. For a more
- * powerful API, use {@link java.util.Scanner}.
+ * Very simple utility class to easily read from the standard input. The
+ * standard input is read through a single shared buffer, which is never
+ * closed, so that consecutive calls don't lose any input. Charsets whose line
+ * separators aren't encoded as ASCII bytes, such as UTF-16 or UTF-32, are
+ * decoded through a separate shared {@code Reader}, which is kept as long as
+ * the same charset is used; mixing such a charset with other ones may thus
+ * lose buffered input. For a more powerful API, use
+ * {@link java.util.Scanner}, or {@link TokenScanner} for fast bulk input.
  *
  * @author Osman KOCAK
  */
 public final class Scanf
 {
+	private static InputStream stdinSource;
+	private static TokenScanner stdin;
+	private static InputStream readerSource;
+	private static Charset readerCharset;
+	private static BufferedReader reader;
+
 	/**
 	 * Reads the next line from the standard input using the system's
 	 * default charset.
@@ -60,12 +73,16 @@ public final class Scanf
 	 */
 	public static String readString(Charset charset) throws IOException
 	{
-		Reader in = new InputStreamReader(System.in, charset);
-		BufferedReader reader = new BufferedReader(in);
-		try {
-			return reader.readLine();
-		} finally {
-			reader.close();
+		Parameters.checkNotNull(charset);
+		synchronized (Scanf.class) {
+			if (!TextFiles.hasAsciiLineSeparators(charset)) {
+				return readLine(charset);
+			}
+			if (stdin == null || stdinSource != System.in) {
+				stdinSource = System.in;
+				stdin = new TokenScanner(stdinSource);
+			}
+			return stdin.nextLine(charset);
 		}
 	}
 
@@ -202,6 +219,23 @@ public final class Scanf
 		return new BigDecimal(readString());
 	}
 
+	/**
+	 * Reads a line with a {@code Reader}, as the line separators can't be
+	 * found at the byte level in the given charset. Must be called while
+	 * holding the class' lock.
+	 */
+	private static String readLine(Charset charset) throws IOException
+	{
+		if (reader == null || readerSource != System.in
+			|| !readerCharset.equals(charset)) {
+			readerSource = System.in;
+			readerCharset = charset;
+			reader = new BufferedReader(
+				new InputStreamReader(readerSource, charset));
+		}
+		return reader.readLine();
+	}
+
 	private Scanf()
 	{
 		/* ... */
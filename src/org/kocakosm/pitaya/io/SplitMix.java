@@ -0,0 +1,61 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SplitMix64 pseudo-random number generation, used in counter mode: the
+ * {@code n}-th 64-bit word of the sequence determined by a seed is computed
+ * directly from the seed and {@code n}, so that any part of the sequence can
+ * be generated independently. Not suitable for cryptographic purposes.
+ *
+ * @author Osman KOCAK
+ */
+final class SplitMix
+{
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final AtomicLong SEEDER = new AtomicLong(
+		mix(System.currentTimeMillis()) ^ mix(System.nanoTime()));
+
+	/** Returns a new seed, distinct from the previously returned ones. */
+	static long newSeed()
+	{
+		return mix(SEEDER.getAndAdd(2 * GOLDEN_GAMMA));
+	}
+
+	/**
+	 * Returns the {@code index}-th word of the sequence determined by the
+	 * given seed.
+	 */
+	static long word(long seed, long index)
+	{
+		return mix(seed + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private SplitMix()
+	{
+		/* ... */
+	}
+}
@@ -0,0 +1,42 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import java.io.IOException;
+
+/**
+ * Opens a stream on demand, so that streams can be opened lazily, one at a
+ * time, by the concatenating streams of {@link ByteStreams} and
+ * {@link CharStreams}.
+ *
+ * @param <T> the type of the supplied stream.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public interface StreamSupplier<T>
+{
+	/**
+	 * Opens the stream. The caller is responsible for closing it.
+	 *
+	 * @return the opened stream.
+	 *
+	 * @throws IOException if the stream can't be opened.
+	 */
+	T get() throws IOException;
+}
@@ -0,0 +1,147 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A decorating {@code WritableByteChannel} that writes all bytes written to
+ * it to its underlying channels. Each underlying channel is given its own
+ * view of the source buffers, so that their content is never copied. Not
+ * thread-safe.
+ *
+ * @author Osman KOCAK
+ */
+final class TeeChannel implements GatheringByteChannel
+{
+	private final List<WritableByteChannel> channels;
+	private boolean closed;
+
+	/**
+	 * Creates a new {@code TeeChannel}.
+	 *
+	 * @param channels the channels to write to.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 */
+	TeeChannel(WritableByteChannel... channels)
+	{
+		this(Arrays.asList(channels));
+	}
+
+	/**
+	 * Creates a new {@code TeeChannel}.
+	 *
+	 * @param channels the channels to write to.
+	 *
+	 * @throws NullPointerException if {@code channels} is {@code null} or
+	 *	if it contains a {@code null} reference.
+	 */
+	TeeChannel(Iterable<? extends WritableByteChannel> channels)
+	{
+		this.channels = new ArrayList<WritableByteChannel>();
+		for (WritableByteChannel channel : channels) {
+			this.channels.add(Parameters.checkNotNull(channel));
+		}
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException
+	{
+		int n = src.remaining();
+		for (WritableByteChannel channel : channels) {
+			ByteBuffer view = src.duplicate();
+			while (view.hasRemaining()) {
+				channel.write(view);
+			}
+		}
+		src.position(src.limit());
+		return n;
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs) throws IOException
+	{
+		return write(srcs, 0, srcs.length);
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length)
+		throws IOException
+	{
+		if (offset < 0 || length < 0 || offset > srcs.length - length) {
+			throw new IndexOutOfBoundsException();
+		}
+		long total = 0;
+		for (int i = offset; i < offset + length; i++) {
+			total += srcs[i].remaining();
+		}
+		for (WritableByteChannel channel : channels) {
+			ByteBuffer[] views = new ByteBuffer[length];
+			for (int i = 0; i < length; i++) {
+				views[i] = srcs[offset + i].duplicate();
+			}
+			writeFully(channel, views, total);
+		}
+		for (int i = offset; i < offset + length; i++) {
+			srcs[i].position(srcs[i].limit());
+		}
+		return total;
+	}
+
+	private static void writeFully(WritableByteChannel channel,
+		ByteBuffer[] srcs, long total) throws IOException
+	{
+		if (channel instanceof GatheringByteChannel) {
+			GatheringByteChannel out = (GatheringByteChannel) channel;
+			long written = 0;
+			while (written < total) {
+				written += out.write(srcs);
+			}
+		} else {
+			for (ByteBuffer src : srcs) {
+				while (src.hasRemaining()) {
+					channel.write(src);
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return !closed;
+	}
+
+	@Override
+	public void close()
+	{
+		closed = true;
+		for (WritableByteChannel channel : channels) {
+			IO.close(channel);
+		}
+	}
+}
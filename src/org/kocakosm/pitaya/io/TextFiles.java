@@ -17,6 +17,7 @@
 package org.kocakosm.pitaya.io;
 
 import org.kocakosm.pitaya.charset.Charsets;
+import org.kocakosm.pitaya.util.ParallelTasks;
 import org.kocakosm.pitaya.util.Parameters;
 
 import java.io.BufferedReader;
@@ -27,13 +28,23 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Text files utilities.
@@ -44,6 +55,8 @@ import java.util.List;
  */
 public final class TextFiles
 {
+	private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
 	/**
 	 * Returns the first (up to 10) lines of the given {@code File} using
 	 * the system's default charset. Named after the Unix command of the
@@ -207,6 +220,10 @@ public final class TextFiles
 	/**
 	 * Returns the last (up to n) lines of the given {@code File} using the
 	 * specified charset. Named after the Unix command of the same name.
+	 * The file is scanned backwards from its end, so that only its last
+	 * lines are read and decoded, unless the line separators can't be
+	 * recognized from their encoded bytes (UTF-16 or UTF-32 for instance),
+	 * in which case the whole file is read.
 	 *
 	 * @param f the {@code File} to read.
 	 * @param n the maximum number of lines to read.
@@ -225,17 +242,163 @@ public final class TextFiles
 		throws IOException
 	{
 		Parameters.checkCondition(n >= 0);
+		Parameters.checkNotNull(charset);
 		if (n == 0) {
 			return Collections.emptyList();
 		}
-		List<String> lines = new LinkedList<String>();
+		if (!hasAsciiLineSeparators(charset)) {
+			return readLastLines(f, n, charset);
+		}
+		RandomAccessFile file = new RandomAccessFile(f, "r");
+		try {
+			file.seek(startOfLastLines(file, n));
+			InputStream in = Channels.newInputStream(file.getChannel());
+			BufferedReader reader = new BufferedReader(
+				new InputStreamReader(in, charset));
+			List<String> lines = new ArrayList<String>(n);
+			String line = reader.readLine();
+			while (line != null && lines.size() < n) {
+				lines.add(line);
+				line = reader.readLine();
+			}
+			return Collections.unmodifiableList(lines);
+		} finally {
+			IO.close(file);
+		}
+	}
+
+	/**
+	 * Returns a {@code FileFollower} that reads the lines appended to the
+	 * given {@code File} from now on, using the system's default charset
+	 * and checking for new content every second. Named after the Unix
+	 * command {@code tail -f}.
+	 *
+	 * @param f the {@code File} to follow.
+	 *
+	 * @return a {@code FileFollower} reading the given {@code File}.
+	 *
+	 * @throws NullPointerException if {@code f} is {@code null}.
+	 * @throws FileNotFoundException if {@code f} doesn't exist, or if it is
+	 *	a directory rather than a regular file, or if it can't be opened
+	 *	for reading.
+	 * @throws IOException if the length of {@code f} can't be read.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 */
+	public static FileFollower follow(File f) throws IOException
+	{
+		return follow(f, Charsets.DEFAULT);
+	}
+
+	/**
+	 * Returns a {@code FileFollower} that reads the lines appended to the
+	 * given {@code File} from now on, using the specified charset and
+	 * checking for new content every second. Named after the Unix command
+	 * {@code tail -f}.
+	 *
+	 * @param f the {@code File} to follow.
+	 * @param charset the charset to use.
+	 *
+	 * @return a {@code FileFollower} reading the given {@code File}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws FileNotFoundException if {@code f} doesn't exist, or if it is
+	 *	a directory rather than a regular file, or if it can't be opened
+	 *	for reading.
+	 * @throws IOException if the length of {@code f} can't be read.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 */
+	public static FileFollower follow(File f, Charset charset)
+		throws IOException
+	{
+		return follow(f, charset, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Returns a {@code FileFollower} that reads the lines appended to the
+	 * given {@code File} from now on, using the specified charset and
+	 * checking for new content at the given interval. Named after the Unix
+	 * command {@code tail -f}.
+	 *
+	 * @param f the {@code File} to follow.
+	 * @param charset the charset to use.
+	 * @param interval the delay between two checks for new content.
+	 * @param unit the unit of {@code interval}.
+	 *
+	 * @return a {@code FileFollower} reading the given {@code File}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code interval} is negative.
+	 * @throws FileNotFoundException if {@code f} doesn't exist, or if it is
+	 *	a directory rather than a regular file, or if it can't be opened
+	 *	for reading.
+	 * @throws IOException if the length of {@code f} can't be read.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 */
+	public static FileFollower follow(File f, Charset charset, long interval,
+		TimeUnit unit) throws IOException
+	{
+		return new FileFollower(f, charset, unit.toMillis(interval));
+	}
+
+	/**
+	 * Returns whether the line separators are encoded in the given charset
+	 * as their ASCII byte values, which then can't appear inside the
+	 * encoding of another character. This holds for UTF-8, for the
+	 * single-byte charsets and for most East-Asian multi-byte charsets,
+	 * but not for UTF-16 or UTF-32.
+	 */
+	static boolean hasAsciiLineSeparators(Charset charset)
+	{
+		byte[] separators = "\r\n".getBytes(charset);
+		return separators.length == 2
+			&& separators[0] == '\r' && separators[1] == '\n';
+	}
+
+	/**
+	 * Scans the given file backwards and returns the offset of the first
+	 * byte of its last {@code n} lines, a separator ending the file not
+	 * being counted as the start of an empty line.
+	 */
+	private static long startOfLastLines(RandomAccessFile file, int n)
+		throws IOException
+	{
+		byte[] buf = new byte[8192];
+		long size = file.length();
+		long end = size;
+		int count = 0;
+		int next = -1;
+		while (end > 0) {
+			int len = (int) Math.min(buf.length, end);
+			long from = end - len;
+			file.seek(from);
+			file.readFully(buf, 0, len);
+			for (int i = len - 1; i >= 0; i--) {
+				byte b = buf[i];
+				boolean separator = b == '\n' || b == '\r' && next != '\n';
+				if (separator && from + i != size - 1 && ++count == n) {
+					return from + i + 1;
+				}
+				next = b;
+			}
+			end = from;
+		}
+		return 0;
+	}
+
+	private static List<String> readLastLines(File f, int n, Charset charset)
+		throws IOException
+	{
+		LinkedList<String> lines = new LinkedList<String>();
 		BufferedReader reader = newReader(f, charset);
 		try {
 			String line = reader.readLine();
 			while (line != null) {
 				lines.add(line);
 				if (lines.size() > n) {
-					lines.remove(0);
+					lines.removeFirst();
 				}
 				line = reader.readLine();
 			}
@@ -340,6 +503,31 @@ public final class TextFiles
 		return new BufferedWriter(new OutputStreamWriter(out, charset));
 	}
 
+	/**
+	 * Atomically replaces the content of the given {@code File} with the
+	 * given text, encoded using the specified charset. The text is written
+	 * to a temporary file, which is forced to the storage device and then
+	 * renamed to {@code f}.
+	 *
+	 * @param f the file to replace.
+	 * @param text the file's new content.
+	 * @param charset the charset to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if the file can't be replaced.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	write access to {@code f}'s directory.
+	 *
+	 * @see XFiles#newAtomicOutputStream(File)
+	 *
+	 * @since 0.5
+	 */
+	public static void writeAtomically(File f, CharSequence text,
+		Charset charset) throws IOException
+	{
+		XFiles.writeAtomically(f, text.toString().getBytes(charset));
+	}
+
 	/**
 	 * Reads the whole content of the given {@code File} as a {@code String}
 	 * using the system's default charset.
@@ -429,6 +617,430 @@ public final class TextFiles
 		}
 	}
 
+	/**
+	 * Returns a {@code LineIterable} that lazily reads the lines of the
+	 * given {@code File} using the system's default charset. The file is
+	 * opened by each call to {@code iterator()}, and closed when the
+	 * iterator reaches its end, or when the returned {@code LineIterable}
+	 * is closed.
+	 *
+	 * @param f the file to read.
+	 *
+	 * @return the file's lines.
+	 *
+	 * @throws NullPointerException if {@code f} is {@code null}.
+	 */
+	public static LineIterable lines(File f)
+	{
+		return lines(f, Charsets.DEFAULT);
+	}
+
+	/**
+	 * Returns a {@code LineIterable} that lazily reads the lines of the
+	 * given {@code File} using the specified charset. The file is opened
+	 * by each call to {@code iterator()}, and closed when the iterator
+	 * reaches its end, or when the returned {@code LineIterable} is closed.
+	 *
+	 * @param f the file to read.
+	 * @param charset the charset to use.
+	 *
+	 * @return the file's lines.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public static LineIterable lines(final File f, final Charset charset)
+	{
+		Parameters.checkNotNull(f);
+		Parameters.checkNotNull(charset);
+		return new LineIterable(new LineIterable.Source()
+		{
+			@Override
+			public Reader open() throws IOException
+			{
+				InputStream in = new FileInputStream(f);
+				return new InputStreamReader(in, charset);
+			}
+
+			@Override
+			public void close()
+			{
+				/* Nothing to close... */
+			}
+		});
+	}
+
+	/**
+	 * Reads the lines of the given {@code File} using the system's default
+	 * charset and passes them to the given {@code LineProcessor}, until the
+	 * end of the file is reached or the processor asks to stop.
+	 *
+	 * @param f the file to read.
+	 * @param processor the {@code LineProcessor} to call.
+	 *
+	 * @return the number of lines passed to {@code processor}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read, or
+	 *	if {@code processor} throws one.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 */
+	public static long forEachLine(File f, LineProcessor processor)
+		throws IOException
+	{
+		return forEachLine(f, Charsets.DEFAULT, processor);
+	}
+
+	/**
+	 * Reads the lines of the given {@code File} using the specified charset
+	 * and passes them to the given {@code LineProcessor}, until the end of
+	 * the file is reached or the processor asks to stop.
+	 *
+	 * @param f the file to read.
+	 * @param charset the charset to use.
+	 * @param processor the {@code LineProcessor} to call.
+	 *
+	 * @return the number of lines passed to {@code processor}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read, or
+	 *	if {@code processor} throws one.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 */
+	public static long forEachLine(File f, Charset charset,
+		LineProcessor processor) throws IOException
+	{
+		Parameters.checkNotNull(charset);
+		Parameters.checkNotNull(processor);
+		Reader in = new InputStreamReader(new FileInputStream(f), charset);
+		try {
+			return CharStreams.forEachLine(in, processor);
+		} finally {
+			IO.close(in);
+		}
+	}
+
+	/**
+	 * Reads the lines of the given {@code File} using the specified charset
+	 * and passes them to the given {@code LineProcessor}, until the end of
+	 * the file is reached or the processor asks to stop. The file is split
+	 * in byte ranges aligned on line boundaries, each of which is decoded
+	 * and processed by a task of the given {@code ExecutorService}: the
+	 * processor may thus be called concurrently from several threads, and
+	 * lines are not passed in the file's order, but each task passes the
+	 * lines of its range in order. The calling thread waits for the tasks,
+	 * and so must not be one of {@code executor}'s threads if it is
+	 * bounded. When the processor asks to stop, lines that are being
+	 * processed by other tasks may still be passed to it.
+	 * Files that aren't larger than 1 MB, or whose charset doesn't encode
+	 * line separators as their ASCII byte values (UTF-16 or UTF-32 for
+	 * instance), are processed sequentially in the calling thread.
+	 *
+	 * @param f the file to read.
+	 * @param charset the charset to use.
+	 * @param processor the {@code LineProcessor} to call.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @return the number of lines passed to {@code processor}.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read, or
+	 *	if {@code processor} throws one.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 */
+	public static long forEachLine(File f, Charset charset,
+		final LineProcessor processor, ExecutorService executor)
+		throws IOException
+	{
+		Parameters.checkNotNull(processor);
+		final AtomicBoolean stop = new AtomicBoolean();
+		List<Long> counts = processChunks(f, charset, executor,
+			new ChunkProcessor<Long>()
+			{
+				@Override
+				public Long process(Reader in) throws IOException
+				{
+					LineIterator lines = new LineIterator(in);
+					long count = 0;
+					CharSequence line = lines.readLine();
+					while (line != null && !stop.get()) {
+						count++;
+						if (!processor.process(line)) {
+							stop.set(true);
+						}
+						line = lines.readLine();
+					}
+					return count;
+				}
+			});
+		long count = 0;
+		for (long n : counts) {
+			count += n;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the results of applying the given {@code LineMapper} to the
+	 * lines of the given {@code File}, read using the system's default
+	 * charset, in the file's order, {@code null} results being dropped, as
+	 * {@link #mapLines(File, Charset, LineMapper, ExecutorService)} does
+	 * with Pitaya's shared pool of daemon threads.
+	 *
+	 * @param <T> the type of the mapping's results.
+	 * @param f the file to read.
+	 * @param mapper the {@code LineMapper} to call.
+	 *
+	 * @return the non-{@code null} results of the mapping.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read, or
+	 *	if {@code mapper} throws one.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 *
+	 * @see ParallelTasks#defaultExecutor()
+	 */
+	public static <T> List<T> mapLines(File f, LineMapper<? extends T> mapper)
+		throws IOException
+	{
+		return mapLines(f, Charsets.DEFAULT, mapper);
+	}
+
+	/**
+	 * Returns the results of applying the given {@code LineMapper} to the
+	 * lines of the given {@code File}, read using the specified charset,
+	 * in the file's order, {@code null} results being dropped, as
+	 * {@link #mapLines(File, Charset, LineMapper, ExecutorService)} does
+	 * with Pitaya's shared pool of daemon threads.
+	 *
+	 * @param <T> the type of the mapping's results.
+	 * @param f the file to read.
+	 * @param charset the charset to use.
+	 * @param mapper the {@code LineMapper} to call.
+	 *
+	 * @return the non-{@code null} results of the mapping.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read, or
+	 *	if {@code mapper} throws one.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 *
+	 * @see ParallelTasks#defaultExecutor()
+	 */
+	public static <T> List<T> mapLines(File f, Charset charset,
+		LineMapper<? extends T> mapper) throws IOException
+	{
+		return mapLines(f, charset, mapper, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Returns the results of applying the given {@code LineMapper} to the
+	 * lines of the given {@code File}, read using the specified charset,
+	 * in the file's order, {@code null} results being dropped. The file is
+	 * split in byte ranges aligned on line boundaries, each of which is
+	 * decoded and mapped by a task of the given {@code ExecutorService}:
+	 * the mapper may thus be called concurrently from several threads.
+	 * The calling thread waits for the tasks, and so must not be one of
+	 * {@code executor}'s threads if it is bounded. Files that aren't
+	 * larger than 1 MB, or whose charset doesn't encode line separators as
+	 * their ASCII byte values (UTF-16 or UTF-32 for instance), are
+	 * processed sequentially in the calling thread. Note that the returned
+	 * {@code List} is immutable.
+	 *
+	 * @param <T> the type of the mapping's results.
+	 * @param f the file to read.
+	 * @param charset the charset to use.
+	 * @param mapper the {@code LineMapper} to call.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @return the non-{@code null} results of the mapping.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if {@code f} does not exist, or if it is a
+	 *	directory rather than a regular file, or if it can't be read, or
+	 *	if {@code mapper} throws one.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	read access to {@code f}.
+	 */
+	public static <T> List<T> mapLines(File f, Charset charset,
+		final LineMapper<? extends T> mapper, ExecutorService executor)
+		throws IOException
+	{
+		Parameters.checkNotNull(mapper);
+		List<List<T>> chunks = processChunks(f, charset, executor,
+			new ChunkProcessor<List<T>>()
+			{
+				@Override
+				public List<T> process(Reader in) throws IOException
+				{
+					LineIterator lines = new LineIterator(in);
+					List<T> results = new ArrayList<T>();
+					CharSequence line = lines.readLine();
+					while (line != null) {
+						T result = mapper.map(line);
+						if (result != null) {
+							results.add(result);
+						}
+						line = lines.readLine();
+					}
+					return results;
+				}
+			});
+		if (chunks.size() == 1) {
+			return Collections.unmodifiableList(chunks.get(0));
+		}
+		int size = 0;
+		for (List<T> chunk : chunks) {
+			size += chunk.size();
+		}
+		List<T> results = new ArrayList<T>(size);
+		for (List<T> chunk : chunks) {
+			results.addAll(chunk);
+		}
+		return Collections.unmodifiableList(results);
+	}
+
+	/** Processes the chars of a range of lines. */
+	private interface ChunkProcessor<T>
+	{
+		T process(Reader in) throws IOException;
+	}
+
+	/**
+	 * Splits the given file in byte ranges aligned on line boundaries and
+	 * processes them with the given executor, returning the results in
+	 * the ranges' order.
+	 */
+	private static <T> List<T> processChunks(File f, Charset charset,
+		ExecutorService executor, ChunkProcessor<T> processor)
+		throws IOException
+	{
+		Parameters.checkNotNull(charset);
+		Parameters.checkNotNull(executor);
+		RandomAccessFile file = new RandomAccessFile(f, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			int chunks = 1;
+			if (hasAsciiLineSeparators(charset)) {
+				chunks = (int) Math.max(1, Math.min(
+					4 * ParallelTasks.PARALLELISM,
+					(size + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE));
+			}
+			List<Callable<T>> tasks = new ArrayList<Callable<T>>(chunks);
+			for (int i = 0; i < chunks; i++) {
+				tasks.add(new Chunk<T>(f, channel, charset, size * i
+					/ chunks, size * (i + 1) / chunks, size, processor));
+			}
+			return ParallelTasks.invokeAll(executor, tasks);
+		} catch (ChunkException e) {
+			throw (IOException) e.getCause();
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof InterruptedException) {
+				throw new InterruptedIOException();
+			}
+			throw e;
+		} finally {
+			IO.close(file);
+		}
+	}
+
+	/**
+	 * Carries the {@code IOException} thrown by a chunk's task through
+	 * {@link ParallelTasks#invokeAll}, which wraps checked exceptions.
+	 */
+	private static final class ChunkException extends RuntimeException
+	{
+		private static final long serialVersionUID = 5960147283309172456L;
+
+		ChunkException(IOException cause)
+		{
+			super(cause);
+		}
+	}
+
+	/**
+	 * A range of lines. Its bounds are moved forward to the beginning of
+	 * the lines they fall in, so that consecutive ranges never share a
+	 * line; a range may then end up empty.
+	 */
+	private static final class Chunk<T> implements Callable<T>
+	{
+		private final File file;
+		private final FileChannel channel;
+		private final Charset charset;
+		private final long from;
+		private final long to;
+		private final long size;
+		private final ChunkProcessor<T> processor;
+
+		Chunk(File file, FileChannel channel, Charset charset, long from,
+			long to, long size, ChunkProcessor<T> processor)
+		{
+			this.file = file;
+			this.channel = channel;
+			this.charset = charset;
+			this.from = from;
+			this.to = to;
+			this.size = size;
+			this.processor = processor;
+		}
+
+		@Override
+		public T call()
+		{
+			try {
+				return process();
+			} catch (IOException e) {
+				throw new ChunkException(e);
+			}
+		}
+
+		private T process() throws IOException
+		{
+			long start = from == 0 ? 0 : nextLine(from - 1);
+			long end = to == size ? size : nextLine(to - 1);
+			FileInputStream in = new FileInputStream(file);
+			try {
+				in.getChannel().position(start);
+				return processor.process(new InputStreamReader(
+					new LimitInputStream(in, Math.max(0, end - start)),
+					charset));
+			} finally {
+				IO.close(in);
+			}
+		}
+
+		/** Returns the offset following the first '\n' after pos. */
+		private long nextLine(long pos) throws IOException
+		{
+			ByteBuffer buf = ByteBuffer.allocate(8192);
+			while (pos < size) {
+				buf.clear();
+				int n = channel.read(buf, pos);
+				if (n <= 0) {
+					break;
+				}
+				for (int i = 0; i < n; i++) {
+					if (buf.get(i) == '\n') {
+						return pos + i + 1;
+					}
+				}
+				pos += n;
+			}
+			return size;
+		}
+	}
+
 	private TextFiles()
 	{
 		/* ... */
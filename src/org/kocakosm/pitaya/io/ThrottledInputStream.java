@@ -0,0 +1,109 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A decorating {@code InputStream} that limits the rate at which bytes are
+ * read from the underlying stream, using a {@link TokenBucket} which may be
+ * shared by several streams. Skipped bytes are not throttled.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ThrottledInputStream extends InputStream
+{
+	private final InputStream in;
+	private final TokenBucket bucket;
+
+	/**
+	 * Creates a new {@code ThrottledInputStream}.
+	 *
+	 * @param in the underlying stream.
+	 * @param bucket the token bucket to acquire a token per byte from.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public ThrottledInputStream(InputStream in, TokenBucket bucket)
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkNotNull(bucket);
+		this.in = in;
+		this.bucket = bucket;
+	}
+
+	@Override
+	public int available() throws IOException
+	{
+		return in.available();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	@Override
+	public void mark(int readLimit)
+	{
+		in.mark(readLimit);
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return in.markSupported();
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		int b = in.read();
+		if (b != -1) {
+			bucket.acquire(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		int n = in.read(b, off, (int) Math.min(len, bucket.getBurst()));
+		if (n > 0) {
+			bucket.acquire(n);
+		}
+		return n;
+	}
+
+	@Override
+	public void reset() throws IOException
+	{
+		in.reset();
+	}
+
+	@Override
+	public long skip(long n) throws IOException
+	{
+		return in.skip(n);
+	}
+}
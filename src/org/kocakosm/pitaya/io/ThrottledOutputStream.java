@@ -0,0 +1,89 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A decorating {@code OutputStream} that limits the rate at which bytes are
+ * written to the underlying stream, using a {@link TokenBucket} which may be
+ * shared by several streams. Large writes are split in chunks no larger than
+ * the bucket's burst size.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ThrottledOutputStream extends OutputStream
+{
+	private final OutputStream out;
+	private final TokenBucket bucket;
+
+	/**
+	 * Creates a new {@code ThrottledOutputStream}.
+	 *
+	 * @param out the underlying stream.
+	 * @param bucket the token bucket to acquire a token per byte from.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public ThrottledOutputStream(OutputStream out, TokenBucket bucket)
+	{
+		Parameters.checkNotNull(out);
+		Parameters.checkNotNull(bucket);
+		this.out = out;
+		this.bucket = bucket;
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		bucket.acquire(1);
+		out.write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		if (off < 0 || len < 0 || off > b.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
+		int pos = off;
+		int end = off + len;
+		while (pos < end) {
+			int n = (int) Math.min(end - pos, bucket.getBurst());
+			bucket.acquire(n);
+			out.write(b, pos, n);
+			pos += n;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
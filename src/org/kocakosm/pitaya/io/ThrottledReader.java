@@ -0,0 +1,109 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A decorating {@code Reader} that limits the rate at which characters are
+ * read from the underlying {@code Reader}, using a {@link TokenBucket} which
+ * may be shared by several streams. Skipped characters are not throttled.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ThrottledReader extends Reader
+{
+	private final Reader reader;
+	private final TokenBucket bucket;
+
+	/**
+	 * Creates a new {@code ThrottledReader}.
+	 *
+	 * @param reader the underlying {@code Reader}.
+	 * @param bucket the token bucket to acquire a token per char from.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public ThrottledReader(Reader reader, TokenBucket bucket)
+	{
+		Parameters.checkNotNull(reader);
+		Parameters.checkNotNull(bucket);
+		this.reader = reader;
+		this.bucket = bucket;
+	}
+
+	@Override
+	public boolean ready() throws IOException
+	{
+		return reader.ready();
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		int c = reader.read();
+		if (c != -1) {
+			bucket.acquire(1);
+		}
+		return c;
+	}
+
+	@Override
+	public int read(char[] buf, int off, int len) throws IOException
+	{
+		int n = reader.read(buf, off, (int) Math.min(len, bucket.getBurst()));
+		if (n > 0) {
+			bucket.acquire(n);
+		}
+		return n;
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return reader.markSupported();
+	}
+
+	@Override
+	public void mark(int readLimit) throws IOException
+	{
+		reader.mark(readLimit);
+	}
+
+	@Override
+	public void reset() throws IOException
+	{
+		reader.reset();
+	}
+
+	@Override
+	public long skip(long n) throws IOException
+	{
+		return reader.skip(n);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
@@ -0,0 +1,201 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket, used to limit the throughput of one or several streams.
+ * Tokens are added to the bucket continuously, at a rate that may be changed
+ * at any time, up to the bucket's capacity (its burst size). Acquiring more
+ * tokens than available puts the bucket in debt, and makes the caller wait
+ * until the debt is paid back; concurrent callers are thus served in the
+ * order of their requests. Instances of this class are thread-safe.
+ *
+ * @see ThrottledInputStream
+ * @see ThrottledOutputStream
+ * @see ThrottledReader
+ * @see ThrottledWriter
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class TokenBucket
+{
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final long burst;
+	private long rate;
+	private double tokens;
+	private long last;
+
+	/**
+	 * Creates a new full {@code TokenBucket} whose capacity is the number
+	 * of tokens added in one second.
+	 *
+	 * @param rate the number of tokens added per second.
+	 *
+	 * @throws IllegalArgumentException if {@code rate} is not strictly
+	 *	positive.
+	 */
+	public TokenBucket(long rate)
+	{
+		this(rate, rate);
+	}
+
+	/**
+	 * Creates a new full {@code TokenBucket}.
+	 *
+	 * @param rate the number of tokens added per second.
+	 * @param burst the bucket's capacity.
+	 *
+	 * @throws IllegalArgumentException if one of the arguments is not
+	 *	strictly positive.
+	 */
+	public TokenBucket(long rate, long burst)
+	{
+		this(rate, burst, System.nanoTime());
+	}
+
+	TokenBucket(long rate, long burst, long now)
+	{
+		Parameters.checkCondition(rate > 0);
+		Parameters.checkCondition(burst > 0);
+		this.rate = rate;
+		this.burst = burst;
+		this.tokens = burst;
+		this.last = now;
+	}
+
+	/**
+	 * Returns the number of tokens added per second.
+	 *
+	 * @return the bucket's rate.
+	 */
+	public synchronized long getRate()
+	{
+		return rate;
+	}
+
+	/**
+	 * Changes the number of tokens added per second. Callers already
+	 * waiting for tokens are not affected.
+	 *
+	 * @param rate the new rate.
+	 *
+	 * @throws IllegalArgumentException if {@code rate} is not strictly
+	 *	positive.
+	 */
+	public void setRate(long rate)
+	{
+		setRate(rate, System.nanoTime());
+	}
+
+	synchronized void setRate(long rate, long now)
+	{
+		Parameters.checkCondition(rate > 0);
+		refill(now);
+		this.rate = rate;
+	}
+
+	/**
+	 * Returns the bucket's capacity.
+	 *
+	 * @return the bucket's capacity.
+	 */
+	public long getBurst()
+	{
+		return burst;
+	}
+
+	/**
+	 * Acquires the given number of tokens, waiting as long as necessary.
+	 *
+	 * @param n the number of tokens to acquire.
+	 *
+	 * @throws IllegalArgumentException if {@code n} is negative.
+	 * @throws InterruptedIOException if the current thread is interrupted
+	 *	while waiting.
+	 */
+	public void acquire(long n) throws InterruptedIOException
+	{
+		long wait = reserve(n, System.nanoTime());
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+	}
+
+	/**
+	 * Acquires the given number of tokens if they are immediately
+	 * available.
+	 *
+	 * @param n the number of tokens to acquire.
+	 *
+	 * @return whether the tokens have been acquired.
+	 *
+	 * @throws IllegalArgumentException if {@code n} is negative.
+	 */
+	public boolean tryAcquire(long n)
+	{
+		return tryAcquire(n, System.nanoTime());
+	}
+
+	synchronized boolean tryAcquire(long n, long now)
+	{
+		Parameters.checkCondition(n >= 0);
+		refill(now);
+		if (tokens < n) {
+			return false;
+		}
+		tokens -= n;
+		return true;
+	}
+
+	/**
+	 * Takes the given number of tokens, possibly putting the bucket in
+	 * debt, and returns how long the caller must wait, in nanoseconds.
+	 */
+	synchronized long reserve(long n, long now)
+	{
+		Parameters.checkCondition(n >= 0);
+		refill(now);
+		tokens -= n;
+		if (tokens >= 0) {
+			return 0;
+		}
+		return (long) Math.ceil(-tokens * NANOS_PER_SECOND / rate);
+	}
+
+	private void refill(long now)
+	{
+		long elapsed = now - last;
+		if (elapsed > 0) {
+			tokens = Math.min(burst,
+				tokens + elapsed * (rate / NANOS_PER_SECOND));
+			last = now;
+		}
+	}
+}
@@ -0,0 +1,464 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import org.kocakosm.pitaya.charset.Charsets;
+import org.kocakosm.pitaya.util.Parameters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits an {@code InputStream} into tokens and parses them, directly from a
+ * single reusable byte buffer. Numbers are parsed without creating any
+ * {@code String}, which makes this class much faster than
+ * {@link java.util.Scanner} for bulk numeric input. Tokens are delimited
+ * either by whitespace or by line terminators, depending on the scanner's
+ * {@link Mode}; delimiters are recognized at the byte level, so the charset
+ * of the input must be ASCII-compatible (like UTF-8 or ISO-8859-1). Bytes
+ * beyond the current token are kept in the buffer for the next calls, and
+ * the underlying stream is only closed by {@link #close()}. Instances of this
+ * class are not thread-safe.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class TokenScanner implements Closeable
+{
+	/** How tokens are delimited. */
+	public enum Mode
+	{
+		/**
+		 * Tokens are separated by runs of whitespace characters, that
+		 * is, characters whose code is lower than or equal to
+		 * {@code ' '}.
+		 */
+		WHITESPACE,
+
+		/**
+		 * Each non-empty line is a token. A line is terminated by a line
+		 * feed ('\n'), a carriage return ('\r'), or a carriage return
+		 * followed immediately by a line feed.
+		 */
+		LINE;
+	}
+
+	private static final int DEFAULT_BUFFER_SIZE = 65536;
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private final InputStream in;
+	private final boolean lines;
+	private final Charset charset;
+	private byte[] buf;
+	private int pos;
+	private int limit;
+	private int start;
+	private int end;
+	private boolean eof;
+	private boolean ready;
+	private boolean skipLF;
+
+	/**
+	 * Creates a new whitespace-delimited {@code TokenScanner} that decodes
+	 * tokens with the system's default charset.
+	 *
+	 * @param in the stream to read.
+	 *
+	 * @throws NullPointerException if {@code in} is {@code null}.
+	 */
+	public TokenScanner(InputStream in)
+	{
+		this(in, Mode.WHITESPACE);
+	}
+
+	/**
+	 * Creates a new {@code TokenScanner} that decodes tokens with the
+	 * system's default charset.
+	 *
+	 * @param in the stream to read.
+	 * @param mode how tokens are delimited.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public TokenScanner(InputStream in, Mode mode)
+	{
+		this(in, mode, Charsets.DEFAULT, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new {@code TokenScanner}.
+	 *
+	 * @param in the stream to read.
+	 * @param mode how tokens are delimited.
+	 * @param charset the charset used to decode tokens and lines.
+	 * @param bufferSize the initial size of the buffer, which only grows
+	 *	if a token is longer than it.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IllegalArgumentException if {@code bufferSize} is not
+	 *	strictly positive.
+	 */
+	public TokenScanner(InputStream in, Mode mode, Charset charset,
+		int bufferSize)
+	{
+		Parameters.checkNotNull(in);
+		Parameters.checkNotNull(mode);
+		Parameters.checkNotNull(charset);
+		Parameters.checkCondition(bufferSize > 0);
+		this.in = in;
+		this.lines = mode == Mode.LINE;
+		this.charset = charset;
+		this.buf = new byte[bufferSize];
+	}
+
+	/**
+	 * Returns whether there is another token in the input. This method
+	 * may block waiting for input.
+	 *
+	 * @return whether there is another token.
+	 *
+	 * @throws IOException if the stream can't be read.
+	 */
+	public boolean hasNext() throws IOException
+	{
+		if (!ready) {
+			ready = findToken();
+		}
+		return ready;
+	}
+
+	/**
+	 * Returns the next token.
+	 *
+	 * @return the next token.
+	 *
+	 * @throws NoSuchElementException if there is no more token.
+	 * @throws IOException if the stream can't be read.
+	 */
+	public String next() throws IOException
+	{
+		nextToken();
+		return new String(buf, start, end - start, charset);
+	}
+
+	/**
+	 * Parses the next token as a decimal {@code int} value.
+	 *
+	 * @return the parsed value.
+	 *
+	 * @throws NoSuchElementException if there is no more token.
+	 * @throws NumberFormatException if the token is not a valid
+	 *	{@code int}, in which case it is consumed anyway.
+	 * @throws IOException if the stream can't be read.
+	 */
+	public int nextInt() throws IOException
+	{
+		nextToken();
+		return (int) parseLong(Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Parses the next token as a decimal {@code long} value.
+	 *
+	 * @return the parsed value.
+	 *
+	 * @throws NoSuchElementException if there is no more token.
+	 * @throws NumberFormatException if the token is not a valid
+	 *	{@code long}, in which case it is consumed anyway.
+	 * @throws IOException if the stream can't be read.
+	 */
+	public long nextLong() throws IOException
+	{
+		nextToken();
+		return parseLong(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Parses the next token as a {@code double} value, accepting the same
+	 * syntax as {@link Double#parseDouble(String)}. Plain decimal numbers
+	 * with at most 15 significant digits are parsed without creating any
+	 * object.
+	 *
+	 * @return the parsed value.
+	 *
+	 * @throws NoSuchElementException if there is no more token.
+	 * @throws NumberFormatException if the token is not a valid
+	 *	{@code double}, in which case it is consumed anyway.
+	 * @throws IOException if the stream can't be read.
+	 */
+	public double nextDouble() throws IOException
+	{
+		nextToken();
+		return parseDouble();
+	}
+
+	/**
+	 * Returns the rest of the current line, without its terminator, or
+	 * {@code null} if the end of the stream has been reached. If a token
+	 * has been found by {@link #hasNext()} but not consumed, the returned
+	 * line starts with it.
+	 *
+	 * @return the rest of the current line, or {@code null}.
+	 *
+	 * @throws IOException if the stream can't be read.
+	 */
+	public String nextLine() throws IOException
+	{
+		return nextLine(charset);
+	}
+
+	/**
+	 * Returns the rest of the current line decoded with the given charset.
+	 */
+	String nextLine(Charset cs) throws IOException
+	{
+		if (ready) {
+			pos = start;
+			ready = false;
+		}
+		if (skipLF) {
+			if (pos == limit && !eof) {
+				fill();
+			}
+			if (pos < limit && buf[pos] == '\n') {
+				pos++;
+			}
+			skipLF = false;
+		}
+		int i = pos;
+		while (true) {
+			while (i < limit && buf[i] != '\n' && buf[i] != '\r') {
+				i++;
+			}
+			if (i < limit || eof) {
+				break;
+			}
+			i -= fill();
+		}
+		if (i == pos && eof && i == limit) {
+			return null;
+		}
+		String line = new String(buf, pos, i - pos, cs);
+		pos = i;
+		if (i < limit) {
+			skipLF = buf[i] == '\r';
+			pos++;
+		}
+		return line;
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 *
+	 * @throws IOException if the stream can't be closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		ready = false;
+		eof = true;
+		pos = limit;
+		in.close();
+	}
+
+	private void nextToken() throws IOException
+	{
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		ready = false;
+	}
+
+	private boolean findToken() throws IOException
+	{
+		skipLF = false;
+		while (true) {
+			while (pos < limit && isDelimiter(buf[pos])) {
+				pos++;
+			}
+			if (pos < limit) {
+				break;
+			}
+			if (eof) {
+				return false;
+			}
+			fill();
+		}
+		int i = pos + 1;
+		while (true) {
+			while (i < limit && !isDelimiter(buf[i])) {
+				i++;
+			}
+			if (i < limit || eof) {
+				break;
+			}
+			i -= fill();
+		}
+		start = pos;
+		end = i;
+		pos = i;
+		return true;
+	}
+
+	private boolean isDelimiter(byte b)
+	{
+		if (lines) {
+			return b == '\n' || b == '\r';
+		}
+		return b >= 0 && b <= ' ';
+	}
+
+	/**
+	 * Moves the unread bytes to the beginning of the buffer, growing it
+	 * if it is full, and then reads more bytes. Returns the distance the
+	 * unread bytes have been moved by.
+	 */
+	private int fill() throws IOException
+	{
+		int shift = pos;
+		if (shift > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+		if (limit == buf.length) {
+			buf = Arrays.copyOf(buf, 2 * buf.length);
+		}
+		int n = in.read(buf, limit, buf.length - limit);
+		if (n < 0) {
+			eof = true;
+		} else {
+			limit += n;
+		}
+		return shift;
+	}
+
+	/**
+	 * Parses the current token as a decimal integer in the range
+	 * [{@code min}, {@code -(min + 1)}], using negative accumulation like
+	 * {@link Long#parseLong(String)}.
+	 */
+	private long parseLong(long min)
+	{
+		int i = start;
+		boolean negative = buf[i] == '-';
+		if (negative || buf[i] == '+') {
+			i++;
+		}
+		if (i == end) {
+			throw invalidNumber();
+		}
+		long bound = negative ? min : min + 1;
+		long multmin = bound / 10;
+		long result = 0;
+		for (; i < end; i++) {
+			int digit = buf[i] - '0';
+			if (digit < 0 || digit > 9 || result < multmin) {
+				throw invalidNumber();
+			}
+			result *= 10;
+			if (result < bound + digit) {
+				throw invalidNumber();
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses the current token as a {@code double}. When the mantissa and
+	 * the power of ten are both exactly representable as {@code double}s,
+	 * a single multiplication or division gives the correctly rounded
+	 * result; other cases are delegated to {@link Double#parseDouble}.
+	 */
+	private double parseDouble()
+	{
+		int i = start;
+		boolean negative = buf[i] == '-';
+		if (negative || buf[i] == '+') {
+			i++;
+		}
+		long mantissa = 0;
+		int scale = 0;
+		boolean digits = false;
+		boolean dot = false;
+		for (; i < end; i++) {
+			int digit = buf[i] - '0';
+			if (digit >= 0 && digit <= 9) {
+				mantissa = mantissa * 10 + digit;
+				if (mantissa >= MAX_EXACT_MANTISSA) {
+					return slowParseDouble();
+				}
+				scale += dot ? 1 : 0;
+				digits = true;
+			} else if (buf[i] == '.' && !dot) {
+				dot = true;
+			} else {
+				break;
+			}
+		}
+		int exponent = 0;
+		if (i < end && digits && (buf[i] == 'e' || buf[i] == 'E')) {
+			int j = i + 1;
+			boolean negativeExponent = j < end && buf[j] == '-';
+			if (j < end && (negativeExponent || buf[j] == '+')) {
+				j++;
+			}
+			if (j == end || end - j > 3) {
+				return slowParseDouble();
+			}
+			for (; j < end; j++) {
+				int digit = buf[j] - '0';
+				if (digit < 0 || digit > 9) {
+					return slowParseDouble();
+				}
+				exponent = exponent * 10 + digit;
+			}
+			exponent = negativeExponent ? -exponent : exponent;
+			i = end;
+		}
+		exponent -= scale;
+		if (i < end || !digits || exponent < -22 || exponent > 22) {
+			return slowParseDouble();
+		}
+		double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent]
+			: mantissa * POWERS_OF_TEN[exponent];
+		return negative ? -value : value;
+	}
+
+	private double slowParseDouble()
+	{
+		return Double.parseDouble(new String(buf, start, end - start,
+			Charsets.ISO_8859_1));
+	}
+
+	private NumberFormatException invalidNumber()
+	{
+		String token = new String(buf, start, end - start, charset);
+		return new NumberFormatException(
+			"For input string: \"" + token + "\"");
+	}
+}
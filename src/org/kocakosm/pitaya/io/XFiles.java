@@ -17,6 +17,7 @@
 package org.kocakosm.pitaya.io;
 
 import static org.kocakosm.pitaya.io.WriteOption.*;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 
 import org.kocakosm.pitaya.collection.ImmutableSet;
 import org.kocakosm.pitaya.util.Parameters;
@@ -32,8 +33,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.Set;
 
 /**
@@ -45,11 +49,17 @@ import java.util.Set;
  */
 public final class XFiles
 {
+	private static final long MAX_TRANSFER_SIZE = 64 * 1024 * 1024;
+	private static final long MAX_MAPPING_SIZE = 64 * 1024 * 1024;
+	private static final long MAX_IN_MEMORY_COMPARISON_SIZE = 1024 * 1024;
+
 	/**
 	 * Copies the contents of {@code src} to {@code dst}. If {@code dst}
 	 * doesn't exist, it will be created. If it already exists, it can be
 	 * either a directory or a regular file if {@code src} is also a regular
-	 * file. Named after the Unix command of the same name.
+	 * file. Regular files are copied through {@link FileChannel}s, so that
+	 * the operating system can move the bytes without copying them into
+	 * the Java heap. Named after the Unix command of the same name.
 	 *
 	 * @param src the source {@code File}.
 	 * @param dst the target {@code File}.
@@ -97,12 +107,12 @@ public final class XFiles
 		if (dst.isDirectory()) {
 			cp(src, new File(dst, src.getName()));
 		} else {
-			InputStream in = null;
-			OutputStream out = null;
+			FileInputStream in = null;
+			FileOutputStream out = null;
 			try {
-				in = newInputStream(src);
-				out = newOutputStream(dst);
-				ByteStreams.copy(in, out);
+				in = new FileInputStream(src);
+				out = new FileOutputStream(dst);
+				transfer(in, out);
 			} finally {
 				IO.close(in);
 				IO.close(out);
@@ -110,9 +120,48 @@ public final class XFiles
 		}
 	}
 
+	/**
+	 * Copies the remaining content of {@code in} to {@code out}, letting
+	 * the operating system move the bytes whenever it can. The transfer is
+	 * done by chunks of at most 64 MB, which allows files larger than 2 GB,
+	 * and falls back to a regular stream copy if the channel stops
+	 * transferring bytes before the end of the file (for instance if the
+	 * file grew during the copy, or if it isn't a regular file and reports
+	 * a size of 0). Streams that aren't seekable, such as pipes, are only
+	 * copied with a regular stream copy.
+	 */
+	private static void transfer(FileInputStream in, FileOutputStream out)
+		throws IOException
+	{
+		FileChannel src = in.getChannel();
+		FileChannel dst = out.getChannel();
+		long position;
+		long size;
+		try {
+			position = src.position();
+			size = src.size();
+		} catch (IOException e) {
+			/* Not seekable, no byte has been read yet. */
+			ByteStreams.copy(in, out);
+			return;
+		}
+		while (position < size) {
+			long count = Math.min(size - position, MAX_TRANSFER_SIZE);
+			long n = src.transferTo(position, count, dst);
+			if (n <= 0) {
+				break;
+			}
+			position += n;
+		}
+		src.position(position);
+		ByteStreams.copy(in, out);
+	}
+
 	/**
 	 * Copies the contents of the given input {@code File} to the given
-	 * {@code OutputStream}. Named after the Unix command of the same name.
+	 * {@code OutputStream}. If {@code dst} is a {@link FileOutputStream}, the
+	 * copy is done through {@link FileChannel}s. Named after the Unix command
+	 * of the same name.
 	 *
 	 * @param src the file to copy from.
 	 * @param dst the stream to write to.
@@ -126,6 +175,15 @@ public final class XFiles
 	 */
 	public static void cp(File src, OutputStream dst) throws IOException
 	{
+		if (dst instanceof FileOutputStream) {
+			FileInputStream in = new FileInputStream(src);
+			try {
+				transfer(in, (FileOutputStream) dst);
+			} finally {
+				IO.close(in);
+			}
+			return;
+		}
 		InputStream in = newInputStream(src);
 		try {
 			ByteStreams.copy(in, dst);
@@ -136,7 +194,9 @@ public final class XFiles
 
 	/**
 	 * Copies the contents of the given {@code InputStream} to the given
-	 * output {@code File}. Named after the Unix command of the same name.
+	 * output {@code File}. If {@code src} is a {@link FileInputStream}, its
+	 * remaining content is copied through {@link FileChannel}s. Named after
+	 * the Unix command of the same name.
 	 *
 	 * @param src the stream to read from.
 	 * @param dst the file to write to.
@@ -150,6 +210,15 @@ public final class XFiles
 	 */
 	public static void cp(InputStream src, File dst) throws IOException
 	{
+		if (src instanceof FileInputStream) {
+			FileOutputStream out = new FileOutputStream(dst);
+			try {
+				transfer((FileInputStream) src, out);
+			} finally {
+				IO.close(out);
+			}
+			return;
+		}
 		OutputStream out = newOutputStream(dst);
 		try {
 			ByteStreams.copy(src, out);
@@ -306,10 +375,23 @@ public final class XFiles
 	public static byte[] head(File f, int n) throws IOException
 	{
 		Parameters.checkCondition(n >= 0);
-		InputStream in = newInputStream(f);
-		byte[] buf = new byte[n];
+		FileInputStream in = new FileInputStream(f);
 		try {
-			return XArrays.copyOf(buf, 0, in.read(buf));
+			/*
+			 * The reported size is only used as a hint: some files
+			 * (procfs, sysfs, devices...) report a size of 0 while
+			 * having content, so the buffer grows up to n bytes.
+			 */
+			FileChannel channel = in.getChannel();
+			long hint = Math.max(channel.size(), 8192);
+			byte[] buf = new byte[(int) Math.min(n, hint)];
+			int len = read(channel, buf);
+			while (len == buf.length && len < n) {
+				int capacity = (int) Math.min(n, 2L * buf.length);
+				buf = XArrays.copyOf(buf, 0, capacity);
+				len += read(channel, buf, len);
+			}
+			return len == buf.length ? buf : XArrays.copyOf(buf, 0, len);
 		} finally {
 			IO.close(in);
 		}
@@ -364,7 +446,9 @@ public final class XFiles
 	 * regular files are considered equal if they contain the same bytes.
 	 * Two directories are considered equal if they both contain the same
 	 * items where an item is either a directory or a regular file (items
-	 * must have the same name and content in both directories).
+	 * must have the same name and content in both directories). Regular
+	 * files of different lengths are found to be different without being
+	 * read, and large files are compared through memory mappings.
 	 *
 	 * @param f1 the first {@code File}.
 	 * @param f2 the second {@code File}.
@@ -394,12 +478,12 @@ public final class XFiles
 		throws IOException
 	{
 		if (f1.isFile()) {
-			InputStream in1 = null;
-			InputStream in2 = null;
+			FileInputStream in1 = null;
+			FileInputStream in2 = null;
 			try {
-				in1 = newInputStream(f1);
-				in2 = newInputStream(f2);
-				return ByteStreams.equal(in1, in2);
+				in1 = new FileInputStream(f1);
+				in2 = new FileInputStream(f2);
+				return equal(in1.getChannel(), in2.getChannel());
 			} finally {
 				IO.close(in1);
 				IO.close(in2);
@@ -499,6 +583,64 @@ public final class XFiles
 		return new BufferedOutputStream(newOutputStream(f, opts));
 	}
 
+	/**
+	 * Returns an {@code AtomicFileOutputStream} that replaces the given
+	 * {@code File} when it is closed. The written bytes are forced to the
+	 * storage device before the file is replaced.
+	 *
+	 * @param f the file to replace.
+	 *
+	 * @return an {@code OutputStream} to replace the given {@code File}.
+	 *
+	 * @throws NullPointerException if {@code f} is {@code null}.
+	 * @throws IOException if the temporary file can't be created in
+	 *	{@code f}'s directory.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	write access to {@code f}'s directory.
+	 *
+	 * @since 0.5
+	 */
+	public static AtomicFileOutputStream newAtomicOutputStream(File f)
+		throws IOException
+	{
+		return new AtomicFileOutputStream(f);
+	}
+
+	/**
+	 * Atomically replaces the content of the given {@code File}, as if by
+	 * writing the given data to {@link #newAtomicOutputStream(File)}.
+	 *
+	 * @param f the file to replace.
+	 * @param data the file's new content.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws IOException if the file can't be replaced.
+	 * @throws SecurityException if a security manager exists and denies
+	 *	write access to {@code f}'s directory.
+	 *
+	 * @since 0.5
+	 */
+	public static void writeAtomically(File f, byte[] data)
+		throws IOException
+	{
+		write(new AtomicFileOutputStream(f), data);
+	}
+
+	private static void write(AtomicFileOutputStream out, byte[] data)
+		throws IOException
+	{
+		try {
+			out.write(data);
+		} catch (IOException e) {
+			out.abort();
+			throw e;
+		} catch (RuntimeException e) {
+			out.abort();
+			throw e;
+		}
+		out.close();
+	}
+
 	private static void checkWriteOptions(Set<WriteOption> options)
 	{
 		if ((options.contains(APPEND) && options.contains(OVERWRITE))
@@ -551,14 +693,126 @@ public final class XFiles
 	 */
 	public static byte[] read(File f) throws IOException
 	{
-		InputStream in = newInputStream(f);
+		FileInputStream in = new FileInputStream(f);
 		try {
-			return ByteStreams.read(in);
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(f + " is too large");
+			}
+			byte[] data = new byte[(int) size];
+			int len = read(channel, data);
+			if (len < data.length) {
+				return XArrays.copyOf(data, 0, len);
+			}
+			byte[] appended = ByteStreams.read(in);
+			return appended.length == 0 ? data
+				: XArrays.concat(data, appended);
 		} finally {
 			IO.close(in);
 		}
 	}
 
+	/**
+	 * Reads bytes from the given channel until the given array is full or
+	 * the end of the channel is reached, and returns the number of bytes
+	 * read.
+	 */
+	private static int read(FileChannel channel, byte[] buf)
+		throws IOException
+	{
+		return read(channel, buf, 0);
+	}
+
+	/**
+	 * Reads bytes from the given channel into {@code buf}, starting at
+	 * {@code off}, until the buffer is full or EOF is reached. Returns the
+	 * number of bytes read.
+	 */
+	private static int read(FileChannel channel, byte[] buf, int off)
+		throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(buf, off, buf.length - off);
+		int n = 0;
+		while (buffer.hasRemaining() && n >= 0) {
+			n = channel.read(buffer);
+		}
+		return buffer.position() - off;
+	}
+
+	/**
+	 * Compares the content of the given channels. Their reported sizes are
+	 * only used as a hint: files that report a size of 0 (procfs, sysfs,
+	 * devices...) and the data past the reported size (if the files grew)
+	 * are compared by reading both channels until EOF. Up to the reported
+	 * size, small files are read in memory, larger ones are mapped by
+	 * windows of 64 MB and compared 8 bytes at a time.
+	 */
+	private static boolean equal(FileChannel c1, FileChannel c2)
+		throws IOException
+	{
+		long size = c1.size();
+		if (size != c2.size()) {
+			return (size == 0 || c2.size() == 0) && equalToEOF(c1, c2);
+		}
+		if (size <= MAX_IN_MEMORY_COMPARISON_SIZE) {
+			byte[] b1 = new byte[(int) size];
+			byte[] b2 = new byte[(int) size];
+			return read(c1, b1) == read(c2, b2) && Arrays.equals(b1, b2)
+				&& equalToEOF(c1, c2);
+		}
+		for (long pos = 0; pos < size; pos += MAX_MAPPING_SIZE) {
+			long len = Math.min(MAX_MAPPING_SIZE, size - pos);
+			ByteBuffer b1 = c1.map(READ_ONLY, pos, len);
+			ByteBuffer b2 = c2.map(READ_ONLY, pos, len);
+			if (!equal(b1, b2)) {
+				return false;
+			}
+		}
+		c1.position(size);
+		c2.position(size);
+		return equalToEOF(c1, c2);
+	}
+
+	/**
+	 * Compares the remaining content of the given channels, from their
+	 * current positions, by reading them until EOF.
+	 */
+	private static boolean equalToEOF(FileChannel c1, FileChannel c2)
+		throws IOException
+	{
+		byte[] b1 = new byte[8192];
+		byte[] b2 = new byte[8192];
+		while (true) {
+			int len = read(c1, b1);
+			if (len != read(c2, b2) || !Arrays.equals(b1, b2)) {
+				return false;
+			}
+			if (len < b1.length) {
+				return true;
+			}
+		}
+	}
+
+	private static boolean equal(ByteBuffer b1, ByteBuffer b2)
+	{
+		b1.order(ByteOrder.nativeOrder());
+		b2.order(ByteOrder.nativeOrder());
+		int len = b1.remaining();
+		int i = 0;
+		for (; i <= len - 8; i += 8) {
+			if (b1.getLong(i) != b2.getLong(i)) {
+				return false;
+			}
+		}
+		for (; i < len; i++) {
+			if (b1.get(i) != b2.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private XFiles()
 	{
 		/* ... */
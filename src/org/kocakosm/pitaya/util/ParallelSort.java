@@ -0,0 +1,430 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * In-place parallel sort algorithms used by {@link XArrays}. Arrays are split
+ * in contiguous chunks that are sorted concurrently by the tasks of an
+ * {@link ExecutorService}, the calling thread waiting for their completion
+ * (see {@link ParallelTasks}). Arrays having less than
+ * {@link XArrays#PARALLEL_SORT_THRESHOLD} elements are sorted sequentially
+ * in the calling thread.
+ *
+ * @param <A> the type of the arrays to sort.
+ *
+ * @author Osman KOCAK
+ */
+abstract class ParallelSort<A>
+{
+	static final int PARALLELISM = ParallelTasks.PARALLELISM;
+
+	static final ParallelSort<long[]> LONGS = new MergeSort<long[]>()
+	{
+		@Override
+		void sort(long[] a, int from, int to)
+		{
+			Arrays.sort(a, from, to);
+		}
+
+		@Override
+		long[] newArray(int length)
+		{
+			return new long[length];
+		}
+
+		@Override
+		void merge(long[] src, int lo, int mid, int hi, long[] dst)
+		{
+			int i = lo;
+			int j = mid;
+			for (int k = lo; k < hi; k++) {
+				if (j >= hi || i < mid && src[i] <= src[j]) {
+					dst[k] = src[i++];
+				} else {
+					dst[k] = src[j++];
+				}
+			}
+		}
+	};
+
+	static final ParallelSort<int[]> INTS = new MergeSort<int[]>()
+	{
+		@Override
+		void sort(int[] a, int from, int to)
+		{
+			Arrays.sort(a, from, to);
+		}
+
+		@Override
+		int[] newArray(int length)
+		{
+			return new int[length];
+		}
+
+		@Override
+		void merge(int[] src, int lo, int mid, int hi, int[] dst)
+		{
+			int i = lo;
+			int j = mid;
+			for (int k = lo; k < hi; k++) {
+				if (j >= hi || i < mid && src[i] <= src[j]) {
+					dst[k] = src[i++];
+				} else {
+					dst[k] = src[j++];
+				}
+			}
+		}
+	};
+
+	static final ParallelSort<float[]> FLOATS = new MergeSort<float[]>()
+	{
+		@Override
+		void sort(float[] a, int from, int to)
+		{
+			Arrays.sort(a, from, to);
+		}
+
+		@Override
+		float[] newArray(int length)
+		{
+			return new float[length];
+		}
+
+		@Override
+		void merge(float[] src, int lo, int mid, int hi, float[] dst)
+		{
+			int i = lo;
+			int j = mid;
+			for (int k = lo; k < hi; k++) {
+				if (j >= hi || i < mid
+					&& Float.compare(src[i], src[j]) <= 0) {
+					dst[k] = src[i++];
+				} else {
+					dst[k] = src[j++];
+				}
+			}
+		}
+	};
+
+	static final ParallelSort<double[]> DOUBLES = new MergeSort<double[]>()
+	{
+		@Override
+		void sort(double[] a, int from, int to)
+		{
+			Arrays.sort(a, from, to);
+		}
+
+		@Override
+		double[] newArray(int length)
+		{
+			return new double[length];
+		}
+
+		@Override
+		void merge(double[] src, int lo, int mid, int hi, double[] dst)
+		{
+			int i = lo;
+			int j = mid;
+			for (int k = lo; k < hi; k++) {
+				if (j >= hi || i < mid
+					&& Double.compare(src[i], src[j]) <= 0) {
+					dst[k] = src[i++];
+				} else {
+					dst[k] = src[j++];
+				}
+			}
+		}
+	};
+
+	static final ParallelSort<byte[]> BYTES = new CountingSort<byte[]>(256)
+	{
+		@Override
+		void sort(byte[] a, int from, int to)
+		{
+			Arrays.sort(a, from, to);
+		}
+
+		@Override
+		void count(byte[] a, int from, int to, int[] counts)
+		{
+			for (int i = from; i < to; i++) {
+				counts[a[i] + 128]++;
+			}
+		}
+
+		@Override
+		void fill(byte[] a, int[] counts)
+		{
+			int from = 0;
+			for (int i = 0; i < counts.length; i++) {
+				Arrays.fill(a, from, from + counts[i], (byte) (i - 128));
+				from += counts[i];
+			}
+		}
+	};
+
+	static final ParallelSort<short[]> SHORTS = new CountingSort<short[]>(65536)
+	{
+		@Override
+		void sort(short[] a, int from, int to)
+		{
+			Arrays.sort(a, from, to);
+		}
+
+		@Override
+		void count(short[] a, int from, int to, int[] counts)
+		{
+			for (int i = from; i < to; i++) {
+				counts[a[i] + 32768]++;
+			}
+		}
+
+		@Override
+		void fill(short[] a, int[] counts)
+		{
+			int from = 0;
+			for (int i = 0; i < counts.length; i++) {
+				Arrays.fill(a, from, from + counts[i], (short) (i - 32768));
+				from += counts[i];
+			}
+		}
+	};
+
+	static final ParallelSort<char[]> CHARS = new CountingSort<char[]>(65536)
+	{
+		@Override
+		void sort(char[] a, int from, int to)
+		{
+			Arrays.sort(a, from, to);
+		}
+
+		@Override
+		void count(char[] a, int from, int to, int[] counts)
+		{
+			for (int i = from; i < to; i++) {
+				counts[a[i]]++;
+			}
+		}
+
+		@Override
+		void fill(char[] a, int[] counts)
+		{
+			int from = 0;
+			for (int i = 0; i < counts.length; i++) {
+				Arrays.fill(a, from, from + counts[i], (char) i);
+				from += counts[i];
+			}
+		}
+	};
+
+	/**
+	 * Returns a stable {@code ParallelSort} for arrays of objects, using
+	 * the given {@code Comparator} ({@code null} meaning natural ordering).
+	 *
+	 * @param c the {@code Comparator} to use.
+	 *
+	 * @return a {@code ParallelSort} for arrays of objects.
+	 */
+	static ParallelSort<Object[]> objects(final Comparator<Object> c)
+	{
+		final Comparator<Object> cmp = c == null ? NATURAL_ORDER : c;
+		return new MergeSort<Object[]>()
+		{
+			@Override
+			void sort(Object[] a, int from, int to)
+			{
+				Arrays.sort(a, from, to, c);
+			}
+
+			@Override
+			Object[] newArray(int length)
+			{
+				return new Object[length];
+			}
+
+			@Override
+			void merge(Object[] src, int lo, int mid, int hi,
+				Object[] dst)
+			{
+				int i = lo;
+				int j = mid;
+				for (int k = lo; k < hi; k++) {
+					if (j >= hi || i < mid
+						&& cmp.compare(src[i], src[j]) <= 0) {
+						dst[k] = src[i++];
+					} else {
+						dst[k] = src[j++];
+					}
+				}
+			}
+		};
+	}
+
+	private static final Comparator<Object> NATURAL_ORDER =
+		new Comparator<Object>()
+	{
+		@Override
+		public int compare(Object o1, Object o2)
+		{
+			return ((Comparable<Object>) o1).compareTo(o2);
+		}
+	};
+
+	/**
+	 * Sorts the given array in place, using the given
+	 * {@code ExecutorService}.
+	 *
+	 * @param a the array to sort.
+	 * @param length the length of {@code a}.
+	 * @param executor the {@code ExecutorService} to use.
+	 */
+	final void sort(A a, int length, ExecutorService executor)
+	{
+		Parameters.checkNotNull(executor);
+		if (length < XArrays.PARALLEL_SORT_THRESHOLD) {
+			sort(a, 0, length);
+		} else {
+			parallelSort(a, length, executor);
+		}
+	}
+
+	abstract void sort(A a, int from, int to);
+
+	abstract void parallelSort(A a, int length, ExecutorService executor);
+
+	/**
+	 * Merge sort: chunks are sorted concurrently and then merged pairwise,
+	 * each round of merges being also performed concurrently. Needs a
+	 * temporary buffer as large as the array to sort.
+	 */
+	private abstract static class MergeSort<A> extends ParallelSort<A>
+	{
+		abstract A newArray(int length);
+
+		abstract void merge(A src, int lo, int mid, int hi, A dst);
+
+		@Override
+		final void parallelSort(final A a, int length,
+			ExecutorService executor)
+		{
+			final int[] bounds = ParallelTasks.split(length,
+				XArrays.PARALLEL_SORT_THRESHOLD, 4 * PARALLELISM);
+			final int chunks = bounds.length - 1;
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int i = 0; i < chunks; i++) {
+				final int from = bounds[i];
+				final int to = bounds[i + 1];
+				tasks.add(new Callable<Void>()
+				{
+					@Override
+					public Void call()
+					{
+						sort(a, from, to);
+						return null;
+					}
+				});
+			}
+			ParallelTasks.invokeAll(executor, tasks);
+			A src = a;
+			A dst = chunks > 1 ? newArray(length) : a;
+			for (int width = 1; width < chunks; width *= 2) {
+				tasks.clear();
+				for (int i = 0; i < chunks; i += 2 * width) {
+					final A from = src;
+					final A to = dst;
+					final int lo = bounds[i];
+					final int mid = bounds[Math.min(i + width, chunks)];
+					final int hi = bounds[Math.min(i + 2 * width, chunks)];
+					tasks.add(new Callable<Void>()
+					{
+						@Override
+						public Void call()
+						{
+							merge(from, lo, mid, hi, to);
+							return null;
+						}
+					});
+				}
+				ParallelTasks.invokeAll(executor, tasks);
+				A tmp = src;
+				src = dst;
+				dst = tmp;
+			}
+			if (src != a) {
+				System.arraycopy(src, 0, a, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Counting sort for small integral types: chunks are counted
+	 * concurrently, then the array is rewritten from the summed counts.
+	 * Needs no buffer other than one array of counts per chunk.
+	 */
+	private abstract static class CountingSort<A> extends ParallelSort<A>
+	{
+		private final int range;
+
+		CountingSort(int range)
+		{
+			this.range = range;
+		}
+
+		abstract void count(A a, int from, int to, int[] counts);
+
+		abstract void fill(A a, int[] counts);
+
+		@Override
+		final void parallelSort(final A a, int length,
+			ExecutorService executor)
+		{
+			final int[] bounds = ParallelTasks.split(length,
+				XArrays.PARALLEL_SORT_THRESHOLD, PARALLELISM);
+			final int[][] counts = new int[bounds.length - 1][];
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int i = 0; i < counts.length; i++) {
+				final int index = i;
+				tasks.add(new Callable<Void>()
+				{
+					@Override
+					public Void call()
+					{
+						counts[index] = new int[range];
+						count(a, bounds[index], bounds[index + 1],
+							counts[index]);
+						return null;
+					}
+				});
+			}
+			ParallelTasks.invokeAll(executor, tasks);
+			int[] total = counts[0];
+			for (int i = 1; i < counts.length; i++) {
+				for (int j = 0; j < range; j++) {
+					total[j] += counts[i][j];
+				}
+			}
+			fill(a, total);
+		}
+	}
+}
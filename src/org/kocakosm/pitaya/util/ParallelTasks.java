@@ -0,0 +1,190 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Support for Pitaya's parallel utilities, such as
+ * {@link XArrays#parallelSort(Object[])} or the {@code ParallelLists} and
+ * {@code ParallelFiles} classes, which split their work in independent tasks
+ * and wait for their completion in the calling thread. They share a single
+ * pool of daemon threads whose size is the number of available processors.
+ * As the calling thread waits for its tasks, it must not be a thread of a
+ * bounded {@code ExecutorService} running them, lest all of its threads end
+ * up waiting for tasks that can't run. This is handled for the shared pool:
+ * tasks submitted from one of its threads are run in the calling thread.
+ *
+ * @since 0.5
+ *
+ * @author Osman KOCAK
+ */
+public final class ParallelTasks
+{
+	/** The number of available processors. */
+	public static final int PARALLELISM =
+		Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Returns the shared pool of daemon threads.
+	 *
+	 * @return the shared pool of daemon threads.
+	 */
+	public static ExecutorService defaultExecutor()
+	{
+		return DefaultExecutor.INSTANCE;
+	}
+
+	/**
+	 * Returns a {@code ThreadFactory} creating daemon threads, so that a
+	 * pool which isn't shut down never prevents the JVM from exiting.
+	 * Threads are named after the given prefix followed by a sequence
+	 * number.
+	 *
+	 * @param prefix the prefix of the threads' names.
+	 *
+	 * @return the created {@code ThreadFactory}.
+	 *
+	 * @throws NullPointerException if {@code prefix} is {@code null}.
+	 */
+	public static ThreadFactory newThreadFactory(String prefix)
+	{
+		return new DaemonThreadFactory(prefix, false);
+	}
+
+	/**
+	 * Splits the range {@code [0, size)} in contiguous chunks of at least
+	 * {@code threshold} elements (unless {@code size} is smaller), and at
+	 * most {@code maxChunks} chunks. Returns the chunks' bounds: chunk
+	 * {@code i} is {@code [bounds[i], bounds[i + 1])}.
+	 *
+	 * @param size the size of the range to split.
+	 * @param threshold the minimum size of a chunk.
+	 * @param maxChunks the maximum number of chunks.
+	 *
+	 * @return the chunks' bounds.
+	 *
+	 * @throws IllegalArgumentException if {@code size} is negative, or if
+	 *	{@code threshold} or {@code maxChunks} is not strictly positive.
+	 */
+	public static int[] split(int size, int threshold, int maxChunks)
+	{
+		Parameters.checkCondition(size >= 0);
+		Parameters.checkCondition(threshold > 0 && maxChunks > 0);
+		int chunks = Math.max(1, Math.min(size / threshold, maxChunks));
+		int[] bounds = new int[chunks + 1];
+		for (int i = 0; i <= chunks; i++) {
+			bounds[i] = (int) ((long) size * i / chunks);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Runs the given tasks with the given {@code ExecutorService} and
+	 * waits for their completion, returning their results in order. A
+	 * single task, or tasks submitted to the shared pool from one of its
+	 * threads, are run in the calling thread. The first error thrown by a
+	 * task is propagated as is if it is unchecked, wrapped in a
+	 * {@code RuntimeException} otherwise.
+	 *
+	 * @param <T> the type of the tasks' results.
+	 * @param executor the {@code ExecutorService} to use.
+	 * @param tasks the tasks to run.
+	 *
+	 * @return the tasks' results.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 */
+	public static <T> List<T> invokeAll(ExecutorService executor,
+		List<? extends Callable<T>> tasks)
+	{
+		Parameters.checkNotNull(executor);
+		List<T> results = new ArrayList<T>(tasks.size());
+		try {
+			if (tasks.size() == 1 || executor == DefaultExecutor.INSTANCE
+				&& Thread.currentThread() instanceof Worker) {
+				for (Callable<T> task : tasks) {
+					results.add(task.call());
+				}
+				return results;
+			}
+			for (Future<T> future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (ExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw Throwables.propagate(e);
+		} catch (Exception e) {
+			throw Throwables.propagate(e);
+		}
+	}
+
+	private static final class DefaultExecutor
+	{
+		static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+			PARALLELISM, new DaemonThreadFactory("pitaya-parallel-", true));
+	}
+
+	/** A thread of the shared pool. */
+	private static final class Worker extends Thread
+	{
+		Worker(Runnable r, String name)
+		{
+			super(r, name);
+		}
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory
+	{
+		private final String prefix;
+		private final boolean shared;
+		private final AtomicInteger count;
+
+		DaemonThreadFactory(String prefix, boolean shared)
+		{
+			this.prefix = Parameters.checkNotNull(prefix);
+			this.shared = shared;
+			this.count = new AtomicInteger();
+		}
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			String name = prefix + count.incrementAndGet();
+			Thread thread = shared ? new Worker(r, name) : new Thread(r, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	private ParallelTasks()
+	{
+		/* ... */
+	}
+}
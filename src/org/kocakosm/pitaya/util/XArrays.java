@@ -20,9 +20,12 @@ import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
 /**
- * Various extra utilities for arrays.
+ * Various extra utilities for arrays. Unlike the {@code sort} methods, which
+ * return sorted copies, the {@code parallelSort} methods sort their argument
+ * in place.
  *
  * @see Arrays
  *
@@ -30,6 +33,12 @@ import java.util.Random;
  */
 public final class XArrays
 {
+	/**
+	 * The minimum length of the arrays that are sorted in parallel by the
+	 * {@code parallelSort} methods.
+	 */
+	public static final int PARALLEL_SORT_THRESHOLD = 8192;
+
 	private static final Random PRNG = new Random();
 
 	/**
@@ -1794,6 +1803,371 @@ public final class XArrays
 		return copy;
 	}
 
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 *
+	 * @see Arrays#sort(long[])
+	 */
+	public static void parallelSort(long[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @see Arrays#sort(long[])
+	 */
+	public static void parallelSort(long[] a, ExecutorService executor)
+	{
+		ParallelSort.LONGS.sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 *
+	 * @see Arrays#sort(int[])
+	 */
+	public static void parallelSort(int[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @see Arrays#sort(int[])
+	 */
+	public static void parallelSort(int[] a, ExecutorService executor)
+	{
+		ParallelSort.INTS.sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 *
+	 * @see Arrays#sort(short[])
+	 */
+	public static void parallelSort(short[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @see Arrays#sort(short[])
+	 */
+	public static void parallelSort(short[] a, ExecutorService executor)
+	{
+		ParallelSort.SHORTS.sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 *
+	 * @see Arrays#sort(char[])
+	 */
+	public static void parallelSort(char[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @see Arrays#sort(char[])
+	 */
+	public static void parallelSort(char[] a, ExecutorService executor)
+	{
+		ParallelSort.CHARS.sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 *
+	 * @see Arrays#sort(byte[])
+	 */
+	public static void parallelSort(byte[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @see Arrays#sort(byte[])
+	 */
+	public static void parallelSort(byte[] a, ExecutorService executor)
+	{
+		ParallelSort.BYTES.sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 *
+	 * @see Arrays#sort(float[])
+	 */
+	public static void parallelSort(float[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @see Arrays#sort(float[])
+	 */
+	public static void parallelSort(float[] a, ExecutorService executor)
+	{
+		ParallelSort.FLOATS.sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 *
+	 * @see Arrays#sort(double[])
+	 */
+	public static void parallelSort(double[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array in place into ascending numerical order. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 *
+	 * @see Arrays#sort(double[])
+	 */
+	public static void parallelSort(double[] a, ExecutorService executor)
+	{
+		ParallelSort.DOUBLES.sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array of objects in place into ascending order,
+	 * according to the natural ordering of its elements (all elements in
+	 * the array must implement the {@link Comparable} interface). The sort
+	 * is stable. Arrays having at least {@value #PARALLEL_SORT_THRESHOLD}
+	 * elements are sorted in parallel, using a shared pool of daemon
+	 * threads whose size is the number of available processors; smaller
+	 * arrays are sorted in the calling thread.
+	 *
+	 * @param a the array to be sorted.
+	 *
+	 * @throws NullPointerException if {@code a} is {@code null}.
+	 * @throws ClassCastException if the array contains elements that are
+	 *	not mutually comparable (for example, Strings and Integers).
+	 *
+	 * @see Arrays#sort(java.lang.Object[])
+	 */
+	public static void parallelSort(Object[] a)
+	{
+		parallelSort(a, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array of objects in place into ascending order,
+	 * according to the natural ordering of its elements (all elements in
+	 * the array must implement the {@link Comparable} interface). The sort
+	 * is stable. Arrays having at least {@value #PARALLEL_SORT_THRESHOLD}
+	 * elements are sorted in parallel by the tasks of the given
+	 * {@code ExecutorService}; smaller arrays are sorted in the calling
+	 * thread. The calling thread waits for the tasks, and so must not be
+	 * one of {@code executor}'s threads if it is bounded.
+	 *
+	 * @param a the array to be sorted.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws ClassCastException if the array contains elements that are
+	 *	not mutually comparable (for example, Strings and Integers).
+	 *
+	 * @see Arrays#sort(java.lang.Object[])
+	 */
+	public static void parallelSort(Object[] a, ExecutorService executor)
+	{
+		ParallelSort.objects(null).sort(a, a.length, executor);
+	}
+
+	/**
+	 * Sorts the given array of objects in place according to the order
+	 * induced by the given {@code Comparator}. The sort is stable. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel, using a shared pool of daemon threads whose size is the
+	 * number of available processors; smaller arrays are sorted in the
+	 * calling thread. The {@code Comparator} may be called concurrently
+	 * from several threads.
+	 *
+	 * @param <T> the type of the elements in the array to sort.
+	 * @param a the array to be sorted.
+	 * @param c the comparator to determine the order of the array.
+	 *
+	 * @throws NullPointerException if {@code a} or {@code c} is {@code null}.
+	 * @throws ClassCastException if the array contains elements that are
+	 *	not mutually comparable using the given {@code Comparator}.
+	 *
+	 * @see Arrays#sort(java.lang.Object[], java.util.Comparator)
+	 */
+	public static <T> void parallelSort(T[] a, Comparator<? super T> c)
+	{
+		parallelSort(a, c, ParallelTasks.defaultExecutor());
+	}
+
+	/**
+	 * Sorts the given array of objects in place according to the order
+	 * induced by the given {@code Comparator}. The sort is stable. Arrays
+	 * having at least {@value #PARALLEL_SORT_THRESHOLD} elements are sorted
+	 * in parallel by the tasks of the given {@code ExecutorService};
+	 * smaller arrays are sorted in the calling thread. The calling thread
+	 * waits for the tasks, and so must not be one of {@code executor}'s
+	 * threads if it is bounded. The {@code Comparator} may be called
+	 * concurrently from several threads.
+	 *
+	 * @param <T> the type of the elements in the array to sort.
+	 * @param a the array to be sorted.
+	 * @param c the comparator to determine the order of the array.
+	 * @param executor the {@code ExecutorService} to use.
+	 *
+	 * @throws NullPointerException if one of the arguments is {@code null}.
+	 * @throws ClassCastException if the array contains elements that are
+	 *	not mutually comparable using the given {@code Comparator}.
+	 *
+	 * @see Arrays#sort(java.lang.Object[], java.util.Comparator)
+	 */
+	public static <T> void parallelSort(T[] a, Comparator<? super T> c,
+		ExecutorService executor)
+	{
+		Parameters.checkNotNull(c);
+		ParallelSort.objects((Comparator<Object>) c).sort(a, a.length,
+			executor);
+	}
+
 	/**
 	 * Converts an array of {@code Long}s to an array of {@code long}s.
 	 * Returns {@code null} if the given array is {@code null}. Does not
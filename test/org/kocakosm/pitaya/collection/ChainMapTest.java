@@ -266,4 +266,74 @@ public final class ChainMapTest
 		assertTrue(c1.hashCode() == c2.hashCode());
 		assertTrue(c2.hashCode() == c3.hashCode());
 	}
+
+	@Test
+	public void testGetWithNullValue()
+	{
+		Map<Long, Long> m1 = new HashMap<Long, Long>();
+		m1.put(1L, null);
+		Map<Long, Long> m2 = new HashMap<Long, Long>();
+		m2.put(1L, 1L);
+		Map<Long, Long> chain = new ChainMap<Long, Long>(m1, m2);
+
+		assertNull(chain.get(1L));
+		assertNull(chain.remove(1L));
+		assertFalse(m2.containsKey(1L));
+	}
+
+	@Test
+	public void testHitAndMissCounts()
+	{
+		Map<Long, Long> m1 = new HashMap<Long, Long>();
+		m1.put(1L, 1L);
+		Map<Long, Long> m2 = new HashMap<Long, Long>();
+		m2.put(2L, 4L);
+		ChainMap<Long, Long> chain = new ChainMap<Long, Long>(m1, m2);
+
+		chain.get(1L);
+		chain.get(2L);
+		chain.get(2L);
+		chain.containsKey(2L);
+		chain.get(3L);
+		assertEquals(1, chain.getHitCount(0));
+		assertEquals(3, chain.getHitCount(1));
+		assertEquals(1, chain.getMissCount());
+		chain.resetCounts();
+		assertEquals(0, chain.getHitCount(0));
+		assertEquals(0, chain.getHitCount(1));
+		assertEquals(0, chain.getMissCount());
+	}
+
+	@Test
+	public void testFlatView()
+	{
+		Map<Long, Long> m1 = new HashMap<Long, Long>();
+		m1.put(1L, 1L);
+		m1.put(2L, 4L);
+		Map<Long, Long> m2 = new HashMap<Long, Long>();
+		m2.put(2L, 3L);
+		m2.put(3L, 9L);
+		ChainMap<Long, Long> chain = new ChainMap<Long, Long>(m1, m2);
+		Map<Long, Long> view = chain.flatView();
+
+		assertEquals(chain, view);
+		assertEquals(3, view.size());
+		assertEquals(Long.valueOf(4L), view.get(2L));
+		chain.put(4L, 16L);
+		assertEquals(Long.valueOf(16L), view.get(4L));
+		chain.remove(2L);
+		assertFalse(view.containsKey(2L));
+		m2.put(5L, 25L);
+		assertFalse(view.containsKey(5L));
+		chain.invalidate();
+		assertTrue(view.containsKey(5L));
+		assertEquals(chain, view);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testFlatViewIsReadOnly()
+	{
+		Map<Long, Long> m1 = new HashMap<Long, Long>();
+		new ChainMap<Long, Long>(m1).flatView().put(1L, 1L);
+	}
 }
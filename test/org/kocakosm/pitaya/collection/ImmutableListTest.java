@@ -18,9 +18,17 @@ package org.kocakosm.pitaya.collection;
 
 import static org.junit.Assert.*;
 
+import org.kocakosm.pitaya.util.XArrays;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -45,6 +53,32 @@ public final class ImmutableListTest
 		assertEquals(Arrays.asList("A", "D", "C", "B"), list);
 	}
 
+	@Test
+	public void testBuilderSortsInPlace()
+	{
+		ImmutableList.Builder<String> builder =
+			new ImmutableList.Builder<String>().add("C", "A", "B");
+		builder.sort();
+		assertEquals(Arrays.asList("A", "B", "C"), builder.build());
+	}
+
+	@Test
+	public void testBuilderParallelSort()
+	{
+		ImmutableList.Builder<Integer> builder =
+			new ImmutableList.Builder<Integer>();
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 3 * XArrays.PARALLEL_SORT_THRESHOLD; i++) {
+			builder.add(i % 1000);
+			expected.add(i % 1000);
+		}
+		Collections.sort(expected);
+		assertEquals(expected, builder.parallelSort().build());
+		Collections.reverse(expected);
+		assertEquals(expected, builder.parallelSort(
+			Collections.reverseOrder()).build());
+	}
+
 	@Test
 	public void testCopyOfCollection()
 	{
@@ -52,6 +86,36 @@ public final class ImmutableListTest
 		assertEquals(collection, ImmutableList.copyOf(collection));
 	}
 
+	@Test
+	public void testCopyOfCollectionCopiesArray()
+	{
+		final String[] array = {"Hello", "World"};
+		Collection<String> collection = new AbstractCollection<String>()
+		{
+			@Override
+			public Iterator<String> iterator()
+			{
+				return Arrays.asList(array).iterator();
+			}
+
+			@Override
+			public int size()
+			{
+				return array.length;
+			}
+
+			@Override
+			public Object[] toArray()
+			{
+				return array;
+			}
+		};
+		List<String> list = ImmutableList.copyOf(collection);
+		array[0] = "Goodbye";
+		assertEquals(Arrays.asList("Hello", "World"), list);
+		assertEquals(Object[].class, list.toArray().getClass());
+	}
+
 	@Test
 	public void testCopyOfIterable()
 	{
@@ -138,6 +202,62 @@ public final class ImmutableListTest
 		assertEquals(in.subList(1, 2), ImmutableList.copyOf(in).subList(1, 2));
 	}
 
+	@Test
+	public void testSubListOfSubList()
+	{
+		List<Long> list = ImmutableList.of(1L, 2L, 3L, 4L, 5L);
+		List<Long> sub = list.subList(1, 4).subList(1, 3);
+		assertEquals(Arrays.asList(3L, 4L), sub);
+		assertEquals(1, sub.indexOf(4L));
+		assertArrayEquals(new Object[] {3L, 4L}, sub.toArray());
+	}
+
+	@Test
+	public void testSerialization() throws Exception
+	{
+		List<Long> list = ImmutableList.of(1L, 2L, 3L, 4L, 5L);
+		List<Long> sub = list.subList(1, 3);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(sub);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(
+			new ByteArrayInputStream(bytes.toByteArray()));
+		List<?> read = (List<?>) in.readObject();
+		assertEquals(sub, read);
+		assertEquals(2, ((ImmutableList<?>) read).array().length);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSubListWithInvalidIndexes()
+	{
+		ImmutableList.of(1L, 2L, 3L).subList(0, 2).subList(1, 3);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetWithInvalidIndex()
+	{
+		ImmutableList.of(1L, 2L, 3L).subList(0, 2).get(2);
+	}
+
+	@Test
+	public void testCopyOfArrayIsACopy()
+	{
+		Long[] values = {1L, 2L};
+		List<Long> list = ImmutableList.copyOf(values);
+		values[0] = 3L;
+		assertEquals(Arrays.asList(1L, 2L), list);
+	}
+
+	@Test
+	public void testBuilderIsIndependentFromBuiltList()
+	{
+		ImmutableList.Builder<Long> builder = new ImmutableList.Builder<Long>();
+		List<Long> list = builder.add(1L, 2L).build();
+		builder.add(3L);
+		assertEquals(Arrays.asList(1L, 2L), list);
+	}
+
 	@Test(expected = UnsupportedOperationException.class)
 	public void testClear()
 	{
@@ -39,6 +39,24 @@ import org.junit.Test;
  */
 public final class IterablesTest
 {
+	private static final Function<Long, Long> SQUARE = new Function<Long, Long>()
+	{
+		@Override
+		public Long apply(Long input)
+		{
+			return input * input;
+		}
+	};
+
+	private static final Predicate<Long> EVEN = new Predicate<Long>()
+	{
+		@Override
+		public boolean apply(Long input)
+		{
+			return input % 2 == 0;
+		}
+	};
+
 	@Test
 	public void testEmptyIterableHasNext()
 	{
@@ -138,6 +156,73 @@ public final class IterablesTest
 		assertFalse(skip(Arrays.asList(1L, 2L, 3L), 10).iterator().hasNext());
 	}
 
+	@Test
+	public void testTransform()
+	{
+		Iterable<Long> iterable = transform(Arrays.asList(1L, 2L, 3L), SQUARE);
+		assertEquals(Arrays.asList(1L, 4L, 9L), toList(iterable));
+		assertEquals(Arrays.asList(1L, 4L, 9L), toList(iterable));
+	}
+
+	@Test
+	public void testFilter()
+	{
+		Iterable<Long> iterable = filter(Arrays.asList(1L, 2L, 3L, 4L), EVEN);
+		assertEquals(Arrays.asList(2L, 4L), toList(iterable));
+		assertEquals(Arrays.asList(2L, 4L), toList(iterable));
+	}
+
+	@Test
+	public void testFusedPipeline()
+	{
+		Iterable<Long> source = Arrays.asList(1L, 2L, 3L, 4L, 5L);
+		Iterable<Long> squares = transform(source, SQUARE);
+		Iterable<Long> pipeline = transform(filter(squares, EVEN), SQUARE);
+		assertEquals(Arrays.asList(16L, 256L), toList(pipeline));
+		assertEquals(Arrays.asList(1L, 4L, 9L, 16L, 25L), toList(squares));
+	}
+
+	@Test
+	public void testFlatMap()
+	{
+		Function<Long, List<Long>> f = new Function<Long, List<Long>>()
+		{
+			@Override
+			public List<Long> apply(Long input)
+			{
+				return Collections.nCopies(input.intValue(), input);
+			}
+		};
+		Iterable<Long> iterable = flatMap(Arrays.asList(1L, 0L, 2L), f);
+		assertEquals(Arrays.asList(1L, 2L, 2L), toList(iterable));
+	}
+
+	@Test
+	public void testPartition()
+	{
+		Iterable<Long> iterable = Arrays.asList(1L, 2L, 3L);
+		List<List<Long>> expected = Arrays.asList(Arrays.asList(1L, 2L),
+			Arrays.asList(3L));
+		assertEquals(expected, toList(partition(iterable, 2)));
+	}
+
+	@Test
+	public void testWindow()
+	{
+		Iterable<Long> iterable = Arrays.asList(1L, 2L, 3L);
+		List<List<Long>> expected = Arrays.asList(Arrays.asList(1L, 2L),
+			Arrays.asList(2L, 3L));
+		assertEquals(expected, toList(window(iterable, 2)));
+	}
+
+	@Test
+	public void testDistinct()
+	{
+		Iterable<Long> iterable = distinct(Arrays.asList(1L, 2L, 1L, 3L, 2L));
+		assertEquals(Arrays.asList(1L, 2L, 3L), toList(iterable));
+		assertEquals(Arrays.asList(1L, 2L, 3L), toList(iterable));
+	}
+
 	@Test
 	public void testToList()
 	{
@@ -39,6 +39,24 @@ import org.junit.Test;
  */
 public final class IteratorsTest
 {
+	private static final Function<Long, Long> SQUARE = new Function<Long, Long>()
+	{
+		@Override
+		public Long apply(Long input)
+		{
+			return input * input;
+		}
+	};
+
+	private static final Predicate<Long> EVEN = new Predicate<Long>()
+	{
+		@Override
+		public boolean apply(Long input)
+		{
+			return input % 2 == 0;
+		}
+	};
+
 	@Test
 	public void testEmptyIteratorHasNext()
 	{
@@ -144,6 +162,119 @@ public final class IteratorsTest
 		assertFalse(iterator.hasNext());
 	}
 
+	@Test
+	public void testTransform()
+	{
+		Iterator<Long> i = Arrays.asList(1L, 2L, 3L).iterator();
+		assertEquals(Arrays.asList(1L, 4L, 9L), toList(transform(i, SQUARE)));
+	}
+
+	@Test
+	public void testTransformRemove()
+	{
+		List<Long> list = new ArrayList<Long>(Arrays.asList(1L, 2L, 3L));
+		Iterator<Long> i = transform(list.iterator(), SQUARE);
+		i.next();
+		i.remove();
+		assertEquals(Arrays.asList(2L, 3L), list);
+	}
+
+	@Test
+	public void testFilter()
+	{
+		Iterator<Long> i = Arrays.asList(1L, 2L, 3L, 4L).iterator();
+		assertEquals(Arrays.asList(2L, 4L), toList(filter(i, EVEN)));
+		assertFalse(filter(Arrays.asList(1L, 3L).iterator(), EVEN).hasNext());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testFilterNext()
+	{
+		filter(Arrays.asList(1L, 3L).iterator(), EVEN).next();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testFilterRemove()
+	{
+		Iterator<Long> i = filter(Arrays.asList(2L).iterator(), EVEN);
+		i.next();
+		i.remove();
+	}
+
+	@Test
+	public void testFusedPipeline()
+	{
+		Iterator<Long> i = Arrays.asList(1L, 2L, 3L, 4L, 5L).iterator();
+		Iterator<Long> pipeline = transform(filter(transform(i, SQUARE),
+			EVEN), SQUARE);
+		assertEquals(Arrays.asList(16L, 256L), toList(pipeline));
+	}
+
+	@Test
+	public void testPipelineOnStartedIterator()
+	{
+		Iterator<Long> i = Arrays.asList(1L, 2L, 3L, 4L).iterator();
+		Iterator<Long> evens = filter(i, EVEN);
+		assertTrue(evens.hasNext());
+		assertEquals(Arrays.asList(4L, 16L), toList(transform(evens, SQUARE)));
+	}
+
+	@Test
+	public void testFlatMap()
+	{
+		Function<Long, Iterator<Long>> f = new Function<Long, Iterator<Long>>()
+		{
+			@Override
+			public Iterator<Long> apply(Long input)
+			{
+				return Collections.nCopies(input.intValue(), input).iterator();
+			}
+		};
+		Iterator<Long> i = Arrays.asList(1L, 0L, 2L, 0L).iterator();
+		assertEquals(Arrays.asList(1L, 2L, 2L), toList(flatMap(i, f)));
+	}
+
+	@Test
+	public void testPartition()
+	{
+		Iterator<Long> i = Arrays.asList(1L, 2L, 3L, 4L, 5L).iterator();
+		List<List<Long>> expected = Arrays.asList(Arrays.asList(1L, 2L),
+			Arrays.asList(3L, 4L), Arrays.asList(5L));
+		assertEquals(expected, toList(partition(i, 2)));
+		assertFalse(partition(emptyIterator(), 2).hasNext());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPartitionWithInvalidSize()
+	{
+		partition(emptyIterator(), 0);
+	}
+
+	@Test
+	public void testWindow()
+	{
+		Iterator<Long> i = Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L).iterator();
+		List<List<Long>> expected = Arrays.asList(
+			Arrays.asList(1L, 2L, 3L), Arrays.asList(2L, 3L, 4L),
+			Arrays.asList(3L, 4L, 5L), Arrays.asList(4L, 5L, 6L),
+			Arrays.asList(5L, 6L, 7L));
+		assertEquals(expected, toList(window(i, 3)));
+		assertFalse(window(Arrays.asList(1L, 2L).iterator(), 3).hasNext());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWindowWithInvalidSize()
+	{
+		window(emptyIterator(), 0);
+	}
+
+	@Test
+	public void testDistinct()
+	{
+		Iterator<Long> i = Arrays.asList(1L, 2L, 1L, null, 3L, 2L, null).iterator();
+		assertEquals(Arrays.asList(1L, 2L, null, 3L), toList(distinct(i)));
+	}
+
 	@Test
 	public void testToList()
 	{
@@ -0,0 +1,201 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * {@link ParallelLists}' unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class ParallelListsTest
+{
+	private static final Function<Long, Long> SQUARE = new Function<Long, Long>()
+	{
+		@Override
+		public Long apply(Long input)
+		{
+			return input * input;
+		}
+	};
+
+	private static final BinaryOperator<Long> SUM = new BinaryOperator<Long>()
+	{
+		@Override
+		public Long apply(Long left, Long right)
+		{
+			return left + right;
+		}
+	};
+
+	@Test
+	public void testMap()
+	{
+		List<Long> list = random(100000);
+		List<Long> expected = new ArrayList<Long>();
+		for (Long e : list) {
+			expected.add(e * e);
+		}
+		assertEquals(expected, ParallelLists.map(list, SQUARE));
+		assertEquals(expected, ParallelLists.map(ImmutableList.copyOf(list), SQUARE));
+		assertEquals(Arrays.asList(4L), ParallelLists.map(Arrays.asList(2L), SQUARE));
+		assertTrue(ParallelLists.map(ImmutableList.<Long>of(), SQUARE).isEmpty());
+	}
+
+	@Test
+	public void testMapWithSubList()
+	{
+		List<Long> list = ImmutableList.copyOf(random(50000));
+		List<Long> sub = list.subList(1000, 40000);
+		assertEquals(ParallelLists.map(list, SQUARE).subList(1000, 40000),
+			ParallelLists.map(sub, SQUARE));
+	}
+
+	@Test
+	public void testForEach()
+	{
+		List<Long> list = ImmutableList.copyOf(random(100000));
+		final AtomicLong sum = new AtomicLong();
+		Consumer<Long> adder = new Consumer<Long>()
+		{
+			@Override
+			public void accept(Long input)
+			{
+				sum.addAndGet(input);
+			}
+		};
+		ParallelLists.forEach(list.subList(10, 90000), adder);
+		long expected = 0;
+		for (Long e : list.subList(10, 90000)) {
+			expected += e;
+		}
+		assertEquals(expected, sum.get());
+	}
+
+	@Test
+	public void testReduce()
+	{
+		List<Long> list = random(100000);
+		long expected = 0;
+		for (Long e : list) {
+			expected += e;
+		}
+		assertEquals(Long.valueOf(expected), ParallelLists.reduce(list, 0L, SUM));
+		assertEquals(Long.valueOf(0L),
+			ParallelLists.reduce(ImmutableList.<Long>of(), 0L, SUM));
+	}
+
+	@Test
+	public void testSort()
+	{
+		List<Long> list = random(123457);
+		List<Long> expected = new ArrayList<Long>(list);
+		Collections.sort(expected);
+		assertEquals(expected, ParallelLists.sort(list));
+		assertEquals(expected, ParallelLists.sort(ImmutableList.copyOf(list)));
+		Collections.reverse(expected);
+		assertEquals(expected, ParallelLists.sort(list,
+			Collections.reverseOrder()));
+	}
+
+	@Test
+	public void testSortIsStable()
+	{
+		List<Long> list = random(100000);
+		Comparator<Long> c = new Comparator<Long>()
+		{
+			@Override
+			public int compare(Long a, Long b)
+			{
+				return (int) (a % 10 - b % 10);
+			}
+		};
+		List<Long> expected = new ArrayList<Long>(list);
+		Collections.sort(expected, c);
+		assertEquals(expected, ParallelLists.sort(list, c));
+	}
+
+	@Test
+	public void testWithCustomExecutor()
+	{
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			List<Long> list = random(50000);
+			List<Long> expected = new ArrayList<Long>(list);
+			Collections.sort(expected);
+			assertEquals(expected, ParallelLists.sort(list,
+				Collections.<Long>reverseOrder(Collections.reverseOrder()),
+				executor));
+			assertEquals(ParallelLists.reduce(list, 0L, SUM),
+				ParallelLists.reduce(list, 0L, SUM, executor));
+			assertEquals(ParallelLists.map(list, SQUARE),
+				ParallelLists.map(list, SQUARE, executor));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testExceptionPropagation()
+	{
+		ParallelLists.map(random(100000), new Function<Long, Long>()
+		{
+			@Override
+			public Long apply(Long input)
+			{
+				throw new IllegalStateException();
+			}
+		});
+	}
+
+	@Test
+	public void testConstructor() throws Exception
+	{
+		Class<ParallelLists> c = ParallelLists.class;
+		assertEquals(1, c.getDeclaredConstructors().length);
+		Constructor<ParallelLists> constructor = c.getDeclaredConstructor();
+		assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+		constructor.setAccessible(true);
+		constructor.newInstance();
+	}
+
+	private static List<Long> random(int size)
+	{
+		Random random = new Random(size);
+		List<Long> list = new ArrayList<Long>(size);
+		for (int i = 0; i < size; i++) {
+			list.add((long) random.nextInt(1000000));
+		}
+		return list;
+	}
+}
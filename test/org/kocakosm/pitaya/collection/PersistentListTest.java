@@ -0,0 +1,246 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * {@link PersistentList}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class PersistentListTest
+{
+	@Test
+	public void testBuilder()
+	{
+		List<String> list = new PersistentList.Builder<String>()
+			.add(Arrays.asList("A"))
+			.add("B", "C")
+			.add(Arrays.asList("D").iterator())
+			.set(1, "E").build();
+		assertEquals(Arrays.asList("A", "E", "C", "D"), list);
+	}
+
+	@Test
+	public void testBuilderDoesNotAffectBuiltList()
+	{
+		PersistentList.Builder<Integer> builder =
+			new PersistentList.Builder<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			builder.add(i);
+		}
+		PersistentList<Integer> list = builder.build();
+		builder.set(0, -1).set(500, -1).set(999, -1).add(1000);
+		assertEquals(1000, list.size());
+		assertEquals(Integer.valueOf(0), list.get(0));
+		assertEquals(Integer.valueOf(500), list.get(500));
+		assertEquals(Integer.valueOf(999), list.get(999));
+	}
+
+	@Test
+	public void testToBuilderDoesNotAffectSourceList()
+	{
+		PersistentList<Integer> list = PersistentList.copyOf(range(100));
+		List<Integer> copy = list.toBuilder().set(10, -1).add(-2).build();
+		assertEquals(range(100), list);
+		assertEquals(Integer.valueOf(-1), copy.get(10));
+		assertEquals(101, copy.size());
+	}
+
+	@Test
+	public void testCopyOfIterable()
+	{
+		Iterable<String> iterable = Arrays.asList("Hello", null);
+		assertEquals(iterable, PersistentList.copyOf(iterable));
+	}
+
+	@Test
+	public void testCopyOfIterator()
+	{
+		List<String> list = Arrays.asList("Hello", null);
+		assertEquals(list, PersistentList.copyOf(list.iterator()));
+	}
+
+	@Test
+	public void testCopyOfArray()
+	{
+		String[] values = {"Hello", "World"};
+		assertEquals(Arrays.asList(values), PersistentList.copyOf(values));
+	}
+
+	@Test
+	public void testOf()
+	{
+		assertEquals(Arrays.asList("A", "B"), PersistentList.of("A", "B"));
+		assertTrue(PersistentList.of().isEmpty());
+	}
+
+	@Test
+	public void testPlus()
+	{
+		List<Integer> expected = new ArrayList<Integer>();
+		PersistentList<Integer> list = PersistentList.empty();
+		for (int i = 0; i < 40000; i++) {
+			PersistentList<Integer> next = list.plus(i);
+			assertEquals(i, list.size());
+			assertEquals(i + 1, next.size());
+			expected.add(i);
+			list = next;
+		}
+		assertEquals(expected, list);
+	}
+
+	@Test
+	public void testPlusIterable()
+	{
+		PersistentList<Integer> list = PersistentList.of(0, 1);
+		assertEquals(range(50), list.plus(range(50).subList(2, 50)));
+		assertEquals(Arrays.asList(0, 1), list);
+	}
+
+	@Test
+	public void testWith()
+	{
+		List<Integer> expected = range(5000);
+		PersistentList<Integer> list = PersistentList.copyOf(expected);
+		for (int i = 0; i < expected.size(); i += 7) {
+			PersistentList<Integer> next = list.with(i, -i);
+			assertEquals(Integer.valueOf(i), list.get(i));
+			assertEquals(Integer.valueOf(-i), next.get(i));
+			expected.set(i, -i);
+			list = next;
+		}
+		assertEquals(expected, list);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testWithInvalidIndex()
+	{
+		PersistentList.of(1, 2).with(2, 3);
+	}
+
+	@Test
+	public void testWithout()
+	{
+		List<Integer> expected = range(3000);
+		PersistentList<Integer> list = PersistentList.copyOf(expected);
+		while (!expected.isEmpty()) {
+			int index = expected.size() - 1;
+			PersistentList<Integer> next = list.without(index);
+			assertEquals(expected.size(), list.size());
+			expected.remove(index);
+			assertEquals(expected, next);
+			list = next;
+		}
+		assertTrue(list.isEmpty());
+	}
+
+	@Test
+	public void testWithoutMiddleElement()
+	{
+		PersistentList<String> list = PersistentList.of("A", "B", "C");
+		assertEquals(Arrays.asList("A", "C"), list.without(1));
+		assertEquals(Arrays.asList("B", "C"), list.without(0));
+		assertEquals(Arrays.asList("A", "B", "C"), list);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testWithoutInvalidIndex()
+	{
+		PersistentList.of().without(0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetInvalidIndex()
+	{
+		PersistentList.of(1, 2).get(-1);
+	}
+
+	@Test
+	public void testIterator()
+	{
+		List<Integer> values = range(1057);
+		Iterator<Integer> i = PersistentList.copyOf(values).iterator();
+		for (Integer value : values) {
+			assertTrue(i.hasNext());
+			assertEquals(value, i.next());
+		}
+		assertFalse(i.hasNext());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testIteratorRemove()
+	{
+		Iterator<String> i = PersistentList.of("A").iterator();
+		i.next();
+		i.remove();
+	}
+
+	@Test
+	public void testToArray()
+	{
+		List<Integer> values = range(1057);
+		assertArrayEquals(values.toArray(),
+			PersistentList.copyOf(values).toArray());
+	}
+
+	@Test
+	public void testEqualsAndHashCode()
+	{
+		List<Integer> values = range(100);
+		PersistentList<Integer> list = PersistentList.copyOf(values);
+		assertEquals(values, list);
+		assertEquals(list, values);
+		assertEquals(values.hashCode(), list.hashCode());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testAdd()
+	{
+		PersistentList.of("A").add("B");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSet()
+	{
+		PersistentList.of("A").set(0, "B");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRemove()
+	{
+		PersistentList.of("A").remove(0);
+	}
+
+	private static List<Integer> range(int n)
+	{
+		List<Integer> list = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			list.add(i);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,214 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * {@link PersistentMap}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class PersistentMapTest
+{
+	@Test
+	public void testBuilder()
+	{
+		Map<Long, Long> in = new HashMap<Long, Long>();
+		in.put(1L, 10L);
+		Map<Long, Long> map = new PersistentMap.Builder<Long, Long>()
+			.put(2L, 20L).put(3L, 30L).put(in).remove(3L).build();
+		in.put(2L, 20L);
+		assertEquals(in, map);
+	}
+
+	@Test
+	public void testBuilderDoesNotAffectBuiltMap()
+	{
+		PersistentMap.Builder<Integer, Integer> builder =
+			new PersistentMap.Builder<Integer, Integer>();
+		for (int i = 0; i < 1000; i++) {
+			builder.put(i, i);
+		}
+		Map<Integer, Integer> map = builder.build();
+		builder.put(0, -1).remove(500).put(1000, 1000);
+		assertEquals(1000, map.size());
+		assertEquals(Integer.valueOf(0), map.get(0));
+		assertEquals(Integer.valueOf(500), map.get(500));
+		assertFalse(map.containsKey(1000));
+	}
+
+	@Test
+	public void testCopyOf()
+	{
+		Map<Long, Long> in = new HashMap<Long, Long>();
+		in.put(1L, 10L);
+		in.put(2L, 20L);
+		in.put(null, null);
+		assertEquals(in, PersistentMap.copyOf(in));
+	}
+
+	@Test
+	public void testWithAndWithout()
+	{
+		Random random = new Random(42);
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		PersistentMap<Integer, Integer> map = PersistentMap.empty();
+		for (int i = 0; i < 20000; i++) {
+			Integer key = random.nextInt(5000);
+			PersistentMap<Integer, Integer> next;
+			if (random.nextInt(3) == 0) {
+				next = map.without(key);
+				expected.remove(key);
+			} else {
+				next = map.with(key, i);
+				expected.put(key, i);
+			}
+			assertEquals(expected.size(), next.size());
+			map = next;
+		}
+		assertEquals(expected, map);
+		assertEquals(expected.size(), map.size());
+	}
+
+	@Test
+	public void testPersistence()
+	{
+		PersistentMap<String, Integer> m1 = PersistentMap.empty();
+		PersistentMap<String, Integer> m2 = m1.with("A", 1);
+		PersistentMap<String, Integer> m3 = m2.with("A", 2);
+		PersistentMap<String, Integer> m4 = m3.without("A");
+		assertTrue(m1.isEmpty());
+		assertEquals(Integer.valueOf(1), m2.get("A"));
+		assertEquals(Integer.valueOf(2), m3.get("A"));
+		assertTrue(m4.isEmpty());
+		assertSame(m2, m2.with("A", m2.get("A")));
+		assertSame(m2, m2.without("B"));
+	}
+
+	@Test
+	public void testHashCollisions()
+	{
+		Map<Key, Integer> expected = new HashMap<Key, Integer>();
+		PersistentMap<Key, Integer> map = PersistentMap.empty();
+		for (int i = 0; i < 100; i++) {
+			map = map.with(new Key(i), i);
+			expected.put(new Key(i), i);
+		}
+		assertEquals(expected, map);
+		for (int i = 0; i < 100; i += 2) {
+			map = map.without(new Key(i));
+			expected.remove(new Key(i));
+		}
+		assertEquals(expected, map);
+		assertEquals(50, map.size());
+		assertNull(map.get(new Key(0)));
+		assertEquals(Integer.valueOf(1), map.get(new Key(1)));
+	}
+
+	@Test
+	public void testNullKey()
+	{
+		PersistentMap<String, String> map = PersistentMap.empty();
+		map = map.with(null, "A").with("B", null);
+		assertEquals(2, map.size());
+		assertTrue(map.containsKey(null));
+		assertEquals("A", map.get(null));
+		assertTrue(map.containsKey("B"));
+		assertNull(map.get("B"));
+		map = map.without(null);
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey(null));
+	}
+
+	@Test
+	public void testPlus()
+	{
+		Map<Long, Long> in = new HashMap<Long, Long>();
+		in.put(1L, 10L);
+		in.put(2L, 20L);
+		PersistentMap<Long, Long> map = PersistentMap.<Long, Long>empty()
+			.with(1L, 1L).with(3L, 30L);
+		in.put(3L, 30L);
+		assertEquals(in, map.plus(in));
+		assertEquals(Long.valueOf(1L), map.get(1L));
+	}
+
+	@Test
+	public void testEntrySet()
+	{
+		Map<Long, Long> in = new HashMap<Long, Long>();
+		for (long i = 0; i < 1000; i++) {
+			in.put(i, i * i);
+		}
+		assertEquals(in.entrySet(), PersistentMap.copyOf(in).entrySet());
+		assertEquals(in.keySet(), PersistentMap.copyOf(in).keySet());
+	}
+
+	@Test
+	public void testEqualsAndHashCode()
+	{
+		Map<Long, Long> in = new HashMap<Long, Long>();
+		in.put(1L, 10L);
+		in.put(null, 20L);
+		Map<Long, Long> map = PersistentMap.copyOf(in);
+		assertEquals(in, map);
+		assertEquals(map, in);
+		assertEquals(in.hashCode(), map.hashCode());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testPut()
+	{
+		PersistentMap.<Long, Long>empty().put(1L, 10L);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRemove()
+	{
+		PersistentMap.<Long, Long>empty().remove(1L);
+	}
+
+	private static final class Key
+	{
+		private final int id;
+
+		Key(int id)
+		{
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			return o instanceof Key && ((Key) o).id == id;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return id % 3;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.collection;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * {@link PersistentSet}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class PersistentSetTest
+{
+	@Test
+	public void testBuilder()
+	{
+		Set<String> set = new PersistentSet.Builder<String>()
+			.add(Arrays.asList("A", "B"))
+			.add("B", "C", "D")
+			.add(Arrays.asList("E").iterator())
+			.remove("D").build();
+		assertEquals(new HashSet<String>(Arrays.asList("A", "B", "C", "E")),
+			set);
+	}
+
+	@Test
+	public void testCopyOf()
+	{
+		Set<String> in = new HashSet<String>(Arrays.asList("A", "B", null));
+		assertEquals(in, PersistentSet.copyOf(in));
+		assertEquals(in, PersistentSet.copyOf(in.iterator()));
+	}
+
+	@Test
+	public void testWithAndWithout()
+	{
+		Set<Integer> expected = new HashSet<Integer>();
+		PersistentSet<Integer> set = PersistentSet.empty();
+		for (int i = 0; i < 5000; i++) {
+			set = set.with(i);
+			expected.add(i);
+		}
+		PersistentSet<Integer> copy = set;
+		for (int i = 0; i < 5000; i += 3) {
+			set = set.without(i);
+			expected.remove(i);
+		}
+		assertEquals(expected, set);
+		assertEquals(5000, copy.size());
+		assertSame(set, set.without(0));
+		assertSame(set, set.with(1));
+	}
+
+	@Test
+	public void testPlus()
+	{
+		PersistentSet<String> set = PersistentSet.of("A");
+		assertEquals(PersistentSet.of("A", "B", "C"),
+			set.plus(Arrays.asList("B", "C")));
+		assertEquals(PersistentSet.of("A"), set);
+	}
+
+	@Test
+	public void testContains()
+	{
+		Set<String> set = PersistentSet.of("A", null);
+		assertTrue(set.contains("A"));
+		assertTrue(set.contains(null));
+		assertFalse(set.contains("B"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testAdd()
+	{
+		PersistentSet.of("A").add("B");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRemove()
+	{
+		PersistentSet.of("A").remove("A");
+	}
+}
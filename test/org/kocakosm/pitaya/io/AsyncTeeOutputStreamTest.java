@@ -0,0 +1,282 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * {@link AsyncTeeOutputStream}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class AsyncTeeOutputStreamTest
+{
+	private static final byte[] DATA = {
+		(byte) 0x00, (byte) 0x11, (byte) 0x22, (byte) 0x33, (byte) 0x44,
+		(byte) 0x55, (byte) 0x66, (byte) 0x77, (byte) 0x88, (byte) 0x99,
+		(byte) 0xAA, (byte) 0xBB, (byte) 0xCC, (byte) 0xDD, (byte) 0xEE,
+	};
+
+	@Test
+	public void testWrite() throws IOException
+	{
+		ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+		ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+		AsyncTeeOutputStream tee = ByteStreams.asyncTee(4,
+			OverflowPolicy.BLOCK, out1, out2);
+		for (byte b : DATA) {
+			tee.write(b);
+		}
+		tee.write(DATA);
+		tee.write(DATA, 3, 5);
+		tee.flush();
+		byte[] expected = concat(DATA, DATA, Arrays.copyOfRange(DATA, 3, 8));
+		assertArrayEquals(expected, out1.toByteArray());
+		assertArrayEquals(expected, out2.toByteArray());
+		assertEquals(2, tee.getSinkCount());
+		assertEquals(0, tee.getLag(0));
+		assertEquals(0, tee.getDropCount(1));
+		tee.close();
+	}
+
+	@Test
+	public void testDrop() throws Exception
+	{
+		BlockingOutputStream slow = new BlockingOutputStream();
+		ByteArrayOutputStream fast = new ByteArrayOutputStream();
+		AsyncTeeOutputStream tee = ByteStreams.asyncTee(16,
+			OverflowPolicy.DROP, slow, fast);
+		tee.write(DATA, 0, 1);
+		slow.started.await();
+		tee.write(DATA);
+		awaitDrained(tee, 1);
+		tee.write(DATA);
+		assertEquals(16, tee.getLag(0));
+		assertEquals(15, tee.getDropCount(0));
+		assertEquals(0, tee.getDropCount(1));
+		slow.release.countDown();
+		tee.close();
+		assertArrayEquals(concat(new byte[1], DATA), slow.toByteArray());
+		assertArrayEquals(concat(new byte[1], DATA, DATA),
+			fast.toByteArray());
+	}
+
+	@Test
+	public void testFail() throws Exception
+	{
+		BlockingOutputStream slow = new BlockingOutputStream();
+		ByteArrayOutputStream fast = new ByteArrayOutputStream();
+		AsyncTeeOutputStream tee = ByteStreams.asyncTee(16,
+			OverflowPolicy.FAIL, fast, slow);
+		tee.write(DATA, 0, 1);
+		slow.started.await();
+		tee.write(DATA);
+		awaitDrained(tee, 0);
+		try {
+			tee.write(DATA);
+			fail();
+		} catch (IOException e) {
+			assertEquals(15, tee.getDropCount(1));
+		}
+		slow.release.countDown();
+		tee.close();
+		assertArrayEquals(concat(new byte[1], DATA, DATA),
+			fast.toByteArray());
+	}
+
+	@Test
+	public void testFailTooLargeWrite() throws Exception
+	{
+		BlockingOutputStream slow = new BlockingOutputStream();
+		AsyncTeeOutputStream tee = ByteStreams.asyncTee(4,
+			OverflowPolicy.FAIL, slow);
+		try {
+			tee.write(DATA);
+			fail();
+		} catch (IOException e) {
+			assertEquals(DATA.length - 4, tee.getDropCount(0));
+		}
+		slow.release.countDown();
+		tee.close();
+		assertArrayEquals(Arrays.copyOf(DATA, 4), slow.toByteArray());
+	}
+
+	@Test
+	public void testBlock() throws Exception
+	{
+		BlockingOutputStream slow = new BlockingOutputStream();
+		final AsyncTeeOutputStream tee = ByteStreams.asyncTee(4,
+			OverflowPolicy.BLOCK, slow);
+		tee.write(DATA, 0, 1);
+		slow.started.await();
+		final CountDownLatch written = new CountDownLatch(1);
+		Thread writer = new Thread() {
+			@Override
+			public void run()
+			{
+				try {
+					tee.write(DATA);
+					written.countDown();
+				} catch (IOException e) {
+					/* Test will fail. */
+				}
+			}
+		};
+		writer.start();
+		Thread.sleep(50);
+		assertEquals(1, written.getCount());
+		assertEquals(4, tee.getLag(0));
+		slow.release.countDown();
+		writer.join();
+		assertEquals(0, written.getCount());
+		tee.close();
+		assertArrayEquals(concat(new byte[1], DATA), slow.toByteArray());
+	}
+
+	@Test
+	public void testFlushWhileWriting() throws Exception
+	{
+		RefillingOutputStream out = new RefillingOutputStream();
+		AsyncTeeOutputStream tee = ByteStreams.asyncTee(16,
+			OverflowPolicy.DROP, out);
+		out.tee = tee;
+		tee.write(DATA, 0, 1);
+		tee.flush();
+		assertTrue(out.refills.get()
+			< RefillingOutputStream.MAX_REFILLS);
+		tee.close();
+	}
+
+	@Test
+	public void testSinkFailure() throws Exception
+	{
+		OutputStream failing = new OutputStream()
+		{
+			@Override
+			public void write(int b) throws IOException
+			{
+				throw new IOException();
+			}
+		};
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AsyncTeeOutputStream tee = ByteStreams.asyncTee(16,
+			OverflowPolicy.BLOCK, out, failing);
+		tee.write(DATA);
+		try {
+			tee.flush();
+			fail();
+		} catch (IOException e) {
+			assertArrayEquals(DATA, out.toByteArray());
+		}
+		try {
+			tee.close();
+			fail();
+		} catch (IOException e) {
+			/* Expected. */
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws IOException
+	{
+		OutputStream tee = ByteStreams.asyncTee(16, OverflowPolicy.BLOCK,
+			new ByteArrayOutputStream());
+		tee.close();
+		tee.write(DATA);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBufferSize()
+	{
+		ByteStreams.asyncTee(0, OverflowPolicy.BLOCK,
+			new ByteArrayOutputStream());
+	}
+
+	private static void awaitDrained(AsyncTeeOutputStream tee, int sink)
+		throws InterruptedException
+	{
+		while (tee.getLag(sink) > 0) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static byte[] concat(byte[]... arrays)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] a : arrays) {
+			out.write(a, 0, a.length);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Writes a byte to the tee each time it is written to, so that the
+	 * tee's buffer never gets empty until MAX_REFILLS bytes are written.
+	 */
+	private static final class RefillingOutputStream
+		extends ByteArrayOutputStream
+	{
+		static final int MAX_REFILLS = 1000;
+
+		final AtomicInteger refills = new AtomicInteger();
+		volatile AsyncTeeOutputStream tee;
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			super.write(b, off, len);
+			try {
+				Thread.sleep(1);
+				if (refills.incrementAndGet() < MAX_REFILLS) {
+					tee.write(b, off, 1);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				/* Closed. */
+			}
+		}
+	}
+
+	private static final class BlockingOutputStream
+		extends ByteArrayOutputStream
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			super.write(b, off, len);
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * {@link AsyncTeeWriter}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class AsyncTeeWriterTest
+{
+	private static final String DATA = "Tomorrow Never Knows";
+
+	@Test
+	public void testWrite() throws IOException
+	{
+		StringWriter out1 = new StringWriter();
+		StringWriter out2 = new StringWriter();
+		AsyncTeeWriter tee = CharStreams.asyncTee(8,
+			OverflowPolicy.BLOCK, out1, out2);
+		tee.write('>');
+		tee.write(DATA);
+		tee.append("!");
+		tee.flush();
+		assertEquals(">" + DATA + "!", out1.toString());
+		assertEquals(">" + DATA + "!", out2.toString());
+		assertEquals(0, tee.getLag(1));
+		tee.close();
+	}
+
+	@Test
+	public void testDropTooLargeWrite() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		StringWriter out = new StringWriter()
+		{
+			@Override
+			public void write(char[] buf, int off, int len)
+			{
+				super.write(buf, off, len);
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		AsyncTeeWriter tee = CharStreams.asyncTee(8,
+			OverflowPolicy.DROP, out);
+		tee.write(DATA);
+		assertEquals(DATA.length() - 8, tee.getDropCount(0));
+		release.countDown();
+		tee.flush();
+		tee.write("Help");
+		tee.close();
+		assertEquals("TomorrowHelp", out.toString());
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws IOException
+	{
+		Writer tee = CharStreams.asyncTee(8, OverflowPolicy.BLOCK,
+			new StringWriter());
+		tee.close();
+		tee.write(DATA);
+	}
+}
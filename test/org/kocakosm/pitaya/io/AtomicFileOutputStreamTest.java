@@ -0,0 +1,93 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link AtomicFileOutputStream}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class AtomicFileOutputStreamTest
+{
+	private static final byte[] DATA = {1, 2, 3, 4, 5};
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testCommit() throws Exception
+	{
+		File dir = tmp.newFolder();
+		File f = new File(dir, "data");
+		AtomicFileOutputStream out = XFiles.newAtomicOutputStream(f);
+		assertSame(f, out.getFile());
+		out.write(DATA[0]);
+		out.write(DATA, 1, DATA.length - 1);
+		out.flush();
+		assertFalse(f.exists());
+		assertEquals(1, dir.list().length);
+		out.close();
+		out.close();
+		assertArrayEquals(DATA, XFiles.read(f));
+		assertEquals(1, dir.list().length);
+	}
+
+	@Test
+	public void testReplace() throws Exception
+	{
+		File dir = tmp.newFolder();
+		File f = new File(dir, "data");
+		XFiles.writeAtomically(f, new byte[100]);
+		AtomicFileOutputStream out = XFiles.newAtomicOutputStream(f);
+		out.write(DATA);
+		assertArrayEquals(new byte[100], XFiles.read(f));
+		out.close();
+		assertArrayEquals(DATA, XFiles.read(f));
+	}
+
+	@Test
+	public void testAbort() throws Exception
+	{
+		File dir = tmp.newFolder();
+		File f = new File(dir, "data");
+		XFiles.writeAtomically(f, DATA);
+		AtomicFileOutputStream out = XFiles.newAtomicOutputStream(f);
+		out.write(new byte[10]);
+		out.abort();
+		out.close();
+		assertArrayEquals(DATA, XFiles.read(f));
+		assertEquals(1, dir.list().length);
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws Exception
+	{
+		AtomicFileOutputStream out = XFiles.newAtomicOutputStream(
+			new File(tmp.newFolder(), "data"));
+		out.close();
+		out.write(1);
+	}
+}
@@ -0,0 +1,78 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * {@link BufferPool}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class BufferPoolTest
+{
+	@Test
+	public void testReuse()
+	{
+		BufferPool pool = new BufferPool(16, 1);
+		assertEquals(16, pool.getBufferSize());
+		byte[] bytes = pool.acquireBytes();
+		char[] chars = pool.acquireChars();
+		assertEquals(16, bytes.length);
+		assertEquals(16, chars.length);
+		pool.release(bytes);
+		pool.release(chars);
+		assertSame(bytes, pool.acquireBytes());
+		assertSame(chars, pool.acquireChars());
+		assertNotSame(bytes, pool.acquireBytes());
+	}
+
+	@Test
+	public void testBounded()
+	{
+		BufferPool pool = new BufferPool(16, 1);
+		byte[] b1 = pool.acquireBytes();
+		byte[] b2 = pool.acquireBytes();
+		pool.release(b1);
+		pool.release(b2);
+		assertSame(b1, pool.acquireBytes());
+		assertNotSame(b2, pool.acquireBytes());
+	}
+
+	@Test
+	public void testReleaseForeignBuffer()
+	{
+		BufferPool pool = new BufferPool(16, 4);
+		byte[] buf = new byte[8];
+		pool.release(buf);
+		assertEquals(16, pool.acquireBytes().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBufferSize()
+	{
+		new BufferPool(0, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacity()
+	{
+		new BufferPool(1, 0);
+	}
+}
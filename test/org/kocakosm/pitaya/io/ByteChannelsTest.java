@@ -0,0 +1,282 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ByteChannels}' unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class ByteChannelsTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testConcat() throws Exception
+	{
+		ReadableByteChannel in = ByteChannels.concat(channel(1, 2),
+			channel(), channel(3), channel(4, 5, 6));
+		ByteBuffer buf = ByteBuffer.allocateDirect(5);
+		assertEquals(5, in.read(buf));
+		assertEquals(1, in.read(ByteBuffer.allocate(10)));
+		assertEquals(-1, in.read(ByteBuffer.allocate(10)));
+		buf.flip();
+		byte[] b = new byte[5];
+		buf.get(b);
+		assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, b);
+		in.close();
+		assertFalse(in.isOpen());
+	}
+
+	@Test
+	public void testConcatManyEmptyChannels() throws Exception
+	{
+		ReadableByteChannel[] channels = new ReadableByteChannel[100000];
+		for (int i = 0; i < channels.length; i++) {
+			channels[i] = channel();
+		}
+		channels[channels.length - 1] = channel(42);
+		ReadableByteChannel in = ByteChannels.concat(channels);
+		ByteBuffer buf = ByteBuffer.allocate(2);
+		assertEquals(1, in.read(buf));
+		assertEquals(42, buf.get(0));
+		assertEquals(-1, in.read(buf));
+	}
+
+	@Test
+	public void testConcatScatter() throws Exception
+	{
+		ScatteringByteChannel in = ByteChannels.concat(Arrays.asList(
+			channel(1, 2, 3), channel(4, 5, 6, 7)));
+		ByteBuffer[] bufs = {
+			ByteBuffer.allocate(2), ByteBuffer.allocate(0),
+			ByteBuffer.allocate(4)
+		};
+		assertEquals(6, in.read(bufs));
+		assertArrayEquals(new byte[] {1, 2}, bufs[0].array());
+		assertArrayEquals(new byte[] {3, 4, 5, 6}, bufs[2].array());
+		bufs[0].clear();
+		assertEquals(1, in.read(bufs, 0, 1));
+		assertEquals(7, bufs[0].get(0));
+		assertEquals(-1, in.read(bufs, 0, 1));
+	}
+
+	@Test
+	public void testOverflowingBounds() throws Exception
+	{
+		ByteBuffer[] bufs = {ByteBuffer.allocate(1), ByteBuffer.allocate(1)};
+		ScatteringByteChannel in = ByteChannels.concat(Arrays.asList(
+			channel(1, 2, 3)));
+		try {
+			in.read(bufs, 1, Integer.MAX_VALUE);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertEquals(0, bufs[1].position());
+		}
+		GatheringByteChannel out = ByteChannels.tee(
+			Channels.newChannel(new ByteArrayOutputStream()));
+		try {
+			out.write(bufs, 1, Integer.MAX_VALUE);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			/* Expected. */
+		}
+	}
+
+	@Test
+	public void testCopyFiles() throws Exception
+	{
+		File f1 = write("Hello ".getBytes("US-ASCII"));
+		File f2 = write("World".getBytes("US-ASCII"));
+		FileChannel c1 = new FileInputStream(f1).getChannel();
+		FileChannel c2 = new FileInputStream(f2).getChannel();
+		c1.position(1);
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		ReadableByteChannel in = ByteChannels.concat(c1, channel(33), c2);
+		WritableByteChannel out = Channels.newChannel(data);
+		assertEquals(11, ByteChannels.copy(in, out));
+		assertEquals("ello !World", data.toString("US-ASCII"));
+		assertEquals(6, c1.position());
+		assertEquals(-1, in.read(ByteBuffer.allocate(1)));
+		in.close();
+	}
+
+	@Test
+	public void testCopyFileReportingNoSize() throws Exception
+	{
+		File status = new File("/proc/self/status");
+		if (!status.isFile() || status.length() != 0) {
+			return;
+		}
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		WritableByteChannel out = Channels.newChannel(data);
+		FileChannel c1 = new FileInputStream(status).getChannel();
+		assertTrue(ByteChannels.copy(c1, out) > 0);
+		c1.close();
+		FileChannel c2 = new FileInputStream(status).getChannel();
+		ReadableByteChannel in = ByteChannels.concat(channel(33), c2);
+		assertTrue(ByteChannels.copy(in, out) > 1);
+		in.close();
+	}
+
+	@Test
+	public void testCopyPipe() throws Exception
+	{
+		byte[] data = new byte[100000];
+		Arrays.fill(data, (byte) 7);
+		File pipe = NamedPipes.create(tmp.newFolder(), "pipe", data);
+		if (pipe == null) {
+			return;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FileChannel in = new FileInputStream(pipe).getChannel();
+		try {
+			assertEquals(data.length, ByteChannels.copy(in,
+				Channels.newChannel(out)));
+		} finally {
+			in.close();
+		}
+		assertArrayEquals(data, out.toByteArray());
+	}
+
+	@Test
+	public void testCopy() throws Exception
+	{
+		byte[] data = new byte[100000];
+		Arrays.fill(data, (byte) 7);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(data.length, ByteChannels.copy(channel(data),
+			Channels.newChannel(out)));
+		assertArrayEquals(data, out.toByteArray());
+	}
+
+	@Test
+	public void testLimit() throws Exception
+	{
+		ReadableByteChannel in = ByteChannels.limit(
+			channel(1, 2, 3, 4, 5), 3);
+		ByteBuffer buf = ByteBuffer.allocate(10);
+		assertEquals(2, in.read((ByteBuffer) buf.limit(2)));
+		buf.limit(10);
+		assertEquals(1, in.read(buf));
+		assertEquals(10, buf.limit());
+		assertEquals(-1, in.read(buf));
+		assertEquals(3, buf.position());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeLimit()
+	{
+		ByteChannels.limit(channel(), -1);
+	}
+
+	@Test
+	public void testTee() throws Exception
+	{
+		ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+		ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+		GatheringByteChannel out = ByteChannels.tee(
+			Channels.newChannel(out1), Channels.newChannel(out2));
+		ByteBuffer src = ByteBuffer.wrap(new byte[] {1, 2, 3});
+		assertEquals(3, out.write(src));
+		assertFalse(src.hasRemaining());
+		ByteBuffer[] srcs = {
+			ByteBuffer.wrap(new byte[] {4}), ByteBuffer.wrap(new byte[] {5, 6})
+		};
+		assertEquals(3, out.write(srcs));
+		assertFalse(srcs[1].hasRemaining());
+		byte[] expected = {1, 2, 3, 4, 5, 6};
+		assertArrayEquals(expected, out1.toByteArray());
+		assertArrayEquals(expected, out2.toByteArray());
+		out.close();
+		assertFalse(out.isOpen());
+	}
+
+	@Test
+	public void testCountingChannels() throws Exception
+	{
+		CountingReadableByteChannel in = new CountingReadableByteChannel(
+			channel(1, 2, 3, 4), CountingMode.SINGLE_WRITER);
+		CountingWritableByteChannel out = new CountingWritableByteChannel(
+			Channels.newChannel(new ByteArrayOutputStream()));
+		assertEquals(4, ByteChannels.copy(in, out));
+		assertEquals(4, in.getCount());
+		assertEquals(4, out.getCount());
+		assertEquals(4, out.resetCount());
+		assertEquals(0, out.getCount());
+	}
+
+	@Test
+	public void testConstructor() throws Exception
+	{
+		Class<ByteChannels> c = ByteChannels.class;
+		assertEquals(1, c.getDeclaredConstructors().length);
+		Constructor<ByteChannels> constructor = c.getDeclaredConstructor();
+		assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+		constructor.setAccessible(true);
+		constructor.newInstance();
+	}
+
+	private ReadableByteChannel channel(int... bytes)
+	{
+		byte[] b = new byte[bytes.length];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = (byte) bytes[i];
+		}
+		return channel(b);
+	}
+
+	private ReadableByteChannel channel(byte[] bytes)
+	{
+		return Channels.newChannel(new ByteArrayInputStream(bytes));
+	}
+
+	private File write(byte[] data) throws Exception
+	{
+		File f = tmp.newFile();
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(data);
+		} finally {
+			IO.close(out);
+		}
+		return f;
+	}
+}
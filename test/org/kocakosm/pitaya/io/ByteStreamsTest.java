@@ -25,6 +25,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -68,6 +69,46 @@ public final class ByteStreamsTest
 		assertArrayEquals(DATA, out.toByteArray());
 	}
 
+	@Test
+	public void testCopyWithoutFlush() throws Exception
+	{
+		InputStream in = new ByteArrayInputStream(DATA);
+		FlushCountingOutputStream out = new FlushCountingOutputStream();
+		assertEquals(DATA.length, ByteStreams.copy(in, out, false));
+		assertArrayEquals(DATA, out.toByteArray());
+		assertEquals(0, out.flushes);
+	}
+
+	@Test
+	public void testCopyWithBuffer() throws Exception
+	{
+		InputStream in = new ByteArrayInputStream(DATA);
+		FlushCountingOutputStream out = new FlushCountingOutputStream();
+		assertEquals(DATA.length,
+			ByteStreams.copy(in, out, new byte[2], true));
+		assertArrayEquals(DATA, out.toByteArray());
+		assertEquals(1, out.flushes);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCopyWithEmptyBuffer() throws Exception
+	{
+		InputStream in = new ByteArrayInputStream(DATA);
+		ByteStreams.copy(in, new ByteArrayOutputStream(), new byte[0], true);
+	}
+
+	private static final class FlushCountingOutputStream
+		extends ByteArrayOutputStream
+	{
+		int flushes;
+
+		@Override
+		public void flush()
+		{
+			flushes++;
+		}
+	}
+
 	@Test
 	public void testEqual() throws Exception
 	{
@@ -88,6 +129,74 @@ public final class ByteStreamsTest
 		assertFalse(ByteStreams.equal(in1, in2));
 	}
 
+	@Test
+	public void testEqualLastByteDiffers() throws Exception
+	{
+		InputStream in1 = new ByteArrayInputStream(new byte[]{1, 2, 3});
+		InputStream in2 = new ByteArrayInputStream(new byte[]{1, 2, 4});
+		assertFalse(ByteStreams.equal(in1, in2));
+	}
+
+	@Test
+	public void testEqualLargeStreams() throws Exception
+	{
+		byte[] data = new byte[100000];
+		new Random().nextBytes(data);
+		assertTrue(ByteStreams.equal(new SlowInputStream(data),
+			new ByteArrayInputStream(data)));
+		byte[] other = data.clone();
+		other[99999] ^= 1;
+		assertFalse(ByteStreams.equal(new SlowInputStream(data),
+			new SlowInputStream(other)));
+	}
+
+	@Test
+	public void testMismatch() throws Exception
+	{
+		byte[] data = new byte[20000];
+		new Random().nextBytes(data);
+		assertEquals(-1, ByteStreams.mismatch(
+			new ByteArrayInputStream(data),
+			new SlowInputStream(data)));
+		for (int i : new int[]{0, 7, 8, 8191, 8192, 8200, 19999}) {
+			byte[] other = data.clone();
+			other[i] ^= 0x10;
+			assertEquals(i, ByteStreams.mismatch(
+				new SlowInputStream(data),
+				new ByteArrayInputStream(other)));
+		}
+		assertEquals(8192, ByteStreams.mismatch(
+			new ByteArrayInputStream(data, 0, 8192),
+			new SlowInputStream(data)));
+		assertEquals(10, ByteStreams.mismatch(
+			new ByteArrayInputStream(data),
+			new ByteArrayInputStream(data, 0, 10)));
+		assertEquals(0, ByteStreams.mismatch(
+			new ByteArrayInputStream(new byte[0]),
+			new ByteArrayInputStream(data)));
+	}
+
+	/** Returns at most 3 bytes per read, to exercise partial reads. */
+	private static final class SlowInputStream extends ByteArrayInputStream
+	{
+		SlowInputStream(byte[] data)
+		{
+			super(data);
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len)
+		{
+			return super.read(b, off, Math.min(len, 3));
+		}
+
+		@Override
+		public synchronized int available()
+		{
+			return 0;
+		}
+	}
+
 	@Test
 	public void testLimit() throws Exception
 	{
@@ -19,10 +19,12 @@ package org.kocakosm.pitaya.io;
 import static org.junit.Assert.*;
 
 import org.kocakosm.pitaya.charset.Charsets;
+import org.kocakosm.pitaya.collection.Iterables;
 
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterReader;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
@@ -32,7 +34,9 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
 
@@ -72,6 +76,21 @@ public final class CharStreamsTest
 		assertEquals(data, out.toString());
 	}
 
+	@Test
+	public void testCopyReaderToWriterWithBuffer() throws Exception
+	{
+		String data = "Strawberry Fields Forever";
+		Reader in = new StringReader(data);
+		Writer out = new StringWriter();
+		assertEquals(data.length(),
+			CharStreams.copy(in, out, new char[3], false));
+		assertEquals(data, out.toString());
+		in = new StringReader(data);
+		out = new StringWriter();
+		assertEquals(data.length(), CharStreams.copy(in, out, true));
+		assertEquals(data, out.toString());
+	}
+
 	@Test
 	public void testCopyInputStreamToWriter() throws Exception
 	{
@@ -134,6 +153,28 @@ public final class CharStreamsTest
 		assertFalse(CharStreams.equal(in1, in2));
 	}
 
+	@Test
+	public void testMismatch() throws Exception
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		String data = sb.toString();
+		assertEquals(-1, CharStreams.mismatch(new StringReader(data),
+			new StringReader(data)));
+		for (int i : new int[]{0, 8191, 8192, 19999}) {
+			sb = new StringBuilder(data);
+			sb.setCharAt(i, '!');
+			assertEquals(i, CharStreams.mismatch(new StringReader(data),
+				new StringReader(sb.toString())));
+		}
+		assertEquals(5, CharStreams.mismatch(new StringReader("Apple"),
+			new StringReader("Apple Records")));
+		assertFalse(CharStreams.equal(new StringReader("Abbey Road"),
+			new StringReader("Abbey Roak")));
+	}
+
 	@Test
 	public void testLimit() throws Exception
 	{
@@ -183,6 +224,63 @@ public final class CharStreamsTest
 		assertEquals(beatles, CharStreams.readLines(in));
 	}
 
+	@Test
+	public void testLines() throws Exception
+	{
+		byte[] data = "John\nPaul\r\nGeorge\rRingo".getBytes("UTF-8");
+		InputStream in = new ByteArrayInputStream(data);
+		LineIterable lines = CharStreams.lines(in, Charsets.UTF_8);
+		List<String> beatles = Arrays.asList("John", "Paul", "George", "Ringo");
+		assertEquals(beatles, Iterables.toList(lines));
+		lines.close();
+	}
+
+	@Test
+	public void testLinesClosesExhaustedStream() throws Exception
+	{
+		final AtomicBoolean closed = new AtomicBoolean();
+		Reader in = new FilterReader(new StringReader("a\nb"))
+		{
+			@Override
+			public void close()
+			{
+				closed.set(true);
+			}
+		};
+		Iterator<String> lines = CharStreams.lines(in).iterator();
+		assertEquals("a", lines.next());
+		assertEquals("b", lines.next());
+		assertFalse(closed.get());
+		assertFalse(lines.hasNext());
+		assertTrue(closed.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testLinesIteratedTwice() throws Exception
+	{
+		LineIterable lines = CharStreams.lines(new StringReader("a\nb"));
+		lines.iterator();
+		lines.iterator();
+	}
+
+	@Test
+	public void testForEachLine() throws Exception
+	{
+		final StringBuilder sb = new StringBuilder();
+		Reader in = new StringReader("John\nPaul\nGeorge\nRingo");
+		long count = CharStreams.forEachLine(in, new LineProcessor()
+		{
+			@Override
+			public boolean process(CharSequence line)
+			{
+				sb.append(line).append(' ');
+				return !line.toString().equals("George");
+			}
+		});
+		assertEquals(3, count);
+		assertEquals("John Paul George ", sb.toString());
+	}
+
 	@Test
 	public void testTeeArray() throws Exception
 	{
@@ -22,6 +22,8 @@ import static org.mockito.Mockito.*;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -99,6 +101,97 @@ public final class ConcatInputStreamTest
 		assertArrayEquals(DATA, ByteStreams.read(in));
 	}
 
+	@Test
+	public void testReadAcrossStreams() throws IOException
+	{
+		InputStream d1 = new ByteArrayInputStream(DATA);
+		InputStream d2 = new ByteArrayInputStream(new byte[0]);
+		InputStream d3 = new ByteArrayInputStream(DATA);
+		InputStream d4 = new ByteArrayInputStream(DATA);
+		InputStream in = new ConcatInputStream(d1, d2, d3, d4);
+		assertEquals(3 * DATA.length, in.available());
+		byte[] data = new byte[DATA2.length + 1];
+		assertEquals(DATA2.length, in.read(data, 1, DATA2.length));
+		assertEquals(-1, in.read(data));
+		assertEquals(0, in.read(data, 0, 0));
+	}
+
+	@Test
+	public void testManyEmptyStreams() throws IOException
+	{
+		List<InputStream> streams = new ArrayList<InputStream>();
+		for (int i = 0; i < 100000; i++) {
+			streams.add(new ByteArrayInputStream(new byte[0]));
+		}
+		streams.add(new ByteArrayInputStream(DATA));
+		InputStream in = new ConcatInputStream(streams);
+		assertEquals(DATA[0] & 0xFF, in.read());
+		in = new ConcatInputStream(streams);
+		assertEquals(1, in.read(new byte[1]));
+	}
+
+	@Test
+	public void testSkipAcrossStreams() throws IOException
+	{
+		InputStream d1 = new ByteArrayInputStream(DATA);
+		InputStream d2 = new ByteArrayInputStream(DATA);
+		InputStream d3 = new ByteArrayInputStream(DATA);
+		InputStream in = new ConcatInputStream(d1, d2, d3);
+		assertEquals(5, in.skip(5));
+		assertEquals(DATA[1] & 0xFF, in.read());
+		assertEquals(0, in.skip(10));
+		assertEquals(0, in.skip(-1));
+	}
+
+	@Test
+	public void testLazyStreams() throws IOException
+	{
+		final List<TrackedInputStream> opened =
+			new ArrayList<TrackedInputStream>();
+		List<StreamSupplier<InputStream>> suppliers =
+			new ArrayList<StreamSupplier<InputStream>>();
+		for (int i = 0; i < 3; i++) {
+			suppliers.add(new StreamSupplier<InputStream>()
+			{
+				@Override
+				public InputStream get()
+				{
+					for (TrackedInputStream s : opened) {
+						assertTrue(s.closed);
+					}
+					TrackedInputStream s = new TrackedInputStream();
+					opened.add(s);
+					return s;
+				}
+			});
+		}
+		InputStream in = new ConcatInputStream(suppliers.iterator());
+		assertTrue(opened.isEmpty());
+		assertArrayEquals(DATA2, ByteStreams.read(in));
+		assertEquals(3, opened.size());
+		in.close();
+		assertTrue(opened.get(2).closed);
+	}
+
+	@Test
+	public void testEmptyLazyStreams() throws IOException
+	{
+		List<StreamSupplier<InputStream>> suppliers =
+			new ArrayList<StreamSupplier<InputStream>>();
+		InputStream in = new ConcatInputStream(suppliers.iterator());
+		assertEquals(-1, in.read());
+		assertEquals(0, in.available());
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadAfterClose() throws IOException
+	{
+		InputStream in = new ConcatInputStream(
+			new ByteArrayInputStream(DATA));
+		in.close();
+		in.read();
+	}
+
 	@Test
 	public void testClose() throws IOException
 	{
@@ -109,4 +202,20 @@ public final class ConcatInputStreamTest
 		verify(d1).close();
 		verify(d2).close();
 	}
+
+	private static final class TrackedInputStream extends ByteArrayInputStream
+	{
+		boolean closed;
+
+		TrackedInputStream()
+		{
+			super(DATA);
+		}
+
+		@Override
+		public void close()
+		{
+			closed = true;
+		}
+	}
 }
@@ -21,6 +21,8 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -108,6 +110,54 @@ public final class ConcatReaderTest
 		}
 	}
 
+	@Test
+	public void testReadAcrossReaders() throws IOException
+	{
+		Reader reader = new ConcatReader(new StringReader("Abbey"),
+			new StringReader(""), new StringReader(" road"));
+		char[] buf = new char[20];
+		assertEquals(10, reader.read(buf, 2, 18));
+		assertEquals("Abbey road", new String(buf, 2, 10));
+		assertEquals(-1, reader.read(buf));
+		assertFalse(reader.ready());
+	}
+
+	@Test
+	public void testSkipAcrossReaders() throws IOException
+	{
+		Reader reader = new ConcatReader(new StringReader("Yellow"),
+			new StringReader(" "), new StringReader("Submarine"));
+		assertEquals(10, reader.skip(10));
+		assertEquals('m', reader.read());
+		assertEquals(5, reader.skip(10));
+		assertEquals(-1, reader.read());
+	}
+
+	@Test
+	public void testLazyReaders() throws IOException
+	{
+		final List<String> opened = new ArrayList<String>();
+		List<StreamSupplier<Reader>> suppliers =
+			new ArrayList<StreamSupplier<Reader>>();
+		for (final String s : new String[] {"Let ", "it ", "be"}) {
+			suppliers.add(new StreamSupplier<Reader>()
+			{
+				@Override
+				public Reader get()
+				{
+					opened.add(s);
+					return new StringReader(s);
+				}
+			});
+		}
+		Reader reader = new ConcatReader(suppliers.iterator());
+		assertTrue(opened.isEmpty());
+		assertEquals('L', reader.read());
+		assertEquals(1, opened.size());
+		assertEquals("et it be", CharStreams.read(reader));
+		assertEquals(3, opened.size());
+	}
+
 	@Test
 	public void testClose() throws IOException
 	{
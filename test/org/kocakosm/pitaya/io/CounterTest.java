@@ -0,0 +1,79 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * {@link Counter}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class CounterTest
+{
+	@Test
+	public void testSingleWriter()
+	{
+		Counter counter = Counter.create(CountingMode.SINGLE_WRITER);
+		assertEquals(0, counter.get());
+		counter.add(1);
+		counter.add(41);
+		assertEquals(42, counter.get());
+		assertEquals(42, counter.getAndReset());
+		assertEquals(0, counter.get());
+		counter.add(3);
+		assertEquals(3, counter.get());
+	}
+
+	@Test
+	public void testMultiWriter() throws Exception
+	{
+		final Counter counter = Counter.create(CountingMode.MULTI_WRITER);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			Thread t = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < 10000; j++) {
+						counter.add(1);
+					}
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(80000, counter.get());
+		assertEquals(80000, counter.getAndReset());
+		assertEquals(0, counter.get());
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullMode()
+	{
+		Counter.create(null);
+	}
+}
@@ -82,6 +82,20 @@ public final class CountingInputStreamTest
 		assertEquals(16, in.getCount());
 	}
 
+	@Test
+	public void testSingleWriterMode() throws IOException
+	{
+		InputStream data = new ByteArrayInputStream(DATA);
+		CountingInputStream in = new CountingInputStream(data,
+			CountingMode.SINGLE_WRITER);
+		in.read();
+		in.read(new byte[9]);
+		assertEquals(10, in.getCount());
+		assertEquals(10, in.resetCount());
+		in.read(new byte[20], 0, 10);
+		assertEquals(6, in.getCount());
+	}
+
 	@Test
 	public void testResetCount() throws IOException
 	{
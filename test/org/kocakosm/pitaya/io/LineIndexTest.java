@@ -0,0 +1,201 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import org.kocakosm.pitaya.charset.Charsets;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link LineIndex}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class LineIndexTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testEmptyFile() throws Exception
+	{
+		LineIndex index = LineIndex.build(write(""));
+		assertEquals(0, index.getLineCount());
+		assertEquals(0, index.getLength());
+		assertEquals(0, index.getOffset(0));
+		assertEquals(Collections.emptyList(),
+			index.readLines(0, 10, Charsets.UTF_8));
+	}
+
+	@Test
+	public void testOffsets() throws Exception
+	{
+		LineIndex index = LineIndex.build(write("ab\r\n\nc\ndef"));
+		assertEquals(4, index.getLineCount());
+		assertEquals(0, index.getOffset(0));
+		assertEquals(4, index.getOffset(1));
+		assertEquals(5, index.getOffset(2));
+		assertEquals(7, index.getOffset(3));
+		assertEquals(10, index.getOffset(4));
+	}
+
+	@Test
+	public void testTerminatedLastLine() throws Exception
+	{
+		LineIndex index = LineIndex.build(write("a\nb\n"));
+		assertEquals(2, index.getLineCount());
+		assertEquals(4, index.getOffset(2));
+		assertEquals("b", index.readLine(1, Charsets.UTF_8));
+	}
+
+	@Test
+	public void testReadLines() throws Exception
+	{
+		LineIndex index = LineIndex.build(write("ab\r\n\nçé\ndef"));
+		assertEquals(Arrays.asList("", "çé", "def"),
+			index.readLines(1, 10, Charsets.UTF_8));
+		assertEquals(Arrays.asList("ab", ""),
+			index.readLines(0, 2, Charsets.UTF_8));
+		assertEquals("def", index.readLine(3, Charsets.UTF_8));
+	}
+
+	@Test
+	public void testManyLines() throws Exception
+	{
+		File f = tmp.newFile();
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 300000; i++) {
+			text.append("line").append(i).append('\n');
+		}
+		write(f, text.toString());
+		LineIndex index = LineIndex.build(f, 4);
+		assertEquals(300000, index.getLineCount());
+		assertEquals("line0", index.readLine(0, Charsets.UTF_8));
+		assertEquals("line777", index.readLine(777, Charsets.UTF_8));
+		assertEquals("line299999", index.readLine(299999, Charsets.UTF_8));
+		assertEquals(Arrays.asList("line63", "line64", "line65"),
+			index.readLines(63, 3, Charsets.UTF_8));
+		assertEquals(f.length(), index.getOffset(300000));
+	}
+
+	@Test
+	public void testUpdate() throws Exception
+	{
+		File f = write("a\nb");
+		LineIndex index = LineIndex.build(f);
+		assertEquals(2, index.getLineCount());
+		append(f, "c\nd\n");
+		assertEquals(3, index.update());
+		assertEquals(Arrays.asList("a", "bc", "d"),
+			index.readLines(0, 3, Charsets.UTF_8));
+		append(f, "e");
+		assertEquals(4, index.update());
+		assertEquals("e", index.readLine(3, Charsets.UTF_8));
+	}
+
+	@Test
+	public void testUpdateTruncatedFile() throws Exception
+	{
+		File f = write("a\nb\nc\n");
+		LineIndex index = LineIndex.build(f);
+		write(f, "x\n");
+		assertEquals(1, index.update());
+		assertEquals("x", index.readLine(0, Charsets.UTF_8));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception
+	{
+		File f = tmp.newFile();
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			text.append(i).append('\n');
+		}
+		write(f, text.toString());
+		File sidecar = new File(tmp.getRoot(), "index");
+		LineIndex.build(f).save(sidecar);
+		append(f, "1000\n");
+		LineIndex index = LineIndex.load(f, sidecar);
+		assertEquals(1000, index.getLineCount());
+		assertEquals("999", index.readLine(999, Charsets.UTF_8));
+		assertEquals(1001, index.update());
+		assertEquals("1000", index.readLine(1000, Charsets.UTF_8));
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadInvalidIndex() throws Exception
+	{
+		LineIndex.load(tmp.newFile(), write("not an index"));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testReadMissingLine() throws Exception
+	{
+		LineIndex.build(write("a\nb\n")).readLine(2, Charsets.UTF_8);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNegativeOffset() throws Exception
+	{
+		LineIndex.build(write("a\n")).getOffset(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedCharset() throws Exception
+	{
+		LineIndex.build(write("a\n")).readLine(0, Charsets.UTF_16);
+	}
+
+	private File write(String text) throws Exception
+	{
+		File f = tmp.newFile();
+		write(f, text);
+		return f;
+	}
+
+	private void write(File f, String text) throws Exception
+	{
+		write(f, text, false);
+	}
+
+	private void append(File f, String text) throws Exception
+	{
+		write(f, text, true);
+	}
+
+	private void write(File f, String text, boolean append) throws Exception
+	{
+		OutputStream out = new FileOutputStream(f, append);
+		try {
+			out.write(text.getBytes("UTF-8"));
+		} finally {
+			IO.close(out);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import org.kocakosm.pitaya.collection.Iterators;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * {@link LineIterator}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class LineIteratorTest
+{
+	@Test
+	public void testLines()
+	{
+		String text = "a\nbc\r\ndef\rg\r\rh\n\nlast";
+		List<String> expected = Arrays.asList("a", "bc", "def", "g", "",
+			"h", "", "last");
+		for (int size = 1; size < 8; size++) {
+			LineIterator lines = new LineIterator(
+				new StringReader(text), size);
+			assertEquals(expected, Iterators.toList(lines));
+		}
+	}
+
+	@Test
+	public void testTrailingSeparator()
+	{
+		for (String text : Arrays.asList("a\n", "a\r", "a\r\n")) {
+			for (int size = 1; size < 4; size++) {
+				LineIterator lines = new LineIterator(
+					new StringReader(text), size);
+				assertEquals(Arrays.asList("a"), Iterators.toList(lines));
+			}
+		}
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		LineIterator lines = new LineIterator(new StringReader(""));
+		assertFalse(lines.hasNext());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testNextOnExhaustedIterator()
+	{
+		LineIterator lines = new LineIterator(new StringReader("a"));
+		lines.next();
+		lines.next();
+	}
+
+	@Test
+	public void testNextLine()
+	{
+		LineIterator lines = new LineIterator(new StringReader("ab\ncd"));
+		CharSequence line = lines.nextLine();
+		assertEquals(2, line.length());
+		assertEquals('a', line.charAt(0));
+		assertEquals("b", line.subSequence(1, 2));
+		assertEquals("ab", line.toString());
+		assertEquals("cd", lines.nextLine().toString());
+		assertFalse(lines.hasNext());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNextLineInvalidIndex()
+	{
+		LineIterator lines = new LineIterator(new StringReader("ab"));
+		lines.nextLine().charAt(2);
+	}
+
+	@Test
+	public void testClose() throws Exception
+	{
+		LineIterator lines = new LineIterator(new StringReader("a\nb"));
+		assertEquals("a", lines.next());
+		lines.close();
+		assertFalse(lines.hasNext());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIOError()
+	{
+		Reader in = new Reader()
+		{
+			@Override
+			public int read(char[] buf, int off, int len)
+				throws IOException
+			{
+				throw new IOException();
+			}
+
+			@Override
+			public void close()
+			{
+				/* ... */
+			}
+		};
+		new LineIterator(in).hasNext();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRemove()
+	{
+		new LineIterator(new StringReader("a")).remove();
+	}
+}
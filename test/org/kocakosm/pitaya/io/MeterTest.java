@@ -0,0 +1,73 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * {@link Meter}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class MeterTest
+{
+	private static final long SECOND = 1000000000L;
+
+	@Test
+	public void testCount()
+	{
+		Meter meter = new Meter();
+		meter.mark(10);
+		meter.mark(32);
+		assertEquals(42, meter.getCount());
+	}
+
+	@Test
+	public void testRate()
+	{
+		Meter meter = new Meter(5, TimeUnit.SECONDS, 0);
+		assertEquals(0, meter.getRate(0), 0);
+		meter.mark(100, 0);
+		assertEquals(0, meter.getRate(SECOND / 2), 0);
+		assertEquals(100, meter.getRate(SECOND), 1e-9);
+		for (int i = 1; i < 50; i++) {
+			meter.mark(200, i * SECOND);
+		}
+		assertEquals(200, meter.getRate(50 * SECOND), 1);
+	}
+
+	@Test
+	public void testDecay()
+	{
+		Meter meter = new Meter(5, TimeUnit.SECONDS, 0);
+		meter.mark(100, 0);
+		assertEquals(100, meter.getRate(SECOND), 1e-9);
+		double decayed = 100 * Math.exp(-2.0 / 5);
+		assertEquals(decayed, meter.getRate(3 * SECOND), 1e-9);
+		assertEquals(100, meter.getCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidWindow()
+	{
+		new Meter(0, TimeUnit.SECONDS);
+	}
+}
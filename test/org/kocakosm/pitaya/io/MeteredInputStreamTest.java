@@ -0,0 +1,61 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * {@link MeteredInputStream}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class MeteredInputStreamTest
+{
+	@Test
+	public void testRead() throws IOException
+	{
+		byte[] data = new byte[] {1, 2, 3, 4, 5, 6, 7, 8};
+		MeteredInputStream in = new MeteredInputStream(
+			new ByteArrayInputStream(data));
+		assertEquals(1, in.read());
+		assertEquals(3, in.read(new byte[3]));
+		assertEquals(2, in.skip(2));
+		assertEquals(2, in.read(new byte[5], 1, 4));
+		assertEquals(-1, in.read());
+		in.close();
+		assertEquals(6, in.getMeter().getCount());
+	}
+
+	@Test
+	public void testSharedMeter() throws IOException
+	{
+		Meter meter = new Meter();
+		MeteredInputStream in1 = new MeteredInputStream(
+			new ByteArrayInputStream(new byte[10]), meter);
+		MeteredInputStream in2 = new MeteredInputStream(
+			new ByteArrayInputStream(new byte[20]), meter);
+		ByteStreams.read(in1);
+		ByteStreams.read(in2);
+		assertSame(meter, in1.getMeter());
+		assertEquals(30, meter.getCount());
+	}
+}
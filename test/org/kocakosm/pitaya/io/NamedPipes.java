@@ -0,0 +1,75 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Named pipes (FIFOs) for tests.
+ *
+ * @author Osman KOCAK
+ */
+final class NamedPipes
+{
+	/**
+	 * Creates a named pipe into which the given data is written by another
+	 * thread, or returns {@code null} if named pipes aren't supported.
+	 */
+	static File create(File dir, String name, final byte[] data)
+		throws Exception
+	{
+		final File pipe = new File(dir, name);
+		try {
+			Process mkfifo = new ProcessBuilder("mkfifo",
+				pipe.getPath()).start();
+			if (mkfifo.waitFor() != 0) {
+				return null;
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		Thread writer = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try {
+					OutputStream out = new FileOutputStream(pipe);
+					try {
+						out.write(data);
+					} finally {
+						out.close();
+					}
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		return pipe;
+	}
+
+	private NamedPipes()
+	{
+		/* ... */
+	}
+}
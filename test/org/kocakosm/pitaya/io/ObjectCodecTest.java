@@ -18,9 +18,31 @@ package org.kocakosm.pitaya.io;
 
 import static org.junit.Assert.*;
 
+import org.kocakosm.pitaya.charset.Charsets;
+import org.kocakosm.pitaya.collection.ImmutableList;
+import org.kocakosm.pitaya.math.Fraction;
+import org.kocakosm.pitaya.net.MediaType;
+import org.kocakosm.pitaya.net.URN;
+import org.kocakosm.pitaya.time.Duration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -47,6 +69,147 @@ public final class ObjectCodecTest
 		ObjectCodec.decode(serialized, String.class);
 	}
 
+	@Test
+	public void testDecodeSlice()
+	{
+		SerializableClass original = new SerializableClass(42, "Hello");
+		byte[] serialized = ObjectCodec.encode(original);
+		byte[] padded = new byte[serialized.length + 10];
+		System.arraycopy(serialized, 0, padded, 7, serialized.length);
+		assertEquals(original, ObjectCodec.decode(padded, 7,
+			serialized.length, SerializableClass.class));
+	}
+
+	@Test
+	public void testEncodeReturnsDistinctArrays()
+	{
+		byte[] b1 = ObjectCodec.encode("Hello", ObjectCodec.BINARY);
+		byte[] b2 = ObjectCodec.encode("World", ObjectCodec.BINARY);
+		assertEquals("Hello", decode(b1));
+		assertEquals("World", decode(b2));
+	}
+
+	@Test
+	public void testBinaryRoundTrip()
+	{
+		Map<Object, Object> map = new HashMap<Object, Object>();
+		map.put("k", Arrays.asList(1, 2L));
+		map.put(null, new HashSet<Object>(Arrays.asList('c', (short) -3)));
+		List<Object> values = new ArrayList<Object>(Arrays.<Object>asList(
+			null, true, false, (byte) -1, 'x', 0, -1, Integer.MAX_VALUE,
+			Integer.MIN_VALUE, Long.MIN_VALUE, 3.5f, -0.25, "Abbey Road",
+			"\u00e9\u4e2d", new BigInteger("-123456789012345678901234567890"),
+			new BigDecimal("3.14159"), new Date(123456789L),
+			new Fraction(3, 4), Duration.ONE_HOUR,
+			URN.create("urn:isbn:0451450523"),
+			MediaType.PLAIN_TEXT.withCharset(Charsets.UTF_8),
+			ImmutableList.of("a", null, "b"), map));
+		for (Object value : values) {
+			assertEquals(value, decode(ObjectCodec.encode(value,
+				ObjectCodec.BINARY)));
+		}
+		byte[] bytes = {1, 2, 3};
+		assertArrayEquals(bytes, (byte[]) decode(ObjectCodec.encode(bytes,
+			ObjectCodec.BINARY)));
+		assertEquals(2, ObjectCodec.encode(42, ObjectCodec.BINARY).length);
+	}
+
+	@Test(expected = ObjectCodec.EncodingException.class)
+	public void testBinaryUnsupportedType()
+	{
+		ObjectCodec.encode(new Object(), ObjectCodec.BINARY);
+	}
+
+	@Test(expected = ObjectCodec.EncodingException.class)
+	public void testBinaryDateSubclass()
+	{
+		ObjectCodec.encode(new Timestamp(123456789L), ObjectCodec.BINARY);
+	}
+
+	@Test
+	public void testBinaryCorruptedInput()
+	{
+		byte[][] inputs = {
+			{12, 0},
+			{15, 1, 1, 1, 0},
+			{17, 3, 'f', 'o', 'o'},
+			{18, 3, 'f', 'o', 'o'},
+			{11, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 7},
+			{19, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 7},
+		};
+		for (byte[] input : inputs) {
+			try {
+				ObjectCodec.decode(input, 0, input.length,
+					ObjectCodec.BINARY);
+				fail(Arrays.toString(input));
+			} catch (ObjectCodec.DecodingException e) {
+				/* Expected. */
+			}
+			try {
+				ObjectCodec.decode(ByteBuffer.wrap(input),
+					ObjectCodec.BINARY);
+				fail(Arrays.toString(input));
+			} catch (ObjectCodec.DecodingException e) {
+				/* Expected. */
+			}
+		}
+	}
+
+	@Test(expected = ObjectCodec.DecodingException.class)
+	public void testBinaryTruncatedInput()
+	{
+		byte[] encoded = ObjectCodec.encode("Hello", ObjectCodec.BINARY);
+		ObjectCodec.decode(encoded, 0, encoded.length - 1,
+			ObjectCodec.BINARY);
+	}
+
+	@Test
+	public void testByteBuffer()
+	{
+		ByteBuffer buf = ByteBuffer.allocateDirect(64);
+		int n1 = ObjectCodec.encode("Let It Be", ObjectCodec.BINARY, buf);
+		int n2 = ObjectCodec.encode(1969, ObjectCodec.BINARY, buf);
+		assertEquals(n1 + n2, buf.position());
+		try {
+			ObjectCodec.encode(new byte[100], ObjectCodec.BINARY, buf);
+			fail();
+		} catch (BufferOverflowException e) {
+			assertEquals(n1 + n2, buf.position());
+		}
+		buf.flip();
+		assertEquals("Let It Be", ObjectCodec.decode(buf,
+			ObjectCodec.BINARY));
+		assertEquals(1969, ObjectCodec.decode(buf, ObjectCodec.BINARY));
+		assertFalse(buf.hasRemaining());
+	}
+
+	@Test
+	public void testCustomCodec()
+	{
+		Codec<String> codec = new Codec<String>()
+		{
+			@Override
+			public void encode(String s, OutputStream out)
+				throws IOException
+			{
+				out.write(s.length());
+				out.write(s.getBytes("US-ASCII"));
+			}
+
+			@Override
+			public String decode(InputStream in) throws IOException
+			{
+				byte[] b = new byte[in.read()];
+				in.read(b);
+				return new String(b, "US-ASCII");
+			}
+		};
+		byte[] encoded = ObjectCodec.encode("Help!", codec);
+		assertEquals(6, encoded.length);
+		String decoded = ObjectCodec.decode(encoded, 0, 6, codec);
+		assertEquals("Help!", decoded);
+	}
+
 	@Test
 	public void testConstructor() throws Exception
 	{
@@ -58,6 +221,12 @@ public final class ObjectCodecTest
 		constructor.newInstance();
 	}
 
+	private static Object decode(byte[] encoded)
+	{
+		return ObjectCodec.decode(encoded, 0, encoded.length,
+			ObjectCodec.BINARY);
+	}
+
 	private static final class SerializableClass implements Serializable
 	{
 		private static final long serialVersionUID = 1L;
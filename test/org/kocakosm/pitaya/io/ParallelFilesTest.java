@@ -0,0 +1,207 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ParallelFiles}' unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class ParallelFilesTest
+{
+	private static final Random PRNG = new Random();
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testCopyDirectory() throws Exception
+	{
+		File src = createTree(tmp.newFolder());
+		File dst = new File(tmp.newFolder(), "out");
+		ParallelFiles.Progress progress = new ParallelFiles.Progress();
+		ParallelFiles.cp(src, dst, 4, progress);
+		assertTrue(XFiles.equal(src, dst));
+		assertEquals(20, progress.getFileCount());
+		assertEquals(20 * 100, progress.getByteCount());
+	}
+
+	@Test
+	public void testCopyDirectoryToDirectory() throws Exception
+	{
+		File src = createTree(tmp.newFolder());
+		File dst = tmp.newFolder();
+		ParallelFiles.cp(src, dst, 2);
+		assertTrue(XFiles.equal(src, new File(dst, src.getName())));
+	}
+
+	@Test
+	public void testCopyFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		File src = createFile(test, "hello.txt", 5);
+		File dst = new File(test, "copy.txt");
+		ParallelFiles.cp(src, dst, 2);
+		assertTrue(XFiles.equal(src, dst));
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testCopyMissingFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		ParallelFiles.cp(new File(test, "missing"), test, 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidParallelism() throws Exception
+	{
+		ParallelFiles.rm(tmp.newFolder(), 0);
+	}
+
+	@Test
+	public void testDeleteDirectory() throws Exception
+	{
+		File dir = createTree(tmp.newFolder());
+		ParallelFiles.Progress progress = new ParallelFiles.Progress();
+		ParallelFiles.rm(dir, 4, progress);
+		assertFalse(dir.exists());
+		assertEquals(20, progress.getFileCount());
+		assertEquals(20 * 100, progress.getByteCount());
+	}
+
+	@Test
+	public void testDeleteEmptyDirectory() throws Exception
+	{
+		File dir = tmp.newFolder();
+		ParallelFiles.rm(dir, 2);
+		assertFalse(dir.exists());
+	}
+
+	@Test
+	public void testDeleteMissingFile() throws Exception
+	{
+		ParallelFiles.rm(new File(tmp.newFolder(), "missing"), 2);
+	}
+
+	@Test
+	public void testEqual() throws Exception
+	{
+		File dir1 = createTree(tmp.newFolder());
+		File dir2 = new File(tmp.newFolder(), "copy");
+		XFiles.cp(dir1, dir2);
+		ParallelFiles.Progress progress = new ParallelFiles.Progress();
+		assertTrue(ParallelFiles.equal(dir1, dir2, 4, progress));
+		assertEquals(20, progress.getFileCount());
+		assertTrue(ParallelFiles.equal(dir1, dir1, 4));
+		assertFalse(ParallelFiles.equal(dir1, null, 4));
+		assertFalse(ParallelFiles.equal(null, dir2, 4));
+		assertTrue(ParallelFiles.equal(null, null, 4));
+	}
+
+	@Test
+	public void testNotEqual() throws Exception
+	{
+		File dir1 = createTree(tmp.newFolder());
+		File dir2 = new File(tmp.newFolder(), "copy");
+		XFiles.cp(dir1, dir2);
+		createFile(new File(dir2, "d1"), "f0", 100);
+		assertFalse(ParallelFiles.equal(dir1, dir2, 4));
+		XFiles.rm(dir2);
+		XFiles.cp(dir1, dir2);
+		new File(dir2, "d3/f3").delete();
+		createFile(dir2, "d3/f3", 99);
+		assertFalse(ParallelFiles.equal(dir1, dir2, 4));
+		new File(dir2, "d3/f3").delete();
+		assertFalse(ParallelFiles.equal(dir1, dir2, 4));
+	}
+
+	@Test
+	public void testNotEqualFilesReportingNoSize() throws Exception
+	{
+		File version = new File("/proc/version");
+		File status = new File("/proc/self/status");
+		if (!version.isFile() || version.length() != 0) {
+			return;
+		}
+		assertFalse(ParallelFiles.equal(version, status, 2));
+	}
+
+	@Test
+	public void testCompositeIOException()
+	{
+		IOException e1 = new IOException("1");
+		IOException e2 = new IOException("2");
+		CompositeIOException e =
+			new CompositeIOException(Arrays.asList(e1, e2));
+		assertEquals(Arrays.asList(e1, e2), e.getCauses());
+		assertSame(e1, e.getCause());
+	}
+
+	@Test
+	public void testConstructor() throws Exception
+	{
+		Class<ParallelFiles> c = ParallelFiles.class;
+		assertEquals(1, c.getDeclaredConstructors().length);
+		Constructor<ParallelFiles> constructor = c.getDeclaredConstructor();
+		assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+		constructor.setAccessible(true);
+		constructor.newInstance();
+	}
+
+	private File createTree(File root) throws Exception
+	{
+		File dir = new File(root, "tree");
+		for (int i = 0; i < 5; i++) {
+			File sub = new File(dir, "d" + i);
+			sub.mkdirs();
+			for (int j = 0; j < 4; j++) {
+				createFile(sub, "f" + j, 100);
+			}
+		}
+		return dir;
+	}
+
+	private File createFile(File dir, String name, int len) throws Exception
+	{
+		byte[] data = new byte[len];
+		PRNG.nextBytes(data);
+		File f = new File(dir, name);
+		OutputStream out = new FileOutputStream(f);
+		try {
+			out.write(data);
+		} finally {
+			IO.close(out);
+		}
+		return f;
+	}
+}
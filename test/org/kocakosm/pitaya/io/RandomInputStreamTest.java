@@ -20,6 +20,7 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -58,4 +59,94 @@ public final class RandomInputStreamTest
 		assertEquals(5, in.read(rnd, 0, 5));
 		assertArrayEquals(Arrays.copyOf(DATA, 5), Arrays.copyOf(rnd, 5));
 	}
+
+	@Test
+	public void testSmallReadsShareScratchBuffer()
+	{
+		final int[] calls = new int[1];
+		Random prng = new Random(42)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void nextBytes(byte[] bytes)
+			{
+				calls[0]++;
+				super.nextBytes(bytes);
+			}
+		};
+		RandomInputStream in = new RandomInputStream(prng);
+		byte[] b = new byte[11];
+		for (int i = 0; i < 100; i++) {
+			assertEquals(10, in.read(b, 1, 10));
+		}
+		assertEquals(1, calls[0]);
+	}
+
+	@Test
+	public void testSeededStreamsAreReproducible()
+	{
+		byte[] expected = new byte[1000];
+		new RandomInputStream(42).read(expected);
+		RandomInputStream in = new RandomInputStream(42);
+		byte[] actual = new byte[1000];
+		int off = 0;
+		for (int len : new int[]{1, 3, 8, 13, 64, 911}) {
+			assertEquals(len, in.read(actual, off, len));
+			off += len;
+		}
+		assertArrayEquals(expected, actual);
+		in = new RandomInputStream(42);
+		for (int i = 0; i < 20; i++) {
+			assertEquals(expected[i] & 0xFF, in.read());
+		}
+		assertFalse(Arrays.equals(expected, read(new RandomInputStream(43), 1000)));
+	}
+
+	@Test
+	public void testOffset()
+	{
+		byte[] expected = read(new RandomInputStream(7), 500);
+		for (int off : new int[]{1, 8, 13, 250}) {
+			byte[] part = read(new RandomInputStream(7, off), 500 - off);
+			assertArrayEquals(Arrays.copyOfRange(expected, off, 500), part);
+		}
+	}
+
+	@Test
+	public void testSkip()
+	{
+		byte[] expected = read(new RandomInputStream(7), 100);
+		RandomInputStream in = new RandomInputStream(7);
+		assertEquals(37, in.skip(37));
+		assertEquals(0, in.skip(-1));
+		assertArrayEquals(Arrays.copyOfRange(expected, 37, 100), read(in, 63));
+	}
+
+	@Test
+	public void testReadWithOverflowingBounds()
+	{
+		byte[] buf = new byte[8];
+		try {
+			new RandomInputStream(7).read(buf, 1, Integer.MAX_VALUE);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertArrayEquals(new byte[8], buf);
+		}
+	}
+
+	@Test
+	public void testDefaultStreamsDiffer()
+	{
+		byte[] b1 = read(new RandomInputStream(), 32);
+		byte[] b2 = read(new RandomInputStream(), 32);
+		assertFalse(Arrays.equals(b1, b2));
+	}
+
+	private static byte[] read(RandomInputStream in, int len)
+	{
+		byte[] b = new byte[len];
+		in.read(b);
+		return b;
+	}
 }
@@ -62,4 +62,65 @@ public final class RandomReaderTest
 		reader.close();
 		assertEquals('a', reader.read());
 	}
+
+	@Test
+	public void testSeededReadersAreReproducible()
+	{
+		char[] expected = read(new RandomReader(42, 0, 'a', 'b', 'c'), 99);
+		RandomReader reader = new RandomReader(42, 0, 'a', 'b', 'c');
+		char[] actual = new char[99];
+		int off = 0;
+		for (int len : new int[]{1, 2, 3, 93}) {
+			assertEquals(len, reader.read(actual, off, len));
+			off += len;
+		}
+		assertArrayEquals(expected, actual);
+		reader = new RandomReader(42, 0, 'a', 'b', 'c');
+		for (int i = 0; i < 5; i++) {
+			assertEquals(expected[i], reader.read());
+		}
+		for (char c : expected) {
+			assertTrue(c >= 'a' && c <= 'c');
+		}
+	}
+
+	@Test
+	public void testOffsetAndSkip()
+	{
+		char[] expected = read(new RandomReader(7, 0, 'x', 'y'), 100);
+		char[] part = read(new RandomReader(7, 33, 'x', 'y'), 67);
+		assertArrayEquals(Arrays.copyOfRange(expected, 33, 100), part);
+		RandomReader reader = new RandomReader(7, 0, 'x', 'y');
+		assertEquals(50, reader.skip(50));
+		assertArrayEquals(Arrays.copyOfRange(expected, 50, 100),
+			read(reader, 50));
+	}
+
+	@Test
+	public void testReadWithOverflowingBounds()
+	{
+		char[] buf = new char[8];
+		try {
+			new RandomReader(7, 0, 'a', 'b').read(buf, 1, Integer.MAX_VALUE);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertArrayEquals(new char[8], buf);
+		}
+	}
+
+	@Test
+	public void testDefaultReader()
+	{
+		char[] chars = read(new RandomReader('a', 'b'), 64);
+		for (char c : chars) {
+			assertTrue(c == 'a' || c == 'b');
+		}
+	}
+
+	private static char[] read(RandomReader reader, int len)
+	{
+		char[] c = new char[len];
+		reader.read(c);
+		return c;
+	}
 }
@@ -0,0 +1,332 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link RecordLog}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class RecordLogTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testAppendAndReplay() throws Exception
+	{
+		RecordLog log = new RecordLog(tmp.newFolder(), 1024, 0);
+		long a1 = log.append(bytes("Hello"));
+		long a2 = log.append(bytes(""));
+		long a3 = log.append(bytes("World!!!"), 0, 5);
+		assertEquals(0, a1);
+		assertEquals(16, a2);
+		assertEquals(24, a3);
+		Recorder recorder = new Recorder();
+		assertEquals(3, log.replay(recorder));
+		assertEquals(listOf("Hello", "", "World"), recorder.records);
+		log.close();
+	}
+
+	@Test
+	public void testRead() throws Exception
+	{
+		RecordLog log = new RecordLog(tmp.newFolder(), 1024, 0);
+		log.append(bytes("Hello"));
+		long address = log.append(bytes("World"));
+		ByteBuffer record = log.read(address);
+		assertTrue(record.isReadOnly());
+		assertEquals("World", string(record));
+		assertNull(log.read(address + 8));
+		assertNull(log.read(address + 1));
+		assertNull(log.read(-8));
+		assertNull(log.read(4096));
+		log.close();
+	}
+
+	@Test
+	public void testReplayFromAddress() throws Exception
+	{
+		RecordLog log = new RecordLog(tmp.newFolder(), 64, 0);
+		List<Long> addresses = new ArrayList<Long>();
+		for (int i = 0; i < 20; i++) {
+			addresses.add(log.append(bytes("record" + i)));
+		}
+		Recorder recorder = new Recorder();
+		assertEquals(5, log.replay(addresses.get(15), recorder));
+		assertEquals("record15", recorder.records.get(0));
+		assertEquals(addresses.subList(15, 20), recorder.addresses);
+		recorder = new Recorder(3);
+		assertEquals(3, log.replay(recorder));
+		assertEquals(listOf("record0", "record1", "record2"),
+			recorder.records);
+		log.close();
+	}
+
+	@Test
+	public void testRolling() throws Exception
+	{
+		File dir = tmp.newFolder();
+		RecordLog log = new RecordLog(dir, 64, 0);
+		for (int i = 0; i < 10; i++) {
+			log.append(new byte[20]);
+		}
+		assertEquals(5, log.getSegmentCount());
+		assertEquals(5, dir.list().length);
+		assertEquals(10, log.replay(new Recorder()));
+		log.close();
+	}
+
+	@Test
+	public void testRetention() throws Exception
+	{
+		File dir = tmp.newFolder();
+		RecordLog log = new RecordLog(dir, 64, 2);
+		for (int i = 0; i < 10; i++) {
+			log.append(bytes("record" + i));
+		}
+		assertEquals(2, log.getSegmentCount());
+		assertEquals(2, dir.list().length);
+		assertEquals(64, log.getStartAddress());
+		Recorder recorder = new Recorder();
+		assertEquals(6, log.replay(0, recorder));
+		assertEquals("record4", recorder.records.get(0));
+		log.close();
+	}
+
+	@Test
+	public void testReopen() throws Exception
+	{
+		File dir = tmp.newFolder();
+		RecordLog log = new RecordLog(dir, 256, 0);
+		log.append(bytes("Hello"));
+		log.append(bytes("World"));
+		log.close();
+		log = new RecordLog(dir, 256, 0);
+		assertEquals(256, log.append(bytes("!")));
+		Recorder recorder = new Recorder();
+		log.replay(recorder);
+		assertEquals(listOf("Hello", "World", "!"), recorder.records);
+		log.close();
+	}
+
+	@Test
+	public void testReplayFarSegment() throws Exception
+	{
+		File dir = tmp.newFolder();
+		RecordLog log = new RecordLog(dir, 256, 0);
+		log.append(bytes("Hello"));
+		log.append(bytes("World"));
+		log.close();
+		long base = 3000000000L;
+		XFiles.cp(new File(dir, String.format("%020d.log", 0)),
+			new File(dir, String.format("%020d.log", base)));
+		log = new RecordLog(dir, 256, 0);
+		assertEquals("World", string(log.read(base + 16)));
+		Recorder recorder = new Recorder();
+		assertEquals(4, log.replay(recorder));
+		assertEquals(listOf("Hello", "World", "Hello", "World"),
+			recorder.records);
+		assertEquals(Long.valueOf(base + 16), recorder.addresses.get(3));
+		log.close();
+	}
+
+	@Test
+	public void testReopenEmptyLog() throws Exception
+	{
+		File dir = tmp.newFolder();
+		new RecordLog(dir, 256, 0).close();
+		RecordLog log = new RecordLog(dir, 256, 0);
+		assertEquals(1, log.getSegmentCount());
+		assertEquals(0, log.replay(new Recorder()));
+		log.close();
+	}
+
+	@Test
+	public void testCorruptedRecord() throws Exception
+	{
+		File dir = tmp.newFolder();
+		RecordLog log = new RecordLog(dir, 256, 0);
+		log.append(bytes("Hello"));
+		long address = log.append(bytes("World"));
+		log.append(bytes("!"));
+		log.close();
+		RandomAccessFile file = new RandomAccessFile(
+			new File(dir, String.format("%020d.log", 0)), "rw");
+		try {
+			file.seek(address + 8);
+			file.write('w');
+		} finally {
+			IO.close(file);
+		}
+		log = new RecordLog(dir, 256, 0);
+		assertNull(log.read(address));
+		log.append(bytes("Bye"));
+		Recorder recorder = new Recorder();
+		log.replay(recorder);
+		assertEquals(listOf("Hello", "!", "Bye"), recorder.records);
+		log.close();
+	}
+
+	@Test
+	public void testUnfinishedRecord() throws Exception
+	{
+		File dir = tmp.newFolder();
+		RecordLog log = new RecordLog(dir, 256, 0);
+		log.append(bytes("Hello"));
+		long address = log.append(bytes("World"));
+		log.close();
+		RandomAccessFile file = new RandomAccessFile(
+			new File(dir, String.format("%020d.log", 0)), "rw");
+		try {
+			file.write(new byte[8]);
+		} finally {
+			IO.close(file);
+		}
+		log = new RecordLog(dir, 256, 0);
+		assertEquals(2, log.getSegmentCount());
+		assertEquals("World", string(log.read(address)));
+		Recorder recorder = new Recorder();
+		log.replay(recorder);
+		assertEquals(listOf("World"), recorder.records);
+		log.close();
+	}
+
+	@Test
+	public void testConcurrentAppends() throws Exception
+	{
+		final RecordLog log = new RecordLog(tmp.newFolder(), 4096, 0);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			final int id = i;
+			Thread t = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try {
+						for (int j = 0; j < 500; j++) {
+							log.append(bytes(id + ":" + j));
+						}
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		log.flush();
+		Recorder recorder = new Recorder();
+		assertEquals(4000, log.replay(recorder));
+		Set<String> records = new HashSet<String>(recorder.records);
+		assertEquals(4000, records.size());
+		assertTrue(records.contains("7:499"));
+		log.close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRecordTooLarge() throws Exception
+	{
+		new RecordLog(tmp.newFolder(), 64, 0).append(new byte[57]);
+	}
+
+	@Test(expected = IOException.class)
+	public void testAppendAfterClose() throws Exception
+	{
+		RecordLog log = new RecordLog(tmp.newFolder(), 64, 0);
+		log.close();
+		log.append(new byte[1]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSegmentSize() throws Exception
+	{
+		new RecordLog(tmp.newFolder(), 8, 0);
+	}
+
+	private static byte[] bytes(String s)
+	{
+		try {
+			return s.getBytes("UTF-8");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String string(ByteBuffer buf)
+	{
+		byte[] b = new byte[buf.remaining()];
+		buf.get(b);
+		try {
+			return new String(b, "UTF-8");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static List<String> listOf(String... values)
+	{
+		List<String> list = new ArrayList<String>();
+		Collections.addAll(list, values);
+		return list;
+	}
+
+	private static final class Recorder implements RecordProcessor
+	{
+		final List<String> records = new ArrayList<String>();
+		final List<Long> addresses = new ArrayList<Long>();
+		private final int max;
+
+		Recorder()
+		{
+			this(Integer.MAX_VALUE);
+		}
+
+		Recorder(int max)
+		{
+			this.max = max;
+		}
+
+		@Override
+		public boolean process(long address, ByteBuffer record)
+		{
+			addresses.add(address);
+			records.add(string(record));
+			return records.size() < max;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ResourceCache}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class ResourceCacheTest
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String DATA = "Hello\nWorld";
+	private static final byte[] DATA_BYTES = DATA.getBytes(UTF_8);
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testFind()
+	{
+		ResourceCache cache = new ResourceCache(1024);
+		Resource r1 = cache.find("org/kocakosm/pitaya/io/resource1.txt");
+		Resource r2 = cache.find("org/kocakosm/pitaya/io/resource1.txt");
+		assertSame(r1, r2);
+		assertEquals(r1, cache.find("resource1.txt", getClass()));
+	}
+
+	@Test(expected = Resource.NotFoundException.class)
+	public void testResourceNotFound()
+	{
+		new ResourceCache(1024).find("resource.txt", getClass());
+	}
+
+	@Test
+	public void testRead() throws Exception
+	{
+		ResourceCache cache = new ResourceCache(1024);
+		Resource resource = cache.find("resource1.txt", getClass());
+		assertArrayEquals(DATA_BYTES, cache.read(resource));
+		assertEquals(DATA, cache.read(resource, UTF_8));
+		assertSame(cache.read(resource, UTF_8), cache.read(resource, UTF_8));
+		assertEquals(Arrays.asList("Hello", "World"),
+			cache.readLines(resource, UTF_8));
+		ByteBuffer view = cache.bytes(resource);
+		assertTrue(view.isReadOnly());
+		assertEquals(DATA_BYTES.length, view.remaining());
+		assertTrue(cache.size() > 0);
+		cache.invalidate(resource);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEviction() throws Exception
+	{
+		File dir = tmp.newFolder();
+		write(new File(dir, "f1.txt"), "abcdefghij");
+		write(new File(dir, "f2.txt"), "klmnopqrst");
+		Resource r1 = find(dir, "f1.txt");
+		Resource r2 = find(dir, "f2.txt");
+		ResourceCache cache = new ResourceCache(30);
+		String s1 = cache.read(r1, UTF_8);
+		assertEquals(20, cache.size());
+		assertEquals("klmnopqrst", cache.read(r2, UTF_8));
+		assertEquals(20, cache.size());
+		assertNotSame(s1, cache.read(r1, UTF_8));
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testFileModification() throws Exception
+	{
+		File dir = tmp.newFolder();
+		File f = write(new File(dir, "f.txt"), "Yesterday");
+		Resource resource = find(dir, "f.txt");
+		ResourceCache cache = new ResourceCache(1024);
+		assertEquals("Yesterday", cache.read(resource, UTF_8));
+		write(f, "Tomorrow");
+		f.setLastModified(f.lastModified() + 10000);
+		assertEquals("Tomorrow", cache.read(resource, UTF_8));
+		assertArrayEquals("Tomorrow".getBytes(UTF_8), cache.read(resource));
+	}
+
+	@Test
+	public void testJarEntry() throws Exception
+	{
+		File jar = writeJar(tmp.newFile("test.jar"), DATA);
+		ResourceCache cache = new ResourceCache(1024);
+		Resource resource = find(jar, "a/b.txt");
+		assertEquals("jar", resource.getURL().getProtocol());
+		ByteBuffer view = cache.bytes(resource);
+		assertEquals(DATA_BYTES.length, view.remaining());
+		assertEquals(DATA_BYTES.length, cache.size());
+		assertEquals(Arrays.asList("Hello", "World"),
+			cache.readLines(resource, UTF_8));
+		assertEquals(DATA, cache.read(resource, UTF_8));
+		String update = "Let It Be, Let It Be, Let It Be, Let It Be";
+		writeJar(jar, update);
+		jar.setLastModified(jar.lastModified() + 10000);
+		assertEquals(update, cache.read(resource, UTF_8));
+		assertEquals(Arrays.asList(update), cache.readLines(resource, UTF_8));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCapacity()
+	{
+		new ResourceCache(-1);
+	}
+
+	private static Resource find(File root, String name) throws Exception
+	{
+		URL[] path = {root.toURI().toURL()};
+		Thread current = Thread.currentThread();
+		ClassLoader loader = current.getContextClassLoader();
+		current.setContextClassLoader(new URLClassLoader(path, null));
+		try {
+			return Resource.find(name);
+		} finally {
+			current.setContextClassLoader(loader);
+		}
+	}
+
+	private static File writeJar(File f, String data) throws Exception
+	{
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(f));
+		try {
+			out.putNextEntry(new JarEntry("a/b.txt"));
+			out.write(data.getBytes(UTF_8));
+			out.closeEntry();
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	private static File write(File f, String data) throws Exception
+	{
+		OutputStream out = new FileOutputStream(f);
+		try {
+			out.write(data.getBytes(UTF_8));
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+}
@@ -31,6 +31,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.Charset;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -60,6 +61,27 @@ public final class ScanfTest
 		assertEquals(s, Scanf.readString());
 	}
 
+	@Test
+	public void testConsecutiveReads() throws IOException
+	{
+		write("Hey\nJude\n42");
+		assertEquals("Hey", Scanf.readString());
+		assertEquals("Jude", Scanf.readString());
+		assertEquals(42, Scanf.readInt());
+		assertNull(Scanf.readString());
+	}
+
+	@Test
+	public void testReadStringUTF16() throws IOException
+	{
+		Charset utf16 = Charset.forName("UTF-16LE");
+		stdIn.write("Hey\nJude\n".getBytes(utf16));
+		stdIn.close();
+		assertEquals("Hey", Scanf.readString(utf16));
+		assertEquals("Jude", Scanf.readString(utf16));
+		assertNull(Scanf.readString(utf16));
+	}
+
 	@Test
 	public void testReadBooleanTrue() throws IOException
 	{
@@ -18,6 +18,8 @@ package org.kocakosm.pitaya.io;
 
 import static org.junit.Assert.*;
 
+import org.kocakosm.pitaya.charset.Charsets;
+import org.kocakosm.pitaya.collection.Iterables;
 import org.kocakosm.pitaya.util.Strings;
 import org.kocakosm.pitaya.util.XArrays;
 
@@ -34,8 +36,17 @@ import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -93,6 +104,254 @@ public final class TextFilesTest
 		assertArrayEquals(XArrays.copyOf(lines, 4, 1), head.toArray());
 	}
 
+	@Test
+	public void testTailWithSeparators() throws Exception
+	{
+		File test = tmp.newFolder();
+		File src = createFile(test, "data", "a\nb\r\nc\rd\r\n");
+		assertEquals(Arrays.asList("c", "d"), TextFiles.tail(src, 2));
+		assertEquals(Arrays.asList("a", "b", "c", "d"),
+			TextFiles.tail(src, 10));
+		src = createFile(test, "data", "a\n\nb");
+		assertEquals(Arrays.asList("", "b"), TextFiles.tail(src, 2));
+		src = createFile(test, "data", "\n");
+		assertEquals(Arrays.asList(""), TextFiles.tail(src, 2));
+		src = createFile(test, "data", "");
+		assertEquals(Arrays.asList(), TextFiles.tail(src, 2));
+		assertEquals(Arrays.asList(), TextFiles.tail(src, 0));
+	}
+
+	@Test
+	public void testTailLargeFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append("line \u00e9\u20ac ").append(i).append('\n');
+		}
+		File src = new File(test, "data");
+		write(sb.toString(), src, Charsets.UTF_8);
+		List<String> tail = TextFiles.tail(src, 3000, Charsets.UTF_8);
+		assertEquals(3000, tail.size());
+		assertEquals("line \u00e9\u20ac 2000", tail.get(0));
+		assertEquals("line \u00e9\u20ac 4999", tail.get(2999));
+	}
+
+	@Test
+	public void testTailUTF16() throws Exception
+	{
+		File test = tmp.newFolder();
+		File src = new File(test, "data");
+		write("\u0a0d\n\u0d0a\r\nlast", src, Charsets.UTF_16LE);
+		assertEquals(Arrays.asList("\u0d0a", "last"),
+			TextFiles.tail(src, 2, Charsets.UTF_16LE));
+	}
+
+	@Test
+	public void testLines() throws Exception
+	{
+		File test = tmp.newFolder();
+		String[] lines = randomStrings(15);
+		File src = createFile(test, "data", lines);
+		LineIterable iterable = TextFiles.lines(src);
+		assertEquals(Arrays.asList(lines), Iterables.toList(iterable));
+		assertEquals(Arrays.asList(lines), Iterables.toList(iterable));
+		iterable.close();
+	}
+
+	@Test
+	public void testLinesClosesExhaustedIterators() throws Exception
+	{
+		File fds = new File("/proc/self/fd");
+		if (!fds.isDirectory()) {
+			return;
+		}
+		File src = createFile(tmp.newFolder(), "data", randomStrings(15));
+		LineIterable iterable = TextFiles.lines(src);
+		int before = fds.list().length;
+		for (int i = 0; i < 100; i++) {
+			assertEquals(15, Iterables.toList(iterable).size());
+		}
+		assertTrue(fds.list().length < before + 10);
+		iterable.close();
+	}
+
+	@Test
+	public void testForEachLine() throws Exception
+	{
+		File test = tmp.newFolder();
+		String[] lines = randomStrings(15);
+		File src = createFile(test, "data", lines);
+		final List<String> read = new ArrayList<String>();
+		long count = TextFiles.forEachLine(src, new LineProcessor()
+		{
+			@Override
+			public boolean process(CharSequence line)
+			{
+				read.add(line.toString());
+				return true;
+			}
+		});
+		assertEquals(15, count);
+		assertEquals(Arrays.asList(lines), read);
+	}
+
+	@Test
+	public void testParallelForEachLine() throws Exception
+	{
+		File src = createLargeFile(tmp.newFolder());
+		final Set<String> read = Collections.synchronizedSet(
+			new HashSet<String>());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			long count = TextFiles.forEachLine(src, Charsets.UTF_8,
+				new LineProcessor()
+				{
+					@Override
+					public boolean process(CharSequence line)
+					{
+						read.add(line.toString());
+						return true;
+					}
+				}, executor);
+			assertEquals(200000, count);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(200000, read.size());
+		assertTrue(read.contains("line \u00e9\u20ac 0"));
+		assertTrue(read.contains("line \u00e9\u20ac 199999"));
+	}
+
+	@Test
+	public void testParallelForEachLineStop() throws Exception
+	{
+		File src = createLargeFile(tmp.newFolder());
+		final AtomicInteger read = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			long count = TextFiles.forEachLine(src, Charsets.UTF_8,
+				new LineProcessor()
+				{
+					@Override
+					public boolean process(CharSequence line)
+					{
+						return read.incrementAndGet() < 10;
+					}
+				}, executor);
+			assertEquals(read.get(), count);
+			assertTrue(count < 200000);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testMapLines() throws Exception
+	{
+		File src = createLargeFile(tmp.newFolder());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Integer> numbers = TextFiles.mapLines(src,
+				Charsets.UTF_8, new LineMapper<Integer>()
+				{
+					@Override
+					public Integer map(CharSequence line)
+					{
+						String s = line.toString();
+						int n = Integer.parseInt(
+							s.substring(s.lastIndexOf(' ') + 1));
+						return n % 2 == 0 ? n : null;
+					}
+				}, executor);
+			assertEquals(100000, numbers.size());
+			for (int i = 0; i < numbers.size(); i++) {
+				assertEquals(2 * i, numbers.get(i).intValue());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testMapLinesUTF16() throws Exception
+	{
+		File test = tmp.newFolder();
+		File src = new File(test, "data");
+		write("\u0a0d\n\u0d0a\r\nlast", src, Charsets.UTF_16LE);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			assertEquals(Arrays.asList("\u0a0d", "\u0d0a", "last"),
+				TextFiles.mapLines(src, Charsets.UTF_16LE,
+				new LineMapper<String>()
+				{
+					@Override
+					public String map(CharSequence line)
+					{
+						return line.toString();
+					}
+				}, executor));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testMapLinesWithDefaultExecutor() throws Exception
+	{
+		File src = createLargeFile(tmp.newFolder());
+		List<String> lines = TextFiles.mapLines(src, Charsets.UTF_8,
+			new LineMapper<String>()
+			{
+				@Override
+				public String map(CharSequence line)
+				{
+					return line.toString();
+				}
+			});
+		assertEquals(200000, lines.size());
+		assertEquals("line \u00e9\u20ac 0", lines.get(0));
+		assertEquals("line \u00e9\u20ac 199999", lines.get(199999));
+	}
+
+	@Test(expected = IOException.class)
+	public void testMapLinesPropagatesIOException() throws Exception
+	{
+		File src = createLargeFile(tmp.newFolder());
+		TextFiles.mapLines(src, Charsets.UTF_8, new LineMapper<String>()
+		{
+			@Override
+			public String map(CharSequence line) throws IOException
+			{
+				throw new IOException();
+			}
+		});
+	}
+
+	@Test
+	public void testFollow() throws Exception
+	{
+		File test = tmp.newFolder();
+		File src = createFile(test, "data", "old\n");
+		FileFollower follower = TextFiles.follow(src, Charsets.UTF_8,
+			10, TimeUnit.MILLISECONDS);
+		try {
+			assertNull(follower.poll());
+			append("new\r\nline \u20ac", src);
+			assertEquals("new", follower.readLine());
+			assertNull(follower.poll());
+			append("\r", src);
+			assertNull(follower.poll());
+			append("\n", src);
+			assertEquals("line \u20ac", follower.readLine());
+			write("truncated\n", src, Charsets.UTF_8);
+			assertEquals("truncated", follower.readLine());
+		} finally {
+			follower.close();
+		}
+		assertNull(follower.readLine());
+	}
+
 	@Test
 	public void testNewReader() throws Exception
 	{
@@ -195,6 +454,18 @@ public final class TextFilesTest
 		TextFiles.newWriter(f, WriteOption.OVERWRITE, WriteOption.APPEND);
 	}
 
+	@Test
+	public void testWriteAtomically() throws Exception
+	{
+		File test = tmp.newFolder();
+		File txt = createFile(test, "hello.txt", "Hello");
+		TextFiles.writeAtomically(txt, "H\u00e9llo", Charsets.UTF_8);
+		assertEquals("H\u00e9llo", TextFiles.read(txt, Charsets.UTF_8));
+		TextFiles.writeAtomically(txt, "World", Charsets.UTF_8);
+		assertEquals("World", TextFiles.read(txt, Charsets.UTF_8));
+		assertEquals(1, test.list().length);
+	}
+
 	@Test
 	public void testRead() throws Exception
 	{
@@ -251,6 +522,39 @@ public final class TextFilesTest
 		return f;
 	}
 
+	private File createLargeFile(File dir) throws Exception
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 200000; i++) {
+			sb.append("line \u00e9\u20ac ").append(i);
+			sb.append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		File f = new File(dir, "data");
+		write(sb.toString(), f, Charsets.UTF_8);
+		return f;
+	}
+
+	private void write(String data, File f, Charset charset)
+		throws Exception
+	{
+		OutputStream out = new FileOutputStream(f);
+		try {
+			out.write(data.getBytes(charset));
+		} finally {
+			IO.close(out);
+		}
+	}
+
+	private void append(String data, File f) throws Exception
+	{
+		OutputStream out = new FileOutputStream(f, true);
+		try {
+			out.write(data.getBytes(Charsets.UTF_8));
+		} finally {
+			IO.close(out);
+		}
+	}
+
 	private String read(File f) throws Exception
 	{
 		InputStream in = null;
@@ -0,0 +1,64 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * {@link ThrottledOutputStream}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class ThrottledOutputStreamTest
+{
+	@Test
+	public void testWrite() throws IOException
+	{
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		TokenBucket bucket = new TokenBucket(1000000, 3);
+		ThrottledOutputStream out = new ThrottledOutputStream(data, bucket);
+		out.write(1);
+		out.write(new byte[] {2, 3, 4, 5, 6, 7, 8}, 1, 5);
+		out.flush();
+		out.close();
+		assertArrayEquals(new byte[] {1, 3, 4, 5, 6, 7}, data.toByteArray());
+	}
+
+	@Test
+	public void testThrottling() throws IOException
+	{
+		TokenBucket bucket = new TokenBucket(10000, 100);
+		ThrottledOutputStream out = new ThrottledOutputStream(
+			new ByteArrayOutputStream(), bucket);
+		long start = System.nanoTime();
+		out.write(new byte[1100]);
+		assertTrue(System.nanoTime() - start >= 100000000L);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testInvalidOffset() throws IOException
+	{
+		ThrottledOutputStream out = new ThrottledOutputStream(
+			new ByteArrayOutputStream(), new TokenBucket(10));
+		out.write(new byte[4], 3, 2);
+	}
+}
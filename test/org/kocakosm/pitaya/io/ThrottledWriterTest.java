@@ -0,0 +1,63 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * {@link ThrottledWriter}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class ThrottledWriterTest
+{
+	@Test
+	public void testWrite() throws IOException
+	{
+		StringWriter data = new StringWriter();
+		TokenBucket bucket = new TokenBucket(1000000, 3);
+		ThrottledWriter out = new ThrottledWriter(data, bucket);
+		out.write('H');
+		out.write("Hey Jude".toCharArray(), 1, 5);
+		out.write("Jude", 1, 2);
+		out.flush();
+		out.close();
+		assertEquals("Hey Juud", data.toString());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOverflowingCharArrayBounds() throws IOException
+	{
+		ThrottledWriter out = new ThrottledWriter(new StringWriter(),
+			new TokenBucket(10));
+		out.write(new char[4], 1, Integer.MAX_VALUE);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOverflowingStringBounds() throws IOException
+	{
+		ThrottledWriter out = new ThrottledWriter(new StringWriter(),
+			new TokenBucket(10));
+		out.write("Jude", 1, Integer.MAX_VALUE);
+	}
+}
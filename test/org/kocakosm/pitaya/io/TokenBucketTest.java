@@ -0,0 +1,105 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * {@link TokenBucket}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class TokenBucketTest
+{
+	private static final long SECOND = 1000000000L;
+
+	@Test
+	public void testBurst()
+	{
+		TokenBucket bucket = new TokenBucket(100, 50, 0);
+		assertEquals(50, bucket.getBurst());
+		assertEquals(100, bucket.getRate());
+		assertTrue(bucket.tryAcquire(50, 0));
+		assertFalse(bucket.tryAcquire(1, 0));
+	}
+
+	@Test
+	public void testRefill()
+	{
+		TokenBucket bucket = new TokenBucket(100, 50, 0);
+		assertTrue(bucket.tryAcquire(50, 0));
+		assertFalse(bucket.tryAcquire(11, SECOND / 10));
+		assertTrue(bucket.tryAcquire(10, SECOND / 10));
+		assertTrue(bucket.tryAcquire(50, 10 * SECOND));
+		assertFalse(bucket.tryAcquire(1, 10 * SECOND));
+	}
+
+	@Test
+	public void testReserve()
+	{
+		TokenBucket bucket = new TokenBucket(100, 100, 0);
+		assertEquals(0, bucket.reserve(100, 0));
+		assertEquals(SECOND / 2, bucket.reserve(50, 0));
+		assertEquals(SECOND, bucket.reserve(50, 0));
+		assertEquals(SECOND / 2, bucket.reserve(0, SECOND / 2));
+		assertFalse(bucket.tryAcquire(1, SECOND));
+		assertTrue(bucket.tryAcquire(1, SECOND + SECOND / 100));
+	}
+
+	@Test
+	public void testSetRate()
+	{
+		TokenBucket bucket = new TokenBucket(100, 1000, 0);
+		assertTrue(bucket.tryAcquire(1000, 0));
+		bucket.setRate(1000, SECOND);
+		assertEquals(1000, bucket.getRate());
+		assertTrue(bucket.tryAcquire(100, SECOND));
+		assertFalse(bucket.tryAcquire(1, SECOND));
+		assertTrue(bucket.tryAcquire(1000, 2 * SECOND));
+	}
+
+	@Test
+	public void testAcquire() throws Exception
+	{
+		TokenBucket bucket = new TokenBucket(1000, 10);
+		long start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			bucket.acquire(10);
+		}
+		assertTrue(System.nanoTime() - start >= 80 * SECOND / 1000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRate()
+	{
+		new TokenBucket(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBurst()
+	{
+		new TokenBucket(10, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeAcquire()
+	{
+		new TokenBucket(10).tryAcquire(-1);
+	}
+}
@@ -0,0 +1,208 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+package org.kocakosm.pitaya.io;
+
+import static org.junit.Assert.*;
+
+import org.kocakosm.pitaya.charset.Charsets;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * {@link TokenScanner}'s unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class TokenScannerTest
+{
+	@Test
+	public void testTokens() throws IOException
+	{
+		TokenScanner in = scanner("  Come\tTogether\r\n\nRight  Now ");
+		assertTrue(in.hasNext());
+		assertTrue(in.hasNext());
+		assertEquals("Come", in.next());
+		assertEquals("Together", in.next());
+		assertEquals("Right", in.next());
+		assertEquals("Now", in.next());
+		assertFalse(in.hasNext());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testNoMoreTokens() throws IOException
+	{
+		scanner(" \n ").next();
+	}
+
+	@Test
+	public void testLineMode() throws IOException
+	{
+		TokenScanner in = new TokenScanner(stream("Come Together\r\n\r\nRight Now"),
+			TokenScanner.Mode.LINE);
+		assertEquals("Come Together", in.next());
+		assertEquals("Right Now", in.next());
+		assertFalse(in.hasNext());
+	}
+
+	@Test
+	public void testNextInt() throws IOException
+	{
+		TokenScanner in = scanner("0 -1 +42 2147483647 -2147483648");
+		assertEquals(0, in.nextInt());
+		assertEquals(-1, in.nextInt());
+		assertEquals(42, in.nextInt());
+		assertEquals(Integer.MAX_VALUE, in.nextInt());
+		assertEquals(Integer.MIN_VALUE, in.nextInt());
+	}
+
+	@Test
+	public void testInvalidInt() throws IOException
+	{
+		TokenScanner in = scanner("2147483648 - 12a -2147483649 7");
+		for (int i = 0; i < 4; i++) {
+			try {
+				in.nextInt();
+				fail();
+			} catch (NumberFormatException e) {
+				/* Expected. */
+			}
+		}
+		assertEquals(7, in.nextInt());
+	}
+
+	@Test
+	public void testNextLong() throws IOException
+	{
+		TokenScanner in = scanner("9223372036854775807 -9223372036854775808 -5");
+		assertEquals(Long.MAX_VALUE, in.nextLong());
+		assertEquals(Long.MIN_VALUE, in.nextLong());
+		assertEquals(-5L, in.nextLong());
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testLongOverflow() throws IOException
+	{
+		scanner("9223372036854775808").nextLong();
+	}
+
+	@Test
+	public void testNextDouble() throws IOException
+	{
+		String[] values = {
+			"0", "-0", "1.5", "-.25", "3.", "0.1", "123456.789e-3", "1E22",
+			"1e-22", "6.02214076e23", "4.9e-324", "12345678901234567890",
+			"0.30000000000000004", "NaN", "-Infinity", "0x1p3", "2d"
+		};
+		StringBuilder sb = new StringBuilder();
+		for (String value : values) {
+			sb.append(value).append(' ');
+		}
+		TokenScanner in = scanner(sb.toString());
+		for (String value : values) {
+			double expected = Double.parseDouble(value);
+			assertEquals(Double.doubleToLongBits(expected),
+				Double.doubleToLongBits(in.nextDouble()));
+		}
+	}
+
+	@Test
+	public void testRandomDoubles() throws IOException
+	{
+		Random rnd = new Random();
+		double[] values = new double[1000];
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.round(rnd.nextDouble() * 1e6) / 1e3;
+			sb.append(values[i]).append('\n');
+		}
+		TokenScanner in = scanner(sb.toString());
+		for (double value : values) {
+			assertEquals(value, in.nextDouble(), 0);
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testInvalidDouble() throws IOException
+	{
+		scanner("1.2.3").nextDouble();
+	}
+
+	@Test
+	public void testSmallBuffer() throws IOException
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append(i * 1000003L).append(i % 7 == 0 ? "\r\n" : " ");
+		}
+		sb.append("a-very-long-token-that-does-not-fit-in-the-buffer");
+		TokenScanner in = new TokenScanner(stream(sb.toString()),
+			TokenScanner.Mode.WHITESPACE, Charsets.UTF_8, 3);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i * 1000003L, in.nextLong());
+		}
+		assertEquals("a-very-long-token-that-does-not-fit-in-the-buffer",
+			in.next());
+		assertFalse(in.hasNext());
+	}
+
+	@Test
+	public void testNextLine() throws IOException
+	{
+		TokenScanner in = new TokenScanner(stream("42 is\r\nthe answer\n"),
+			TokenScanner.Mode.WHITESPACE, Charsets.UTF_8, 4);
+		assertEquals(42, in.nextInt());
+		assertEquals(" is", in.nextLine());
+		assertTrue(in.hasNext());
+		assertEquals("the answer", in.nextLine());
+		assertNull(in.nextLine());
+	}
+
+	@Test
+	public void testCharset() throws IOException
+	{
+		byte[] bytes = "caf\u00e9 cr\u00e8me".getBytes(Charsets.UTF_8);
+		TokenScanner in = new TokenScanner(new ByteArrayInputStream(bytes),
+			TokenScanner.Mode.WHITESPACE, Charsets.UTF_8, 16);
+		assertEquals("caf\u00e9", in.next());
+		assertEquals("cr\u00e8me", in.next());
+	}
+
+	@Test
+	public void testClose() throws IOException
+	{
+		TokenScanner in = scanner("1 2");
+		assertEquals(1, in.nextInt());
+		in.close();
+		assertFalse(in.hasNext());
+	}
+
+	private static TokenScanner scanner(String data)
+	{
+		return new TokenScanner(stream(data));
+	}
+
+	private static InputStream stream(String data)
+	{
+		return new ByteArrayInputStream(data.getBytes(Charsets.US_ASCII));
+	}
+}
@@ -19,6 +19,7 @@ package org.kocakosm.pitaya.io;
 import static org.junit.Assert.*;
 
 import org.kocakosm.pitaya.charset.ASCII;
+import org.kocakosm.pitaya.util.XArrays;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -130,6 +131,70 @@ public final class XFilesTest
 		assertArrayEquals(data, read(dst));
 	}
 
+	@Test
+	public void testCopyLargeFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		byte[] data = new byte[1024 * 1024 + 17];
+		PRNG.nextBytes(data);
+		File src = createFile(test, "data.bin", data);
+		File dst = createFile(test, "copy.bin", ascii("Hello"));
+		XFiles.cp(src, dst);
+		assertArrayEquals(data, read(dst));
+	}
+
+	@Test
+	public void testCopyFileToFileStream() throws Exception
+	{
+		File test = tmp.newFolder();
+		byte[] data = ascii("Hello");
+		File src = createFile(test, "hello.txt", data);
+		File dst = new File(test, "out.txt");
+		FileOutputStream out = new FileOutputStream(dst);
+		try {
+			out.write(ascii(">"));
+			XFiles.cp(src, out);
+		} finally {
+			out.close();
+		}
+		assertArrayEquals(ascii(">Hello"), read(dst));
+	}
+
+	@Test
+	public void testCopyFileStreamToFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		File src = createFile(test, "hello.txt", ascii("Hello World"));
+		File dst = new File(test, "world.txt");
+		FileInputStream in = new FileInputStream(src);
+		try {
+			in.skip(6);
+			XFiles.cp(in, dst);
+		} finally {
+			in.close();
+		}
+		assertArrayEquals(ascii("World"), read(dst));
+	}
+
+	@Test
+	public void testCopyPipeStreamToFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		byte[] data = randomData(100000);
+		File pipe = NamedPipes.create(test, "pipe", data);
+		if (pipe == null) {
+			return;
+		}
+		File dst = new File(test, "out");
+		FileInputStream in = new FileInputStream(pipe);
+		try {
+			XFiles.cp(in, dst);
+		} finally {
+			in.close();
+		}
+		assertArrayEquals(data, read(dst));
+	}
+
 	@Test
 	public void testEqual() throws Exception
 	{
@@ -155,6 +220,22 @@ public final class XFilesTest
 		assertFalse(XFiles.equal(test1, test2));
 	}
 
+	@Test
+	public void testEqualFilesReportingNoSize() throws Exception
+	{
+		File version = new File("/proc/version");
+		File status = new File("/proc/self/status");
+		if (!version.isFile() || version.length() != 0) {
+			return;
+		}
+		assertFalse(XFiles.equal(version, status));
+		File test = tmp.newFolder();
+		File copy = createFile(test, "version", XFiles.read(version));
+		assertTrue(XFiles.equal(version, copy));
+		assertTrue(XFiles.equal(copy, version));
+		assertFalse(XFiles.equal(copy, status));
+	}
+
 	@Test
 	public void testHead() throws Exception
 	{
@@ -165,6 +246,38 @@ public final class XFilesTest
 		assertArrayEquals(Arrays.copyOf(data, 512), head);
 	}
 
+	@Test
+	public void testHeadOfSmallFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		File src = createFile(test, "data", ascii("Hello"));
+		assertArrayEquals(ascii("Hello"), XFiles.head(src));
+		assertArrayEquals(ascii("He"), XFiles.head(src, 2));
+		File empty = createFile(test, "empty", new byte[0]);
+		assertArrayEquals(new byte[0], XFiles.head(empty));
+	}
+
+	@Test
+	public void testHeadOfLargeFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		byte[] data = randomData(100000);
+		File src = createFile(test, "data", data);
+		assertArrayEquals(data, XFiles.head(src, 200000));
+		assertArrayEquals(Arrays.copyOf(data, 50000),
+			XFiles.head(src, 50000));
+	}
+
+	@Test
+	public void testHeadOfFileReportingNoSize() throws Exception
+	{
+		File status = new File("/proc/self/status");
+		if (!status.isFile() || status.length() != 0) {
+			return;
+		}
+		Assert.assertEquals(50, XFiles.head(status, 50).length);
+	}
+
 	@Test
 	public void testCreateDirectory() throws Exception
 	{
@@ -472,6 +585,32 @@ public final class XFilesTest
 		XFiles.newOutputStream(f, WriteOption.OVERWRITE, WriteOption.APPEND);
 	}
 
+	@Test
+	public void testWriteAtomically() throws Exception
+	{
+		File test = tmp.newFolder();
+		File txt = createFile(test, "hello.txt", ascii("Hello"));
+		XFiles.writeAtomically(txt, ascii("Hello World"));
+		assertArrayEquals(ascii("Hello World"), XFiles.read(txt));
+		XFiles.writeAtomically(new File(test, "new.txt"), ascii("!"));
+		assertArrayEquals(ascii("!"), XFiles.read(new File(test, "new.txt")));
+		Assert.assertEquals(2, test.list().length);
+	}
+
+	@Test
+	public void testWriteAtomicallyNullData() throws Exception
+	{
+		File test = tmp.newFolder();
+		File txt = createFile(test, "hello.txt", ascii("Hello"));
+		try {
+			XFiles.writeAtomically(txt, null);
+			fail();
+		} catch (NullPointerException e) {
+			assertArrayEquals(ascii("Hello"), XFiles.read(txt));
+			Assert.assertEquals(1, test.list().length);
+		}
+	}
+
 	@Test
 	public void testRead() throws Exception
 	{
@@ -480,6 +619,34 @@ public final class XFilesTest
 		assertArrayEquals(ascii("Hello"), XFiles.read(txt));
 	}
 
+	@Test
+	public void testReadLargeFile() throws Exception
+	{
+		File test = tmp.newFolder();
+		byte[] data = randomData(3 * 1024 * 1024 + 5);
+		File src = createFile(test, "data", data);
+		assertArrayEquals(data, XFiles.read(src));
+	}
+
+	@Test
+	public void testEqualLargeFiles() throws Exception
+	{
+		File test = tmp.newFolder();
+		byte[] data = randomData(3 * 1024 * 1024 + 5);
+		File f1 = createFile(test, "f1", data);
+		File f2 = createFile(test, "f2", data);
+		assertTrue(XFiles.equal(f1, f2));
+		data[data.length - 1]++;
+		File f3 = createFile(test, "f3", data);
+		assertFalse(XFiles.equal(f1, f3));
+		data[data.length - 1]--;
+		data[data.length / 2]++;
+		File f4 = createFile(test, "f4", data);
+		assertFalse(XFiles.equal(f1, f4));
+		File f5 = createFile(test, "f5", XArrays.copyOf(data, 0, 1000));
+		assertFalse(XFiles.equal(f1, f5));
+	}
+
 	@Test
 	public void testConstructor() throws Exception
 	{
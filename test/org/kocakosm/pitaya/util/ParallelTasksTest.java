@@ -0,0 +1,140 @@
+/*----------------------------------------------------------------------------*
+ * This file is part of Pitaya.                                               *
+ * Copyright (C) 2012-2016 Osman KOCAK <kocakosm@gmail.com>                   *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify it    *
+ * under the terms of the GNU Lesser General Public License as published by   *
+ * the Free Software Foundation, either version 3 of the License, or (at your *
+ * option) any later version.                                                 *
+ * This program is distributed in the hope that it will be useful, but        *
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY *
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public     *
+ * License for more details.                                                  *
+ * You should have received a copy of the GNU Lesser General Public License   *
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.       *
+ *----------------------------------------------------------------------------*/
+
+
+package org.kocakosm.pitaya.util;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+
+/**
+ * {@link ParallelTasks}' unit tests.
+ *
+ * @author Osman KOCAK
+ */
+public final class ParallelTasksTest
+{
+	@Test
+	public void testSplit()
+	{
+		assertArrayEquals(new int[] {0, 0}, ParallelTasks.split(0, 10, 4));
+		assertArrayEquals(new int[] {0, 15}, ParallelTasks.split(15, 10, 4));
+		assertArrayEquals(new int[] {0, 10, 20, 30},
+			ParallelTasks.split(30, 10, 4));
+		assertArrayEquals(new int[] {0, 25, 50, 75, 100},
+			ParallelTasks.split(100, 10, 4));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSplitWithInvalidThreshold()
+	{
+		ParallelTasks.split(100, 0, 4);
+	}
+
+	@Test
+	public void testInvokeAll()
+	{
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < 10; i++) {
+			tasks.add(constant(i));
+		}
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9),
+			ParallelTasks.invokeAll(ParallelTasks.defaultExecutor(), tasks));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testInvokeAllPropagatesErrors()
+	{
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		tasks.add(constant(1));
+		tasks.add(new Callable<Integer>()
+		{
+			@Override
+			public Integer call()
+			{
+				throw new IllegalStateException();
+			}
+		});
+		ParallelTasks.invokeAll(ParallelTasks.defaultExecutor(), tasks);
+	}
+
+	@Test(timeout = 60000)
+	public void testNestedCallsOnDefaultExecutor()
+	{
+		final ExecutorService executor = ParallelTasks.defaultExecutor();
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (int i = 0; i < 4 * ParallelTasks.PARALLELISM; i++) {
+			tasks.add(new Callable<Boolean>()
+			{
+				@Override
+				public Boolean call()
+				{
+					Long[] a = random(4 * XArrays.PARALLEL_SORT_THRESHOLD);
+					Long[] expected = a.clone();
+					Arrays.sort(expected);
+					XArrays.parallelSort(a, executor);
+					return Arrays.equals(expected, a);
+				}
+			});
+		}
+		List<Boolean> results = ParallelTasks.invokeAll(executor, tasks);
+		assertEquals(Collections.nCopies(tasks.size(), true), results);
+	}
+
+	@Test
+	public void testConstructor() throws Exception
+	{
+		Class<ParallelTasks> c = ParallelTasks.class;
+		assertEquals(1, c.getDeclaredConstructors().length);
+		Constructor<ParallelTasks> constructor = c.getDeclaredConstructor();
+		assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+		constructor.setAccessible(true);
+		constructor.newInstance();
+	}
+
+	private Callable<Integer> constant(final int value)
+	{
+		return new Callable<Integer>()
+		{
+			@Override
+			public Integer call()
+			{
+				return value;
+			}
+		};
+	}
+
+	private Long[] random(int n)
+	{
+		Random random = new Random();
+		Long[] a = new Long[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = random.nextLong();
+		}
+		return a;
+	}
+}
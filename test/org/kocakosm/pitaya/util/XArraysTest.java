@@ -776,6 +776,136 @@ public final class XArraysTest
 		assertArrayEquals(sorted, sort(a, c));
 	}
 
+	@Test
+	public void testParallelSortLongArray()
+	{
+		long[] a = new long[5 * PARALLEL_SORT_THRESHOLD + 3];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = PRNG.nextLong();
+		}
+		long[] sorted = sort(a);
+		parallelSort(a);
+		assertArrayEquals(sorted, a);
+	}
+
+	@Test
+	public void testParallelSortIntArray()
+	{
+		int[] a = new int[5 * PARALLEL_SORT_THRESHOLD + 3];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = PRNG.nextInt();
+		}
+		int[] sorted = sort(a);
+		parallelSort(a);
+		assertArrayEquals(sorted, a);
+	}
+
+	@Test
+	public void testParallelSortShortArray()
+	{
+		short[] a = new short[5 * PARALLEL_SORT_THRESHOLD + 3];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = (short) PRNG.nextInt();
+		}
+		short[] sorted = sort(a);
+		parallelSort(a);
+		assertArrayEquals(sorted, a);
+	}
+
+	@Test
+	public void testParallelSortCharArray()
+	{
+		char[] a = new char[5 * PARALLEL_SORT_THRESHOLD + 3];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = (char) PRNG.nextInt();
+		}
+		char[] sorted = sort(a);
+		parallelSort(a);
+		assertArrayEquals(sorted, a);
+	}
+
+	@Test
+	public void testParallelSortByteArray()
+	{
+		byte[] a = new byte[5 * PARALLEL_SORT_THRESHOLD + 3];
+		PRNG.nextBytes(a);
+		byte[] sorted = sort(a);
+		parallelSort(a);
+		assertArrayEquals(sorted, a);
+	}
+
+	@Test
+	public void testParallelSortFloatArray()
+	{
+		float[] a = new float[5 * PARALLEL_SORT_THRESHOLD + 3];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = PRNG.nextFloat() - 0.5f;
+		}
+		a[0] = Float.NaN;
+		a[1] = -0.0f;
+		a[2] = 0.0f;
+		float[] sorted = sort(a);
+		parallelSort(a);
+		assertTrue(Arrays.equals(sorted, a));
+	}
+
+	@Test
+	public void testParallelSortDoubleArray()
+	{
+		double[] a = new double[5 * PARALLEL_SORT_THRESHOLD + 3];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = PRNG.nextDouble() - 0.5;
+		}
+		a[0] = Double.NaN;
+		a[1] = -0.0;
+		a[2] = 0.0;
+		double[] sorted = sort(a);
+		parallelSort(a);
+		assertTrue(Arrays.equals(sorted, a));
+	}
+
+	@Test
+	public void testParallelSortSmallArray()
+	{
+		int[] a = new int[] {5, 3, 1, 4, 2};
+		parallelSort(a);
+		assertArrayEquals(new int[] {1, 2, 3, 4, 5}, a);
+	}
+
+	@Test
+	public void testParallelSortObjectArray()
+	{
+		Integer[] a = new Integer[5 * PARALLEL_SORT_THRESHOLD + 3];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = PRNG.nextInt();
+		}
+		Integer[] sorted = sort(a);
+		parallelSort(a);
+		assertArrayEquals(sorted, a);
+	}
+
+	@Test
+	public void testParallelSortObjectArrayWithComparatorIsStable()
+	{
+		Comparator<long[]> c = new Comparator<long[]>()
+		{
+			@Override
+			public int compare(long[] a, long[] b)
+			{
+				return a[0] < b[0] ? -1 : a[0] > b[0] ? 1 : 0;
+			}
+		};
+		long[][] a = new long[5 * PARALLEL_SORT_THRESHOLD + 3][];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = new long[] {PRNG.nextInt(16), i};
+		}
+		parallelSort(a, c);
+		for (int i = 1; i < a.length; i++) {
+			assertTrue(a[i - 1][0] < a[i][0]
+				|| a[i - 1][0] == a[i][0] && a[i - 1][1] < a[i][1]);
+		}
+	}
+
 	@Test
 	public void testToPrimitiveLongArray()
 	{